@@ -0,0 +1,88 @@
+package com.logistics.benchmark;
+
+import com.logistics.common.Result;
+import com.logistics.controller.AdminController;
+import com.logistics.dto.OrderStatusStat;
+import com.logistics.dto.RoleCount;
+import com.logistics.mapper.OrderMapper;
+import com.logistics.mapper.UserMapper;
+import com.logistics.mapper.WarehouseMapper;
+import com.logistics.service.AdminStatsService;
+import com.logistics.service.impl.AdminStatsServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 管理员数据概览基准：GET /admin/stats/overview
+ * <p>
+ * 分组统计由数据库完成（桩直接返回分组行），这里测量 Java 侧的汇总：
+ * snapshot 为命中快照的常规路径，reload 为每次都丢弃快照重新汇总（增删用户、改订单状态后的首次查询）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdminStatsBenchmark {
+
+    @Param({"snapshot", "reload"})
+    private String mode;
+
+    private AdminStatsService adminStatsService;
+    private AdminController controller;
+
+    @Setup
+    public void setup() {
+        List<RoleCount> roles = new ArrayList<>();
+        for (String role : List.of("admin", "merchant", "driver", "consumer")) {
+            RoleCount row = new RoleCount();
+            row.setRole(role);
+            row.setUserCount((long) role.length() * 1000);
+            roles.add(row);
+        }
+        List<OrderStatusStat> statuses = new ArrayList<>();
+        for (int s = 0; s <= 5; s++) {
+            OrderStatusStat row = new OrderStatusStat();
+            row.setStatus(s);
+            row.setOrderCount(100_000L + s);
+            row.setRevenue(new BigDecimal("5990000.00").add(BigDecimal.valueOf(s)));
+            statuses.add(row);
+        }
+        UserMapper userMapper = stub(UserMapper.class, "selectRoleCounts", roles);
+        OrderMapper orderMapper = stub(OrderMapper.class, "selectStatusStats", statuses);
+        WarehouseMapper warehouseMapper = stub(WarehouseMapper.class, "selectCount", 8L);
+        adminStatsService = new AdminStatsServiceImpl(userMapper, orderMapper, warehouseMapper, 30);
+        controller = new AdminController(userMapper, orderMapper, warehouseMapper, adminStatsService,
+                null, null, null);
+    }
+
+    @Benchmark
+    public Result<?> overview() {
+        if ("reload".equals(mode)) {
+            adminStatsService.invalidate();
+        }
+        return controller.getOverview();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> mapper, String methodName, Object result) {
+        return (T) Proxy.newProxyInstance(AdminStatsBenchmark.class.getClassLoader(), new Class<?>[]{mapper},
+                (proxy, method, args) -> methodName.equals(method.getName()) ? result : null);
+    }
+}
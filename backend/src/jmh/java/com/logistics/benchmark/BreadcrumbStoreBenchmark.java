@@ -0,0 +1,176 @@
+package com.logistics.benchmark;
+
+import com.logistics.entity.DeliveryTrackChunk;
+import com.logistics.mapper.DeliveryTrackChunkMapper;
+import com.logistics.service.BreadcrumbStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 轨迹写入基准：每点一行的 delivery_location vs BreadcrumbStore 分块写入
+ * <p>
+ * 数据库由桩代替，测量的是写入路径本身的吞吐（点/毫秒），并统计写入的语句数、行数和数据字节数：
+ * row 模式按 InnoDB 行格式估算每行字节（含行头与主键），chunk 模式为编码后的 data 列长度加分块的其他列。
+ * 每次试验结束打印每点字节数与每千点的写入行数。100 个批次轮流追加，每 64 个点刷新一次（对应 2 秒刷新间隔）。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BreadcrumbStoreBenchmark {
+
+    private static final int BATCHES = 100;
+    private static final int FLUSH_EVERY = 64;
+    private static final int POINTS = 10_000;
+    /** 旧写法单条 INSERT 的行数 */
+    private static final int LEGACY_INSERT_CHUNK = 500;
+    /** InnoDB 行头、事务ID、回滚指针约 18 字节 */
+    private static final int INNODB_ROW_OVERHEAD = 18;
+    /** 分块行除 data 外的列：batch_id 4 + seq 4 + level 1 + point_count 2 + 两个索引 8 + 两个时间 10 + updated_at 5 */
+    private static final int CHUNK_FIXED_COLUMNS = 34;
+    private static final String ADDRESS = "北京市海淀区中关村大街27号";
+
+    @Param({"row", "chunk"})
+    private String mode;
+
+    private double[] lats;
+    private double[] lngs;
+    private BreadcrumbStore store;
+    private final List<LegacyRow> legacyBuffer = new ArrayList<>(LEGACY_INSERT_CHUNK);
+    private int next;
+
+    /**
+     * 写入统计；EVENTS 类型按整次测量累加
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Storage {
+        public long points;
+        public long statements;
+        public long rows;
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            points = 0;
+            statements = 0;
+            rows = 0;
+            bytes = 0;
+        }
+    }
+
+    private Storage current;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(7);
+        lats = new double[POINTS];
+        lngs = new double[POINTS];
+        lats[0] = 39.984154;
+        lngs[0] = 116.307490;
+        for (int i = 1; i < POINTS; i++) {
+            // 每 10 个路径点记录一次，相邻轨迹点相距约百米
+            lats[i] = lats[i - 1] + (random.nextInt(1601) - 800) / 1_000_000.0;
+            lngs[i] = lngs[i - 1] + (random.nextInt(1601) - 800) / 1_000_000.0;
+        }
+        store = new BreadcrumbStore(chunkMapperStub(), null, new SimpleMeterRegistry(), 64, 2000, 15, 7, 30);
+    }
+
+    @Benchmark
+    public void append(Storage storage) {
+        current = storage;
+        int n = next++;
+        int batchId = n % BATCHES;
+        int point = (n / BATCHES) % POINTS;
+        LocalDateTime now = LocalDateTime.now();
+        storage.points++;
+        if ("row".equals(mode)) {
+            legacyBuffer.add(new LegacyRow(batchId, BigDecimal.valueOf(lats[point]), BigDecimal.valueOf(lngs[point]),
+                    ADDRESS, point * 10, now));
+            if (legacyBuffer.size() == LEGACY_INSERT_CHUNK) {
+                insertLegacy(storage);
+            }
+        } else {
+            store.append(batchId, point * 10, lats[point], lngs[point], ADDRESS, now);
+            if (n % (BATCHES * FLUSH_EVERY) == BATCHES * FLUSH_EVERY - 1) {
+                store.flush();
+            }
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        if (current != null && current.points > 0) {
+            System.out.printf("%n[%s] 每点字节数=%.2f，每千点写入行数=%.2f，每千点语句数=%.2f%n", mode,
+                    (double) current.bytes / current.points,
+                    current.rows * 1000.0 / current.points,
+                    current.statements * 1000.0 / current.points);
+        }
+    }
+
+    private void insertLegacy(Storage storage) {
+        for (LegacyRow row : legacyBuffer) {
+            // id 4 + batch_id 4 + 两个 DECIMAL(10,7) 10 + address 长度前缀 1 + path_index 4 + recorded_at 5
+            storage.bytes += INNODB_ROW_OVERHEAD + 28 + row.address.getBytes(StandardCharsets.UTF_8).length;
+        }
+        storage.rows += legacyBuffer.size();
+        storage.statements++;
+        legacyBuffer.clear();
+    }
+
+    private DeliveryTrackChunkMapper chunkMapperStub() {
+        return (DeliveryTrackChunkMapper) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{DeliveryTrackChunkMapper.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "upsertBatch" -> {
+                            @SuppressWarnings("unchecked")
+                            List<DeliveryTrackChunk> chunks = (List<DeliveryTrackChunk>) args[0];
+                            current.statements++;
+                            current.rows += chunks.size();
+                            for (DeliveryTrackChunk chunk : chunks) {
+                                current.bytes += INNODB_ROW_OVERHEAD + CHUNK_FIXED_COLUMNS + chunk.getData().length
+                                        + chunk.getLastAddress().getBytes(StandardCharsets.UTF_8).length + 2;
+                            }
+                            return chunks.size();
+                        }
+                        case "selectByBatchId" -> {
+                            return List.of();
+                        }
+                        default -> {
+                            return null;
+                        }
+                    }
+                });
+    }
+
+    /**
+     * 改造前 delivery_location 的一行
+     */
+    private record LegacyRow(int batchId, BigDecimal latitude, BigDecimal longitude, String address,
+                             int pathIndex, LocalDateTime recordedAt) {
+    }
+}
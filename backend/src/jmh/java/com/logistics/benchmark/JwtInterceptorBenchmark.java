@@ -0,0 +1,136 @@
+package com.logistics.benchmark;
+
+import com.logistics.interceptor.JwtInterceptor;
+import com.logistics.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT 拦截器开销基准：每个请求 4 次完整解析（每次新建解析器）vs 一次解析 + 校验结果缓存，
+ * 分别在 1、8、32 个线程下测量吞吐；请求轮流使用 1000 个用户的 Token
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtInterceptorBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-0123456789abcdef";
+    private static final int USERS = 1000;
+
+    @Param({"legacy", "cached"})
+    private String mode;
+
+    private JwtInterceptor interceptor;
+    private LegacyInterceptor legacy;
+    private String[] headers;
+
+    @State(Scope.Thread)
+    public static class Caller {
+        private final MockHttpServletResponse response = new MockHttpServletResponse();
+        private int next;
+
+        MockHttpServletRequest request(String header) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders/customer");
+            request.addHeader("Authorization", header);
+            return request;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 86400, 60, 10000, new SimpleMeterRegistry());
+        interceptor = new JwtInterceptor(jwtUtil);
+        legacy = new LegacyInterceptor(SECRET);
+        headers = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            headers[i] = "Bearer " + jwtUtil.generateToken((long) i + 1, "user" + i, "consumer");
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean threads01(Caller caller) throws Exception {
+        return handle(caller);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean threads08(Caller caller) throws Exception {
+        return handle(caller);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public boolean threads32(Caller caller) throws Exception {
+        return handle(caller);
+    }
+
+    private boolean handle(Caller caller) throws Exception {
+        MockHttpServletRequest request = caller.request(headers[caller.next++ % USERS]);
+        return "legacy".equals(mode)
+                ? legacy.preHandle(request)
+                : interceptor.preHandle(request, caller.response, this);
+    }
+
+    /**
+     * 改造前的拦截器：validateToken + 三个 getXxxFromToken，每次调用都新建解析器并完整验签
+     */
+    static final class LegacyInterceptor {
+
+        private final Key secretKey;
+
+        LegacyInterceptor(String secret) {
+            byte[] keyBytes = new byte[32];
+            byte[] secretBytes = secret.getBytes();
+            System.arraycopy(secretBytes, 0, keyBytes, 0, Math.min(secretBytes.length, keyBytes.length));
+            this.secretKey = Keys.hmacShaKeyFor(keyBytes);
+        }
+
+        boolean preHandle(MockHttpServletRequest request) {
+            String token = request.getHeader("Authorization").substring(7);
+            Claims validated = parse(token);
+            if (validated == null || !validated.getExpiration().after(new Date())) {
+                return false;
+            }
+            request.setAttribute("userId", parse(token).get("userId", Long.class));
+            request.setAttribute("username", parse(token).getSubject());
+            request.setAttribute("role", parse(token).get("role", String.class));
+            return true;
+        }
+
+        private Claims parse(String token) {
+            try {
+                return Jwts.parserBuilder()
+                        .setSigningKey(secretKey)
+                        .build()
+                        .parseClaimsJws(token)
+                        .getBody();
+            } catch (Exception e) {
+                return null;
+            }
+        }
+    }
+}
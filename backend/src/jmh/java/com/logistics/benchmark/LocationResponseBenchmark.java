@@ -0,0 +1,100 @@
+package com.logistics.benchmark;
+
+import com.logistics.common.Result;
+import com.logistics.controller.DeliveryBatchController;
+import com.logistics.dto.CurrentLocationResponse;
+import com.logistics.entity.DeliveryBatch;
+import com.logistics.mapper.DeliveryBatchMapper;
+import com.logistics.mapper.DeliveryTrackChunkMapper;
+import com.logistics.route.PolylineCodec;
+import com.logistics.service.BreadcrumbStore;
+import com.logistics.service.DeliveryProgressBuffer;
+import com.logistics.service.RouteGeometryCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 配送位置接口基准：GET /delivery-batch/location-by-batch 的处理方法
+ * <p>
+ * 数据库由桩代替，路线已在 RouteGeometryCache 中、最新轨迹点在 BreadcrumbStore 内存中，
+ * 测量的是每次轮询都要做的工作：取路线点、按累计距离折算进度和剩余距离/时间（BigDecimal 运算）、组装响应。
+ * 当前位置在路线上循环前进，覆盖起点到终点的各个位置。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocationResponseBenchmark {
+
+    private static final int BATCH_ID = 1;
+
+    @Param({"1000", "10000"})
+    private int points;
+
+    private DeliveryBatch batch;
+    private DeliveryBatchController controller;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(7);
+        int[] coords = new int[points * 2];
+        coords[0] = 39_984_154;
+        coords[1] = 116_307_490;
+        for (int i = 2; i < coords.length; i++) {
+            coords[i] = coords[i - 2] + random.nextInt(801) - 400;
+        }
+        batch = new DeliveryBatch();
+        batch.setId(BATCH_ID);
+        batch.setStatus(1);
+        batch.setRouteData(PolylineCodec.encode(coords));
+        batch.setTotalDistance(18_000);
+        batch.setTotalDuration(2_400);
+        batch.setCurrentIndex(0);
+
+        DeliveryBatchMapper batchMapper = batchMapperStub();
+        BreadcrumbStore breadcrumbStore = new BreadcrumbStore(chunkMapperStub(), null, new SimpleMeterRegistry(),
+                64, 2000, 15, 7, 30);
+        breadcrumbStore.append(BATCH_ID, 0, 39.984154, 116.307490, "北京市海淀区中关村大街27号", LocalDateTime.now());
+        controller = new DeliveryBatchController(null, null, null, batchMapper, null,
+                new RouteGeometryCache(batchMapper, 1 << 26, 60), null,
+                new DeliveryProgressBuffer(batchMapper, null, 5000), null, breadcrumbStore);
+    }
+
+    @Benchmark
+    public Result<CurrentLocationResponse> locationByBatch() {
+        batch.setCurrentIndex(next++ % points);
+        return controller.getLocationByBatch(BATCH_ID);
+    }
+
+    private DeliveryBatchMapper batchMapperStub() {
+        return (DeliveryBatchMapper) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{DeliveryBatchMapper.class}, (proxy, method, args) ->
+                        switch (method.getName()) {
+                            case "selectById", "selectSummaryById" -> batch;
+                            default -> null;
+                        });
+    }
+
+    private DeliveryTrackChunkMapper chunkMapperStub() {
+        return (DeliveryTrackChunkMapper) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{DeliveryTrackChunkMapper.class}, (proxy, method, args) -> null);
+    }
+}
@@ -0,0 +1,71 @@
+package com.logistics.benchmark;
+
+import com.alibaba.fastjson.JSONArray;
+import com.logistics.route.PolylineCodec;
+import com.logistics.service.TencentMapService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * polyline 解码基准：旧的 JSONArray 实现 vs PolylineCodec
+ * 建议配合 -prof gc 查看每次解码的分配量
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PolylineCodecBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int points;
+
+    private String polyline;
+    private TencentMapService tencentMapService;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(7);
+        int[] coords = new int[points * 2];
+        coords[0] = 39_984_154;
+        coords[1] = 116_307_490;
+        for (int i = 2; i < coords.length; i++) {
+            // 城市道路相邻点间距通常在几十米以内
+            coords[i] = coords[i - 2] + random.nextInt(801) - 400;
+        }
+        polyline = PolylineCodec.encode(coords);
+        tencentMapService = new TencentMapService(new RestTemplate(), new SimpleMeterRegistry(), "",
+                "https://apis.map.qq.com");
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public JSONArray legacyDecompress() {
+        return tencentMapService.decompressPolyline(polyline);
+    }
+
+    @Benchmark
+    public double[] codecDecode() {
+        return PolylineCodec.decode(polyline);
+    }
+
+    @Benchmark
+    public int[] codecDecodeFixed() {
+        return PolylineCodec.decodeFixed(polyline);
+    }
+}
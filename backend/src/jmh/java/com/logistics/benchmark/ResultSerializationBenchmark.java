@@ -0,0 +1,92 @@
+package com.logistics.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logistics.common.Result;
+import com.logistics.entity.Address;
+import com.logistics.entity.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单列表响应序列化基准：Result&lt;List&lt;Order&gt;&gt; 按 application.yml 的 spring.jackson 配置写成 JSON 字节
+ * <p>
+ * 订单附带收货地址；100 为分页接口的单页上限，1000、10000 对应仓库待配送订单等未分页列表接口
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultSerializationBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int orders;
+
+    private ObjectMapper objectMapper;
+    private Result<List<Order>> result;
+
+    @Setup
+    public void setup() {
+        // 与 spring.jackson.time-zone / date-format 一致
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .timeZone("GMT+8")
+                .simpleDateFormat("yyyy-MM-dd HH:mm:ss")
+                .build();
+        LocalDateTime time = LocalDateTime.of(2026, 3, 1, 10, 0);
+        List<Order> list = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            Order order = new Order();
+            order.setOrderId(100_000 + i);
+            order.setProductId(i % 200 + 1);
+            order.setCustomerId(i % 5000 + 1);
+            order.setMerchantId(i % 20 + 1);
+            order.setAddressId(i + 1);
+            order.setProductName("商品" + (i % 200));
+            order.setQuantity(i % 5 + 1);
+            order.setUnitPrice(new BigDecimal("59.90"));
+            order.setTotalAmount(new BigDecimal("59.90").multiply(BigDecimal.valueOf(i % 5 + 1)));
+            order.setImageUrl("https://img.example.com/goods_image/" + (i % 200) + ".jpg");
+            order.setWarehouseId(i % 8 + 1);
+            order.setStatus(i % 5);
+            order.setOrderTime(time.plusMinutes(i));
+            order.setShipTime(time.plusMinutes(i + 30));
+            order.setWarehouseName("海淀仓");
+            order.setCustomerName("顾客" + (i % 5000));
+            Address address = new Address();
+            address.setId((long) i + 1);
+            address.setReceiverName("顾客" + (i % 5000));
+            address.setReceiverPhone("1380000" + String.format("%04d", i % 10000));
+            address.setProvince("北京市");
+            address.setCity("北京市");
+            address.setDistrict("海淀区");
+            address.setDetailAddress("北京市海淀区中关村大街" + (i % 100 + 1) + "号");
+            address.setLatitude(new BigDecimal("39.9841540"));
+            address.setLongitude(new BigDecimal("116.3074900"));
+            order.setAddress(address);
+            list.add(order);
+        }
+        result = Result.success(list);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(result);
+    }
+}
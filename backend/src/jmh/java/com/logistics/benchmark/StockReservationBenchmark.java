@@ -0,0 +1,71 @@
+package com.logistics.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logistics.entity.Mall;
+import com.logistics.mapper.MallMapper;
+import com.logistics.service.MallCatalogCache;
+import com.logistics.service.StockReservationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单商品抢购的库存预留吞吐：32 个线程同时对同一商品下单
+ * <p>
+ * 数据库由桩代替（条件扣减总是成功），测量的是分片计数器准入与预留记账本身：
+ * inStock 为每次都预留成功（库存足够大，每轮迭代前重置），soldOut 为售罄后请求在内存中被拒绝
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class StockReservationBenchmark {
+
+    private static final int PRODUCT_ID = 7;
+
+    @Param({"inStock", "soldOut"})
+    private String mode;
+
+    private StockReservationService service;
+    private Mall mall;
+
+    @Setup
+    public void setup() {
+        MallMapper mallMapper = (MallMapper) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{MallMapper.class}, (proxy, method, args) ->
+                        "decreaseAvailableQuantity".equals(method.getName()) ? 1 : null);
+        MallCatalogCache mallCatalogCache = new MallCatalogCache(mallMapper, new ObjectMapper(), 1000, 60);
+        service = new StockReservationService(mallMapper, mallCatalogCache, null, new SimpleMeterRegistry(), 8, 30, 60);
+        mall = new Mall();
+        mall.setProductId(PRODUCT_ID);
+        mall.setIsPublished(1);
+        mall.setAvailableQuantity(0);
+    }
+
+    @Setup(Level.Iteration)
+    public void restock() {
+        service.restock(PRODUCT_ID, "inStock".equals(mode) ? Integer.MAX_VALUE : 0);
+    }
+
+    @Benchmark
+    public boolean reserve() {
+        return service.reserve(mall, 1);
+    }
+}
@@ -0,0 +1,60 @@
+package com.logistics.benchmark;
+
+import com.logistics.route.StopSequencer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 停靠点排序基准：最近邻构造 vs 最近邻 + 2-opt/Or-opt（预算足够时跑到局部最优）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StopSequencerBenchmark {
+
+    private static final double ORIGIN_LAT = 39.95;
+    private static final double ORIGIN_LNG = 116.35;
+
+    @Param({"5", "20", "50"})
+    private int stops;
+
+    private double[] latitudes;
+    private double[] longitudes;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(11);
+        latitudes = new double[stops];
+        longitudes = new double[stops];
+        for (int i = 0; i < stops; i++) {
+            // 约 30km 见方的城区范围
+            latitudes[i] = 39.80 + random.nextDouble() * 0.27;
+            longitudes[i] = 116.20 + random.nextDouble() * 0.35;
+        }
+    }
+
+    @Benchmark
+    public int[] nearestNeighbourOnly() {
+        return StopSequencer.sequence(ORIGIN_LAT, ORIGIN_LNG, latitudes, longitudes, 0);
+    }
+
+    @Benchmark
+    public int[] localSearch() {
+        return StopSequencer.sequence(ORIGIN_LAT, ORIGIN_LNG, latitudes, longitudes, TimeUnit.SECONDS.toNanos(1));
+    }
+}
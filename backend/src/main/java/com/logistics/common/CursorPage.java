@@ -0,0 +1,63 @@
+package com.logistics.common;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页结果
+ * <p>
+ * 查询按排序键取 limit + 1 行，多出的一行只用来判断是否还有下一页，不返回给前端。
+ * 下一页从 nextCursor 记录的排序键之后继续查询（keyset），不使用 OFFSET，任意一页的查询代价与第一页相同。
+ */
+@Data
+public class CursorPage<T> implements Serializable {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private List<T> items;
+
+    /**
+     * 下一页游标，没有下一页时为 null
+     */
+    private String nextCursor;
+
+    private boolean hasMore;
+
+    /**
+     * 每页条数：未传时取默认值，超过上限时按上限处理
+     */
+    public static int clampLimit(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    public static <T> CursorPage<T> empty() {
+        CursorPage<T> page = new CursorPage<>();
+        page.setItems(new ArrayList<>());
+        return page;
+    }
+
+    /**
+     * 由按 limit + 1 查询到的行构造分页结果
+     *
+     * @param rows     查询结果，最多 limit + 1 行
+     * @param limit    每页条数
+     * @param cursorOf 由本页最后一行生成下一页游标
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, PageCursor> cursorOf) {
+        CursorPage<T> page = new CursorPage<>();
+        boolean hasMore = rows.size() > limit;
+        List<T> items = hasMore ? new ArrayList<>(rows.subList(0, limit)) : rows;
+        page.setItems(items);
+        page.setHasMore(hasMore);
+        page.setNextCursor(hasMore ? cursorOf.apply(items.get(items.size() - 1)).encode() : null);
+        return page;
+    }
+}
@@ -0,0 +1,65 @@
+package com.logistics.common;
+
+import com.logistics.exception.BusinessException;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 分页游标：上一页最后一行的排序键（时间 + 主键，或仅主键）
+ * <p>
+ * 对外编码为 URL 安全的 Base64 字符串，前端只需原样回传，不解析其内容。
+ */
+@Getter
+public final class PageCursor {
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * 排序时间，仅按主键排序时为 null
+     */
+    private final LocalDateTime time;
+    private final long id;
+
+    private PageCursor(LocalDateTime time, long id) {
+        this.time = time;
+        this.id = id;
+    }
+
+    public static PageCursor of(LocalDateTime time, long id) {
+        return new PageCursor(time, id);
+    }
+
+    public static PageCursor ofId(long id) {
+        return new PageCursor(null, id);
+    }
+
+    public String encode() {
+        String raw = (time != null ? time.toString() : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析前端回传的游标，为空时返回 null（即第一页）
+     */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf(SEPARATOR);
+            if (sep < 0) {
+                throw new IllegalArgumentException();
+            }
+            String timePart = raw.substring(0, sep);
+            LocalDateTime time = timePart.isEmpty() ? null : LocalDateTime.parse(timePart);
+            return new PageCursor(time, Long.parseLong(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BusinessException(400, "无效的分页游标");
+        }
+    }
+}
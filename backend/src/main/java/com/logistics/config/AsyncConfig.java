@@ -1,13 +1,150 @@
 package com.logistics.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.Executor;
 
 /**
  * 异步任务配置
- * 启用@Async注解支持
+ * 启用@Async注解支持，并按任务类型提供各自有界的调度器与线程池，每个线程池都发布 executor.* 指标（见 {@link ExecutorMetrics}）
+ * <p>
+ * async.virtual-threads 开启且运行在 JDK 21+ 时，I/O 型任务（逆地理编码、图片上传、追踪推送）改为每个任务一个虚拟线程，
+ * 并发与排队上限不变；否则使用平台线程池。配送模拟与自动调度是定时/计算任务，始终使用平台线程。
  */
+@Slf4j
 @Configuration
 @EnableAsync
 public class AsyncConfig {
+
+    private final MeterRegistry meterRegistry;
+    private final boolean virtualThreads;
+
+    public AsyncConfig(MeterRegistry meterRegistry,
+                       @Value("${async.virtual-threads:false}") boolean virtualThreads) {
+        this.meterRegistry = meterRegistry;
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * 配送模拟调度器：少量线程按固定节拍推进所有配送中的批次
+     */
+    @Bean
+    public ThreadPoolTaskScheduler simulationScheduler(
+            @Value("${delivery.simulation.scheduler-threads:1}") int threads) {
+        ThreadPoolTaskScheduler scheduler = ExecutorMetrics.scheduler(meterRegistry, "simulation");
+        scheduler.setPoolSize(threads);
+        scheduler.setThreadNamePrefix("delivery-sim-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(false);
+        return scheduler;
+    }
+
+    /**
+     * 库存维护调度器：回收超时预留、计数器对账，单独一个线程，不占用配送模拟的节拍
+     */
+    @Bean
+    public ThreadPoolTaskScheduler stockScheduler() {
+        ThreadPoolTaskScheduler scheduler = ExecutorMetrics.scheduler(meterRegistry, "stock");
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("stock-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(false);
+        return scheduler;
+    }
+
+    /**
+     * 逆地理编码线程池：轨迹点的地址查询会调用外部接口，不能阻塞模拟节拍
+     * 队列满时拒绝任务，由 ReverseGeocodingService 降级为占位地址
+     */
+    @Bean
+    public Executor geocodeExecutor(
+            @Value("${delivery.simulation.geocode-threads:4}") int threads,
+            @Value("${delivery.simulation.geocode-queue:1000}") int queueCapacity) {
+        return ioExecutor("geocode", threads, queueCapacity);
+    }
+
+    /**
+     * 图片上传线程池：上传对象存储是慢 I/O，不占用请求线程；队列满时拒绝，由调用方决定是否同步重试
+     */
+    @Bean
+    public Executor uploadExecutor(
+            @Value("${async.upload.threads:4}") int threads,
+            @Value("${async.upload.queue:200}") int queueCapacity) {
+        return ioExecutor("upload", threads, queueCapacity);
+    }
+
+    /**
+     * 图片上传重试调度器：按退避间隔把失败的上传重新交给 uploadExecutor，并定期巡检暂存目录
+     */
+    @Bean
+    public ThreadPoolTaskScheduler uploadScheduler() {
+        ThreadPoolTaskScheduler scheduler = ExecutorMetrics.scheduler(meterRegistry, "upload-retry");
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("upload-retry-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(false);
+        return scheduler;
+    }
+
+    /**
+     * 实时追踪推送线程池：把合并后的位置事件写到各 SSE 连接
+     * 每个连接同时最多排队一个写出任务，队列容量与连接数上限一致
+     */
+    @Bean
+    public Executor trackingExecutor(
+            @Value("${delivery.tracking.sender-threads:8}") int threads,
+            @Value("${delivery.tracking.max-subscribers:60000}") int maxSubscribers) {
+        return ioExecutor("tracking", threads, maxSubscribers);
+    }
+
+    /**
+     * 自动调度线程池：各批次的停靠点排序是纯计算任务，按 CPU 核数并行
+     * 队列满时拒绝，调度服务改在调用线程上排序
+     */
+    @Bean
+    public ThreadPoolTaskExecutor dispatchExecutor(
+            @Value("${delivery.dispatch.threads:0}") int threads,
+            @Value("${delivery.dispatch.queue:2000}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return platformExecutor("dispatch", poolSize, queueCapacity);
+    }
+
+    /**
+     * @Async 默认线程池
+     * <p>
+     * 容器中已有其他 Executor 时 Spring Boot 不再创建 applicationTaskExecutor，@Async 会按名称查找 taskExecutor，
+     * 找不到就退回到每个任务新建一个线程的 SimpleAsyncTaskExecutor。这里提供有界的默认线程池
+     */
+    @Bean
+    public ThreadPoolTaskExecutor taskExecutor(
+            @Value("${async.default.threads:4}") int threads,
+            @Value("${async.default.queue:500}") int queueCapacity) {
+        return platformExecutor("async", threads, queueCapacity);
+    }
+
+    private Executor ioExecutor(String name, int threads, int queueCapacity) {
+        if (virtualThreads) {
+            VirtualThreadExecutor executor = VirtualThreadExecutor.create(name + "-vt-", threads, queueCapacity);
+            if (executor != null) {
+                ExecutorMetrics.bind(meterRegistry, name, executor);
+                return executor;
+            }
+            log.warn("当前 JVM 不支持虚拟线程，{} 线程池使用平台线程", name);
+        }
+        return platformExecutor(name, threads, queueCapacity);
+    }
+
+    private ThreadPoolTaskExecutor platformExecutor(String name, int threads, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(name + "-");
+        ExecutorMetrics.bind(meterRegistry, name, executor);
+        return executor;
+    }
 }
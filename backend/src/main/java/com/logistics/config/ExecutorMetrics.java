@@ -0,0 +1,200 @@
+package com.logistics.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 线程池指标
+ * <p>
+ * 每个线程池按 name 标签发布：executor.active（执行中）、executor.queued（排队中）、executor.pool.size（线程数）、
+ * executor.completed（已完成）、executor.rejected（被拒绝），以及任务排队耗时 executor.task.wait
+ * 和执行耗时 executor.task.duration 两个直方图。前四项与 Micrometer 自带的 ExecutorServiceMetrics 同名，
+ * 但按需读取线程池状态，线程池在 Bean 初始化之前注册也不会出错。
+ */
+public final class ExecutorMetrics {
+
+    private ExecutorMetrics() {
+    }
+
+    /**
+     * 绑定 ThreadPoolTaskExecutor：注册状态指标，并设置计时装饰器和计数拒绝策略
+     */
+    public static void bind(MeterRegistry registry, String name, ThreadPoolTaskExecutor executor) {
+        executor.setTaskDecorator(timing(registry, name, true));
+        executor.setRejectedExecutionHandler(countingAbort(registry, name));
+        gauges(registry, name, executor,
+                ThreadPoolTaskExecutor::getActiveCount,
+                ThreadPoolTaskExecutor::getQueueSize,
+                ThreadPoolTaskExecutor::getPoolSize,
+                e -> completed(e.getThreadPoolExecutor()));
+    }
+
+    /**
+     * 创建带指标的 ThreadPoolTaskScheduler
+     * <p>
+     * Spring 6.1 的 ThreadPoolTaskScheduler 不支持 TaskDecorator，执行耗时由底层 ScheduledThreadPoolExecutor 的
+     * beforeExecute / afterExecute 记录，周期任务每个周期记录一次；“提交到开始”的排队耗时对周期任务没有意义，不记录
+     */
+    public static ThreadPoolTaskScheduler scheduler(MeterRegistry registry, String name) {
+        Timer duration = durationTimer(registry, name);
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler() {
+            @Override
+            protected ScheduledExecutorService createExecutor(int poolSize, ThreadFactory threadFactory,
+                                                              RejectedExecutionHandler rejectedExecutionHandler) {
+                return new TimedScheduledExecutor(poolSize, threadFactory, rejectedExecutionHandler, duration);
+            }
+        };
+        scheduler.setRejectedExecutionHandler(countingAbort(registry, name));
+        gauges(registry, name, scheduler,
+                ThreadPoolTaskScheduler::getActiveCount,
+                s -> s.getScheduledThreadPoolExecutor().getQueue().size(),
+                ThreadPoolTaskScheduler::getPoolSize,
+                s -> completed(s.getScheduledThreadPoolExecutor()));
+        return scheduler;
+    }
+
+    /**
+     * 绑定虚拟线程执行器，拒绝计数由执行器自身完成
+     */
+    public static void bind(MeterRegistry registry, String name, VirtualThreadExecutor executor) {
+        executor.setTaskDecorator(timing(registry, name, true));
+        executor.setRejectedCounter(rejectedCounter(registry, name));
+        gauges(registry, name, executor,
+                VirtualThreadExecutor::getActiveCount,
+                VirtualThreadExecutor::getQueueSize,
+                VirtualThreadExecutor::getPoolSize,
+                VirtualThreadExecutor::getCompletedCount);
+    }
+
+    /**
+     * 记录排队耗时（提交 → 开始执行）与执行耗时的任务装饰器
+     */
+    static TaskDecorator timing(MeterRegistry registry, String name, boolean recordWait) {
+        Timer wait = Timer.builder("executor.task.wait")
+                .description("任务从提交到开始执行的等待时间")
+                .tag("name", name)
+                .publishPercentileHistogram()
+                .register(registry);
+        Timer duration = durationTimer(registry, name);
+        return task -> {
+            long submittedAt = System.nanoTime();
+            return () -> {
+                long startedAt = System.nanoTime();
+                if (recordWait) {
+                    wait.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+                }
+                try {
+                    task.run();
+                } finally {
+                    duration.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            };
+        };
+    }
+
+    /**
+     * 与默认 AbortPolicy 行为一致（抛出 RejectedExecutionException），同时累计拒绝次数
+     */
+    static RejectedExecutionHandler countingAbort(MeterRegistry registry, String name) {
+        Counter rejected = rejectedCounter(registry, name);
+        return (task, pool) -> {
+            rejected.increment();
+            throw new RejectedExecutionException("线程池 " + name + " 已满，任务被拒绝");
+        };
+    }
+
+    private static Timer durationTimer(MeterRegistry registry, String name) {
+        return Timer.builder("executor.task.duration")
+                .description("任务执行耗时")
+                .tag("name", name)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Counter rejectedCounter(MeterRegistry registry, String name) {
+        return Counter.builder("executor.rejected")
+                .description("线程池已满被拒绝的任务数")
+                .tag("name", name)
+                .register(registry);
+    }
+
+    private static <T> void gauges(MeterRegistry registry, String name, T executor,
+                                   ToDoubleFunction<T> active, ToDoubleFunction<T> queued,
+                                   ToDoubleFunction<T> poolSize, ToDoubleFunction<T> completed) {
+        Gauge.builder("executor.active", executor, safe(active))
+                .description("正在执行任务的线程数")
+                .tag("name", name)
+                .register(registry);
+        Gauge.builder("executor.queued", executor, safe(queued))
+                .description("排队等待执行的任务数")
+                .tag("name", name)
+                .register(registry);
+        Gauge.builder("executor.pool.size", executor, safe(poolSize))
+                .description("当前线程数")
+                .tag("name", name)
+                .register(registry);
+        FunctionCounter.builder("executor.completed", executor, safe(completed))
+                .description("已执行完成的任务数")
+                .tag("name", name)
+                .register(registry);
+    }
+
+    /** 线程池尚未初始化或已关闭时读取状态会抛 IllegalStateException，此时按 0 处理 */
+    private static <T> ToDoubleFunction<T> safe(ToDoubleFunction<T> f) {
+        return executor -> {
+            try {
+                return f.applyAsDouble(executor);
+            } catch (IllegalStateException e) {
+                return 0;
+            }
+        };
+    }
+
+    private static double completed(ThreadPoolExecutor pool) {
+        return pool.getCompletedTaskCount();
+    }
+
+    /**
+     * 记录每次执行耗时的 ScheduledThreadPoolExecutor；before/after 在同一工作线程上调用
+     */
+    private static final class TimedScheduledExecutor extends ScheduledThreadPoolExecutor {
+
+        private final Timer duration;
+        private final ThreadLocal<Long> startedAt = new ThreadLocal<>();
+
+        TimedScheduledExecutor(int poolSize, ThreadFactory threadFactory, RejectedExecutionHandler handler,
+                               Timer duration) {
+            super(poolSize, threadFactory, handler);
+            this.duration = duration;
+        }
+
+        @Override
+        protected void beforeExecute(Thread thread, Runnable task) {
+            startedAt.set(System.nanoTime());
+        }
+
+        @Override
+        protected void afterExecute(Runnable task, Throwable error) {
+            Long start = startedAt.get();
+            if (start != null) {
+                duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                startedAt.remove();
+            }
+        }
+    }
+}
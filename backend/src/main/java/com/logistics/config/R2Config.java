@@ -0,0 +1,85 @@
+package com.logistics.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AnonymousCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Cloudflare R2（S3 兼容）客户端配置
+ * 整个应用共用一个 S3Client 及其 HTTP 连接池，随容器关闭；endpoint 可配置，便于本地指向 MinIO 等兼容实现
+ */
+@Slf4j
+@Configuration
+public class R2Config {
+
+    @Bean(destroyMethod = "close")
+    public S3Client r2Client(
+            MeterRegistry meterRegistry,
+            @Value("${cloudflare.r2.account-id:}") String accountId,
+            @Value("${cloudflare.r2.access-key-id:}") String accessKeyId,
+            @Value("${cloudflare.r2.secret-access-key:}") String secretAccessKey,
+            @Value("${cloudflare.r2.endpoint:}") String endpoint,
+            @Value("${cloudflare.r2.path-style:false}") boolean pathStyle,
+            @Value("${cloudflare.r2.http.max-connections:50}") int maxConnections,
+            @Value("${cloudflare.r2.http.connect-timeout-ms:2000}") long connectTimeoutMs,
+            @Value("${cloudflare.r2.http.socket-timeout-ms:30000}") long socketTimeoutMs) {
+        if (endpoint.isBlank()) {
+            // Cloudflare R2的endpoint格式: https://{accountId}.r2.cloudflarestorage.com
+            endpoint = accountId.isBlank()
+                    ? "https://r2.cloudflarestorage.com"
+                    : String.format("https://%s.r2.cloudflarestorage.com", accountId);
+        }
+        if (accessKeyId.isBlank() || secretAccessKey.isBlank()) {
+            log.warn("未配置 Cloudflare R2 访问密钥，图片上传将会失败");
+        }
+        return buildClient(URI.create(endpoint), accessKeyId, secretAccessKey, pathStyle, maxConnections,
+                Duration.ofMillis(connectTimeoutMs), Duration.ofMillis(socketTimeoutMs), new R2Metrics(meterRegistry));
+    }
+
+    /**
+     * 构建 S3 客户端：Apache 连接池复用 TCP/TLS 连接，空闲连接 60 秒后回收
+     *
+     * @param interceptors 附加的执行拦截器（如 {@link R2Metrics}）
+     */
+    public static S3Client buildClient(URI endpoint, String accessKeyId, String secretAccessKey, boolean pathStyle,
+                                int maxConnections, Duration connectTimeout, Duration socketTimeout,
+                                ExecutionInterceptor... interceptors) {
+        AwsCredentialsProvider credentials = accessKeyId.isBlank() || secretAccessKey.isBlank()
+                ? AnonymousCredentialsProvider.create()
+                : StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKeyId, secretAccessKey));
+        return S3Client.builder()
+                .endpointOverride(endpoint)
+                .credentialsProvider(credentials)
+                .region(Region.of("auto"))
+                .serviceConfiguration(S3Configuration.builder()
+                        .pathStyleAccessEnabled(pathStyle)
+                        .build())
+                .httpClientBuilder(ApacheHttpClient.builder()
+                        .maxConnections(maxConnections)
+                        .connectionTimeout(connectTimeout)
+                        .connectionAcquisitionTimeout(connectTimeout)
+                        .socketTimeout(socketTimeout)
+                        .connectionMaxIdleTime(Duration.ofSeconds(60))
+                        .tcpKeepAlive(true))
+                .overrideConfiguration(c -> {
+                    for (ExecutionInterceptor interceptor : interceptors) {
+                        c.addExecutionInterceptor(interceptor);
+                    }
+                })
+                .build();
+    }
+}
@@ -0,0 +1,56 @@
+package com.logistics.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * R2 请求计时
+ * <p>
+ * 挂在 S3Client 上，每次 API 调用（含分片上传的每一片）发布 r2.requests，
+ * 按 operation（PutObject、UploadPart 等）和 outcome（success / error）标签区分；耗时包含 SDK 内部重试。
+ */
+public class R2Metrics implements ExecutionInterceptor {
+
+    private static final ExecutionAttribute<Long> START = new ExecutionAttribute<>("R2MetricsStart");
+
+    private final MeterRegistry meterRegistry;
+
+    public R2Metrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes attributes) {
+        attributes.putAttribute(START, System.nanoTime());
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes attributes) {
+        record(attributes, "success");
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes attributes) {
+        record(attributes, "error");
+    }
+
+    private void record(ExecutionAttributes attributes, String outcome) {
+        Long start = attributes.getAttribute(START);
+        if (start == null) {
+            return;
+        }
+        String operation = attributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME);
+        Timer.builder("r2.requests")
+                .description("R2 对象存储请求耗时")
+                .tags("operation", operation != null ? operation : "unknown", "outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
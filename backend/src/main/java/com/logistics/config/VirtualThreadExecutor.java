@@ -0,0 +1,128 @@
+package com.logistics.config;
+
+import io.micrometer.core.instrument.Counter;
+import org.springframework.core.task.TaskDecorator;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 每个任务一个虚拟线程的有界执行器（JDK 21+）
+ * <p>
+ * 与同规格的平台线程池保持相同的边界：同时执行的任务不超过 concurrency 个，
+ * 已提交未完成的任务不超过 concurrency + queueCapacity 个，超出时抛 RejectedExecutionException。
+ * 排队的任务各自停在自己的虚拟线程上等待许可，不占用平台线程；外部接口的并发上限不因切换到虚拟线程而放大。
+ * <p>
+ * 项目按 Java 17 编译，虚拟线程 API 通过反射获取，运行时不支持时 {@link #create} 返回 null，由调用方回退到平台线程池。
+ */
+public final class VirtualThreadExecutor implements Executor {
+
+    private final ThreadFactory threadFactory;
+    private final int concurrency;
+    private final int capacity;
+    /** 已提交未完成的任务名额 */
+    private final Semaphore admitted;
+    /** 执行名额 */
+    private final Semaphore running;
+    private final AtomicLong completed = new AtomicLong();
+
+    private volatile TaskDecorator taskDecorator = task -> task;
+    private volatile Counter rejectedCounter;
+
+    VirtualThreadExecutor(ThreadFactory threadFactory, int concurrency, int queueCapacity) {
+        if (concurrency <= 0 || queueCapacity < 0) {
+            throw new IllegalArgumentException("并发数必须大于 0，队列容量不能为负数");
+        }
+        this.threadFactory = threadFactory;
+        this.concurrency = concurrency;
+        this.capacity = concurrency + queueCapacity;
+        this.admitted = new Semaphore(capacity);
+        this.running = new Semaphore(concurrency);
+    }
+
+    /**
+     * 创建虚拟线程执行器；当前 JVM 不支持虚拟线程时返回 null
+     */
+    public static VirtualThreadExecutor create(String threadNamePrefix, int concurrency, int queueCapacity) {
+        ThreadFactory factory = virtualThreadFactory(threadNamePrefix);
+        return factory != null ? new VirtualThreadExecutor(factory, concurrency, queueCapacity) : null;
+    }
+
+    /**
+     * 通过反射调用 Thread.ofVirtual().name(prefix, 0).factory()
+     */
+    static ThreadFactory virtualThreadFactory(String threadNamePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            Method name = builderType.getMethod("name", String.class, long.class);
+            builder = name.invoke(builder, threadNamePrefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!admitted.tryAcquire()) {
+            Counter counter = rejectedCounter;
+            if (counter != null) {
+                counter.increment();
+            }
+            throw new RejectedExecutionException("执行器已满（" + capacity + "），任务被拒绝");
+        }
+        Runnable decorated = taskDecorator.decorate(task);
+        try {
+            threadFactory.newThread(() -> runPermitted(decorated)).start();
+        } catch (RuntimeException | Error e) {
+            admitted.release();
+            throw e;
+        }
+    }
+
+    private void runPermitted(Runnable task) {
+        try {
+            running.acquire();
+            try {
+                task.run();
+            } finally {
+                running.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            admitted.release();
+            completed.incrementAndGet();
+        }
+    }
+
+    void setTaskDecorator(TaskDecorator taskDecorator) {
+        this.taskDecorator = taskDecorator;
+    }
+
+    void setRejectedCounter(Counter rejectedCounter) {
+        this.rejectedCounter = rejectedCounter;
+    }
+
+    public int getActiveCount() {
+        return concurrency - running.availablePermits();
+    }
+
+    /** 已提交未完成的任务数，即当前存活的虚拟线程数 */
+    public int getPoolSize() {
+        return capacity - admitted.availablePermits();
+    }
+
+    public int getQueueSize() {
+        return Math.max(0, getPoolSize() - getActiveCount());
+    }
+
+    public long getCompletedCount() {
+        return completed.get();
+    }
+}
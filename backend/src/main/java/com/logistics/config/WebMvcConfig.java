@@ -1,6 +1,7 @@
 package com.logistics.config;
 
 import com.logistics.interceptor.JwtInterceptor;
+import com.logistics.interceptor.RequestMetricsInterceptor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
@@ -11,9 +12,13 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 public class WebMvcConfig implements WebMvcConfigurer {
     
     private final JwtInterceptor jwtInterceptor;
-    
+    private final RequestMetricsInterceptor requestMetricsInterceptor;
+
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
+        // 放在鉴权之前，被拒绝的请求同样计入
+        registry.addInterceptor(requestMetricsInterceptor)
+                .addPathPatterns("/**");
         registry.addInterceptor(jwtInterceptor)
                 .addPathPatterns("/**")
                 // 排除不需要验证的路径
@@ -1,6 +1,8 @@
 package com.logistics.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.logistics.common.CursorPage;
+import com.logistics.common.PageCursor;
 import com.logistics.common.Result;
 import com.logistics.entity.Order;
 import com.logistics.entity.User;
@@ -8,16 +10,18 @@ import com.logistics.exception.BusinessException;
 import com.logistics.mapper.OrderMapper;
 import com.logistics.mapper.UserMapper;
 import com.logistics.mapper.WarehouseMapper;
+import com.logistics.service.AdminStatsService;
+import com.logistics.service.DirectoryCache;
+import com.logistics.service.OrderRollupService;
+import com.logistics.service.SearchIndexService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
-import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -30,6 +34,10 @@ public class AdminController {
     private final UserMapper userMapper;
     private final OrderMapper orderMapper;
     private final WarehouseMapper warehouseMapper;
+    private final AdminStatsService adminStatsService;
+    private final OrderRollupService orderRollupService;
+    private final SearchIndexService searchIndexService;
+    private final DirectoryCache directoryCache;
     private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
 
     // ── User Management ──
@@ -38,18 +46,33 @@ public class AdminController {
     @GetMapping("/users")
     public Result<?> listUsers(
             @Parameter(description = "角色筛选") @RequestParam(required = false) String role,
-            @Parameter(description = "搜索关键词") @RequestParam(required = false) String search) {
+            @Parameter(description = "搜索关键词") @RequestParam(required = false) String search,
+            @Parameter(description = "分页游标，取上一页返回的 nextCursor") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页条数，默认 20，最多 100") @RequestParam(required = false) Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        PageCursor after = PageCursor.decode(cursor);
         LambdaQueryWrapper<User> qw = new LambdaQueryWrapper<>();
         if (role != null && !role.isEmpty() && !"all".equals(role)) {
             qw.eq(User::getRole, role);
         }
         if (search != null && !search.isEmpty()) {
-            qw.like(User::getUsername, search);
+            List<Long> userIds = searchIndexService.matchUserIds(search);
+            if (userIds == null) {
+                qw.like(User::getUsername, search);
+            } else if (userIds.isEmpty()) {
+                return Result.success(CursorPage.empty());
+            } else {
+                qw.in(User::getId, userIds);
+            }
+        }
+        if (after != null) {
+            qw.gt(User::getId, after.getId());
         }
         qw.orderByAsc(User::getId);
-        List<User> users = userMapper.selectList(qw);
-        users.forEach(u -> u.setPassword(null));
-        return Result.success(users);
+        qw.last("LIMIT " + (pageSize + 1));
+        CursorPage<User> page = CursorPage.of(userMapper.selectList(qw), pageSize, u -> PageCursor.ofId(u.getId()));
+        page.getItems().forEach(u -> u.setPassword(null));
+        return Result.success(page);
     }
 
     @Operation(summary = "创建用户")
@@ -62,6 +85,8 @@ public class AdminController {
         }
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         userMapper.insert(user);
+        searchIndexService.onUserSaved(user.getId(), user.getUsername());
+        adminStatsService.invalidate();
         user.setPassword(null);
         return Result.success(user);
     }
@@ -79,6 +104,9 @@ public class AdminController {
             existing.setPassword(passwordEncoder.encode(user.getPassword()));
         }
         userMapper.updateById(existing);
+        searchIndexService.onUserSaved(existing.getId(), existing.getUsername());
+        directoryCache.invalidateUser(id);
+        adminStatsService.invalidate();
         existing.setPassword(null);
         return Result.success(existing);
     }
@@ -91,6 +119,9 @@ public class AdminController {
             throw new BusinessException("用户不存在");
         }
         userMapper.deleteById(id);
+        searchIndexService.onUserDeleted(id);
+        directoryCache.invalidateUser(id);
+        adminStatsService.invalidate();
         return Result.success("删除成功");
     }
 
@@ -100,13 +131,35 @@ public class AdminController {
     @GetMapping("/orders")
     public Result<?> listAllOrders(
             @Parameter(description = "订单状态") @RequestParam(required = false) Integer status,
-            @Parameter(description = "搜索关键词") @RequestParam(required = false) String search) {
-        List<Order> orders = orderMapper.selectAllOrdersForAdmin(status, search);
-        return Result.success(orders);
+            @Parameter(description = "搜索关键词") @RequestParam(required = false) String search,
+            @Parameter(description = "分页游标，取上一页返回的 nextCursor") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页条数，默认 20，最多 100") @RequestParam(required = false) Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        PageCursor after = PageCursor.decode(cursor);
+        List<Integer> productIds = null;
+        List<Long> customerIds = null;
+        Integer orderId = null;
+        if (search != null && !search.trim().isEmpty()) {
+            // 搜索索引就绪时按商品ID、顾客ID、订单号匹配，任一路命中过多或索引未就绪时整体回退到 LIKE
+            productIds = searchIndexService.matchProductIds(search);
+            customerIds = productIds != null ? searchIndexService.matchUserIds(search) : null;
+            if (customerIds == null) {
+                productIds = null;
+            } else {
+                orderId = parseOrderId(search.trim());
+                if (productIds.isEmpty() && customerIds.isEmpty() && orderId == null) {
+                    return Result.success(CursorPage.empty());
+                }
+            }
+        }
+        List<Order> rows = orderMapper.selectAllOrdersForAdmin(status, search, productIds, customerIds, orderId,
+                after, pageSize + 1);
+        return Result.success(CursorPage.of(rows, pageSize, o -> PageCursor.of(o.getOrderTime(), o.getOrderId())));
     }
 
     @Operation(summary = "修改订单状态")
     @PutMapping("/orders/{orderId}/status")
+    @Transactional(rollbackFor = Exception.class)
     public Result<?> updateOrderStatus(
             @PathVariable Integer orderId,
             @Parameter(description = "目标状态") @RequestParam Integer status) {
@@ -114,86 +167,58 @@ public class AdminController {
         if (order == null) {
             throw new BusinessException("订单不存在");
         }
+        Integer previousStatus = order.getStatus();
         order.setStatus(status);
         orderMapper.updateById(order);
+        orderRollupService.recordStatusChange(order, previousStatus);
+        adminStatsService.invalidate();
         return Result.success("状态更新成功");
     }
 
     @Operation(summary = "删除订单")
     @DeleteMapping("/orders/{orderId}")
+    @Transactional(rollbackFor = Exception.class)
     public Result<?> deleteOrder(@PathVariable Integer orderId) {
         Order order = orderMapper.selectById(orderId);
         if (order == null) {
             throw new BusinessException("订单不存在");
         }
         orderMapper.deleteById(orderId);
+        orderRollupService.recordDeleted(order);
+        adminStatsService.invalidate();
         return Result.success("删除成功");
     }
 
+    /**
+     * 检索词为订单号（可带 # 前缀）时返回订单ID
+     */
+    private static Integer parseOrderId(String term) {
+        String digits = term.startsWith("#") ? term.substring(1) : term;
+        if (digits.isEmpty() || digits.length() > 9 || !digits.chars().allMatch(Character::isDigit)) {
+            return null;
+        }
+        return Integer.valueOf(digits);
+    }
+
     // ── Data Analysis ──
 
     @Operation(summary = "数据概览")
     @GetMapping("/stats/overview")
     public Result<?> getOverview() {
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("totalUsers", userMapper.selectCount(null));
-        stats.put("totalOrders", orderMapper.selectCount(null));
-
-        for (String role : List.of("merchant", "driver", "consumer")) {
-            LambdaQueryWrapper<User> qw = new LambdaQueryWrapper<>();
-            qw.eq(User::getRole, role);
-            stats.put(role + "Count", userMapper.selectCount(qw));
-        }
-
-        Map<String, Long> statusCounts = new HashMap<>();
-        for (int s = 0; s <= 5; s++) {
-            LambdaQueryWrapper<Order> qw = new LambdaQueryWrapper<>();
-            qw.eq(Order::getStatus, s);
-            statusCounts.put(String.valueOf(s), orderMapper.selectCount(qw));
-        }
-        stats.put("ordersByStatus", statusCounts);
-
-        LambdaQueryWrapper<Order> revenueQw = new LambdaQueryWrapper<>();
-        revenueQw.ge(Order::getStatus, 1);
-        List<Order> paidOrders = orderMapper.selectList(revenueQw);
-        BigDecimal totalRevenue = paidOrders.stream()
-                .map(Order::getTotalAmount)
-                .filter(Objects::nonNull)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        stats.put("totalRevenue", totalRevenue);
-        stats.put("totalWarehouses", warehouseMapper.selectCount(null));
-
-        return Result.success(stats);
+        return Result.success(adminStatsService.getOverview());
     }
 
     @Operation(summary = "每日订单趋势")
     @GetMapping("/stats/daily-orders")
     public Result<?> listDailyOrders(
-            @Parameter(description = "天数") @RequestParam(required = false, defaultValue = "7") int days) {
-        LocalDateTime start = LocalDate.now().minusDays(days - 1).atStartOfDay();
-        LambdaQueryWrapper<Order> qw = new LambdaQueryWrapper<>();
-        qw.ge(Order::getOrderTime, start);
-        qw.orderByAsc(Order::getOrderTime);
-        List<Order> orders = orderMapper.selectList(qw);
-
-        Map<String, Long> dailyMap = new LinkedHashMap<>();
-        for (int i = days - 1; i >= 0; i--) {
-            dailyMap.put(LocalDate.now().minusDays(i).toString(), 0L);
-        }
-        orders.forEach(o -> {
-            if (o.getOrderTime() != null) {
-                String date = o.getOrderTime().toLocalDate().toString();
-                dailyMap.merge(date, 1L, Long::sum);
-            }
-        });
-
-        List<Map<String, Object>> result = new ArrayList<>();
-        dailyMap.forEach((date, count) -> {
-            Map<String, Object> item = new HashMap<>();
-            item.put("date", date);
-            item.put("count", count);
-            result.add(item);
-        });
-        return Result.success(result);
+            @Parameter(description = "天数，最多 365") @RequestParam(required = false, defaultValue = "7") int days,
+            @Parameter(description = "仓库ID") @RequestParam(required = false) Integer warehouseId) {
+        return Result.success(orderRollupService.getDailyOrderCounts(days, warehouseId));
+    }
+
+    @Operation(summary = "重建订单日汇总")
+    @PostMapping("/stats/rollup/rebuild")
+    public Result<?> rebuildRollup() {
+        return Result.success("重建成功", orderRollupService.rebuild());
     }
 }
@@ -4,8 +4,10 @@ import com.logistics.common.Result;
 import com.logistics.dto.LoginRequest;
 import com.logistics.dto.LoginResponse;
 import com.logistics.service.UserService;
+import com.logistics.util.JwtUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,6 +18,7 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final UserService userService;
+    private final JwtUtil jwtUtil;
 
     @Operation(summary = "用户登录")
     @PostMapping("/login")
@@ -29,6 +32,14 @@ public class AuthController {
         return userService.register(req);
     }
 
+    @Operation(summary = "获取实时推送票据",
+            description = "EventSource 无法设置请求头，用短时票据代替登录 Token 建立 SSE 连接：/delivery-batch/stream/*?ticket=")
+    @PostMapping("/stream-ticket")
+    public Result<String> streamTicket(HttpServletRequest request) {
+        return Result.success(jwtUtil.generateStreamTicket((Long) request.getAttribute("userId"),
+                (String) request.getAttribute("username"), (String) request.getAttribute("role")));
+    }
+
     @Operation(summary = "健康检查")
     @GetMapping("/test")
     public String test() {
@@ -1,32 +1,35 @@
 package com.logistics.controller;
 
 import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.logistics.common.Result;
 import com.logistics.dto.CurrentLocationResponse;
 import com.logistics.dto.RouteDetailResponse;
+import com.logistics.entity.Address;
 import com.logistics.entity.DeliveryBatch;
 import com.logistics.entity.DeliveryBatchOrder;
-import com.logistics.entity.DeliveryLocation;
 import com.logistics.entity.Order;
 import com.logistics.entity.Warehouse;
 import com.logistics.exception.BusinessException;
 import com.logistics.mapper.DeliveryBatchMapper;
 import com.logistics.mapper.DeliveryBatchOrderMapper;
-import com.logistics.mapper.DeliveryLocationMapper;
+import com.logistics.route.RouteGeometry;
+import com.logistics.route.RoutePlan;
 import com.logistics.service.*;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -41,12 +44,15 @@ import java.util.stream.Collectors;
 public class DeliveryBatchController {
 
     private final DeliverySimulationService deliverySimulationService;
-    private final TencentMapService tencentMapService;
     private final OrderService orderService;
     private final WarehouseService warehouseService;
-    private final DeliveryLocationMapper deliveryLocationMapper;
     private final DeliveryBatchMapper deliveryBatchMapper;
     private final DeliveryBatchOrderMapper deliveryBatchOrderMapper;
+    private final RouteGeometryCache routeGeometryCache;
+    private final RoutePlanCache routePlanCache;
+    private final DeliveryProgressBuffer deliveryProgressBuffer;
+    private final DeliveryTrackingHub deliveryTrackingHub;
+    private final BreadcrumbStore breadcrumbStore;
 
     @Operation(summary = "开始运输批次")
     @PostMapping("/start-batch")
@@ -72,45 +78,30 @@ public class DeliveryBatchController {
             return Result.success("开始运输成功", null);
         }
 
-        // 调用腾讯地图规划路线
-        String from = warehouse.getLatitude() + "," + warehouse.getLongitude();
-        List<String> waypoints = orders.stream()
-                .filter(order -> order.getAddress() != null)
-                .map(order -> order.getAddress().getLatitude() + "," + order.getAddress().getLongitude())
-                .collect(Collectors.toList());
-
-        if (!waypoints.isEmpty()) {
-            String to = waypoints.get(waypoints.size() - 1);
-            String waypointsParam = waypoints.size() > 1 ?
-                    String.join(";", waypoints.subList(0, waypoints.size() - 1)) : null;
-
-            JSONObject routeResponse = tencentMapService.planRoute(from, to, waypointsParam);
-
-            if (routeResponse != null) {
-                JSONObject result = routeResponse.getJSONObject("result");
-                JSONArray routes = result.getJSONArray("routes");
-                JSONObject route = routes.getJSONObject(0);
-
-                Integer distance = route.getInteger("distance");
-                Integer duration = route.getInteger("duration");
-                JSONArray polyline = route.getJSONArray("polyline");
-
-                // 路线数据直接存入 delivery_batches
-                batch.setRouteData(polyline.toJSONString());
-                batch.setTotalDistance(distance);
-                batch.setTotalDuration(duration);
-                batch.setCurrentIndex(0);
-                deliveryBatchMapper.updateById(batch);
-
-                log.info("路线规划成功，批次ID: {}, 距离: {}m, 时长: {}s", batchId, distance, duration);
-
-                // 启动模拟
-                deliverySimulationService.startSimulation(batchId);
-            } else {
+        // 创建批次时已保存路线，直接复用；旧批次或自动调度的批次没有路线时再规划（命中缓存则不调用腾讯地图）
+        if (batch.getRouteData() == null || batch.getRouteData().isEmpty()) {
+            List<Address> stops = orders.stream()
+                    .map(Order::getAddress)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            RoutePlan plan = routePlanCache.plan(warehouse, stops);
+            if (plan == null) {
                 log.warn("路线规划失败，批次 {} 已开始但无路线", batchId);
+                return Result.success("开始运输成功", null);
             }
+
+            batch.setRouteData(plan.getPolyline());
+            batch.setTotalDistance(plan.getDistance());
+            batch.setTotalDuration(plan.getDuration());
+            batch.setCurrentIndex(0);
+            deliveryBatchMapper.updateById(batch);
+            routeGeometryCache.invalidate(batchId);
+            log.info("路线规划成功，批次ID: {}, 距离: {}m, 时长: {}s", batchId, plan.getDistance(), plan.getDuration());
         }
 
+        // 启动模拟（从 current_index 继续，停止后重新开始不会回到起点）
+        deliverySimulationService.startSimulation(batchId);
+
         return Result.success("开始运输成功", null);
     }
 
@@ -127,11 +118,14 @@ public class DeliveryBatchController {
     @Operation(summary = "获取批次配送位置")
     @GetMapping("/location-by-batch")
     public Result<CurrentLocationResponse> getLocationByBatch(@Parameter(description = "批次ID") @RequestParam Integer batchId) {
-        DeliveryBatch batch = deliveryBatchMapper.selectById(batchId);
-        if (batch == null || batch.getRouteData() == null) {
+        DeliveryBatch batch = deliveryBatchMapper.selectSummaryById(batchId);
+        // 路线在创建批次时已生成，未出发的批次没有配送位置
+        RouteGeometry route = batch != null && batch.getStatus() >= 1 ? routeGeometryCache.get(batchId) : null;
+        applyBufferedProgress(batch);
+        if (route == null) {
             throw new BusinessException("该批次暂无配送记录");
         }
-        return Result.success(buildLocationResponse(batch));
+        return Result.success(buildLocationResponse(batch, route));
     }
 
     @Operation(summary = "完成批次配送")
@@ -144,6 +138,7 @@ public class DeliveryBatchController {
         batch.setStatus(2);
         batch.setCompletedAt(LocalDateTime.now());
         deliveryBatchMapper.updateById(batch);
+        deliverySimulationService.removeSimulation(batchId);
 
         List<Order> orders = orderService.getOrdersByBatchId(batchId);
         List<Integer> orderIds = orders.stream().map(Order::getOrderId).collect(Collectors.toList());
@@ -158,17 +153,10 @@ public class DeliveryBatchController {
     @Operation(summary = "订单物流追踪")
     @GetMapping("/track-by-order")
     public Result<?> trackByOrder(@Parameter(description = "订单ID") @RequestParam Integer orderId) {
-        // 获取最新的批次关联（一个订单可能被重新分配过批次）
-        com.baomidou.mybatisplus.core.conditions.query.QueryWrapper<DeliveryBatchOrder> qw =
-                new com.baomidou.mybatisplus.core.conditions.query.QueryWrapper<>();
-        qw.eq("order_id", orderId).orderByDesc("batch_id").last("LIMIT 1");
-        DeliveryBatchOrder dbo = deliveryBatchOrderMapper.selectOne(qw);
-
-        if (dbo == null) throw new BusinessException("该订单暂无物流信息");
-
-        Integer batchId = dbo.getBatchId();
-        DeliveryBatch batch = deliveryBatchMapper.selectById(batchId);
+        Integer batchId = latestBatchId(orderId);
+        DeliveryBatch batch = deliveryBatchMapper.selectSummaryById(batchId);
         if (batch == null) throw new BusinessException("批次信息不存在");
+        applyBufferedProgress(batch);
 
         JSONObject resultObj = new JSONObject();
         resultObj.put("batchId", batchId);
@@ -183,55 +171,49 @@ public class DeliveryBatchController {
         }
 
         // 配送中或已完成 — 返回路线和位置数据
-        if (batch.getStatus() >= 1 && batch.getRouteData() != null) {
-            JSONArray polyline = JSON.parseArray(batch.getRouteData());
+        RouteGeometry route = batch.getStatus() >= 1 ? routeGeometryCache.get(batchId) : null;
+        if (route != null) {
             resultObj.put("totalDistance", batch.getTotalDistance());
             resultObj.put("totalDuration", batch.getTotalDuration());
-
-            // 检测格式: [{lng,lat,name}] (旧假数据) vs [num,num,...] (腾讯地图压缩)
-            boolean isWaypointFormat = !polyline.isEmpty() && polyline.get(0) instanceof JSONObject;
-
-            JSONArray pathPoints;
-            if (isWaypointFormat) {
-                pathPoints = new JSONArray();
-                JSONArray frontendPolyline = new JSONArray();
-                for (int i = 0; i < polyline.size(); i++) {
-                    JSONObject wp = polyline.getJSONObject(i);
-                    JSONArray point = new JSONArray();
-                    point.add(wp.getDoubleValue("lat"));
-                    point.add(wp.getDoubleValue("lng"));
-                    pathPoints.add(point);
-                    frontendPolyline.add(wp.getDoubleValue("lat"));
-                    frontendPolyline.add(wp.getDoubleValue("lng"));
-                }
-                resultObj.put("polyline", frontendPolyline);
-                resultObj.put("waypoints", polyline);
-            } else {
-                resultObj.put("polyline", polyline);
-                pathPoints = tencentMapService.decompressPolyline(batch.getRouteData());
+            resultObj.put("polyline", route.getPolyline());
+            if (route.getWaypoints() != null) {
+                resultObj.put("waypoints", route.getWaypoints());
             }
 
-            if (!pathPoints.isEmpty()) {
-                int currentIndex = Math.min(
-                    batch.getCurrentIndex() != null ? batch.getCurrentIndex() : 0,
-                    pathPoints.size() - 1
-                );
-                JSONArray currentPoint = pathPoints.getJSONArray(currentIndex);
+            int currentIndex = route.clampIndex(batch.getCurrentIndex());
+            resultObj.put("currentLat", route.latitudeAt(currentIndex));
+            resultObj.put("currentLng", route.longitudeAt(currentIndex));
 
-                resultObj.put("currentLat", currentPoint.getDoubleValue(0));
-                resultObj.put("currentLng", currentPoint.getDoubleValue(1));
+            double progress = route.size() > 1 ? (double) currentIndex / (route.size() - 1) * 100 : 0;
+            resultObj.put("progress", BigDecimal.valueOf(progress).setScale(1, RoundingMode.HALF_UP));
 
-                double progress = pathPoints.size() > 1 ? (double) currentIndex / (pathPoints.size() - 1) * 100 : 0;
-                resultObj.put("progress", BigDecimal.valueOf(progress).setScale(1, RoundingMode.HALF_UP));
-
-                double remainingRatio = 1.0 - (double) currentIndex / Math.max(pathPoints.size() - 1, 1);
-                resultObj.put("remainingTime", BigDecimal.valueOf(batch.getTotalDuration() * remainingRatio).setScale(0, RoundingMode.HALF_UP));
-            }
+            double remainingRatio = 1.0 - (double) currentIndex / Math.max(route.size() - 1, 1);
+            resultObj.put("remainingTime", BigDecimal.valueOf(batch.getTotalDuration() * remainingRatio).setScale(0, RoundingMode.HALF_UP));
         }
 
         return Result.success("查询成功", resultObj);
     }
 
+    @Operation(summary = "批次位置实时推送",
+            description = "SSE：location 事件推送最新位置，end 事件表示配送结束；断线重连时按 Last-Event-ID 只补发更新的位置")
+    @GetMapping(value = "/stream/batch", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBatch(@Parameter(description = "批次ID") @RequestParam Integer batchId,
+                                  @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        DeliveryBatch batch = deliveryBatchMapper.selectSummaryById(batchId);
+        if (batch == null) throw new BusinessException("批次不存在");
+        return deliveryTrackingHub.subscribe(batchId, lastEventId, trackingSnapshot(batch));
+    }
+
+    @Operation(summary = "订单物流实时推送", description = "SSE：推送订单当前所在批次的位置，事件格式同 /stream/batch")
+    @GetMapping(value = "/stream/order", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOrder(@Parameter(description = "订单ID") @RequestParam Integer orderId,
+                                  @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        Integer batchId = latestBatchId(orderId);
+        DeliveryBatch batch = deliveryBatchMapper.selectSummaryById(batchId);
+        if (batch == null) throw new BusinessException("批次信息不存在");
+        return deliveryTrackingHub.subscribe(batchId, lastEventId, trackingSnapshot(batch));
+    }
+
     @Operation(summary = "停止配送")
     @PostMapping("/stop")
     public Result<Void> stopDelivery(@Parameter(description = "批次ID") @RequestParam Integer batchId) {
@@ -241,31 +223,67 @@ public class DeliveryBatchController {
 
     // ── Private helpers ──
 
-    private CurrentLocationResponse buildLocationResponse(DeliveryBatch batch) {
-        JSONArray pathPoints = tencentMapService.decompressPolyline(batch.getRouteData());
-        if (pathPoints.isEmpty()) throw new BusinessException("路径数据异常");
+    /**
+     * 订单最新的批次关联（一个订单可能被重新分配过批次）
+     */
+    private Integer latestBatchId(Integer orderId) {
+        com.baomidou.mybatisplus.core.conditions.query.QueryWrapper<DeliveryBatchOrder> qw =
+                new com.baomidou.mybatisplus.core.conditions.query.QueryWrapper<>();
+        qw.eq("order_id", orderId).orderByDesc("batch_id").last("LIMIT 1");
+        DeliveryBatchOrder dbo = deliveryBatchOrderMapper.selectOne(qw);
+
+        if (dbo == null) throw new BusinessException("该订单暂无物流信息");
+        return dbo.getBatchId();
+    }
+
+    /**
+     * 新订阅者的初始事件：配送中为当前位置，已完成为终点位置（随后关闭连接），未出发时为 null（出发后开始推送）
+     */
+    private DeliveryTrackingHub.TrackingEvent trackingSnapshot(DeliveryBatch batch) {
+        applyBufferedProgress(batch);
+        RouteGeometry route = batch.getStatus() >= 1 ? routeGeometryCache.get(batch.getId()) : null;
+        if (route == null || route.isEmpty()) {
+            return batch.getStatus() == 2 ? DeliveryTrackingHub.endEvent(batch.getId(), 0, "COMPLETED") : null;
+        }
+        boolean completed = batch.getStatus() == 2;
+        int index = completed ? route.size() - 1 : route.clampIndex(batch.getCurrentIndex());
+        return DeliveryTrackingHub.locationEvent(batch.getId(), route, index, completed);
+    }
+
+    /**
+     * 用写缓冲中尚未落库的最新进度覆盖数据库中的 current_index
+     */
+    private void applyBufferedProgress(DeliveryBatch batch) {
+        if (batch == null) return;
+        Integer bufferedIndex = deliveryProgressBuffer.getCurrentIndex(batch.getId());
+        if (bufferedIndex != null) {
+            batch.setCurrentIndex(bufferedIndex);
+        }
+    }
 
-        int currentIndex = Math.min(
-            batch.getCurrentIndex() != null ? batch.getCurrentIndex() : 0,
-            pathPoints.size() - 1
-        );
-        JSONArray currentPoint = pathPoints.getJSONArray(currentIndex);
+    private CurrentLocationResponse buildLocationResponse(DeliveryBatch batch, RouteGeometry route) {
+        int pointCount = route.size();
+        int currentIndex = route.clampIndex(batch.getCurrentIndex());
 
-        DeliveryLocation location = deliveryLocationMapper.selectLatestByBatchId(batch.getId());
+        BreadcrumbStore.Breadcrumb breadcrumb = breadcrumbStore.latest(batch.getId());
 
         CurrentLocationResponse response = new CurrentLocationResponse();
-        response.setLatitude(new BigDecimal(currentPoint.getDoubleValue(0)));
-        response.setLongitude(new BigDecimal(currentPoint.getDoubleValue(1)));
-        response.setAddress(location != null ? location.getAddress() : "位置获取中...");
+        response.setLatitude(new BigDecimal(route.latitudeAt(currentIndex)));
+        response.setLongitude(new BigDecimal(route.longitudeAt(currentIndex)));
+        response.setAddress(breadcrumb != null ? breadcrumb.address() : "位置获取中...");
         response.setStatus(batch.getStatus() == 1 ? "DELIVERING" : "COMPLETED");
-        response.setProgress((currentIndex * 100) / pathPoints.size());
+        response.setProgress((currentIndex * 100) / pointCount);
 
-        int remainingPoints = pathPoints.size() - currentIndex;
+        // 剩余距离按路线累计距离折算，路线长度为0时退化为按点数折算
+        int remainingPoints = pointCount - currentIndex;
+        double remainingRatio = route.length() > 0
+                ? (route.length() - route.distanceAt(currentIndex)) / route.length()
+                : (double) remainingPoints / pointCount;
         BigDecimal totalDistKm = new BigDecimal(batch.getTotalDistance()).divide(new BigDecimal(1000), 2, RoundingMode.HALF_UP);
         response.setRemainingDistance(totalDistKm
-                .multiply(new BigDecimal(remainingPoints))
-                .divide(new BigDecimal(pathPoints.size()), 2, RoundingMode.HALF_UP));
-        response.setRemainingTime((batch.getTotalDuration() * remainingPoints) / pathPoints.size());
+                .multiply(BigDecimal.valueOf(remainingRatio))
+                .setScale(2, RoundingMode.HALF_UP));
+        response.setRemainingTime((batch.getTotalDuration() * remainingPoints) / pointCount);
 
         return response;
     }
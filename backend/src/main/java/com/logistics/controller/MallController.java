@@ -1,18 +1,31 @@
 package com.logistics.controller;
 
 import com.logistics.common.Result;
+import com.logistics.dto.MallCatalogPage;
 import com.logistics.dto.ProductListingRequest;
 import com.logistics.entity.Inventory;
 import com.logistics.entity.Mall;
+import com.logistics.service.MallCatalogCache;
 import com.logistics.service.MallService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * 商城管理Controller
@@ -24,6 +37,7 @@ import java.util.List;
 public class MallController {
     
     private final MallService mallService;
+    private final MallCatalogCache mallCatalogCache;
     
     /**
      * 获取未上架的商品列表
@@ -51,12 +65,135 @@ public class MallController {
     
     /**
      * 获取商城商品列表
+     * <p>
+     * 直接返回快照中预先序列化好的 JSON（客户端支持时返回 gzip 压缩版本），
+     * 两个版本的字节不同，gzip 版本的 ETag 加 -gz 后缀；If-None-Match 与任一版本的当前 ETag 一致时返回 304
      * @return 商城商品列表
      */
-    @Operation(summary = "获取商城商品", description = "获取商城中所有已上架的商品列表，供用户浏览")
+    @Operation(summary = "获取商城商品", description = "获取商城中所有已上架的商品列表，供用户浏览；支持 ETag 条件请求")
     @GetMapping("/products")
-    public Result<List<Mall>> getMallProducts() {
-        List<Mall> products = mallService.getMallProducts();
-        return Result.success(products);
+    public ResponseEntity<byte[]> getMallProducts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        MallCatalogCache.Snapshot snapshot = mallCatalogCache.current();
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String gzipEtag = gzipEtag(snapshot.etag());
+        String etag = gzip ? gzipEtag : snapshot.etag();
+        if (etagMatches(ifNoneMatch, snapshot.etag()) || etagMatches(ifNoneMatch, gzipEtag)) {
+            return notModified(etag);
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(gzip ? snapshot.gzip() : snapshot.json());
+    }
+    
+    /**
+     * 商城商品分页
+     * <p>
+     * 在商品快照上按价格筛选、排序和分页，不访问数据库
+     * @return 当前页商品
+     */
+    @Operation(summary = "商城商品分页", description = "按价格区间筛选，按上架时间或价格排序分页浏览商城商品")
+    @GetMapping("/products/page")
+    public ResponseEntity<Result<MallCatalogPage>> getMallProductPage(
+            @Parameter(description = "最低价格") @RequestParam(required = false) BigDecimal minPrice,
+            @Parameter(description = "最高价格") @RequestParam(required = false) BigDecimal maxPrice,
+            @Parameter(description = "排序：newest / price_asc / price_desc") @RequestParam(defaultValue = "newest") String sort,
+            @Parameter(description = "页码，从 1 开始") @RequestParam(defaultValue = "1") Integer page,
+            @Parameter(description = "每页条数，最大 100") @RequestParam(defaultValue = "20") Integer size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        MallCatalogCache.Snapshot snapshot = mallCatalogCache.current();
+        // 同一快照、同一组参数的结果不变，ETag 由快照 ETag 与参数共同决定
+        String etag = pageEtag(snapshot.etag(), minPrice + "|" + maxPrice + "|" + sort + "|" + page + "|" + size);
+        if (etagMatches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        MallCatalogPage result = mallCatalogCache.page(minPrice, maxPrice, sort, page, size);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(Result.success(result));
+    }
+    
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .build();
+    }
+    
+    /**
+     * If-None-Match 可能是逗号分隔的多个 ETag 或 *；按弱比较处理（代理压缩时可能加上 W/ 前缀）
+     */
+    static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * gzip 版本的 ETag：在引号内加 -gz 后缀
+     */
+    static String gzipEtag(String etag) {
+        return etag.endsWith("\"") ? etag.substring(0, etag.length() - 1) + "-gz\"" : etag + "-gz";
+    }
+    
+    /**
+     * 按 Accept-Encoding 的 q 值判断是否接受 gzip：gzip;q=0 表示拒绝，未列出 gzip 时看通配符 *
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim().toLowerCase(Locale.ROOT);
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = q;
+            } else if (coding.equals("*")) {
+                any = q;
+            }
+        }
+        return gzip != null ? gzip > 0 : any != null && any > 0;
+    }
+    
+    private static String pageEtag(String snapshotEtag, String params) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(snapshotEtag.getBytes(StandardCharsets.UTF_8));
+            digest.update(params.getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
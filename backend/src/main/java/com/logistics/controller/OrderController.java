@@ -1,9 +1,12 @@
 package com.logistics.controller;
 
+import com.logistics.common.CursorPage;
 import com.logistics.common.Result;
 import com.logistics.dto.CreateOrderRequest;
 import com.logistics.entity.Order;
 import com.logistics.exception.BusinessException;
+import com.logistics.service.DispatchService;
+import com.logistics.service.OrderIngestionService;
 import com.logistics.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -24,34 +27,39 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final DispatchService dispatchService;
+    private final OrderIngestionService orderIngestionService;
 
     @Operation(summary = "查询顾客订单列表")
     @GetMapping("/my")
-    public Result<List<Order>> listMyOrders(
+    public Result<CursorPage<Order>> listMyOrders(
             @Parameter(description = "客户ID") @RequestParam Integer customerId,
             @Parameter(description = "订单状态") @RequestParam(required = false) Integer status,
-            @Parameter(description = "搜索关键词") @RequestParam(required = false) String search) {
-        List<Order> orders = orderService.getCustomerOrders(customerId, status, search);
-        return Result.success(orders);
+            @Parameter(description = "搜索关键词") @RequestParam(required = false) String search,
+            @Parameter(description = "分页游标，取上一页返回的 nextCursor") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页条数，默认 20，最多 100") @RequestParam(required = false) Integer limit) {
+        return Result.success(orderService.getCustomerOrders(customerId, status, search, cursor, limit));
     }
 
     @Operation(summary = "查询商户订单列表")
     @GetMapping("/merchant")
-    public Result<List<Order>> listMerchantOrders(
+    public Result<CursorPage<Order>> listMerchantOrders(
             @Parameter(description = "商户ID") @RequestParam Integer merchantId,
             @Parameter(description = "订单状态") @RequestParam(required = false) Integer status,
-            @Parameter(description = "搜索关键词") @RequestParam(required = false) String search) {
-        List<Order> orders = orderService.getMerchantOrders(merchantId, status, search);
-        return Result.success(orders);
+            @Parameter(description = "搜索关键词") @RequestParam(required = false) String search,
+            @Parameter(description = "分页游标，取上一页返回的 nextCursor") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页条数，默认 20，最多 100") @RequestParam(required = false) Integer limit) {
+        return Result.success(orderService.getMerchantOrders(merchantId, status, search, cursor, limit));
     }
 
     @Operation(summary = "查询待揽收订单")
     @GetMapping("/pending-pickup")
-    public Result<List<Order>> listPendingPickupOrders(
+    public Result<CursorPage<Order>> listPendingPickupOrders(
             @Parameter(description = "配送员ID") @RequestParam Long driverId,
-            @Parameter(description = "搜索关键词") @RequestParam(required = false) String search) {
-        List<Order> orders = orderService.getPendingPickupOrders(driverId, search);
-        return Result.success(orders);
+            @Parameter(description = "搜索关键词") @RequestParam(required = false) String search,
+            @Parameter(description = "分页游标，取上一页返回的 nextCursor") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页条数，默认 20，最多 100") @RequestParam(required = false) Integer limit) {
+        return Result.success(orderService.getPendingPickupOrders(driverId, search, cursor, limit));
     }
 
     @Operation(summary = "确认收货")
@@ -96,6 +104,22 @@ public class OrderController {
         return Result.success("创建送货批次成功", resp);
     }
 
+    @Operation(summary = "批量创建送货批次（调度员为仓库一次创建多个批次）")
+    @PostMapping("/delivery-batches/bulk")
+    public Result<List<com.logistics.dto.CreateBatchResponse>> createDeliveryBatches(
+            @Parameter(description = "仓库ID及各批次的配送员、订单") @RequestBody com.logistics.dto.BulkCreateBatchRequest request) {
+        var resp = orderService.createDeliveryBatches(request);
+        return Result.success("批量创建送货批次成功", resp);
+    }
+
+    @Operation(summary = "自动调度：将仓库所有已揽收订单按地理位置分组为批次并分配给配送员")
+    @PostMapping("/dispatch")
+    public Result<com.logistics.dto.DispatchResponse> dispatch(
+            @Parameter(description = "仓库ID") @RequestParam Integer warehouseId) {
+        var resp = dispatchService.dispatch(warehouseId);
+        return Result.success("自动调度成功", resp);
+    }
+
     @Operation(summary = "创建订单")
     @PostMapping("/create")
     public Result<Order> createOrder(@Parameter(description = "订单创建信息") @RequestBody CreateOrderRequest request) {
@@ -111,7 +135,9 @@ public class OrderController {
         if (request.getPrice() == null) {
             throw new BusinessException("商品价格不能为空");
         }
-        Order order = orderService.createOrder(request, request.getCustomerId());
+        Order order = orderIngestionService.isEnabled()
+                ? orderIngestionService.submit(request)
+                : orderService.createOrder(request, request.getCustomerId());
         return Result.success("下单成功", order);
     }
 
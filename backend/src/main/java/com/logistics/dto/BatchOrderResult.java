@@ -0,0 +1,25 @@
+package com.logistics.dto;
+
+import com.logistics.entity.Order;
+import lombok.Data;
+
+/**
+ * 批量下单中单个请求的结果：成功时 order 不为空，校验失败时 error 为失败原因
+ */
+@Data
+public class BatchOrderResult {
+    private Order order;
+    private String error;
+
+    public static BatchOrderResult success(Order order) {
+        BatchOrderResult result = new BatchOrderResult();
+        result.setOrder(order);
+        return result;
+    }
+
+    public static BatchOrderResult failure(String error) {
+        BatchOrderResult result = new BatchOrderResult();
+        result.setError(error);
+        return result;
+    }
+}
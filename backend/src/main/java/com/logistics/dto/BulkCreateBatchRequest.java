@@ -0,0 +1,36 @@
+package com.logistics.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量创建送货批次请求DTO（调度员一次为某仓库创建多个批次）
+ */
+@Data
+public class BulkCreateBatchRequest {
+
+    /**
+     * 仓库ID，所有配送员与订单都必须属于该仓库
+     */
+    private Integer warehouseId;
+
+    /**
+     * 待创建的批次
+     */
+    private List<BatchAssignment> batches;
+
+    @Data
+    public static class BatchAssignment {
+
+        /**
+         * 配送员用户ID
+         */
+        private Long driverId;
+
+        /**
+         * 该批次的订单ID列表
+         */
+        private List<Integer> orderIds;
+    }
+}
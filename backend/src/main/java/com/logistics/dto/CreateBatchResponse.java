@@ -10,6 +10,7 @@ import java.util.List;
 @Data
 public class CreateBatchResponse {
     private Integer batchId;
+    private Integer driverId;
     private Integer totalDistance; // 米
     private Integer totalDuration; // 秒
     private Integer orderCount;
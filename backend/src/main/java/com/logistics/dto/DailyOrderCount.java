@@ -0,0 +1,21 @@
+package com.logistics.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 每日订单趋势
+ */
+@Data
+public class DailyOrderCount {
+    /**
+     * 日期 yyyy-MM-dd
+     */
+    private String date;
+    private Long count;
+    /**
+     * 当日下单且已付款（状态 >= 1）的订单金额
+     */
+    private BigDecimal revenue;
+}
@@ -0,0 +1,31 @@
+package com.logistics.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 自动调度结果
+ */
+@Data
+public class DispatchResponse {
+    private Integer warehouseId;
+    /**
+     * 参与调度（已分入批次）的订单数
+     */
+    private Integer orderCount;
+    private Integer batchCount;
+    /**
+     * 分到批次的配送员数
+     */
+    private Integer driverCount;
+    /**
+     * 顾客缺少默认地址或坐标、未能调度的订单
+     */
+    private List<Integer> skippedOrderIds;
+    /**
+     * 新建的批次，totalDistance / totalDuration 为本地估算值，开始运输时再规划实际路线
+     */
+    private List<CreateBatchResponse> batches;
+    private Long elapsedMs;
+}
@@ -0,0 +1,23 @@
+package com.logistics.dto;
+
+import com.logistics.entity.Mall;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 商城商品分页（基于内存中的商品目录快照）
+ */
+@Data
+public class MallCatalogPage {
+    private List<Mall> items;
+    /**
+     * 满足筛选条件的商品总数
+     */
+    private int total;
+    /**
+     * 页码，从 1 开始
+     */
+    private int page;
+    private int size;
+}
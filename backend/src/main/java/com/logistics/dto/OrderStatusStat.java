@@ -0,0 +1,18 @@
+package com.logistics.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 按订单状态分组的统计行
+ */
+@Data
+public class OrderStatusStat {
+    private Integer status;
+    private Long orderCount;
+    /**
+     * 该状态订单的金额合计
+     */
+    private BigDecimal revenue;
+}
@@ -0,0 +1,12 @@
+package com.logistics.dto;
+
+import lombok.Data;
+
+/**
+ * 按角色分组的用户数
+ */
+@Data
+public class RoleCount {
+    private String role;
+    private Long userCount;
+}
@@ -0,0 +1,47 @@
+package com.logistics.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 配送轨迹分块实体类
+ * 一行保存一个批次的一段轨迹点（{@link com.logistics.route.Breadcrumbs} 编码）
+ */
+@Data
+@TableName("delivery_track_chunk")
+public class DeliveryTrackChunk {
+
+    /**
+     * 批次ID（主键的一部分，无需 @TableId）
+     */
+    private Integer batchId;
+
+    /**
+     * 分块序号，批次内递增（主键的一部分）
+     */
+    private Integer seq;
+
+    /** 0-原始轨迹，1-配送结束后降采样的轨迹 */
+    private Integer level;
+
+    private Integer pointCount;
+
+    /** 第一个点的路径点索引 */
+    private Integer firstIndex;
+
+    /** 最后一个点的路径点索引 */
+    private Integer lastIndex;
+
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+
+    /** 最后一个点的地址（逆地理编码） */
+    private String lastAddress;
+
+    /** 编码后的轨迹点 */
+    private byte[] data;
+
+    private LocalDateTime updatedAt;
+}
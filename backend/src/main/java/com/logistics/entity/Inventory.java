@@ -27,6 +27,8 @@ public class Inventory {
     
     private String imageUrl;
     
+    private Integer imageStatus; // 0-上传中, 1-已上传, 2-上传失败
+    
     private Integer isPublished; // 0-未上架, 1-已上架
     
     private Integer warehouseId; // 所属仓库ID
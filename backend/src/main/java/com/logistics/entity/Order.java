@@ -64,4 +64,8 @@ public class Order {
     // 非数据库字段，用于显示收货地址
     @TableField(exist = false)
     private Address address;
+    
+    // 非数据库字段，所属运输批次ID（按批次批量查询时填充）
+    @TableField(exist = false)
+    private Integer batchId;
 }
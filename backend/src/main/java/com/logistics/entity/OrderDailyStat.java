@@ -0,0 +1,33 @@
+package com.logistics.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 订单日汇总实体类
+ * 按 下单日期 × 仓库 × 当前状态 × 商户 汇总订单数与金额，由订单状态流转增量维护
+ */
+@Data
+@TableName("order_daily_stats")
+public class OrderDailyStat {
+
+    /** 下单日期（主键的一部分） */
+    private LocalDate statDate;
+
+    /** 发货仓库，未知时为 0（主键的一部分） */
+    private Integer warehouseId;
+
+    /** 订单当前状态（主键的一部分） */
+    private Integer status;
+
+    /** 商户，未知时为 0（主键的一部分） */
+    private Integer merchantId;
+
+    private Long orderCount;
+
+    /** 订单金额合计 */
+    private BigDecimal revenue;
+}
@@ -1,7 +1,9 @@
 package com.logistics.exception;
 
 import com.logistics.common.Result;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.BindException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -25,6 +27,17 @@ public class GlobalExceptionHandler {
         return Result.error(e.getCode(), e.getMessage());
     }
 
+    /**
+     * 处理请求过多异常：返回 429 并提示客户端 1 秒后重试
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public Result<Void> handleTooManyRequestsException(TooManyRequestsException e, HttpServletResponse response) {
+        log.warn("请求过多: {}", e.getMessage());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        return Result.error(e.getCode(), e.getMessage());
+    }
+
     /**
      * 处理参数校验异常
      */
@@ -0,0 +1,11 @@
+package com.logistics.exception;
+
+/**
+ * 请求过多（下单队列已满等），返回 HTTP 429，客户端应稍后重试
+ */
+public class TooManyRequestsException extends BusinessException {
+
+    public TooManyRequestsException(String message) {
+        super(429, message);
+    }
+}
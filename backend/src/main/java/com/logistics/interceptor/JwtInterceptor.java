@@ -20,27 +20,40 @@ public class JwtInterceptor implements HandlerInterceptor {
             return true;
         }
         
+        // 浏览器 EventSource 不能设置请求头，实时推送（SSE）请求用 /auth/stream-ticket 换来的短时票据鉴权，
+        // 登录 Token 不出现在 URL 里
+        if (request.getHeader("Authorization") == null && isEventStream(request)) {
+            return authenticated(request, jwtUtil.resolveStreamTicket(request.getParameter("ticket")))
+                    || unauthorized(response);
+        }
+        
         // 获取 token
         String token = request.getHeader("Authorization");
         
         if (token != null && token.startsWith("Bearer ")) {
             token = token.substring(7);
             
-            // 验证 token
-            if (jwtUtil.validateToken(token)) {
-                // Token 有效，将用户信息存入 request 属性
-                Long userId = jwtUtil.getUserIdFromToken(token);
-                String username = jwtUtil.getUsernameFromToken(token);
-                String role = jwtUtil.getRoleFromToken(token);
-                
-                request.setAttribute("userId", userId);
-                request.setAttribute("username", username);
-                request.setAttribute("role", role);
-                
+            // 验证 token，一次解析取出全部用户信息（校验结果有缓存）
+            if (authenticated(request, jwtUtil.resolve(token))) {
                 return true;
             }
         }
         
+        return unauthorized(response);
+    }
+    
+    private static boolean authenticated(HttpServletRequest request, JwtUtil.TokenPrincipal principal) {
+        if (principal == null) {
+            return false;
+        }
+        // Token 有效，将用户信息存入 request 属性
+        request.setAttribute("userId", principal.userId());
+        request.setAttribute("username", principal.username());
+        request.setAttribute("role", principal.role());
+        return true;
+    }
+    
+    private static boolean unauthorized(HttpServletResponse response) {
         // Token 无效或不存在
         response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
         response.setContentType("application/json;charset=UTF-8");
@@ -51,4 +64,9 @@ public class JwtInterceptor implements HandlerInterceptor {
         }
         return false;
     }
+    
+    private static boolean isEventStream(HttpServletRequest request) {
+        String accept = request.getHeader("Accept");
+        return "GET".equals(request.getMethod()) && accept != null && accept.contains("text/event-stream");
+    }
 }
@@ -0,0 +1,67 @@
+package com.logistics.interceptor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求级 SQL 指标
+ * <p>
+ * 每个请求结束时发布本次请求执行的语句数 http.server.requests.sql.statements、行数 http.server.requests.sql.rows
+ * 和 SQL 总耗时 http.server.requests.sql.time，标签 method、uri 与 Spring 自带的 http.server.requests 一致，
+ * 可按接口对照请求总耗时。请求本身的耗时直方图由 http.server.requests 提供。
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestMetricsInterceptor implements AsyncHandlerInterceptor {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        SqlMetricsInterceptor.beginRequest();
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        // 异步请求（SSE）释放容器线程，不发布也不能留在线程上
+        SqlMetricsInterceptor.endRequest();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        SqlMetricsInterceptor.RequestSqlStats stats = SqlMetricsInterceptor.endRequest();
+        if (stats == null) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        String method = request.getMethod();
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .description("每个请求执行的 SQL 语句数")
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry)
+                .record(stats.statements());
+        DistributionSummary.builder("http.server.requests.sql.rows")
+                .description("每个请求读取或写入的行数")
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry)
+                .record(stats.rows());
+        Timer.builder("http.server.requests.sql.time")
+                .description("每个请求的 SQL 总耗时")
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry)
+                .record(stats.nanos(), TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,188 @@
+package com.logistics.interceptor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQL 语句指标（MyBatis 插件，由 MyBatis-Plus 自动注册）
+ * <p>
+ * 每条 Mapper 语句发布耗时 sql.statements 和行数 sql.rows（查询为返回行数，写入为影响行数，只记录成功的语句），
+ * 按 statement（如 OrderMapper.selectById）、type、outcome 标签区分。
+ * 请求线程上通过 {@link #beginRequest()} 开启统计后，同时累计本次请求的语句数、行数和耗时，
+ * 由 {@link RequestMetricsInterceptor} 在请求结束时发布。
+ * <p>
+ * 两种 query 签名都拦截：与其他插件组合时，外层调用的是 4 参数版本，内层插件转调的是 6 参数版本，每次查询只会经过其中一个。
+ */
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class,
+                        CacheKey.class, BoundSql.class})
+})
+public class SqlMetricsInterceptor implements Interceptor {
+
+    private static final ThreadLocal<RequestSqlStats> CURRENT = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, StatementMeters> meters = new ConcurrentHashMap<>();
+
+    public SqlMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        long start = System.nanoTime();
+        Object result = null;
+        boolean success = false;
+        try {
+            result = invocation.proceed();
+            success = true;
+            return result;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            long rows = success ? rows(result) : 0;
+            StatementMeters m = meters.computeIfAbsent(statement.getId(), id -> new StatementMeters(statement));
+            if (success) {
+                m.success().record(nanos, TimeUnit.NANOSECONDS);
+                m.rows().record(rows);
+            } else {
+                m.error().record(nanos, TimeUnit.NANOSECONDS);
+            }
+            RequestSqlStats stats = CURRENT.get();
+            if (stats != null) {
+                stats.statements++;
+                stats.rows += rows;
+                stats.nanos += nanos;
+            }
+        }
+    }
+
+    /**
+     * 在当前线程开始累计请求级 SQL 统计
+     */
+    public static void beginRequest() {
+        CURRENT.set(new RequestSqlStats());
+    }
+
+    /**
+     * 结束当前线程的请求级统计
+     *
+     * @return 本次请求的统计，未开启时返回 null
+     */
+    public static RequestSqlStats endRequest() {
+        RequestSqlStats stats = CURRENT.get();
+        CURRENT.remove();
+        return stats;
+    }
+
+    private static long rows(Object result) {
+        if (result instanceof Collection<?> list) {
+            return list.size();
+        }
+        if (result instanceof Integer count) {
+            return Math.max(count, 0);
+        }
+        return 0;
+    }
+
+    /**
+     * 请求内执行的语句数、行数与总耗时（纳秒）
+     */
+    public static final class RequestSqlStats {
+        private int statements;
+        private long rows;
+        private long nanos;
+
+        public int statements() {
+            return statements;
+        }
+
+        public long rows() {
+            return rows;
+        }
+
+        public long nanos() {
+            return nanos;
+        }
+    }
+
+    /**
+     * 单条语句的指标，按结果在首次用到时注册：失败的语句不会出现 outcome=success 的序列，也不记录行数
+     */
+    private final class StatementMeters {
+        private final String name;
+        private final String type;
+        private volatile Timer success;
+        private volatile Timer error;
+        private volatile DistributionSummary rows;
+
+        StatementMeters(MappedStatement statement) {
+            String id = statement.getId();
+            // com.logistics.mapper.OrderMapper.selectById -> OrderMapper.selectById
+            int method = id.lastIndexOf('.');
+            int mapper = method > 0 ? id.lastIndexOf('.', method - 1) : -1;
+            this.name = id.substring(mapper + 1);
+            this.type = statement.getSqlCommandType().name().toLowerCase(Locale.ROOT);
+        }
+
+        Timer success() {
+            Timer timer = success;
+            if (timer == null) {
+                timer = timer("success");
+                success = timer;
+            }
+            return timer;
+        }
+
+        Timer error() {
+            Timer timer = error;
+            if (timer == null) {
+                timer = timer("error");
+                error = timer;
+            }
+            return timer;
+        }
+
+        DistributionSummary rows() {
+            DistributionSummary summary = rows;
+            if (summary == null) {
+                summary = DistributionSummary.builder("sql.rows")
+                        .description("每条成功语句返回或影响的行数")
+                        .tags("statement", name, "type", type)
+                        .register(meterRegistry);
+                rows = summary;
+            }
+            return summary;
+        }
+
+        private Timer timer(String outcome) {
+            return Timer.builder("sql.statements")
+                    .description("Mapper 语句耗时")
+                    .tags("statement", name, "type", type, "outcome", outcome)
+                    .register(meterRegistry);
+        }
+    }
+}
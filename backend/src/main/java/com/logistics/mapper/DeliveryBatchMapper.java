@@ -2,11 +2,70 @@ package com.logistics.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.logistics.entity.DeliveryBatch;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * 运输批次Mapper接口
  */
 @Mapper
 public interface DeliveryBatchMapper extends BaseMapper<DeliveryBatch> {
+
+    /**
+     * 查询批次基本信息（不含 route_data 大字段），供位置轮询等高频接口使用
+     */
+    @Select("SELECT id, driver_id, warehouse_id, status, total_distance, total_duration, current_index, " +
+            "created_at, started_at, completed_at " +
+            "FROM delivery_batches WHERE id = #{id}")
+    DeliveryBatch selectSummaryById(@Param("id") Integer id);
+
+    /**
+     * 批量写入新批次（一条多行 INSERT），自增 ID 回填到各批次的 id
+     */
+    @Insert("<script>" +
+            "INSERT INTO delivery_batches (driver_id, warehouse_id, status, route_data, total_distance, " +
+            "total_duration, current_index, created_at) VALUES " +
+            "<foreach collection='batches' item='b' separator=','>" +
+            "(#{b.driverId}, #{b.warehouseId}, #{b.status}, #{b.routeData}, #{b.totalDistance}, " +
+            "#{b.totalDuration}, #{b.currentIndex}, #{b.createdAt})" +
+            "</foreach>" +
+            "</script>")
+    @Options(useGeneratedKeys = true, keyProperty = "batches.id", keyColumn = "id")
+    int insertBatch(@Param("batches") List<DeliveryBatch> batches);
+
+    /**
+     * 批量写入模拟位置索引（一条 UPDATE ... CASE 语句），仅对配送中的批次生效
+     *
+     * @param batches 只需填充 id 与 currentIndex
+     */
+    @Update("<script>" +
+            "UPDATE delivery_batches SET current_index = CASE id " +
+            "<foreach collection='batches' item='b'>WHEN #{b.id} THEN #{b.currentIndex} </foreach>" +
+            "END " +
+            "WHERE status = 1 AND id IN " +
+            "<foreach collection='batches' item='b' open='(' separator=',' close=')'>#{b.id}</foreach>" +
+            "</script>")
+    int updateCurrentIndexes(@Param("batches") Collection<DeliveryBatch> batches);
+
+    /**
+     * 模拟到达终点，将配送中的批次标记为已完成
+     */
+    @Update("UPDATE delivery_batches SET status = 2, current_index = #{index}, completed_at = #{completedAt} " +
+            "WHERE id = #{id} AND status = 1")
+    int completeDelivering(@Param("id") Integer id, @Param("index") Integer index,
+                           @Param("completedAt") LocalDateTime completedAt);
+
+    /**
+     * 查询所有配送中的批次ID（服务重启后恢复模拟）
+     */
+    @Select("SELECT id FROM delivery_batches WHERE status = 1 AND route_data IS NOT NULL")
+    List<Integer> selectDeliveringIds();
 }
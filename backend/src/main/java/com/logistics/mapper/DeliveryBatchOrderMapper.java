@@ -2,11 +2,26 @@ package com.logistics.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.logistics.entity.DeliveryBatchOrder;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * 运输批次订单关联Mapper接口
  */
 @Mapper
 public interface DeliveryBatchOrderMapper extends BaseMapper<DeliveryBatchOrder> {
+
+    /**
+     * 批量写入批次-订单关联（一条多行 INSERT）
+     */
+    @Insert("<script>" +
+            "INSERT INTO delivery_batch_orders (batch_id, order_id, stop_sequence) VALUES " +
+            "<foreach collection='rows' item='r' separator=','>" +
+            "(#{r.batchId}, #{r.orderId}, #{r.stopSequence})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("rows") List<DeliveryBatchOrder> rows);
 }
@@ -0,0 +1,54 @@
+package com.logistics.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.logistics.entity.DeliveryTrackChunk;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface DeliveryTrackChunkMapper extends BaseMapper<DeliveryTrackChunk> {
+
+    /**
+     * 批量写入轨迹分块；未写满的分块每次刷新都会整块覆盖
+     */
+    @Insert("<script>" +
+            "INSERT INTO delivery_track_chunk (batch_id, seq, level, point_count, first_index, last_index, " +
+            "start_time, end_time, last_address, data, updated_at) VALUES " +
+            "<foreach collection='chunks' item='c' separator=','>" +
+            "(#{c.batchId}, #{c.seq}, #{c.level}, #{c.pointCount}, #{c.firstIndex}, #{c.lastIndex}, " +
+            "#{c.startTime}, #{c.endTime}, #{c.lastAddress}, #{c.data}, #{c.updatedAt})" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE level = VALUES(level), point_count = VALUES(point_count), " +
+            "first_index = VALUES(first_index), last_index = VALUES(last_index), start_time = VALUES(start_time), " +
+            "end_time = VALUES(end_time), last_address = VALUES(last_address), data = VALUES(data), " +
+            "updated_at = VALUES(updated_at)" +
+            "</script>")
+    int upsertBatch(@Param("chunks") List<DeliveryTrackChunk> chunks);
+
+    @Select("SELECT MAX(seq) FROM delivery_track_chunk WHERE batch_id = #{batchId}")
+    Integer selectMaxSeq(@Param("batchId") Integer batchId);
+
+    @Select("SELECT * FROM delivery_track_chunk WHERE batch_id = #{batchId} ORDER BY seq")
+    List<DeliveryTrackChunk> selectByBatchId(@Param("batchId") Integer batchId);
+
+    @Select("SELECT * FROM delivery_track_chunk WHERE batch_id = #{batchId} ORDER BY seq DESC LIMIT 1")
+    DeliveryTrackChunk selectLatest(@Param("batchId") Integer batchId);
+
+    /**
+     * 删除批次中序号小于 seq 的分块（降采样后的分块写入后再删除原始分块）
+     */
+    @Delete("DELETE FROM delivery_track_chunk WHERE batch_id = #{batchId} AND seq < #{seq}")
+    int deleteBefore(@Param("batchId") Integer batchId, @Param("seq") Integer seq);
+
+    /**
+     * 删除过期的原始分块，每次最多 limit 行
+     */
+    @Delete("DELETE FROM delivery_track_chunk WHERE level = 0 AND updated_at < #{cutoff} LIMIT #{limit}")
+    int deleteRawBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
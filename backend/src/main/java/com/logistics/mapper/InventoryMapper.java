@@ -3,8 +3,11 @@ package com.logistics.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.logistics.entity.Inventory;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -25,15 +28,22 @@ public interface InventoryMapper extends BaseMapper<Inventory> {
     
     /**
      * 根据条件查询库存并关联仓库信息
+     * 商品名称检索：productIds 不为 null 时按搜索索引解析出的商品ID过滤，否则回退到 LIKE
      */
     @Select("<script>" +
             "SELECT i.*, w.name as warehouseName " +
             "FROM inventory i " +
             "LEFT JOIN warehouse w ON i.warehouse_id = w.id " +
             "WHERE i.user_id = #{userId} " +
-            "<if test='productName != null and productName != \"\"'>" +
-            "  AND i.product_name LIKE CONCAT('%', #{productName}, '%') " +
-            "</if>" +
+            "<choose>" +
+            "  <when test='productIds != null'>" +
+            "    AND i.product_id IN " +
+            "    <foreach collection='productIds' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "  </when>" +
+            "  <when test='productName != null and productName != \"\"'>" +
+            "    AND i.product_name LIKE CONCAT('%', #{productName}, '%') " +
+            "  </when>" +
+            "</choose>" +
             "<if test='minStock != null'>" +
             "  AND i.quantity &gt;= #{minStock} " +
             "</if>" +
@@ -45,5 +55,32 @@ public interface InventoryMapper extends BaseMapper<Inventory> {
             "</if>" +
             "ORDER BY i.stock_in_date DESC" +
             "</script>")
-    List<Inventory> selectWithWarehouseByConditions(Integer userId, String productName, Integer minStock, Integer maxStock, Integer isPublished);
+    List<Inventory> selectWithWarehouseByConditions(@Param("userId") Integer userId,
+                                                    @Param("productName") String productName,
+                                                    @Param("productIds") Collection<Integer> productIds,
+                                                    @Param("minStock") Integer minStock,
+                                                    @Param("maxStock") Integer maxStock,
+                                                    @Param("isPublished") Integer isPublished);
+
+    /**
+     * 搜索索引加载：按商品ID分页读取商品名称
+     */
+    @Select("SELECT product_id, product_name FROM inventory " +
+            "WHERE product_id > #{afterId} ORDER BY product_id LIMIT #{limit}")
+    List<Inventory> selectProductNamesAfter(@Param("afterId") int afterId, @Param("limit") int limit);
+
+    /**
+     * 异步上传结束后回填图片地址与状态，只更新上传中或上传失败的记录（失败后重试成功可改为已上传）
+     */
+    @Update("UPDATE inventory SET image_url = #{imageUrl}, image_status = #{imageStatus} " +
+            "WHERE product_id = #{productId} AND image_status <> 1")
+    int updateImage(@Param("productId") Integer productId,
+                    @Param("imageUrl") String imageUrl,
+                    @Param("imageStatus") int imageStatus);
+
+    /**
+     * 暂存目录巡检：查询上传中或上传失败的商品，走 idx_inventory_image_status 索引
+     */
+    @Select("SELECT product_id, image_status FROM inventory WHERE image_status IN (0, 2)")
+    List<Inventory> selectImageUnfinished();
 }
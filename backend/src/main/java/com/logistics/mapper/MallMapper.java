@@ -3,10 +3,27 @@ package com.logistics.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.logistics.entity.Mall;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
 
 /**
  * 商城Mapper接口
  */
 @Mapper
 public interface MallMapper extends BaseMapper<Mall> {
+
+    /**
+     * 条件扣减可用库存，库存不足或商品未上架时不更新
+     *
+     * @return 更新行数，0 表示扣减失败
+     */
+    @Update("UPDATE mall SET available_quantity = available_quantity - #{quantity} " +
+            "WHERE product_id = #{productId} AND is_published = 1 AND available_quantity >= #{quantity}")
+    int decreaseAvailableQuantity(@Param("productId") Integer productId, @Param("quantity") int quantity);
+
+    /**
+     * 图片上传完成前已上架的商品，补上图片地址
+     */
+    @Update("UPDATE mall SET image_url = #{imageUrl} WHERE product_id = #{productId} AND image_url IS NULL")
+    int fillImageUrl(@Param("productId") Integer productId, @Param("imageUrl") String imageUrl);
 }
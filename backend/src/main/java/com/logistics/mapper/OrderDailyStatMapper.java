@@ -0,0 +1,80 @@
+package com.logistics.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.logistics.entity.OrderDailyStat;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 订单日汇总Mapper接口
+ */
+@Mapper
+public interface OrderDailyStatMapper extends BaseMapper<OrderDailyStat> {
+
+    /**
+     * 累加增量（一条多行 INSERT ... ON DUPLICATE KEY UPDATE），orderCount / revenue 可为负数
+     */
+    @Insert("<script>" +
+            "INSERT INTO order_daily_stats (stat_date, warehouse_id, status, merchant_id, order_count, revenue) VALUES " +
+            "<foreach collection='deltas' item='d' separator=','>" +
+            "(#{d.statDate}, #{d.warehouseId}, #{d.status}, #{d.merchantId}, #{d.orderCount}, #{d.revenue})" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count), " +
+            "revenue = revenue + VALUES(revenue)" +
+            "</script>")
+    int upsertDeltas(@Param("deltas") List<OrderDailyStat> deltas);
+
+    /**
+     * 按日期汇总订单数与已付款（状态 >= 1）金额，可按仓库筛选；只读汇总表
+     */
+    @Select("<script>" +
+            "SELECT stat_date, SUM(order_count) AS order_count, " +
+            "       SUM(CASE WHEN status >= 1 THEN revenue ELSE 0 END) AS revenue " +
+            "FROM order_daily_stats " +
+            "WHERE stat_date &gt;= #{start} " +
+            "<if test='warehouseId != null'>" +
+            "  AND warehouse_id = #{warehouseId} " +
+            "</if>" +
+            "GROUP BY stat_date " +
+            "ORDER BY stat_date" +
+            "</script>")
+    List<OrderDailyStat> selectDailyTotals(@Param("start") LocalDate start,
+                                           @Param("warehouseId") Integer warehouseId);
+
+    @Select("SELECT DATE(MIN(order_time)) FROM orders")
+    LocalDate selectFirstOrderDate();
+
+    @Select("SELECT DATE(MAX(order_time)) FROM orders")
+    LocalDate selectLastOrderDate();
+
+    /**
+     * 对某一天的订单加共享锁，直到事务结束：经 order_time 索引只锁这一天的范围，
+     * 等待正在修改这些订单（随后在同一事务中写入增量）的事务提交，并阻塞这一天的新写入，重建期间不会有增量穿插
+     */
+    @Select("SELECT COUNT(*) FROM orders " +
+            "WHERE order_time >= #{day} AND order_time < DATE_ADD(#{day}, INTERVAL 1 DAY) FOR SHARE")
+    long lockOrdersOn(@Param("day") LocalDate day);
+
+    @Delete("DELETE FROM order_daily_stats WHERE stat_date = #{day}")
+    int deleteByDate(@Param("day") LocalDate day);
+
+    @Delete("DELETE FROM order_daily_stats WHERE stat_date < #{day}")
+    int deleteBefore(@Param("day") LocalDate day);
+
+    /**
+     * 从 orders 重建某一天的汇总（修复用）
+     */
+    @Insert("INSERT INTO order_daily_stats (stat_date, warehouse_id, status, merchant_id, order_count, revenue) " +
+            "SELECT #{day}, COALESCE(warehouse_id, 0), status, COALESCE(merchant_id, 0), " +
+            "       COUNT(*), COALESCE(SUM(total_amount), 0) " +
+            "FROM orders " +
+            "WHERE order_time >= #{day} AND order_time < DATE_ADD(#{day}, INTERVAL 1 DAY) AND status IS NOT NULL " +
+            "GROUP BY COALESCE(warehouse_id, 0), status, COALESCE(merchant_id, 0)")
+    int rebuildDay(@Param("day") LocalDate day);
+}
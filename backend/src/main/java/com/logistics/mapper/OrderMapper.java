@@ -1,11 +1,19 @@
 package com.logistics.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.logistics.common.PageCursor;
+import com.logistics.dto.OrderStatusStat;
 import com.logistics.entity.Order;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.ResultMap;
+import org.apache.ibatis.annotations.Results;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -14,8 +22,27 @@ import java.util.List;
 @Mapper
 public interface OrderMapper extends BaseMapper<Order> {
     
+    /**
+     * 批量写入新订单（一条多行 INSERT），自增 ID 回填到各订单的 orderId
+     */
+    @Insert("<script>" +
+            "INSERT INTO orders (product_id, customer_id, merchant_id, address_id, product_name, quantity, " +
+            "unit_price, total_amount, image_url, warehouse_id, status, order_time) VALUES " +
+            "<foreach collection='orders' item='o' separator=','>" +
+            "(#{o.productId}, #{o.customerId}, #{o.merchantId}, #{o.addressId}, #{o.productName}, #{o.quantity}, " +
+            "#{o.unitPrice}, #{o.totalAmount}, #{o.imageUrl}, #{o.warehouseId}, #{o.status}, #{o.orderTime})" +
+            "</foreach>" +
+            "</script>")
+    @Options(useGeneratedKeys = true, keyProperty = "orders.orderId", keyColumn = "order_id")
+    int insertBatch(@Param("orders") List<Order> orders);
+    
     /**
      * 查询待揽收订单列表（状态=1），支持仓库和商品名称筛选
+     * 按 (ship_time, order_id) 倒序游标分页，走 idx_orders_pickup_page 索引
+     *
+     * @param productIds 搜索索引解析出的商品ID，不为 null 时代替商品名称 LIKE
+     * @param cursor     上一页最后一行的排序键，第一页为 null
+     * @param limit  查询行数（每页条数 + 1）
      */
     @Select("<script>" +
             "SELECT o.*, w.name AS warehouseName " +
@@ -25,13 +52,33 @@ public interface OrderMapper extends BaseMapper<Order> {
             "<if test='warehouseId != null'>" +
             "  AND o.warehouse_id = #{warehouseId} " +
             "</if>" +
-            "<if test='search != null and search != \"\"'>" +
-            "  AND o.product_name LIKE CONCAT('%', #{search}, '%') " +
+            "<choose>" +
+            "  <when test='productIds != null'>" +
+            "    AND o.product_id IN " +
+            "    <foreach collection='productIds' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "  </when>" +
+            "  <when test='search != null and search != \"\"'>" +
+            "    AND o.product_name LIKE CONCAT('%', #{search}, '%') " +
+            "  </when>" +
+            "</choose>" +
+            "<if test='cursor != null'>" +
+            "  <choose>" +
+            "    <when test='cursor.time != null'>" +
+            "      AND (o.ship_time &lt; #{cursor.time} " +
+            "           OR (o.ship_time = #{cursor.time} AND o.order_id &lt; #{cursor.id}) " +
+            "           OR o.ship_time IS NULL) " +
+            "    </when>" +
+            "    <otherwise>AND o.ship_time IS NULL AND o.order_id &lt; #{cursor.id} </otherwise>" +
+            "  </choose>" +
             "</if>" +
-            "ORDER BY o.ship_time DESC" +
+            "ORDER BY o.ship_time DESC, o.order_id DESC " +
+            "LIMIT #{limit}" +
             "</script>")
-    List<Order> selectPendingPickupOrders(@Param("warehouseId") Integer warehouseId, 
-                                          @Param("search") String search);
+    List<Order> selectPendingPickupOrders(@Param("warehouseId") Integer warehouseId,
+                                          @Param("search") String search,
+                                          @Param("productIds") Collection<Integer> productIds,
+                                          @Param("cursor") PageCursor cursor,
+                                          @Param("limit") int limit);
     
     /**
      * 查询待送货订单列表（状态=2），支持仓库筛选
@@ -91,8 +138,94 @@ public interface OrderMapper extends BaseMapper<Order> {
             "WHERE o.order_id = #{orderId}")
     Order selectOrderWithDetails(@Param("orderId") Integer orderId);
 
+    /**
+     * 按批次批量查询订单详情（含顾客名称、仓库名称、收货地址），按批次及停靠顺序排列
+     * 一次查询替代逐批次、逐订单的 selectList / selectOrderWithDetails / selectById
+     */
+    @Select("<script>" +
+            "SELECT dbo.batch_id, o.*, w.name AS warehouseName, u.username AS customerName, " +
+            "       a.id AS addr_id, a.user_id AS addr_user_id, a.receiver_name AS addr_receiver_name, " +
+            "       a.receiver_phone AS addr_receiver_phone, a.province AS addr_province, a.city AS addr_city, " +
+            "       a.district AS addr_district, a.detail_address AS addr_detail_address, " +
+            "       a.latitude AS addr_latitude, a.longitude AS addr_longitude, a.is_default AS addr_is_default " +
+            "FROM delivery_batch_orders dbo " +
+            "JOIN orders o ON o.order_id = dbo.order_id " +
+            "LEFT JOIN warehouse w ON o.warehouse_id = w.id " +
+            "LEFT JOIN users u ON o.customer_id = u.id " +
+            "LEFT JOIN address a ON o.address_id = a.id " +
+            "WHERE dbo.batch_id IN " +
+            "<foreach collection='batchIds' item='batchId' open='(' separator=',' close=')'>#{batchId}</foreach> " +
+            "ORDER BY dbo.batch_id, dbo.stop_sequence" +
+            "</script>")
+    @Results(id = "orderWithAddress", value = {
+            @Result(property = "address.id", column = "addr_id"),
+            @Result(property = "address.userId", column = "addr_user_id"),
+            @Result(property = "address.receiverName", column = "addr_receiver_name"),
+            @Result(property = "address.receiverPhone", column = "addr_receiver_phone"),
+            @Result(property = "address.province", column = "addr_province"),
+            @Result(property = "address.city", column = "addr_city"),
+            @Result(property = "address.district", column = "addr_district"),
+            @Result(property = "address.detailAddress", column = "addr_detail_address"),
+            @Result(property = "address.latitude", column = "addr_latitude"),
+            @Result(property = "address.longitude", column = "addr_longitude"),
+            @Result(property = "address.isDefault", column = "addr_is_default")
+    })
+    List<Order> selectOrdersByBatchIds(@Param("batchIds") Collection<Integer> batchIds);
+
+    /**
+     * 创建送货批次前一次性校验订单：订单本身、顾客默认收货地址（address.*），
+     * 以及订单当前所在的活跃批次（batchId，不在待出发/运输中批次时为 null）
+     * 替代逐订单的 selectById / selectCount / 默认地址 selectOne
+     */
+    @Select("<script>" +
+            "SELECT o.*, ab.batch_id, " +
+            "       a.id AS addr_id, a.user_id AS addr_user_id, a.receiver_name AS addr_receiver_name, " +
+            "       a.receiver_phone AS addr_receiver_phone, a.province AS addr_province, a.city AS addr_city, " +
+            "       a.district AS addr_district, a.detail_address AS addr_detail_address, " +
+            "       a.latitude AS addr_latitude, a.longitude AS addr_longitude, a.is_default AS addr_is_default " +
+            "FROM orders o " +
+            "LEFT JOIN address a ON a.user_id = o.customer_id AND a.is_default = 1 " +
+            "LEFT JOIN (" +
+            "  SELECT dbo.order_id, MAX(dbo.batch_id) AS batch_id " +
+            "  FROM delivery_batch_orders dbo " +
+            "  JOIN delivery_batches db ON db.id = dbo.batch_id AND db.status IN (0, 1) " +
+            "  WHERE dbo.order_id IN " +
+            "  <foreach collection='orderIds' item='orderId' open='(' separator=',' close=')'>#{orderId}</foreach> " +
+            "  GROUP BY dbo.order_id" +
+            ") ab ON ab.order_id = o.order_id " +
+            "WHERE o.order_id IN " +
+            "<foreach collection='orderIds' item='orderId' open='(' separator=',' close=')'>#{orderId}</foreach>" +
+            "</script>")
+    @ResultMap("orderWithAddress")
+    List<Order> selectDeliveryCandidates(@Param("orderIds") Collection<Integer> orderIds);
+
+    /**
+     * 自动调度：查询仓库中已揽收且不在活跃批次中的订单，只取调度需要的列与顾客默认收货地址坐标
+     */
+    @Select("SELECT o.order_id, o.customer_id, o.warehouse_id, o.status, " +
+            "       a.id AS addr_id, a.latitude AS addr_latitude, a.longitude AS addr_longitude " +
+            "FROM orders o " +
+            "LEFT JOIN address a ON a.user_id = o.customer_id AND a.is_default = 1 " +
+            "WHERE o.status = 2 AND o.warehouse_id = #{warehouseId} " +
+            "AND NOT EXISTS (" +
+            "  SELECT 1 FROM delivery_batch_orders dbo " +
+            "  JOIN delivery_batches db ON db.id = dbo.batch_id AND db.status IN (0, 1) " +
+            "  WHERE dbo.order_id = o.order_id" +
+            ") " +
+            "ORDER BY o.order_id")
+    @ResultMap("orderWithAddress")
+    List<Order> selectDispatchCandidates(@Param("warehouseId") Integer warehouseId);
+
     /**
      * 管理员查询所有订单（含顾客名、商户名、仓库名）
+     * 按 (order_time, order_id) 倒序游标分页，走 idx_orders_order_time / idx_orders_status_time_page 索引
+     * 搜索索引就绪时（productIds、customerIds 不为 null）按商品ID、顾客ID或订单号精确匹配，否则回退到 LIKE
+     *
+     * @param productIds  商品名称包含检索词的商品ID
+     * @param customerIds 用户名包含检索词的顾客ID
+     * @param orderId     检索词为数字时按订单号匹配
+     * @param cursor      上一页最后一行的排序键，第一页为 null
+     * @param limit  查询行数（每页条数 + 1）
      */
     @Select("<script>" +
             "SELECT o.*, u.username AS customerName, w.name AS warehouseName " +
@@ -103,13 +236,51 @@ public interface OrderMapper extends BaseMapper<Order> {
             "<if test='status != null'>" +
             "  AND o.status = #{status} " +
             "</if>" +
-            "<if test='search != null and search != \"\"'>" +
-            "  AND (o.product_name LIKE CONCAT('%', #{search}, '%') " +
-            "       OR u.username LIKE CONCAT('%', #{search}, '%') " +
-            "       OR CAST(o.order_id AS CHAR) LIKE CONCAT('%', #{search}, '%')) " +
+            "<choose>" +
+            "  <when test='productIds != null and customerIds != null'>" +
+            "    <trim prefix='AND (' suffix=')' prefixOverrides='OR'>" +
+            "      <if test='!productIds.isEmpty()'>" +
+            "        OR o.product_id IN " +
+            "        <foreach collection='productIds' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "      </if>" +
+            "      <if test='!customerIds.isEmpty()'>" +
+            "        OR o.customer_id IN " +
+            "        <foreach collection='customerIds' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "      </if>" +
+            "      <if test='orderId != null'>OR o.order_id = #{orderId} </if>" +
+            "    </trim>" +
+            "  </when>" +
+            "  <when test='search != null and search != \"\"'>" +
+            "    AND (o.product_name LIKE CONCAT('%', #{search}, '%') " +
+            "         OR u.username LIKE CONCAT('%', #{search}, '%') " +
+            "         OR CAST(o.order_id AS CHAR) LIKE CONCAT('%', #{search}, '%')) " +
+            "  </when>" +
+            "</choose>" +
+            "<if test='cursor != null'>" +
+            "  <choose>" +
+            "    <when test='cursor.time != null'>" +
+            "      AND (o.order_time &lt; #{cursor.time} " +
+            "           OR (o.order_time = #{cursor.time} AND o.order_id &lt; #{cursor.id}) " +
+            "           OR o.order_time IS NULL) " +
+            "    </when>" +
+            "    <otherwise>AND o.order_time IS NULL AND o.order_id &lt; #{cursor.id} </otherwise>" +
+            "  </choose>" +
             "</if>" +
-            "ORDER BY o.order_time DESC" +
+            "ORDER BY o.order_time DESC, o.order_id DESC " +
+            "LIMIT #{limit}" +
             "</script>")
     List<Order> selectAllOrdersForAdmin(@Param("status") Integer status,
-                                        @Param("search") String search);
+                                        @Param("search") String search,
+                                        @Param("productIds") Collection<Integer> productIds,
+                                        @Param("customerIds") Collection<Long> customerIds,
+                                        @Param("orderId") Integer orderId,
+                                        @Param("cursor") PageCursor cursor,
+                                        @Param("limit") int limit);
+
+    /**
+     * 按状态分组统计订单数与金额（一条 GROUP BY 查询，走 idx_orders_status_amount 覆盖索引）
+     */
+    @Select("SELECT status, COUNT(*) AS orderCount, COALESCE(SUM(total_amount), 0) AS revenue " +
+            "FROM orders GROUP BY status")
+    List<OrderStatusStat> selectStatusStats();
 }
@@ -1,10 +1,27 @@
 package com.logistics.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.logistics.dto.RoleCount;
 import com.logistics.entity.User;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
 
 @Mapper
 public interface UserMapper extends BaseMapper<User> {
     // 直接用 MyBatis Plus 提供的 selectOne 配合 QueryWrapper/LambdaQueryWrapper 在 Service 中按 username+role 查询即可
-}
\ No newline at end of file
+
+    /**
+     * 按角色分组统计用户数（一条 GROUP BY 查询）
+     */
+    @Select("SELECT role, COUNT(*) AS userCount FROM users GROUP BY role")
+    List<RoleCount> selectRoleCounts();
+
+    /**
+     * 搜索索引加载：按用户ID分页读取用户名
+     */
+    @Select("SELECT id, username FROM users WHERE id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<User> selectUsernamesAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+}
@@ -3,10 +3,18 @@ package com.logistics.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.logistics.entity.Warehouse;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 
 /**
  * 仓库 Mapper
  */
 @Mapper
 public interface WarehouseMapper extends BaseMapper<Warehouse> {
+
+    /**
+     * 查询并锁定仓库行，事务结束前同一仓库的自动调度排队执行
+     */
+    @Select("SELECT * FROM warehouse WHERE id = #{id} FOR UPDATE")
+    Warehouse selectByIdForUpdate(@Param("id") Integer id);
 }
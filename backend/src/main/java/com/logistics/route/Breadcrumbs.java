@@ -0,0 +1,229 @@
+package com.logistics.route;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * 配送轨迹点序列（列式存储）及其紧凑编码
+ * <p>
+ * 坐标以微度定点整数保存，时间为 epoch 秒。编码格式：
+ * 点数（varint），随后每个点依次写入路径点索引、纬度、经度、时间相对前一个点的差值（zigzag varint），
+ * 第一个点相对 0。相邻轨迹点的差值很小，每个点通常只占 5~8 字节。
+ */
+public final class Breadcrumbs {
+
+    private static final double SCALE = 1_000_000.0;
+    /** 每度纬度对应的米数（地球平均半径） */
+    private static final double METERS_PER_DEGREE = 6_371_008.8 * Math.PI / 180;
+
+    private int[] indexes;
+    private int[] lats;
+    private int[] lngs;
+    private long[] times;
+    private int size;
+
+    public Breadcrumbs(int capacity) {
+        int initial = Math.max(capacity, 4);
+        this.indexes = new int[initial];
+        this.lats = new int[initial];
+        this.lngs = new int[initial];
+        this.times = new long[initial];
+    }
+
+    /**
+     * 追加一个轨迹点
+     *
+     * @param epochSecond 记录时间（epoch 秒）
+     */
+    public void add(int pathIndex, double latitude, double longitude, long epochSecond) {
+        addFixed(pathIndex, (int) Math.round(latitude * SCALE), (int) Math.round(longitude * SCALE), epochSecond);
+    }
+
+    private void addFixed(int pathIndex, int lat, int lng, long epochSecond) {
+        if (size == indexes.length) {
+            int capacity = size * 2;
+            indexes = Arrays.copyOf(indexes, capacity);
+            lats = Arrays.copyOf(lats, capacity);
+            lngs = Arrays.copyOf(lngs, capacity);
+            times = Arrays.copyOf(times, capacity);
+        }
+        indexes[size] = pathIndex;
+        lats[size] = lat;
+        lngs[size] = lng;
+        times[size] = epochSecond;
+        size++;
+    }
+
+    /**
+     * 按顺序追加另一序列的全部点
+     */
+    public void addAll(Breadcrumbs other) {
+        for (int i = 0; i < other.size; i++) {
+            addFixed(other.indexes[i], other.lats[i], other.lngs[i], other.times[i]);
+        }
+    }
+
+    /**
+     * 移除前 n 个点（已写入数据库的部分）
+     */
+    public void removeFirst(int n) {
+        int remaining = size - n;
+        System.arraycopy(indexes, n, indexes, 0, remaining);
+        System.arraycopy(lats, n, lats, 0, remaining);
+        System.arraycopy(lngs, n, lngs, 0, remaining);
+        System.arraycopy(times, n, times, 0, remaining);
+        size = remaining;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int pathIndexAt(int i) {
+        return indexes[i];
+    }
+
+    public double latitudeAt(int i) {
+        return lats[i] / SCALE;
+    }
+
+    public double longitudeAt(int i) {
+        return lngs[i] / SCALE;
+    }
+
+    public long epochSecondAt(int i) {
+        return times[i];
+    }
+
+    /**
+     * 编码全部点
+     */
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4 + size * 8);
+        writeVarint(out, size);
+        long prevIndex = 0, prevLat = 0, prevLng = 0, prevTime = 0;
+        for (int i = 0; i < size; i++) {
+            writeVarint(out, zigzag(indexes[i] - prevIndex));
+            writeVarint(out, zigzag(lats[i] - prevLat));
+            writeVarint(out, zigzag(lngs[i] - prevLng));
+            writeVarint(out, zigzag(times[i] - prevTime));
+            prevIndex = indexes[i];
+            prevLat = lats[i];
+            prevLng = lngs[i];
+            prevTime = times[i];
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 解码 {@link #encode()} 的结果
+     *
+     * @throws IllegalArgumentException 数据被截断或格式不正确
+     */
+    public static Breadcrumbs decode(byte[] data) {
+        int[] pos = {0};
+        int count = (int) readVarint(data, pos);
+        Breadcrumbs points = new Breadcrumbs(count);
+        long index = 0, lat = 0, lng = 0, time = 0;
+        for (int i = 0; i < count; i++) {
+            index += unzigzag(readVarint(data, pos));
+            lat += unzigzag(readVarint(data, pos));
+            lng += unzigzag(readVarint(data, pos));
+            time += unzigzag(readVarint(data, pos));
+            points.addFixed((int) index, (int) lat, (int) lng, time);
+        }
+        return points;
+    }
+
+    /**
+     * 降采样（Douglas-Peucker）：去掉偏离前后保留点连线不超过 toleranceMeters 的点，首尾点始终保留
+     */
+    public Breadcrumbs downsample(double toleranceMeters) {
+        if (size <= 2) {
+            Breadcrumbs copy = new Breadcrumbs(size);
+            copy.addAll(this);
+            return copy;
+        }
+        boolean[] keep = new boolean[size];
+        keep[0] = true;
+        keep[size - 1] = true;
+        int[] stack = new int[size * 2];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = size - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            double maxDistance = -1;
+            int farthest = -1;
+            for (int i = first + 1; i < last; i++) {
+                double distance = offsetMeters(i, first, last);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+            }
+            if (farthest >= 0 && maxDistance > toleranceMeters) {
+                keep[farthest] = true;
+                stack[top++] = first;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = last;
+            }
+        }
+        Breadcrumbs kept = new Breadcrumbs(size);
+        for (int i = 0; i < size; i++) {
+            if (keep[i]) {
+                kept.addFixed(indexes[i], lats[i], lngs[i], times[i]);
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * 点 i 到线段 (a, b) 的距离（米），小范围内按等距圆柱投影近似为平面
+     */
+    private double offsetMeters(int i, int a, int b) {
+        double cosLat = Math.cos(Math.toRadians(lats[a] / SCALE));
+        double bx = (lngs[b] - lngs[a]) / SCALE * cosLat;
+        double by = (lats[b] - lats[a]) / SCALE;
+        double px = (lngs[i] - lngs[a]) / SCALE * cosLat;
+        double py = (lats[i] - lats[a]) / SCALE;
+        double lengthSq = bx * bx + by * by;
+        double t = lengthSq > 0 ? Math.max(0, Math.min(1, (px * bx + py * by) / lengthSq)) : 0;
+        double dx = px - t * bx;
+        double dy = py - t * by;
+        return Math.sqrt(dx * dx + dy * dy) * METERS_PER_DEGREE;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] data, int[] pos) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (pos[0] >= data.length) {
+                throw new IllegalArgumentException("轨迹数据被截断");
+            }
+            byte b = data[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("轨迹数据格式不正确");
+    }
+}
@@ -0,0 +1,257 @@
+package com.logistics.route;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 腾讯地图压缩 polyline 编解码器
+ * <p>
+ * 压缩格式为 JSON 数组 [纬度0, 经度0, 差值纬度1, 差值经度1, ...]，前两个值为度，
+ * 其余为相对前一个点的差值（单位：百万分之一度）。
+ * 解码时直接扫描字符流，写入定点整数数组（微度），不构建中间 JSON 对象；
+ * 定点表示可以精确往返，不会像逐点累加 double 那样积累误差。
+ */
+public final class PolylineCodec {
+
+    /** 坐标精度：小数点后 6 位（微度） */
+    private static final int SCALE_DIGITS = 6;
+    private static final double SCALE = 1_000_000.0;
+    private static final long[] POW10 = {1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L};
+
+    private PolylineCodec() {
+    }
+
+    /**
+     * 判断 route_data 是否为压缩 polyline（而不是旧格式的 [{lng,lat,name}] 途经点数组）
+     */
+    public static boolean isCompressed(CharSequence json) {
+        int pos = skipWhitespace(json, 0);
+        if (pos >= json.length() || json.charAt(pos) != '[') {
+            return false;
+        }
+        pos = skipWhitespace(json, pos + 1);
+        return pos < json.length() && json.charAt(pos) != '{';
+    }
+
+    /**
+     * 解码为绝对坐标的定点数组（微度）：[lat0, lng0, lat1, lng1, ...]
+     * 末尾不成对的值会被忽略
+     *
+     * @throws IllegalArgumentException 格式不正确
+     */
+    public static int[] decodeFixed(CharSequence json) {
+        Reader reader = new Reader(json);
+        int count = reader.openArrayAndCount();
+        int[] coords = new int[count - (count & 1)];
+        for (int i = 0; i < count; i++) {
+            long value = reader.readFixed(i < 2 ? SCALE_DIGITS : 0);
+            if (i < coords.length) {
+                coords[i] = i < 2 ? toInt(value) : toInt(coords[i - 2] + value);
+            }
+            reader.expectSeparator(i == count - 1);
+        }
+        return coords;
+    }
+
+    /**
+     * 解码为绝对坐标（度）：[lat0, lng0, lat1, lng1, ...]
+     */
+    public static double[] decode(CharSequence json) {
+        int[] fixed = decodeFixed(json);
+        double[] coords = new double[fixed.length];
+        for (int i = 0; i < fixed.length; i++) {
+            coords[i] = fixed[i] / SCALE;
+        }
+        return coords;
+    }
+
+    /**
+     * 将定点坐标（微度）编码为压缩 polyline
+     */
+    public static String encode(int[] coords) {
+        if ((coords.length & 1) != 0) {
+            throw new IllegalArgumentException("坐标数组长度必须为偶数");
+        }
+        StringBuilder sb = new StringBuilder(coords.length * 4 + 2);
+        sb.append('[');
+        for (int i = 0; i < coords.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            if (i < 2) {
+                appendDegrees(sb, coords[i]);
+            } else {
+                sb.append((long) coords[i] - coords[i - 2]);
+            }
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * 将坐标（度）按微度取整后编码为压缩 polyline
+     */
+    public static String encode(double[] coords) {
+        int[] fixed = new int[coords.length];
+        for (int i = 0; i < coords.length; i++) {
+            fixed[i] = toInt(Math.round(coords[i] * SCALE));
+        }
+        return encode(fixed);
+    }
+
+    private static void appendDegrees(StringBuilder sb, int micro) {
+        long abs = Math.abs((long) micro);
+        if (micro < 0) {
+            sb.append('-');
+        }
+        sb.append(abs / POW10[SCALE_DIGITS]);
+        long frac = abs % POW10[SCALE_DIGITS];
+        if (frac == 0) {
+            return;
+        }
+        sb.append('.');
+        int digits = SCALE_DIGITS;
+        while (frac % 10 == 0) {
+            frac /= 10;
+            digits--;
+        }
+        for (long p = POW10[digits - 1]; p > frac && p > 1; p /= 10) {
+            sb.append('0');
+        }
+        sb.append(frac);
+    }
+
+    private static int toInt(long value) {
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("坐标超出范围: " + value);
+        }
+        return (int) value;
+    }
+
+    private static int skipWhitespace(CharSequence s, int pos) {
+        while (pos < s.length()) {
+            char c = s.charAt(pos);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * 字符流读取器，每次解码只创建一个
+     */
+    private static final class Reader {
+
+        private final CharSequence s;
+        private int pos;
+
+        Reader(CharSequence s) {
+            this.s = s;
+        }
+
+        /**
+         * 读取 '['，并预扫描出数组元素个数，以便一次性分配结果数组
+         */
+        int openArrayAndCount() {
+            pos = skipWhitespace(s, 0);
+            if (pos >= s.length() || s.charAt(pos) != '[') {
+                throw new IllegalArgumentException("polyline 必须是 JSON 数组");
+            }
+            pos++;
+            int first = skipWhitespace(s, pos);
+            if (first < s.length() && s.charAt(first) == ']') {
+                pos = first + 1;
+                return 0;
+            }
+            int count = 1;
+            for (int i = first; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == ',') {
+                    count++;
+                } else if (c == ']') {
+                    return count;
+                } else if (c == '[' || c == '{' || c == '"') {
+                    throw new IllegalArgumentException("polyline 只能包含数字");
+                }
+            }
+            throw new IllegalArgumentException("polyline 数组未闭合");
+        }
+
+        /**
+         * 读取一个数字并放大 10^scaleDigits 倍，超出精度的部分四舍五入
+         */
+        long readFixed(int scaleDigits) {
+            pos = skipWhitespace(s, pos);
+            int start = pos;
+            boolean negative = false;
+            if (pos < s.length() && s.charAt(pos) == '-') {
+                negative = true;
+                pos++;
+            }
+            long intPart = 0;
+            int intDigits = 0;
+            while (pos < s.length() && isDigit(s.charAt(pos))) {
+                intPart = intPart * 10 + (s.charAt(pos++) - '0');
+                intDigits++;
+            }
+            long frac = 0;
+            int fracDigits = 0;
+            boolean roundUp = false;
+            if (pos < s.length() && s.charAt(pos) == '.') {
+                pos++;
+                while (pos < s.length() && isDigit(s.charAt(pos))) {
+                    int d = s.charAt(pos++) - '0';
+                    if (fracDigits < scaleDigits) {
+                        frac = frac * 10 + d;
+                    } else if (fracDigits == scaleDigits) {
+                        roundUp = d >= 5;
+                    }
+                    fracDigits++;
+                }
+            }
+            if (pos < s.length() && (s.charAt(pos) == 'e' || s.charAt(pos) == 'E')) {
+                return readExponent(start, scaleDigits);
+            }
+            if (intDigits == 0 && fracDigits == 0) {
+                throw new IllegalArgumentException("polyline 第 " + start + " 个字符处不是数字");
+            }
+            if (intDigits > 18) {
+                throw new IllegalArgumentException("polyline 数值过大");
+            }
+            int padded = Math.min(fracDigits, scaleDigits);
+            long value = intPart * POW10[scaleDigits] + frac * POW10[scaleDigits - padded] + (roundUp ? 1 : 0);
+            return negative ? -value : value;
+        }
+
+        /**
+         * 科学计数法（腾讯地图不会返回，仅为兼容）走 BigDecimal 慢路径
+         */
+        private long readExponent(int start, int scaleDigits) {
+            pos++;
+            if (pos < s.length() && (s.charAt(pos) == '+' || s.charAt(pos) == '-')) {
+                pos++;
+            }
+            while (pos < s.length() && isDigit(s.charAt(pos))) {
+                pos++;
+            }
+            return new BigDecimal(s.subSequence(start, pos).toString())
+                    .movePointRight(scaleDigits)
+                    .setScale(0, RoundingMode.HALF_UP)
+                    .longValueExact();
+        }
+
+        void expectSeparator(boolean last) {
+            pos = skipWhitespace(s, pos);
+            char expected = last ? ']' : ',';
+            if (pos >= s.length() || s.charAt(pos) != expected) {
+                throw new IllegalArgumentException("polyline 第 " + pos + " 个字符处应为 '" + expected + "'");
+            }
+            pos++;
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.logistics.route;
+
+import com.alibaba.fastjson.JSONArray;
+
+/**
+ * 解码后的配送路线
+ * 坐标点以原始 double 数组保存，并预先计算累计距离，位置查询只需按索引读取
+ */
+public final class RouteGeometry {
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    /** 从起点到第 i 个点的累计距离（米） */
+    private final double[] cumulativeDistances;
+    /** 返回给前端绘制的 polyline（只读） */
+    private final JSONArray polyline;
+    /** 旧格式途经点 [{lng,lat,name}]，腾讯地图压缩格式时为 null（只读） */
+    private final JSONArray waypoints;
+
+    public RouteGeometry(double[] latitudes, double[] longitudes, JSONArray polyline, JSONArray waypoints) {
+        if (latitudes.length != longitudes.length) {
+            throw new IllegalArgumentException("经纬度数组长度不一致");
+        }
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.polyline = polyline;
+        this.waypoints = waypoints;
+        this.cumulativeDistances = new double[latitudes.length];
+        for (int i = 1; i < latitudes.length; i++) {
+            cumulativeDistances[i] = cumulativeDistances[i - 1]
+                    + GeoDistance.haversine(latitudes[i - 1], longitudes[i - 1], latitudes[i], longitudes[i]);
+        }
+    }
+
+    public int size() {
+        return latitudes.length;
+    }
+
+    public boolean isEmpty() {
+        return latitudes.length == 0;
+    }
+
+    public double latitudeAt(int index) {
+        return latitudes[index];
+    }
+
+    public double longitudeAt(int index) {
+        return longitudes[index];
+    }
+
+    public double distanceAt(int index) {
+        return cumulativeDistances[index];
+    }
+
+    /**
+     * 路线总长度（米，按坐标点计算）
+     */
+    public double length() {
+        return latitudes.length == 0 ? 0 : cumulativeDistances[latitudes.length - 1];
+    }
+
+    /**
+     * 将模拟索引限制在有效范围内
+     */
+    public int clampIndex(Integer index) {
+        return Math.min(index != null ? Math.max(index, 0) : 0, latitudes.length - 1);
+    }
+
+    public JSONArray getPolyline() {
+        return polyline;
+    }
+
+    public JSONArray getWaypoints() {
+        return waypoints;
+    }
+
+    /**
+     * 粗略估算内存占用（字节），用于缓存按大小淘汰
+     */
+    public int estimatedBytes() {
+        int polylineBytes = polyline != null ? polyline.size() * 24 : 0;
+        return latitudes.length * 24 + polylineBytes + 128;
+    }
+}
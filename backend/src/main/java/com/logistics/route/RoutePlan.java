@@ -0,0 +1,39 @@
+package com.logistics.route;
+
+/**
+ * 路线规划结果（腾讯地图驾车路线的第一条方案）
+ */
+public final class RoutePlan {
+
+    /** 总距离（米） */
+    private final int distance;
+    /** 预计耗时（秒） */
+    private final int duration;
+    /** 压缩 polyline 原文，直接写入 delivery_batches.route_data */
+    private final String polyline;
+
+    public RoutePlan(int distance, int duration, String polyline) {
+        this.distance = distance;
+        this.duration = duration;
+        this.polyline = polyline;
+    }
+
+    public int getDistance() {
+        return distance;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public String getPolyline() {
+        return polyline;
+    }
+
+    /**
+     * 粗略估算内存占用（字节），用于缓存按大小淘汰
+     */
+    public int estimatedBytes() {
+        return polyline.length() * 2 + 64;
+    }
+}
@@ -0,0 +1,235 @@
+package com.logistics.route;
+
+/**
+ * 配送停靠点排序
+ * <p>
+ * 从仓库出发、依次经过所有停靠点、不要求返回仓库（开放路径）。
+ * 距离采用 Haversine 直线距离，每次求解先计算一次距离矩阵；
+ * 先用最近邻构造初始顺序，再在时间预算内交替执行 2-opt 与 Or-opt 局部改进，
+ * 预算用完时返回当前最优顺序。
+ */
+public final class StopSequencer {
+
+    /** Or-opt 移动的最大片段长度 */
+    private static final int OR_OPT_MAX_SEGMENT = 3;
+    /** 小于该值的改进视为浮点误差 */
+    private static final double EPSILON = 1e-7;
+
+    private StopSequencer() {
+    }
+
+    /**
+     * 计算停靠点访问顺序
+     *
+     * @param originLat    仓库纬度
+     * @param originLng    仓库经度
+     * @param latitudes    停靠点纬度
+     * @param longitudes   停靠点经度
+     * @param budgetNanos  局部改进的时间预算（纳秒），0 表示只做最近邻构造
+     * @return 停靠点下标的访问顺序
+     */
+    public static int[] sequence(double originLat, double originLng, double[] latitudes, double[] longitudes,
+                                 long budgetNanos) {
+        if (latitudes.length != longitudes.length) {
+            throw new IllegalArgumentException("经纬度数组长度不一致");
+        }
+        int stops = latitudes.length;
+        if (stops <= 1) {
+            return stops == 0 ? new int[0] : new int[]{0};
+        }
+
+        long deadline = System.nanoTime() + budgetNanos;
+        int size = stops + 1;
+        double[] matrix = distanceMatrix(originLat, originLng, latitudes, longitudes);
+
+        // 路径中的节点编号：0 为仓库，i + 1 为第 i 个停靠点
+        int[] path = nearestNeighbour(matrix, size);
+        if (budgetNanos > 0) {
+            boolean improved = true;
+            while (improved && System.nanoTime() < deadline) {
+                improved = twoOpt(path, matrix, size, deadline);
+                improved |= orOpt(path, matrix, size, deadline);
+            }
+        }
+
+        int[] order = new int[stops];
+        for (int i = 0; i < stops; i++) {
+            order[i] = path[i + 1] - 1;
+        }
+        return order;
+    }
+
+    /**
+     * 按给定顺序计算从仓库出发的总距离（米）
+     */
+    public static double pathLength(double originLat, double originLng, double[] latitudes, double[] longitudes,
+                                    int[] order) {
+        double total = 0;
+        double lat = originLat;
+        double lng = originLng;
+        for (int stop : order) {
+            total += GeoDistance.haversine(lat, lng, latitudes[stop], longitudes[stop]);
+            lat = latitudes[stop];
+            lng = longitudes[stop];
+        }
+        return total;
+    }
+
+    private static double[] distanceMatrix(double originLat, double originLng,
+                                           double[] latitudes, double[] longitudes) {
+        int size = latitudes.length + 1;
+        double[] lats = new double[size];
+        double[] lngs = new double[size];
+        lats[0] = originLat;
+        lngs[0] = originLng;
+        System.arraycopy(latitudes, 0, lats, 1, latitudes.length);
+        System.arraycopy(longitudes, 0, lngs, 1, longitudes.length);
+
+        double[] matrix = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                double d = GeoDistance.haversine(lats[i], lngs[i], lats[j], lngs[j]);
+                matrix[i * size + j] = d;
+                matrix[j * size + i] = d;
+            }
+        }
+        return matrix;
+    }
+
+    private static int[] nearestNeighbour(double[] matrix, int size) {
+        int[] path = new int[size];
+        boolean[] visited = new boolean[size];
+        visited[0] = true;
+        for (int pos = 1; pos < size; pos++) {
+            int from = path[pos - 1];
+            int best = -1;
+            double bestDistance = Double.MAX_VALUE;
+            for (int node = 1; node < size; node++) {
+                if (!visited[node] && matrix[from * size + node] < bestDistance) {
+                    best = node;
+                    bestDistance = matrix[from * size + node];
+                }
+            }
+            path[pos] = best;
+            visited[best] = true;
+        }
+        return path;
+    }
+
+    /**
+     * 2-opt：反转 path[i..j]，路径起点（仓库）固定，终点开放
+     */
+    private static boolean twoOpt(int[] path, double[] matrix, int size, long deadline) {
+        int last = size - 1;
+        boolean improved = false;
+        for (int i = 1; i < last; i++) {
+            if (System.nanoTime() >= deadline) {
+                return improved;
+            }
+            int a = path[i - 1];
+            int b = path[i];
+            for (int j = i + 1; j <= last; j++) {
+                int c = path[j];
+                double delta = matrix[a * size + c] - matrix[a * size + b];
+                if (j < last) {
+                    int d = path[j + 1];
+                    delta += matrix[b * size + d] - matrix[c * size + d];
+                }
+                if (delta < -EPSILON) {
+                    reverse(path, i, j);
+                    b = path[i];
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * Or-opt：把长度 1~3 的连续片段（可反向）移到路径中的其他位置
+     */
+    private static boolean orOpt(int[] path, double[] matrix, int size, long deadline) {
+        int last = size - 1;
+        boolean improved = false;
+        for (int length = 1; length <= OR_OPT_MAX_SEGMENT && length < last; length++) {
+            for (int i = 1; i + length - 1 <= last; i++) {
+                if (System.nanoTime() >= deadline) {
+                    return improved;
+                }
+                int end = i + length - 1;
+                int prev = path[i - 1];
+                int first = path[i];
+                int tail = path[end];
+                boolean hasNext = end < last;
+                int next = hasNext ? path[end + 1] : -1;
+
+                double removeGain = matrix[prev * size + first]
+                        + (hasNext ? matrix[tail * size + next] - matrix[prev * size + next] : 0);
+
+                int bestK = -1;
+                boolean bestReversed = false;
+                double bestDelta = -EPSILON;
+                // 插入到 path[k] 与 path[k + 1] 之间（k == last 表示接在末尾）
+                for (int k = 0; k <= last; k++) {
+                    if (k >= i - 1 && k <= end) {
+                        continue;
+                    }
+                    int left = path[k];
+                    boolean hasRight = k < last;
+                    int right = hasRight ? path[k + 1] : -1;
+                    double base = hasRight ? matrix[left * size + right] : 0;
+
+                    double forward = matrix[left * size + first] + (hasRight ? matrix[tail * size + right] : 0) - base;
+                    double backward = matrix[left * size + tail] + (hasRight ? matrix[first * size + right] : 0) - base;
+                    if (forward - removeGain < bestDelta) {
+                        bestDelta = forward - removeGain;
+                        bestK = k;
+                        bestReversed = false;
+                    }
+                    if (backward - removeGain < bestDelta) {
+                        bestDelta = backward - removeGain;
+                        bestK = k;
+                        bestReversed = true;
+                    }
+                }
+                if (bestK >= 0) {
+                    moveSegment(path, i, end, bestK, bestReversed);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * 将 path[from..to] 移到原路径中 path[k] 之后
+     */
+    private static void moveSegment(int[] path, int from, int to, int k, boolean reversed) {
+        int length = to - from + 1;
+        int[] segment = new int[length];
+        for (int s = 0; s < length; s++) {
+            segment[s] = reversed ? path[to - s] : path[from + s];
+        }
+        int[] result = new int[path.length];
+        int pos = 0;
+        for (int idx = 0; idx < path.length; idx++) {
+            if (idx >= from && idx <= to) {
+                continue;
+            }
+            result[pos++] = path[idx];
+            if (idx == k) {
+                System.arraycopy(segment, 0, result, pos, length);
+                pos += length;
+            }
+        }
+        System.arraycopy(result, 0, path, 0, path.length);
+    }
+
+    private static void reverse(int[] path, int from, int to) {
+        while (from < to) {
+            int tmp = path[from];
+            path[from++] = path[to];
+            path[to--] = tmp;
+        }
+    }
+}
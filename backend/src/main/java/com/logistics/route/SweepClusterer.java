@@ -0,0 +1,101 @@
+package com.logistics.route;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 扫描法（Sweep）停靠点分组
+ * <p>
+ * 以仓库为极点按方位角排序所有停靠点，从角度间隔最大处开始逆时针扫描，
+ * 依次放入当前分组，直到订单数或预计时长下限超出上限时开启下一组。
+ * 扫描顺序在半径方向上来回跳跃，不能代表实际路线，这里只用“至少要到达最远停靠点”作为时长下限；
+ * 停靠点排序后的实际时长由调用方再校验。
+ */
+public final class SweepClusterer {
+
+    private SweepClusterer() {
+    }
+
+    /**
+     * 将停靠点按方位角分组
+     *
+     * @param originLat          仓库纬度
+     * @param originLng          仓库经度
+     * @param latitudes          停靠点纬度
+     * @param longitudes         停靠点经度
+     * @param maxStops           每组停靠点数上限
+     * @param maxDurationSeconds 每组预计时长上限（秒），按时长下限判断；单个停靠点超出时单独成组
+     * @param model              行驶时长估算参数
+     * @return 各组停靠点下标，组内按扫描顺序排列
+     */
+    public static List<int[]> cluster(double originLat, double originLng, double[] latitudes, double[] longitudes,
+                                      int maxStops, double maxDurationSeconds, TravelModel model) {
+        if (latitudes.length != longitudes.length) {
+            throw new IllegalArgumentException("经纬度数组长度不一致");
+        }
+        if (maxStops <= 0) {
+            throw new IllegalArgumentException("每组停靠点数上限必须大于 0");
+        }
+        int stops = latitudes.length;
+        List<int[]> clusters = new ArrayList<>();
+        if (stops == 0) {
+            return clusters;
+        }
+
+        int[] sweep = sweepOrder(originLat, originLng, latitudes, longitudes);
+
+        int[] current = new int[maxStops];
+        int size = 0;
+        double farthest = 0;
+        for (int stop : sweep) {
+            double radius = GeoDistance.haversine(originLat, originLng, latitudes[stop], longitudes[stop]);
+            if (size > 0 && (size == maxStops
+                    || model.durationSeconds(Math.max(farthest, radius), size + 1) > maxDurationSeconds)) {
+                clusters.add(Arrays.copyOf(current, size));
+                size = 0;
+                farthest = 0;
+            }
+            current[size++] = stop;
+            farthest = Math.max(farthest, radius);
+        }
+        clusters.add(Arrays.copyOf(current, size));
+        return clusters;
+    }
+
+    /**
+     * 按方位角排序停靠点，从相邻两点角度间隔最大处开始，避免把同一片区域切成首尾两组
+     */
+    static int[] sweepOrder(double originLat, double originLng, double[] latitudes, double[] longitudes) {
+        int stops = latitudes.length;
+        double cosLat = Math.cos(Math.toRadians(originLat));
+        // 角度与下标打包排序，避免对象装箱：高位为量化后的角度，低 32 位为下标
+        long[] keyed = new long[stops];
+        double[] angles = new double[stops];
+        for (int i = 0; i < stops; i++) {
+            double angle = Math.atan2(latitudes[i] - originLat, (longitudes[i] - originLng) * cosLat);
+            angles[i] = angle;
+            long quantized = (long) ((angle + Math.PI) * 1e8);
+            keyed[i] = (quantized << 32) | i;
+        }
+        Arrays.sort(keyed);
+
+        int start = 0;
+        double largestGap = -1;
+        for (int k = 0; k < stops; k++) {
+            double from = angles[(int) keyed[k]];
+            double to = angles[(int) keyed[(k + 1) % stops]];
+            double gap = k + 1 < stops ? to - from : to - from + 2 * Math.PI;
+            if (gap > largestGap) {
+                largestGap = gap;
+                start = (k + 1) % stops;
+            }
+        }
+
+        int[] order = new int[stops];
+        for (int k = 0; k < stops; k++) {
+            order[k] = (int) keyed[(start + k) % stops];
+        }
+        return order;
+    }
+}
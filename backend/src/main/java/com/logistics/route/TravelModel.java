@@ -0,0 +1,34 @@
+package com.logistics.route;
+
+/**
+ * 本地行驶估算参数：不调用地图接口时，用直线距离估算道路距离与配送时长
+ */
+public final class TravelModel {
+
+    /** 道路距离 / 直线距离 */
+    private final double roadFactor;
+    /** 平均车速（米/秒） */
+    private final double metersPerSecond;
+    /** 每个停靠点的停留时间（秒） */
+    private final double serviceSecondsPerStop;
+
+    public TravelModel(double roadFactor, double speedKmh, double serviceMinutesPerStop) {
+        this.roadFactor = roadFactor;
+        this.metersPerSecond = speedKmh / 3.6;
+        this.serviceSecondsPerStop = serviceMinutesPerStop * 60;
+    }
+
+    /**
+     * 直线距离换算为道路距离（米）
+     */
+    public double roadMeters(double straightMeters) {
+        return straightMeters * roadFactor;
+    }
+
+    /**
+     * 依次经过 stops 个停靠点、直线路径长 straightMeters 时的预计时长（秒）
+     */
+    public double durationSeconds(double straightMeters, int stops) {
+        return roadMeters(straightMeters) / metersPerSecond + stops * serviceSecondsPerStop;
+    }
+}
@@ -0,0 +1,231 @@
+package com.logistics.search;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 内存 n-gram 倒排索引，用于子串搜索（等价于 LIKE '%term%'）
+ * <p>
+ * 文本按字符切分为单字与相邻两字，中文无需分词即可检索。
+ * 查询时取检索词所有两字组的倒排表求交集（单字检索词直接取单字倒排表），
+ * 再用原文 contains 校验去掉字符不相邻的误命中。
+ * 文本统一做 NFKC 规范化并转小写，全角/半角、大小写不敏感。
+ * 读多写少，读写锁保护；倒排表为按 ID 升序的 long 数组，ID 递增写入时直接追加。
+ */
+public final class NgramIndex {
+
+    private static final long BIGRAM_FLAG = 1L << 42;
+
+    private final Map<Long, String> documents = new HashMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 新增或替换文档
+     */
+    public void put(long id, String text) {
+        String normalized = normalize(text);
+        lock.writeLock().lock();
+        try {
+            String previous = documents.put(id, normalized);
+            if (normalized.equals(previous)) {
+                return;
+            }
+            if (previous != null) {
+                for (long token : tokens(previous)) {
+                    removePosting(token, id);
+                }
+            }
+            for (long token : tokens(normalized)) {
+                postings.computeIfAbsent(token, k -> new Postings()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            String previous = documents.remove(id);
+            if (previous != null) {
+                for (long token : tokens(previous)) {
+                    removePosting(token, id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 查询包含检索词的文档
+     *
+     * @param term       检索词，空白时返回空结果
+     * @param maxMatches 最多返回的文档数
+     * @return 按 ID 升序的文档 ID；命中数超过 maxMatches 时返回 null
+     */
+    public long[] search(String term, int maxMatches) {
+        String normalized = normalize(term);
+        if (normalized.isEmpty()) {
+            return new long[0];
+        }
+        long[] queryTokens = queryTokens(normalized);
+        // 三个字及以上时两字组都命中不代表相邻，需要校验原文
+        boolean verify = normalized.codePointCount(0, normalized.length()) > 2;
+
+        lock.readLock().lock();
+        try {
+            Postings[] lists = new Postings[queryTokens.length];
+            for (int i = 0; i < queryTokens.length; i++) {
+                lists[i] = postings.get(queryTokens[i]);
+                if (lists[i] == null) {
+                    return new long[0];
+                }
+            }
+            // 从最短的倒排表开始求交集
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+            long[] candidates = Arrays.copyOf(lists[0].ids, lists[0].size);
+            int count = candidates.length;
+            for (int i = 1; i < lists.length && count > 0; i++) {
+                count = intersect(candidates, count, lists[i]);
+            }
+
+            long[] result = new long[Math.min(count, maxMatches + 1)];
+            int matched = 0;
+            for (int i = 0; i < count; i++) {
+                long id = candidates[i];
+                if (verify && !documents.get(id).contains(normalized)) {
+                    continue;
+                }
+                if (matched == maxMatches) {
+                    return null;
+                }
+                result[matched++] = id;
+            }
+            return Arrays.copyOf(result, matched);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT).trim();
+    }
+
+    /**
+     * 文档的全部单字与两字组（去重）
+     */
+    private static long[] tokens(String text) {
+        int[] cps = text.codePoints().toArray();
+        long[] tokens = new long[cps.length * 2];
+        int n = 0;
+        for (int i = 0; i < cps.length; i++) {
+            tokens[n++] = cps[i];
+            if (i + 1 < cps.length) {
+                tokens[n++] = bigram(cps[i], cps[i + 1]);
+            }
+        }
+        return Arrays.stream(tokens, 0, n).distinct().toArray();
+    }
+
+    /**
+     * 检索词只需两字组即可覆盖；单字检索词取单字
+     */
+    private static long[] queryTokens(String term) {
+        int[] cps = term.codePoints().toArray();
+        if (cps.length == 1) {
+            return new long[]{cps[0]};
+        }
+        long[] tokens = new long[cps.length - 1];
+        for (int i = 0; i + 1 < cps.length; i++) {
+            tokens[i] = bigram(cps[i], cps[i + 1]);
+        }
+        return Arrays.stream(tokens).distinct().toArray();
+    }
+
+    private static long bigram(int first, int second) {
+        return BIGRAM_FLAG | ((long) first << 21) | second;
+    }
+
+    /**
+     * 就地保留 candidates 中也出现在 list 里的 ID，返回保留个数
+     */
+    private static int intersect(long[] candidates, int count, Postings list) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < count && j < list.size; i++) {
+            long id = candidates[i];
+            while (j < list.size && list.ids[j] < id) {
+                j++;
+            }
+            if (j < list.size && list.ids[j] == id) {
+                candidates[kept++] = id;
+            }
+        }
+        return kept;
+    }
+
+    private void removePosting(long token, long id) {
+        Postings list = postings.get(token);
+        if (list != null && list.remove(id) && list.size == 0) {
+            postings.remove(token);
+        }
+    }
+
+    /**
+     * 按 ID 升序的倒排表
+     */
+    private static final class Postings {
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int pos = Arrays.binarySearch(ids, 0, size, id);
+                if (pos >= 0) {
+                    return;
+                }
+                insertAt(-pos - 1, id);
+                return;
+            }
+            insertAt(size, id);
+        }
+
+        boolean remove(long id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+
+        private void insertAt(int pos, long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+    }
+}
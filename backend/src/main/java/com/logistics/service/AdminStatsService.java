@@ -0,0 +1,20 @@
+package com.logistics.service;
+
+import java.util.Map;
+
+/**
+ * 管理员数据统计服务
+ */
+public interface AdminStatsService {
+
+    /**
+     * 数据概览：用户数（总数及各角色）、订单数（总数及各状态）、营收、仓库数
+     * 返回短时缓存的快照，过期后后台刷新
+     */
+    Map<String, Object> getOverview();
+
+    /**
+     * 丢弃当前快照，下次查询重新统计（管理员增删用户、修改订单后调用）
+     */
+    void invalidate();
+}
@@ -0,0 +1,352 @@
+package com.logistics.service;
+
+import com.logistics.entity.DeliveryTrackChunk;
+import com.logistics.mapper.DeliveryTrackChunkMapper;
+import com.logistics.route.Breadcrumbs;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 配送轨迹存储
+ * <p>
+ * 轨迹点按批次缓冲在内存中，定时刷新时每个批次的未满分块编码为一行写入 delivery_track_chunk
+ * （同一分块反复覆盖），攒满 chunk-points 个点后封块，开始下一块。
+ * 每个批次的最新轨迹点常驻内存，查询最新位置不访问数据库。
+ * 配送结束后批次的所有原始分块合并、降采样为一行；未能合并的原始分块超过保留期后删除。
+ */
+@Slf4j
+@Service
+public class BreadcrumbStore {
+
+    static final int LEVEL_RAW = 0;
+    static final int LEVEL_DOWNSAMPLED = 1;
+    /** 单条 INSERT 语句最多包含的分块数 */
+    static final int INSERT_CHUNK_SIZE = 500;
+    /** 单条 DELETE 语句最多删除的行数 */
+    static final int PURGE_LIMIT = 5000;
+    /** 数据库不可用时每个批次最多缓冲的分块数，超出后丢弃新点 */
+    private static final int MAX_BUFFERED_CHUNKS = 16;
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final DeliveryTrackChunkMapper deliveryTrackChunkMapper;
+    private final TaskScheduler simulationScheduler;
+    private final int chunkPoints;
+    private final long flushMs;
+    private final double downsampleMeters;
+    private final long rawRetentionDays;
+    private final long idleMs;
+
+    /** 批次ID → 内存中的轨迹 */
+    private final Map<Integer, Track> tracks = new ConcurrentHashMap<>();
+    /** 已结束、等待合并降采样的批次 */
+    private final Set<Integer> finished = ConcurrentHashMap.newKeySet();
+
+    private final Counter appended;
+    private final Counter dropped;
+    private final Counter bytesWritten;
+
+    public BreadcrumbStore(DeliveryTrackChunkMapper deliveryTrackChunkMapper,
+                           @Qualifier("simulationScheduler") TaskScheduler simulationScheduler,
+                           MeterRegistry meterRegistry,
+                           @Value("${delivery.breadcrumb.chunk-points:64}") int chunkPoints,
+                           @Value("${delivery.breadcrumb.flush-ms:2000}") long flushMs,
+                           @Value("${delivery.breadcrumb.downsample-meters:15}") double downsampleMeters,
+                           @Value("${delivery.breadcrumb.raw-retention-days:7}") long rawRetentionDays,
+                           @Value("${delivery.breadcrumb.idle-minutes:30}") long idleMinutes) {
+        this.deliveryTrackChunkMapper = deliveryTrackChunkMapper;
+        this.simulationScheduler = simulationScheduler;
+        this.chunkPoints = chunkPoints;
+        this.flushMs = flushMs;
+        this.downsampleMeters = downsampleMeters;
+        this.rawRetentionDays = rawRetentionDays;
+        this.idleMs = Duration.ofMinutes(idleMinutes).toMillis();
+        this.appended = Counter.builder("tracking.breadcrumb.points").tag("result", "appended").register(meterRegistry);
+        this.dropped = Counter.builder("tracking.breadcrumb.points").tag("result", "dropped").register(meterRegistry);
+        this.bytesWritten = Counter.builder("tracking.breadcrumb.bytes")
+                .description("写入数据库的轨迹编码字节数，与 appended 相除即每点字节数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        simulationScheduler.scheduleWithFixedDelay(this::flush, Duration.ofMillis(flushMs));
+        simulationScheduler.scheduleWithFixedDelay(this::purgeExpired, Duration.ofHours(1));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 追加一个轨迹点
+     */
+    public void append(Integer batchId, int pathIndex, double latitude, double longitude, String address,
+                       LocalDateTime recordedAt) {
+        Track track = tracks.computeIfAbsent(batchId, id -> new Track(id, chunkPoints));
+        synchronized (track) {
+            if (track.points.size() >= chunkPoints * MAX_BUFFERED_CHUNKS) {
+                dropped.increment();
+                log.warn("轨迹缓冲已满，丢弃轨迹点，批次ID: {}", batchId);
+                return;
+            }
+            track.points.add(pathIndex, latitude, longitude, recordedAt.atZone(ZONE).toEpochSecond());
+            track.latest = new Breadcrumb(pathIndex, latitude, longitude, address, recordedAt);
+            track.dirty = true;
+            track.lastAppendMs = System.currentTimeMillis();
+        }
+        appended.increment();
+    }
+
+    /**
+     * 回填轨迹点的地址（逆地理编码在轨迹点写入之后才完成）
+     * 只更新仍为最新点的地址；批次已合并降采样、不在内存中时忽略，不会重新创建轨迹
+     */
+    public void updateAddress(Integer batchId, int pathIndex, String address) {
+        Track track = tracks.get(batchId);
+        if (track == null) {
+            return;
+        }
+        synchronized (track) {
+            Breadcrumb latest = track.latest;
+            if (latest == null || latest.pathIndex() != pathIndex) {
+                return;
+            }
+            track.latest = new Breadcrumb(pathIndex, latest.latitude(), latest.longitude(), address,
+                    latest.recordedAt());
+            // 点已随封块写入时只更新内存；否则重写当前分块的 last_address
+            if (track.points.size() > 0) {
+                track.dirty = true;
+            }
+        }
+    }
+
+    /**
+     * 批次最新的轨迹点：配送中的批次直接从内存返回，否则读取最后一个分块
+     *
+     * @return 没有轨迹时返回 null
+     */
+    public Breadcrumb latest(Integer batchId) {
+        Track track = tracks.get(batchId);
+        Breadcrumb latest = track != null ? track.latest : null;
+        if (latest != null) {
+            return latest;
+        }
+        DeliveryTrackChunk chunk = deliveryTrackChunkMapper.selectLatest(batchId);
+        if (chunk == null) {
+            return null;
+        }
+        Breadcrumbs points = Breadcrumbs.decode(chunk.getData());
+        if (points.size() == 0) {
+            return null;
+        }
+        int last = points.size() - 1;
+        return new Breadcrumb(points.pathIndexAt(last), points.latitudeAt(last), points.longitudeAt(last),
+                chunk.getLastAddress(), toDateTime(points.epochSecondAt(last)));
+    }
+
+    /**
+     * 批次配送结束：下次刷新时写入剩余的点，再合并降采样，并释放内存
+     * 轨迹点由配送模拟在 simulationScheduler 上按顺序追加，刷新也在同一线程执行，合并时不会再有更早的点到达
+     */
+    public void finish(Integer batchId) {
+        finished.add(batchId);
+    }
+
+    /**
+     * 写入有新点的分块，再合并已结束的批次
+     * 写入失败的分块保持待写状态，下次重试
+     */
+    public synchronized void flush() {
+        List<PendingChunk> pending = new ArrayList<>();
+        for (Track track : tracks.values()) {
+            if (track.seq < 0 && track.dirty) {
+                try {
+                    // 服务重启后接着已有的分块编号，避免覆盖
+                    Integer maxSeq = deliveryTrackChunkMapper.selectMaxSeq(track.batchId);
+                    track.seq = maxSeq != null ? maxSeq + 1 : 0;
+                } catch (Exception e) {
+                    log.error("读取轨迹分块序号失败，批次ID: {}", track.batchId, e);
+                    continue;
+                }
+            }
+            PendingChunk chunk = snapshot(track);
+            if (chunk != null) {
+                pending.add(chunk);
+            }
+        }
+        for (int from = 0; from < pending.size(); from += INSERT_CHUNK_SIZE) {
+            List<PendingChunk> group = pending.subList(from, Math.min(from + INSERT_CHUNK_SIZE, pending.size()));
+            List<DeliveryTrackChunk> rows = new ArrayList<>(group.size());
+            group.forEach(chunk -> rows.add(chunk.row));
+            try {
+                deliveryTrackChunkMapper.upsertBatch(rows);
+                group.forEach(this::commit);
+            } catch (Exception e) {
+                log.error("轨迹分块写入失败，分块数: {}", rows.size(), e);
+                group.forEach(chunk -> {
+                    synchronized (chunk.track) {
+                        chunk.track.dirty = true;
+                    }
+                });
+            }
+        }
+
+        for (Integer batchId : finished) {
+            Track track = tracks.get(batchId);
+            if (track != null && track.dirty) {
+                // 剩余的点尚未写入，下次刷新再合并
+                continue;
+            }
+            try {
+                compact(batchId);
+                finished.remove(batchId);
+                tracks.remove(batchId);
+            } catch (Exception e) {
+                log.error("轨迹降采样失败，批次ID: {}", batchId, e);
+            }
+        }
+
+        long idleBefore = System.currentTimeMillis() - idleMs;
+        tracks.values().removeIf(track -> !track.dirty && track.lastAppendMs < idleBefore);
+    }
+
+    /**
+     * 合并批次的所有分块并降采样为一行；先写入新分块再删除旧分块，中途失败不会丢失轨迹
+     */
+    void compact(Integer batchId) {
+        List<DeliveryTrackChunk> chunks = deliveryTrackChunkMapper.selectByBatchId(batchId);
+        if (chunks.isEmpty() || (chunks.size() == 1 && chunks.get(0).getLevel() == LEVEL_DOWNSAMPLED)) {
+            return;
+        }
+        Breadcrumbs all = new Breadcrumbs(chunks.size() * chunkPoints);
+        for (DeliveryTrackChunk chunk : chunks) {
+            all.addAll(Breadcrumbs.decode(chunk.getData()));
+        }
+        DeliveryTrackChunk last = chunks.get(chunks.size() - 1);
+        DeliveryTrackChunk row = toRow(batchId, last.getSeq() + 1, LEVEL_DOWNSAMPLED,
+                all.downsample(downsampleMeters), last.getLastAddress());
+        deliveryTrackChunkMapper.upsertBatch(List.of(row));
+        deliveryTrackChunkMapper.deleteBefore(batchId, row.getSeq());
+        log.debug("轨迹已降采样，批次ID: {}，点数: {} → {}", batchId, all.size(), row.getPointCount());
+    }
+
+    /**
+     * 删除超过保留期的原始分块（配送异常中断、未能合并的批次）
+     */
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(rawRetentionDays);
+        try {
+            int deleted;
+            do {
+                deleted = deliveryTrackChunkMapper.deleteRawBefore(cutoff, PURGE_LIMIT);
+            } while (deleted >= PURGE_LIMIT);
+        } catch (Exception e) {
+            log.error("过期轨迹分块删除失败", e);
+        }
+    }
+
+    /**
+     * 内存中的批次数
+     */
+    public int getTrackCount() {
+        return tracks.size();
+    }
+
+    private PendingChunk snapshot(Track track) {
+        synchronized (track) {
+            if (!track.dirty || track.points.size() == 0) {
+                return null;
+            }
+            track.dirty = false;
+            DeliveryTrackChunk row = toRow(track.batchId, track.seq, LEVEL_RAW, track.points,
+                    track.latest.address());
+            return new PendingChunk(track, row, track.points.size() >= chunkPoints);
+        }
+    }
+
+    /**
+     * 分块写入成功：封块时移除已写入的点，后续的点进入下一块
+     */
+    private void commit(PendingChunk chunk) {
+        bytesWritten.increment(chunk.row.getData().length);
+        if (!chunk.sealed) {
+            return;
+        }
+        Track track = chunk.track;
+        synchronized (track) {
+            track.points.removeFirst(chunk.row.getPointCount());
+            track.seq++;
+        }
+    }
+
+    private static DeliveryTrackChunk toRow(Integer batchId, int seq, int level, Breadcrumbs points,
+                                            String lastAddress) {
+        int last = points.size() - 1;
+        DeliveryTrackChunk row = new DeliveryTrackChunk();
+        row.setBatchId(batchId);
+        row.setSeq(seq);
+        row.setLevel(level);
+        row.setPointCount(points.size());
+        row.setFirstIndex(points.pathIndexAt(0));
+        row.setLastIndex(points.pathIndexAt(last));
+        row.setStartTime(toDateTime(points.epochSecondAt(0)));
+        row.setEndTime(toDateTime(points.epochSecondAt(last)));
+        row.setLastAddress(lastAddress);
+        row.setData(points.encode());
+        row.setUpdatedAt(LocalDateTime.now());
+        return row;
+    }
+
+    private static LocalDateTime toDateTime(long epochSecond) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZONE);
+    }
+
+    /**
+     * 轨迹点
+     *
+     * @param pathIndex  路径点索引
+     * @param address    地址（逆地理编码）
+     * @param recordedAt 记录时间
+     */
+    public record Breadcrumb(int pathIndex, double latitude, double longitude, String address,
+                             LocalDateTime recordedAt) {
+    }
+
+    private record PendingChunk(Track track, DeliveryTrackChunk row, boolean sealed) {
+    }
+
+    private static final class Track {
+        final Integer batchId;
+        /** 当前分块中的点（含已写入但未封块的点） */
+        final Breadcrumbs points;
+        /** 当前分块序号，首次写入前从数据库读取；只由刷新线程修改 */
+        int seq = -1;
+        volatile Breadcrumb latest;
+        /** 有尚未写入数据库的点 */
+        volatile boolean dirty;
+        volatile long lastAppendMs;
+
+        Track(Integer batchId, int chunkPoints) {
+            this.batchId = batchId;
+            this.points = new Breadcrumbs(chunkPoints);
+        }
+    }
+}
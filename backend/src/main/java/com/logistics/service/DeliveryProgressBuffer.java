@@ -0,0 +1,124 @@
+package com.logistics.service;
+
+import com.logistics.entity.DeliveryBatch;
+import com.logistics.mapper.DeliveryBatchMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 配送进度写缓冲
+ * <p>
+ * 模拟推进时只把 current_index 记在内存中，同一批次多次变化会被合并，
+ * 由定时任务用一条 UPDATE ... CASE 批量写回数据库（只更新进度列）。
+ * 位置查询接口优先读取这里的最新值，因此不会看到尚未落库的旧进度。
+ */
+@Slf4j
+@Service
+public class DeliveryProgressBuffer {
+
+    /** 单条 UPDATE 语句最多包含的批次数 */
+    static final int FLUSH_CHUNK_SIZE = 500;
+
+    private final DeliveryBatchMapper deliveryBatchMapper;
+    private final TaskScheduler simulationScheduler;
+    private final long flushMs;
+
+    /** 各配送中批次的最新进度，供读取 */
+    private final Map<Integer, Integer> latest = new ConcurrentHashMap<>();
+    /** 尚未写回数据库的进度 */
+    private final Map<Integer, Integer> dirty = new ConcurrentHashMap<>();
+
+    public DeliveryProgressBuffer(DeliveryBatchMapper deliveryBatchMapper,
+                                  @Qualifier("simulationScheduler") TaskScheduler simulationScheduler,
+                                  @Value("${delivery.simulation.progress-flush-ms:5000}") long flushMs) {
+        this.deliveryBatchMapper = deliveryBatchMapper;
+        this.simulationScheduler = simulationScheduler;
+        this.flushMs = flushMs;
+    }
+
+    @PostConstruct
+    public void init() {
+        simulationScheduler.scheduleWithFixedDelay(this::flush, Duration.ofMillis(flushMs));
+    }
+
+    /**
+     * 关闭前把剩余进度写回，重启后模拟可以从这里继续
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 记录批次最新进度
+     */
+    public void record(Integer batchId, int index) {
+        latest.put(batchId, index);
+        dirty.put(batchId, index);
+    }
+
+    /**
+     * 获取批次最新进度
+     *
+     * @return 缓冲中没有该批次时返回 null，调用方应使用数据库中的值
+     */
+    public Integer getCurrentIndex(Integer batchId) {
+        return latest.get(batchId);
+    }
+
+    /**
+     * 批次结束模拟时移除缓冲（未写回的进度一并丢弃）
+     *
+     * @return 移除前的最新进度，没有时返回 null
+     */
+    public Integer remove(Integer batchId) {
+        dirty.remove(batchId);
+        return latest.remove(batchId);
+    }
+
+    /**
+     * 将合并后的进度批量写回数据库
+     * 写入失败的进度保留在缓冲中，下次重试；写入期间又发生变化的批次保持待写状态
+     */
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<DeliveryBatch> pending = new ArrayList<>(dirty.size());
+        dirty.forEach((batchId, index) -> {
+            DeliveryBatch batch = new DeliveryBatch();
+            batch.setId(batchId);
+            batch.setCurrentIndex(index);
+            pending.add(batch);
+        });
+
+        for (int from = 0; from < pending.size(); from += FLUSH_CHUNK_SIZE) {
+            List<DeliveryBatch> chunk = pending.subList(from, Math.min(from + FLUSH_CHUNK_SIZE, pending.size()));
+            try {
+                deliveryBatchMapper.updateCurrentIndexes(chunk);
+                chunk.forEach(batch -> dirty.remove(batch.getId(), batch.getCurrentIndex()));
+            } catch (Exception e) {
+                log.error("配送进度写回失败，批次数: {}", chunk.size(), e);
+            }
+        }
+        log.debug("配送进度已写回，批次数: {}", pending.size());
+    }
+
+    /**
+     * 尚未写回数据库的批次数
+     */
+    public int getPendingCount() {
+        return dirty.size();
+    }
+}
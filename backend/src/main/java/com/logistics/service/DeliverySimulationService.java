@@ -1,128 +1,243 @@
 package com.logistics.service;
 
-import com.alibaba.fastjson.JSONArray;
 import com.logistics.entity.DeliveryBatch;
-import com.logistics.entity.DeliveryLocation;
 import com.logistics.mapper.DeliveryBatchMapper;
-import com.logistics.mapper.DeliveryLocationMapper;
+import com.logistics.route.RouteGeometry;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
 
 /**
  * 配送模拟服务
  * 模拟配送员沿路线移动，更新 delivery_batches.current_index
+ * <p>
+ * 所有配送中的批次状态保存在内存中，由一个固定节拍的调度任务统一推进：
+ * 每个节拍根据出发时间计算批次应到达的路径点，进度写入 {@link DeliveryProgressBuffer}
+ * 合并后批量落库，因此线程数和写库次数都与路径点数量无关。
+ * 新位置同时推送给 {@link DeliveryTrackingHub} 的订阅者。
  */
 @Slf4j
 @Service
 public class DeliverySimulationService {
 
-    @Autowired
-    private DeliveryBatchMapper deliveryBatchMapper;
-
-    @Autowired
-    private DeliveryLocationMapper deliveryLocationMapper;
+    /** 每经过多少个路径点记录一次轨迹 */
+    private static final int RECORD_EVERY_POINTS = 10;
+
+    private final DeliveryBatchMapper deliveryBatchMapper;
+    private final RouteGeometryCache routeGeometryCache;
+    private final DeliveryProgressBuffer progressBuffer;
+    private final ReverseGeocodingService reverseGeocodingService;
+    private final DeliveryTrackingHub trackingHub;
+    private final BreadcrumbStore breadcrumbStore;
+    private final TaskScheduler simulationScheduler;
+    private final long tickMs;
+
+    /** 配送中的批次，key 为批次ID */
+    private final Map<Integer, ActiveBatch> activeBatches = new ConcurrentHashMap<>();
+    private ScheduledFuture<?> ticker;
+
+    public DeliverySimulationService(DeliveryBatchMapper deliveryBatchMapper,
+                                     RouteGeometryCache routeGeometryCache,
+                                     DeliveryProgressBuffer progressBuffer,
+                                     ReverseGeocodingService reverseGeocodingService,
+                                     DeliveryTrackingHub trackingHub,
+                                     BreadcrumbStore breadcrumbStore,
+                                     @Qualifier("simulationScheduler") TaskScheduler simulationScheduler,
+                                     @Value("${delivery.simulation.tick-ms:1000}") long tickMs) {
+        this.deliveryBatchMapper = deliveryBatchMapper;
+        this.routeGeometryCache = routeGeometryCache;
+        this.progressBuffer = progressBuffer;
+        this.reverseGeocodingService = reverseGeocodingService;
+        this.trackingHub = trackingHub;
+        this.breadcrumbStore = breadcrumbStore;
+        this.simulationScheduler = simulationScheduler;
+        this.tickMs = tickMs;
+    }
 
-    @Autowired
-    private TencentMapService tencentMapService;
+    /**
+     * 服务启动后恢复数据库中仍处于配送中的批次
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeActiveBatches() {
+        List<Integer> batchIds = deliveryBatchMapper.selectDeliveringIds();
+        batchIds.forEach(this::startSimulation);
+        if (!batchIds.isEmpty()) {
+            log.info("已恢复配送模拟，批次数: {}", batchIds.size());
+        }
+    }
 
     /**
-     * 开始配送模拟（异步执行）
+     * 开始配送模拟
+     * 从批次当前的 current_index 继续，因此停止后重新开始或服务重启后都能接着推进
      */
-    @Async
     public void startSimulation(Integer batchId) {
-        log.info("开始配送模拟，批次ID: {}", batchId);
+        startSimulation(batchId, System.currentTimeMillis());
+    }
 
-        try {
-            DeliveryBatch batch = deliveryBatchMapper.selectById(batchId);
-            if (batch == null || batch.getStatus() != 1) {
-                log.warn("批次不存在或状态不正确，批次ID: {}", batchId);
-                return;
-            }
+    void startSimulation(Integer batchId, long nowMs) {
+        DeliveryBatch batch = deliveryBatchMapper.selectSummaryById(batchId);
+        if (batch == null || batch.getStatus() != 1) {
+            log.warn("批次不存在或状态不正确，批次ID: {}", batchId);
+            return;
+        }
 
-            if (batch.getRouteData() == null || batch.getRouteData().isEmpty()) {
-                log.error("路径数据为空，批次ID: {}", batchId);
-                return;
-            }
+        RouteGeometry route = routeGeometryCache.get(batchId);
+        if (route == null) {
+            log.error("路径数据为空，批次ID: {}", batchId);
+            return;
+        }
 
-            // 解压polyline坐标
-            JSONArray pathPoints = tencentMapService.decompressPolyline(batch.getRouteData());
-            if (pathPoints.isEmpty()) {
-                log.error("路径点为空，批次ID: {}", batchId);
-                return;
-            }
+        int totalPoints = route.size();
+        long totalDurationMs = batch.getTotalDuration() != null ? batch.getTotalDuration() * 1000L : 0;
+        long intervalMs = Math.max(totalDurationMs / totalPoints, 1);
+        int startIndex = route.clampIndex(batch.getCurrentIndex());
 
-            int totalPoints = pathPoints.size();
-            long intervalMs = (batch.getTotalDuration() * 1000L) / totalPoints;
+        // 从头开始时索引记为 -1，使第一个节拍写入起点并记录轨迹
+        ActiveBatch state = new ActiveBatch(batchId, route, nowMs - startIndex * intervalMs, intervalMs,
+                startIndex == 0 ? -1 : startIndex);
+        activeBatches.put(batchId, state);
+        ensureTicker();
 
-            log.info("批次ID: {}, 总点数: {}, 间隔时间: {}ms", batchId, totalPoints, intervalMs);
+        log.info("开始配送模拟，批次ID: {}, 总点数: {}, 间隔时间: {}ms, 起始索引: {}",
+                batchId, totalPoints, intervalMs, startIndex);
+    }
 
-            for (int i = 0; i < totalPoints; i++) {
-                // 检查批次状态
-                batch = deliveryBatchMapper.selectById(batchId);
-                if (batch.getStatus() != 1) {
-                    log.info("配送已停止，批次ID: {}", batchId);
-                    break;
-                }
+    /**
+     * 停止配送模拟
+     */
+    public void stopSimulation(Integer batchId) {
+        Integer bufferedIndex = deactivate(batchId);
+        DeliveryBatch batch = deliveryBatchMapper.selectById(batchId);
+        if (batch != null && batch.getStatus() == 1) {
+            batch.setStatus(0); // 回到待出发
+            if (bufferedIndex != null) {
+                batch.setCurrentIndex(bufferedIndex);
+            }
+            deliveryBatchMapper.updateById(batch);
+            trackingHub.close(batchId, "STOPPED");
+            log.info("配送已停止，批次ID: {}", batchId);
+        }
+    }
 
-                JSONArray point = pathPoints.getJSONArray(i);
-                double latitude = point.getDoubleValue(0);
-                double longitude = point.getDoubleValue(1);
-
-                // 更新当前索引
-                batch.setCurrentIndex(i);
-                deliveryBatchMapper.updateById(batch);
-
-                // 每10个点记录一次位置
-                if (i % 10 == 0 || i == totalPoints - 1) {
-                    DeliveryLocation location = new DeliveryLocation();
-                    location.setBatchId(batchId);
-                    location.setLatitude(new BigDecimal(latitude));
-                    location.setLongitude(new BigDecimal(longitude));
-                    location.setPathIndex(i);
-
-                    try {
-                        String address = tencentMapService.getAddress(latitude, longitude);
-                        location.setAddress(address);
-                    } catch (Exception e) {
-                        log.warn("获取地址失败: {}", e.getMessage());
-                        location.setAddress("位置获取中...");
-                    }
+    /**
+     * 批次已在别处结束（如手动完成），仅移除内存中的模拟状态
+     */
+    public void removeSimulation(Integer batchId) {
+        deactivate(batchId);
+        trackingHub.close(batchId, "COMPLETED");
+        breadcrumbStore.finish(batchId);
+    }
+
+    /**
+     * 当前配送中的模拟批次数
+     */
+    public int getActiveCount() {
+        return activeBatches.size();
+    }
 
-                    deliveryLocationMapper.insert(location);
+    /**
+     * 推进所有配送中的批次到 nowMs 时刻应到达的位置
+     */
+    void tick(long nowMs) {
+        for (ActiveBatch state : activeBatches.values()) {
+            try {
+                synchronized (state) {
+                    if (!state.removed) {
+                        advance(state, nowMs);
+                    }
                 }
+            } catch (Exception e) {
+                log.error("配送模拟异常，批次ID: {}", state.batchId, e);
+            }
+        }
+    }
 
-                Thread.sleep(intervalMs);
+    private void advance(ActiveBatch state, long nowMs) {
+        int lastPoint = state.route.size() - 1;
+        int target = (int) Math.min((nowMs - state.startMs) / state.intervalMs, lastPoint);
+        if (target <= state.index) {
+            return;
+        }
+
+        boolean finished = target == lastPoint;
+        if (finished) {
+            state.removed = true;
+            activeBatches.remove(state.batchId, state);
+            progressBuffer.remove(state.batchId);
+            if (deliveryBatchMapper.completeDelivering(state.batchId, target, LocalDateTime.now()) == 0) {
+                // 批次已不在配送中（被停止或手动完成）
+                log.info("配送已停止，批次ID: {}", state.batchId);
+                return;
             }
+            log.info("配送完成，批次ID: {}", state.batchId);
+        } else {
+            progressBuffer.record(state.batchId, target);
+        }
+        trackingHub.publish(state.batchId, state.route, target, finished);
 
-            // 配送完成
-            batch.setStatus(2);
-            batch.setCompletedAt(LocalDateTime.now());
-            deliveryBatchMapper.updateById(batch);
+        if (finished || Math.floorDiv(target, RECORD_EVERY_POINTS) > Math.floorDiv(state.index, RECORD_EVERY_POINTS)) {
+            reverseGeocodingService.record(state.batchId, target,
+                    state.route.latitudeAt(target), state.route.longitudeAt(target), LocalDateTime.now(), finished);
+        }
+        state.index = target;
+    }
 
-            log.info("配送完成，批次ID: {}", batchId);
+    /**
+     * 从内存中移除批次并丢弃缓冲中的进度
+     * <p>
+     * 与调度线程对同一批次的推进互斥：正在推进时等它写完进度再丢弃，移除之后不会再有进度写入缓冲
+     *
+     * @return 缓冲中尚未落库的进度
+     */
+    private Integer deactivate(Integer batchId) {
+        ActiveBatch state = activeBatches.remove(batchId);
+        if (state == null) {
+            return progressBuffer.remove(batchId);
+        }
+        synchronized (state) {
+            state.removed = true;
+            return progressBuffer.remove(batchId);
+        }
+    }
 
-        } catch (InterruptedException e) {
-            log.error("配送模拟被中断，批次ID: {}", batchId, e);
-            Thread.currentThread().interrupt();
-        } catch (Exception e) {
-            log.error("配送模拟异常，批次ID: {}", batchId, e);
+    private synchronized void ensureTicker() {
+        if (ticker == null) {
+            ticker = simulationScheduler.scheduleAtFixedRate(() -> tick(System.currentTimeMillis()),
+                    Duration.ofMillis(tickMs));
         }
     }
 
     /**
-     * 停止配送模拟
+     * 单个批次的模拟状态，index 只由调度线程修改；推进与移除都在该对象上加锁
      */
-    public void stopSimulation(Integer batchId) {
-        DeliveryBatch batch = deliveryBatchMapper.selectById(batchId);
-        if (batch != null && batch.getStatus() == 1) {
-            batch.setStatus(0); // 回到待出发
-            deliveryBatchMapper.updateById(batch);
-            log.info("配送已停止，批次ID: {}", batchId);
+    private static final class ActiveBatch {
+
+        private final Integer batchId;
+        private final RouteGeometry route;
+        /** 从起点出发的时刻（恢复时按已走过的点数回推） */
+        private final long startMs;
+        private final long intervalMs;
+        private int index;
+        /** 已停止、已移除或已到达终点，调度线程不再推进 */
+        private boolean removed;
+
+        ActiveBatch(Integer batchId, RouteGeometry route, long startMs, long intervalMs, int index) {
+            this.batchId = batchId;
+            this.route = route;
+            this.startMs = startMs;
+            this.intervalMs = intervalMs;
+            this.index = index;
         }
     }
 }
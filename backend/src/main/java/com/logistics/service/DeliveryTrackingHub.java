@@ -0,0 +1,332 @@
+package com.logistics.service;
+
+import com.logistics.exception.TooManyRequestsException;
+import com.logistics.route.RouteGeometry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 配送实时追踪推送（SSE）
+ * <p>
+ * 配送模拟每推进一个批次就调用 {@link #publish}，事件只序列化一次，再分发给该批次的所有订阅者。
+ * 位置是状态而不是日志：每个订阅者只保留一条待发送事件，新事件覆盖旧事件（合并），
+ * 因此每个连接占用的内存固定，与推送频率和客户端快慢无关。
+ * 实际写出由 trackingExecutor 完成，调度线程不会被慢客户端阻塞；
+ * 连续 max-lag 次事件未能写出的订阅者会被断开，客户端带 Last-Event-ID 重连后直接拿到最新位置。
+ * <p>
+ * 事件 ID 为路径点序号，同一批次内单调递增。
+ */
+@Slf4j
+@Service
+public class DeliveryTrackingHub {
+
+    static final String EVENT_LOCATION = "location";
+    static final String EVENT_END = "end";
+
+    private final Executor trackingExecutor;
+    private final TaskScheduler simulationScheduler;
+    private final int maxSubscribers;
+    private final int maxLag;
+    private final long heartbeatSeconds;
+    private final long timeoutMs;
+
+    /** 批次ID → 订阅该批次的连接 */
+    private final Map<Integer, Topic> topics = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final Counter sent;
+    private final Counter conflated;
+    private final Counter shed;
+
+    public DeliveryTrackingHub(@Qualifier("trackingExecutor") Executor trackingExecutor,
+                               @Qualifier("simulationScheduler") TaskScheduler simulationScheduler,
+                               MeterRegistry meterRegistry,
+                               @Value("${delivery.tracking.max-subscribers:60000}") int maxSubscribers,
+                               @Value("${delivery.tracking.max-lag:5}") int maxLag,
+                               @Value("${delivery.tracking.heartbeat-seconds:15}") long heartbeatSeconds,
+                               @Value("${delivery.tracking.timeout-minutes:30}") long timeoutMinutes) {
+        this.trackingExecutor = trackingExecutor;
+        this.simulationScheduler = simulationScheduler;
+        this.maxSubscribers = maxSubscribers;
+        this.maxLag = maxLag;
+        this.heartbeatSeconds = heartbeatSeconds;
+        this.timeoutMs = Duration.ofMinutes(timeoutMinutes).toMillis();
+        Gauge.builder("tracking.subscribers", subscriberCount, AtomicInteger::get)
+                .description("当前配送追踪订阅连接数")
+                .register(meterRegistry);
+        this.sent = Counter.builder("tracking.events").tag("result", "sent").register(meterRegistry);
+        this.conflated = Counter.builder("tracking.events").tag("result", "conflated").register(meterRegistry);
+        this.shed = Counter.builder("tracking.events").tag("result", "shed").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        simulationScheduler.scheduleWithFixedDelay(this::heartbeat, Duration.ofSeconds(heartbeatSeconds));
+    }
+
+    /**
+     * 订阅批次位置推送
+     *
+     * @param batchId     批次ID
+     * @param lastEventId 客户端最后收到的事件ID（Last-Event-ID），首次连接为 null
+     * @param snapshot    批次当前状态，尚无推送时发给新订阅者；批次已结束时为终止事件
+     */
+    public SseEmitter subscribe(Integer batchId, Long lastEventId, TrackingEvent snapshot) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new TooManyRequestsException("实时追踪连接数已满，请稍后重试");
+        }
+        Subscriber subscriber = new Subscriber(batchId, createEmitter(timeoutMs));
+        subscriber.emitter.onCompletion(() -> unsubscribe(subscriber));
+        subscriber.emitter.onTimeout(() -> unsubscribe(subscriber));
+        subscriber.emitter.onError(e -> unsubscribe(subscriber));
+
+        if (snapshot != null && snapshot.terminal()) {
+            subscriber.offer(snapshot);
+            schedule(subscriber);
+            return subscriber.emitter;
+        }
+        Topic topic = topics.compute(batchId, (id, existing) -> {
+            Topic t = existing != null ? existing : new Topic();
+            t.subscribers.add(subscriber);
+            return t;
+        });
+        TrackingEvent latest = topic.latest;
+        if (latest == null || (snapshot != null && snapshot.id() > latest.id())) {
+            latest = snapshot;
+        }
+        if (latest != null && (lastEventId == null || latest.id() > lastEventId)) {
+            subscriber.offer(latest);
+            schedule(subscriber);
+        }
+        return subscriber.emitter;
+    }
+
+    /**
+     * 推送批次的最新位置，由配送模拟调度线程调用；没有订阅者时不做任何事
+     */
+    public void publish(Integer batchId, RouteGeometry route, int index, boolean finished) {
+        Topic topic = finished ? topics.remove(batchId) : topics.get(batchId);
+        if (topic == null) {
+            return;
+        }
+        TrackingEvent event = locationEvent(batchId, route, index, finished);
+        topic.latest = event;
+        fanOut(topic, event);
+    }
+
+    /**
+     * 批次在模拟之外结束（手动完成或停止配送），通知订阅者并关闭连接
+     *
+     * @param status COMPLETED 或 STOPPED
+     */
+    public void close(Integer batchId, String status) {
+        Topic topic = topics.remove(batchId);
+        if (topic == null) {
+            return;
+        }
+        TrackingEvent latest = topic.latest;
+        fanOut(topic, endEvent(batchId, latest != null ? latest.id() : 0, status));
+    }
+
+    /**
+     * 当前订阅连接数
+     */
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /**
+     * 位置事件，data 为 JSON：batchId、index、latitude、longitude、progress（百分比）、status
+     */
+    public static TrackingEvent locationEvent(Integer batchId, RouteGeometry route, int index, boolean finished) {
+        int lastPoint = Math.max(route.size() - 1, 1);
+        double progress = Math.round(index * 1000.0 / lastPoint) / 10.0;
+        String data = "{\"batchId\":" + batchId
+                + ",\"index\":" + index
+                + ",\"latitude\":" + route.latitudeAt(index)
+                + ",\"longitude\":" + route.longitudeAt(index)
+                + ",\"progress\":" + progress
+                + ",\"status\":\"" + (finished ? "COMPLETED" : "DELIVERING") + "\"}";
+        return new TrackingEvent(index, finished ? EVENT_END : EVENT_LOCATION, data, finished);
+    }
+
+    /**
+     * 终止事件：批次已完成或已停止，客户端收到后不再重连
+     */
+    public static TrackingEvent endEvent(Integer batchId, long id, String status) {
+        return new TrackingEvent(id, EVENT_END, "{\"batchId\":" + batchId + ",\"status\":\"" + status + "\"}", true);
+    }
+
+    SseEmitter createEmitter(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    void heartbeat() {
+        for (Topic topic : topics.values()) {
+            for (Subscriber subscriber : topic.subscribers) {
+                // 有待发送事件的连接不需要心跳；心跳也用于及时发现已断开的连接
+                if (subscriber.pending.compareAndSet(null, TrackingEvent.HEARTBEAT)) {
+                    schedule(subscriber);
+                }
+            }
+        }
+    }
+
+    private void fanOut(Topic topic, TrackingEvent event) {
+        for (Subscriber subscriber : topic.subscribers) {
+            if (subscriber.offer(event)) {
+                conflated.increment();
+                if (++subscriber.lag > maxLag) {
+                    shed(subscriber);
+                    continue;
+                }
+            }
+            schedule(subscriber);
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (!subscriber.scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            trackingExecutor.execute(() -> flush(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.scheduled.set(false);
+            shed(subscriber);
+        }
+    }
+
+    /**
+     * 写出订阅者的待发送事件；同一订阅者同时只有一个线程在写，保证事件按顺序到达
+     */
+    private void flush(Subscriber subscriber) {
+        while (true) {
+            TrackingEvent event = subscriber.pending.getAndSet(null);
+            if (event != null && !subscriber.closed.get()) {
+                if (!send(subscriber, event)) {
+                    return;
+                }
+            }
+            subscriber.scheduled.set(false);
+            if (subscriber.pending.get() == null || !subscriber.scheduled.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    private boolean send(Subscriber subscriber, TrackingEvent event) {
+        try {
+            if (event == TrackingEvent.HEARTBEAT) {
+                subscriber.emitter.send(SseEmitter.event().comment("ping"));
+            } else {
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(Long.toString(event.id()))
+                        .name(event.name())
+                        .data(event.data()));
+                sent.increment();
+            }
+            subscriber.lag = 0;
+            if (event.terminal()) {
+                subscriber.emitter.complete();
+            }
+            return true;
+        } catch (Exception e) {
+            // 客户端已断开
+            subscriber.emitter.completeWithError(e);
+            unsubscribe(subscriber);
+            return false;
+        }
+    }
+
+    /**
+     * 断开跟不上推送的连接：清空待发送事件后结束响应，客户端会带 Last-Event-ID 重连
+     */
+    private void shed(Subscriber subscriber) {
+        if (subscriber.closed.get()) {
+            return;
+        }
+        shed.increment();
+        log.debug("断开跟不上推送的追踪连接，批次ID: {}", subscriber.batchId);
+        unsubscribe(subscriber);
+        subscriber.pending.set(null);
+        // 写出线程可能正阻塞在该连接上，结束响应也交给写出线程池，不阻塞发布线程
+        try {
+            trackingExecutor.execute(subscriber.emitter::complete);
+        } catch (RejectedExecutionException e) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscriberCount.decrementAndGet();
+        topics.computeIfPresent(subscriber.batchId, (id, topic) -> {
+            topic.subscribers.remove(subscriber);
+            return topic.subscribers.isEmpty() ? null : topic;
+        });
+    }
+
+    /**
+     * 推送事件
+     *
+     * @param id       事件ID（路径点序号）
+     * @param name     事件名：location 或 end
+     * @param data     JSON 数据
+     * @param terminal 是否为最后一条事件，发送后关闭连接
+     */
+    public record TrackingEvent(long id, String name, String data, boolean terminal) {
+        static final TrackingEvent HEARTBEAT = new TrackingEvent(-1, null, null, false);
+    }
+
+    private static final class Topic {
+        final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        volatile TrackingEvent latest;
+    }
+
+    private static final class Subscriber {
+        final Integer batchId;
+        final SseEmitter emitter;
+        /** 待发送事件，新事件覆盖旧事件 */
+        final AtomicReference<TrackingEvent> pending = new AtomicReference<>();
+        /** 是否已提交写出任务 */
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        /** 连续被覆盖、未能写出的事件数，只由发布线程递增，写出成功后清零 */
+        volatile int lag;
+
+        Subscriber(Integer batchId, SseEmitter emitter) {
+            this.batchId = batchId;
+            this.emitter = emitter;
+        }
+
+        /**
+         * @return 是否覆盖了尚未写出的事件（心跳不算）
+         */
+        boolean offer(TrackingEvent event) {
+            TrackingEvent previous = pending.getAndSet(event);
+            return previous != null && previous != TrackingEvent.HEARTBEAT;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.logistics.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.logistics.entity.User;
+import com.logistics.entity.Warehouse;
+import com.logistics.mapper.UserMapper;
+import com.logistics.mapper.WarehouseMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * 用户与仓库目录缓存
+ * <p>
+ * 配送员接口每次都要按用户ID查 warehouse_id、按仓库ID查仓库，这些数据很少变化，
+ * 这里按ID做读穿透缓存（容量上限 + TTL）。用户经管理员接口修改或删除时显式失效；
+ * 仓库没有修改接口，直接改库的变更在 TTL 内生效。不存在的ID不缓存。
+ * <p>
+ * 缓存的用户不含密码。返回的实体是共享的，调用方不能修改。
+ * 指标：cache.gets 等 Caffeine 指标，以及 cache.hit.ratio，按 cache 标签区分 users / warehouses。
+ */
+@Service
+public class DirectoryCache {
+
+    private final UserMapper userMapper;
+    private final WarehouseMapper warehouseMapper;
+    private final Cache<Long, User> users;
+    private final Cache<Integer, Warehouse> warehouses;
+
+    public DirectoryCache(UserMapper userMapper,
+                          WarehouseMapper warehouseMapper,
+                          MeterRegistry meterRegistry,
+                          @Value("${directory.cache.max-users:50000}") long maxUsers,
+                          @Value("${directory.cache.max-warehouses:1000}") long maxWarehouses,
+                          @Value("${directory.cache.ttl-minutes:10}") long ttlMinutes) {
+        this.userMapper = userMapper;
+        this.warehouseMapper = warehouseMapper;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        this.warehouses = Caffeine.newBuilder()
+                .maximumSize(maxWarehouses)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        monitor(meterRegistry, users, "users");
+        monitor(meterRegistry, warehouses, "warehouses");
+    }
+
+    /**
+     * 按ID获取用户（不含密码）
+     *
+     * @return 用户不存在时返回 null
+     */
+    public User getUser(Long userId) {
+        return userId == null ? null : users.get(userId, this::loadUser);
+    }
+
+    /**
+     * 配送员所属仓库ID
+     *
+     * @return 用户不存在或未分配仓库时返回 null
+     */
+    public Integer getDriverWarehouseId(Long driverId) {
+        User driver = getUser(driverId);
+        return driver != null ? driver.getWarehouseId() : null;
+    }
+
+    /**
+     * 按ID获取仓库
+     *
+     * @return 仓库不存在时返回 null
+     */
+    public Warehouse getWarehouse(Integer warehouseId) {
+        return warehouseId == null ? null : warehouses.get(warehouseId, warehouseMapper::selectById);
+    }
+
+    /**
+     * 用户被修改或删除后使缓存失效
+     */
+    public void invalidateUser(Long userId) {
+        users.invalidate(userId);
+    }
+
+    private User loadUser(Long userId) {
+        User user = userMapper.selectById(userId);
+        if (user != null) {
+            user.setPassword(null);
+        }
+        return user;
+    }
+
+    private static void monitor(MeterRegistry meterRegistry, Cache<?, ?> cache, String name) {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .tag("cache", name)
+                .description("缓存命中率（启动以来）")
+                .register(meterRegistry);
+    }
+}
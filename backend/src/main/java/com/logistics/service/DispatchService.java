@@ -0,0 +1,17 @@
+package com.logistics.service;
+
+import com.logistics.dto.DispatchResponse;
+
+/**
+ * 仓库自动调度服务
+ */
+public interface DispatchService {
+
+    /**
+     * 将仓库中所有已揽收、未进入活跃批次的订单按地理位置分组为送货批次，
+     * 分配给该仓库的配送员，并在同一事务中创建全部批次
+     *
+     * @param warehouseId 仓库ID
+     */
+    DispatchResponse dispatch(Integer warehouseId);
+}
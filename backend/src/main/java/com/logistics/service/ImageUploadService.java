@@ -0,0 +1,298 @@
+package com.logistics.service;
+
+import com.logistics.entity.Inventory;
+import com.logistics.mapper.InventoryMapper;
+import com.logistics.mapper.MallMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 商品图片异步上传
+ * <p>
+ * 请求线程只把上传内容落到本地暂存目录（Tomcat 已落盘的临时文件直接移动过去），库存记录以“上传中”状态写入，
+ * 暂存文件在提交前重命名为 {商品ID}_{文件名}，与商品绑定。事务提交后由 uploadExecutor 从暂存文件流式上传到 R2，
+ * 完成后回填图片地址并删除暂存文件；失败时在 uploadScheduler 上按指数退避重试，用完重试次数才标记为上传失败，
+ * 暂存文件保留。事务回滚时删除暂存文件，不上传。上传线程池已满时在当前线程上传。
+ * <p>
+ * 巡检任务启动后执行一次，之后定期执行：重新提交上传中或上传失败、暂存文件仍在的商品（进程崩溃或重试用完），
+ * 暂存文件已丢失的上传中记录标记为上传失败，删除已无对应记录的暂存文件。
+ */
+@Slf4j
+@Service
+public class ImageUploadService {
+
+    public static final int IMAGE_PENDING = 0;
+    public static final int IMAGE_READY = 1;
+    public static final int IMAGE_FAILED = 2;
+
+    /** 已绑定商品的暂存文件名：{商品ID}_{对象文件名} */
+    private static final Pattern BOUND_NAME = Pattern.compile("(\\d{1,9})_(.+)");
+    /** 启动后等待多久执行第一次巡检 */
+    private static final Duration FIRST_SWEEP_DELAY = Duration.ofSeconds(30);
+
+    private final R2StorageService r2StorageService;
+    private final InventoryMapper inventoryMapper;
+    private final MallMapper mallMapper;
+    private final MallCatalogCache mallCatalogCache;
+    private final Executor uploadExecutor;
+    private final TaskScheduler uploadScheduler;
+    private final Path spoolDir;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration sweepInterval;
+    private final Set<Path> inFlight = ConcurrentHashMap.newKeySet();
+    private final Counter uploaded;
+    private final Counter failed;
+
+    public ImageUploadService(R2StorageService r2StorageService,
+                              InventoryMapper inventoryMapper,
+                              MallMapper mallMapper,
+                              MallCatalogCache mallCatalogCache,
+                              @Qualifier("uploadExecutor") Executor uploadExecutor,
+                              @Qualifier("uploadScheduler") TaskScheduler uploadScheduler,
+                              MeterRegistry meterRegistry,
+                              @Value("${cloudflare.r2.spool-dir:}") String spoolDir,
+                              @Value("${cloudflare.r2.upload-attempts:5}") int maxAttempts,
+                              @Value("${cloudflare.r2.retry-backoff-ms:2000}") long retryBackoffMs,
+                              @Value("${cloudflare.r2.sweep-minutes:5}") long sweepMinutes) {
+        this.r2StorageService = r2StorageService;
+        this.inventoryMapper = inventoryMapper;
+        this.mallMapper = mallMapper;
+        this.mallCatalogCache = mallCatalogCache;
+        this.uploadExecutor = uploadExecutor;
+        this.uploadScheduler = uploadScheduler;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoff = Duration.ofMillis(retryBackoffMs);
+        this.sweepInterval = Duration.ofMinutes(sweepMinutes);
+        this.spoolDir = (spoolDir.isBlank()
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "logistics-upload-spool")
+                : Paths.get(spoolDir)).toAbsolutePath();
+        try {
+            Files.createDirectories(this.spoolDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法创建图片暂存目录: " + this.spoolDir, e);
+        }
+        this.uploaded = Counter.builder("inventory.image.uploads").tag("result", "uploaded").register(meterRegistry);
+        this.failed = Counter.builder("inventory.image.uploads").tag("result", "failed").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        uploadScheduler.scheduleWithFixedDelay(this::sweep, Instant.now().plus(FIRST_SWEEP_DELAY), sweepInterval);
+    }
+
+    /**
+     * 把上传内容保存到暂存目录，并生成 goods_image 文件夹下的唯一对象键
+     */
+    public SpooledImage spool(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new RuntimeException("上传文件不能为空");
+        }
+        String originalFilename = file.getOriginalFilename();
+        String extension = originalFilename != null && originalFilename.contains(".")
+                ? originalFilename.substring(originalFilename.lastIndexOf("."))
+                : "";
+        String name = UUID.randomUUID() + extension;
+        Path path = spoolDir.resolve(name);
+        try {
+            file.transferTo(path.toFile());
+        } catch (IOException e) {
+            discard(new SpooledImage(path, null, null));
+            throw new RuntimeException("图片保存失败: " + e.getMessage());
+        }
+        return new SpooledImage(path, "goods_image/" + name, file.getContentType());
+    }
+
+    /**
+     * 把暂存文件绑定到商品，当前事务提交后上传图片；回滚时删除暂存文件。没有事务时直接提交上传
+     */
+    public void uploadAfterCommit(Integer productId, SpooledImage image) {
+        SpooledImage bound = bind(productId, image);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submit(productId, bound, maxAttempts);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    submit(productId, bound, maxAttempts);
+                } else {
+                    discard(bound);
+                }
+            }
+        });
+    }
+
+    /**
+     * 删除暂存文件
+     */
+    public void discard(SpooledImage image) {
+        delete(image.path());
+    }
+
+    /**
+     * 巡检暂存目录：重新提交上传中或上传失败且暂存文件仍在的商品，
+     * 上传中但暂存文件已丢失的标记为上传失败，删除没有对应记录的暂存文件
+     * <p>
+     * 最近一个巡检周期内修改过的文件可能还在请求或事务中，跳过；正在上传或等待重试的文件也跳过
+     */
+    void sweep() {
+        try {
+            Map<Integer, SpooledImage> idle = new HashMap<>();
+            Set<Integer> busy = new HashSet<>();
+            Instant cutoff = Instant.now().minus(sweepInterval);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(spoolDir)) {
+                files = listing.toList();
+            }
+            for (Path path : files) {
+                boolean recent = Files.getLastModifiedTime(path).toInstant().isAfter(cutoff);
+                Matcher matcher = BOUND_NAME.matcher(path.getFileName().toString());
+                if (!matcher.matches()) {
+                    // 请求中途失败留下的未绑定文件
+                    if (!recent) {
+                        delete(path);
+                    }
+                    continue;
+                }
+                Integer productId = Integer.valueOf(matcher.group(1));
+                if (recent || inFlight.contains(path)) {
+                    busy.add(productId);
+                } else {
+                    String name = matcher.group(2);
+                    idle.put(productId, new SpooledImage(path, "goods_image/" + name,
+                            URLConnection.guessContentTypeFromName(name)));
+                }
+            }
+            for (Inventory row : inventoryMapper.selectImageUnfinished()) {
+                Integer productId = row.getProductId();
+                SpooledImage image = idle.remove(productId);
+                if (image != null) {
+                    // 上传中的记录说明上传周期被进程退出打断，重新走完整的重试；失败的记录每次巡检再试一次
+                    submit(productId, image, row.getImageStatus() == IMAGE_PENDING ? maxAttempts : 1);
+                } else if (row.getImageStatus() == IMAGE_PENDING && !busy.contains(productId)) {
+                    log.warn("商品 {} 的图片暂存文件已丢失，标记为上传失败", productId);
+                    inventoryMapper.updateImage(productId, null, IMAGE_FAILED);
+                }
+            }
+            // 剩下的文件对应的商品已上传完成或已删除
+            idle.values().forEach(this::discard);
+        } catch (IOException | RuntimeException e) {
+            log.error("图片暂存目录巡检失败", e);
+        }
+    }
+
+    private SpooledImage bind(Integer productId, SpooledImage image) {
+        Path bound = image.path().resolveSibling(productId + "_" + image.path().getFileName());
+        try {
+            Files.move(image.path(), bound);
+        } catch (IOException e) {
+            discard(image);
+            throw new RuntimeException("图片保存失败: " + e.getMessage());
+        }
+        return new SpooledImage(bound, image.key(), image.contentType());
+    }
+
+    private void submit(Integer productId, SpooledImage image, int attempts) {
+        if (inFlight.add(image.path())) {
+            execute(productId, image, 1, attempts);
+        }
+    }
+
+    private void execute(Integer productId, SpooledImage image, int attempt, int attempts) {
+        try {
+            uploadExecutor.execute(() -> upload(productId, image, attempt, attempts));
+        } catch (RejectedExecutionException e) {
+            log.warn("上传线程池已满，在当前线程上传商品 {} 的图片", productId);
+            upload(productId, image, attempt, attempts);
+        }
+    }
+
+    void upload(Integer productId, SpooledImage image, int attempt, int attempts) {
+        try {
+            String imageUrl = r2StorageService.upload(image.path(), image.key(), image.contentType());
+            inventoryMapper.updateImage(productId, imageUrl, IMAGE_READY);
+            if (mallMapper.fillImageUrl(productId, imageUrl) > 0) {
+                mallCatalogCache.invalidate();
+            }
+            uploaded.increment();
+            discard(image);
+            inFlight.remove(image.path());
+        } catch (RuntimeException e) {
+            if (attempt < attempts && retry(productId, image, attempt, attempts, e)) {
+                return;
+            }
+            log.error("商品 {} 的图片上传失败，暂存文件保留到下次巡检", productId, e);
+            failed.increment();
+            try {
+                inventoryMapper.updateImage(productId, null, IMAGE_FAILED);
+            } catch (RuntimeException updateError) {
+                log.error("商品 {} 的图片状态更新失败", productId, updateError);
+            }
+            inFlight.remove(image.path());
+        }
+    }
+
+    /**
+     * 按指数退避安排下一次尝试，调度器已停止时返回 false
+     */
+    private boolean retry(Integer productId, SpooledImage image, int attempt, int attempts, RuntimeException cause) {
+        Duration delay = retryBackoff.multipliedBy(1L << Math.min(attempt - 1, 16));
+        try {
+            uploadScheduler.schedule(() -> execute(productId, image, attempt + 1, attempts), Instant.now().plus(delay));
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+        log.warn("商品 {} 的图片第 {} 次上传失败，{} 毫秒后重试: {}", productId, attempt, delay.toMillis(), cause.getMessage());
+        return true;
+    }
+
+    private void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除图片暂存文件失败: {}", path, e);
+        }
+    }
+
+    /**
+     * 暂存的图片
+     *
+     * @param path        暂存文件
+     * @param key         R2 对象键
+     * @param contentType 文件类型
+     */
+    public record SpooledImage(Path path, String key, String contentType) {
+    }
+}
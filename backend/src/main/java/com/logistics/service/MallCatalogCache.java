@@ -0,0 +1,202 @@
+package com.logistics.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logistics.common.Result;
+import com.logistics.dto.MallCatalogPage;
+import com.logistics.entity.Mall;
+import com.logistics.mapper.MallMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 商城商品目录快照
+ * <p>
+ * 商城首页是读请求最多的接口，已上架商品列表在内存中保存一份快照，
+ * 连同序列化好的 JSON（含 Result 外层）、gzip 压缩结果和 ETag 一起提供，请求时不再查库和序列化。
+ * 商品上架、库存变化时调用 {@link #invalidate()} 标记过期（事务提交后生效），下一次读取时重建；
+ * 连续多次变化只触发一次重建，且两次重建至少间隔 min-rebuild-interval，抢购时频繁的库存变化不会让每次读取都查库。
+ * 另按 max-age 定期重建，兜底直接改库等未经过服务的变更。
+ */
+@Slf4j
+@Service
+public class MallCatalogCache {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private final MallMapper mallMapper;
+    private final ObjectMapper objectMapper;
+    private final long minRebuildIntervalMs;
+    private final long maxAgeMs;
+
+    private volatile Snapshot snapshot;
+    private volatile boolean dirty = true;
+
+    public MallCatalogCache(MallMapper mallMapper,
+                            ObjectMapper objectMapper,
+                            @Value("${mall.catalog.min-rebuild-interval-ms:1000}") long minRebuildIntervalMs,
+                            @Value("${mall.catalog.max-age-seconds:60}") long maxAgeSeconds) {
+        this.mallMapper = mallMapper;
+        this.objectMapper = objectMapper;
+        this.minRebuildIntervalMs = minRebuildIntervalMs;
+        this.maxAgeMs = maxAgeSeconds * 1000;
+    }
+
+    /**
+     * 当前快照，已过期时先重建
+     */
+    public Snapshot current() {
+        Snapshot s = snapshot;
+        if (!stale(s)) {
+            return s;
+        }
+        synchronized (this) {
+            s = snapshot;
+            if (stale(s)) {
+                // 先清标记再读库：重建期间发生的变更会重新置位，下一次读取再重建
+                dirty = false;
+                s = build();
+                snapshot = s;
+            }
+            return s;
+        }
+    }
+
+    private boolean stale(Snapshot s) {
+        if (s == null) {
+            return true;
+        }
+        long age = System.currentTimeMillis() - s.builtAt;
+        return age >= maxAgeMs || (dirty && age >= minRebuildIntervalMs);
+    }
+
+    /**
+     * 标记快照过期；在事务中调用时等提交后再标记，避免重建读到未提交前的旧数据
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dirty = true;
+                }
+            });
+        } else {
+            dirty = true;
+        }
+    }
+
+    /**
+     * 在快照上按价格筛选、排序并分页，不访问数据库
+     *
+     * @param sort newest（默认，按上架时间倒序）/ price_asc / price_desc
+     * @param page 页码，从 1 开始
+     */
+    public MallCatalogPage page(BigDecimal minPrice, BigDecimal maxPrice, String sort, int page, int size) {
+        Snapshot s = current();
+        List<Mall> source = switch (sort == null ? "" : sort) {
+            case "price_asc" -> s.byPrice;
+            case "price_desc" -> s.byPriceDesc;
+            default -> s.products;
+        };
+        List<Mall> matched = new ArrayList<>();
+        for (Mall mall : source) {
+            BigDecimal price = mall.getPrice();
+            if (minPrice != null && (price == null || price.compareTo(minPrice) < 0)) {
+                continue;
+            }
+            if (maxPrice != null && (price == null || price.compareTo(maxPrice) > 0)) {
+                continue;
+            }
+            matched.add(mall);
+        }
+
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int pageNo = Math.max(1, page);
+        int from = Math.min((pageNo - 1) * pageSize, matched.size());
+        int to = Math.min(from + pageSize, matched.size());
+
+        MallCatalogPage result = new MallCatalogPage();
+        result.setItems(new ArrayList<>(matched.subList(from, to)));
+        result.setTotal(matched.size());
+        result.setPage(pageNo);
+        result.setSize(pageSize);
+        return result;
+    }
+
+    private Snapshot build() {
+        long start = System.currentTimeMillis();
+        QueryWrapper<Mall> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("is_published", 1)
+                    .orderByDesc("publish_time");
+        List<Mall> products = List.copyOf(mallMapper.selectList(queryWrapper));
+        List<Mall> byPrice = new ArrayList<>(products);
+        byPrice.sort(Comparator.comparing(Mall::getPrice, Comparator.nullsLast(Comparator.naturalOrder())));
+        // 降序单独排序而不是倒转升序：未定价的商品在两种顺序下都排在最后，同价商品都按上架时间倒序
+        List<Mall> byPriceDesc = new ArrayList<>(products);
+        byPriceDesc.sort(Comparator.comparing(Mall::getPrice, Comparator.nullsLast(Comparator.reverseOrder())));
+
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(Result.success(products));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("商城商品序列化失败", e);
+        }
+        Snapshot s = new Snapshot(products, List.copyOf(byPrice), List.copyOf(byPriceDesc), json, gzip(json), etag(json),
+                System.currentTimeMillis());
+        log.debug("商城商品快照已重建，商品数: {}，JSON {} 字节，gzip {} 字节，耗时: {}ms",
+                products.size(), json.length, s.gzip.length, s.builtAt - start);
+        return s;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        } catch (IOException e) {
+            throw new IllegalStateException("商城商品压缩失败", e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 强 ETag：JSON 内容的 SHA-256 前 16 字节
+     */
+    private static String etag(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 不可变的商品目录快照
+     *
+     * @param products    按上架时间倒序
+     * @param byPrice     按价格升序，未定价的在最后
+     * @param byPriceDesc 按价格降序，未定价的在最后
+     * @param json        Result.success(products) 序列化后的 UTF-8 JSON
+     * @param gzip        json 的 gzip 压缩结果
+     * @param etag        带引号的强 ETag
+     */
+    public record Snapshot(List<Mall> products, List<Mall> byPrice, List<Mall> byPriceDesc, byte[] json,
+                           byte[] gzip, String etag, long builtAt) {
+    }
+}
@@ -0,0 +1,271 @@
+package com.logistics.service;
+
+import com.logistics.dto.BatchOrderResult;
+import com.logistics.dto.CreateOrderRequest;
+import com.logistics.entity.Order;
+import com.logistics.exception.BusinessException;
+import com.logistics.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 下单合并提交
+ * <p>
+ * 开启后下单请求先进入有界队列，由单个提交线程把队列中积压的请求合成一组，
+ * 调用 {@link OrderService#createOrders} 在一个事务中完成：商品、商户、默认地址各查询一次，
+ * 订单一条多行 INSERT，一次提交。每个请求线程等待所在组提交后拿到自己的订单。
+ * 提交线程忙时请求自然积压成更大的组，负载越高每单的数据库开销越小。
+ * <p>
+ * 队列满时直接拒绝（429），不让请求线程无限排队；整组失败（如数据库异常）时逐个按普通下单重试，
+ * 每个请求拿到各自的结果。
+ * <p>
+ * 等待超过 timeout-ms 时，若请求还在队列中则撤销并返回 503，该订单不会再被提交；
+ * 已被提交线程取走的请求继续等待所在组的结果，避免客户端在订单已提交时重试造成重复下单。
+ */
+@Slf4j
+@Service
+public class OrderIngestionService {
+
+    private final OrderService orderService;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final long lingerNanos;
+    private final long timeoutMs;
+    private final BlockingQueue<PendingOrder> queue;
+
+    private final Timer commitTimer;
+    private final Timer waitTimer;
+    private final DistributionSummary batchSize;
+    private final Counter rejected;
+    private final Counter cancelled;
+
+    private volatile boolean running;
+    private Thread committer;
+
+    public OrderIngestionService(OrderService orderService,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${order.ingestion.enabled:false}") boolean enabled,
+                                 @Value("${order.ingestion.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${order.ingestion.max-batch:200}") int maxBatch,
+                                 @Value("${order.ingestion.linger-ms:0}") long lingerMs,
+                                 @Value("${order.ingestion.timeout-ms:5000}") long timeoutMs) {
+        this.orderService = orderService;
+        this.enabled = enabled;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        this.timeoutMs = timeoutMs;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.commitTimer = Timer.builder("order.ingestion.commit")
+                .description("一组订单的提交耗时")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("order.ingestion.wait")
+                .description("下单请求从入队到拿到结果的耗时")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("order.ingestion.batch.size")
+                .description("每组提交的订单数")
+                .register(meterRegistry);
+        this.rejected = meterRegistry.counter("order.ingestion.rejected");
+        this.cancelled = meterRegistry.counter("order.ingestion.cancelled");
+        meterRegistry.gauge("order.ingestion.queue.depth", queue, BlockingQueue::size);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        committer = new Thread(this::runLoop, "order-ingest");
+        committer.setDaemon(true);
+        committer.start();
+        log.info("下单合并提交已开启，队列容量: {}，每组最多: {}", queue.remainingCapacity(), maxBatch);
+    }
+
+    /**
+     * 停止接收新请求，已入队的请求提交完再退出
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (committer != null) {
+            committer.join(timeoutMs);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 提交下单请求并等待所在组提交
+     *
+     * @param request 已校验的下单请求，下单人取 customerId
+     * @throws TooManyRequestsException 队列已满
+     * @throws BusinessException        503，在队列中等待超时，请求已撤销、不会提交
+     */
+    public Order submit(CreateOrderRequest request) {
+        PendingOrder pending = new PendingOrder(request);
+        if (!running || !queue.offer(pending)) {
+            rejected.increment();
+            throw new TooManyRequestsException("下单人数过多，请稍后重试");
+        }
+        try {
+            return pending.result().get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            abandon(pending, "下单处理超时，请重试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandon(pending, "下单处理被中断，请重试");
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+        // 提交线程已取走该请求，订单会随所在组一起提交，等待结果而不是返回错误
+        try {
+            return pending.result().join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    /**
+     * 等待超时或被中断：请求仍在队列中时撤销，保证不会再被提交，客户端可以放心重试
+     *
+     * @throws BusinessException 503，已撤销
+     */
+    private void abandon(PendingOrder pending, String message) {
+        if (pending.cancel()) {
+            queue.remove(pending);
+            cancelled.increment();
+            throw new BusinessException(503, message);
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        return cause instanceof RuntimeException runtime ? runtime : new RuntimeException(cause);
+    }
+
+    private void runLoop() {
+        List<PendingOrder> group = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                collect(group);
+                commit(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("下单合并提交异常", e);
+                group.forEach(p -> p.result().completeExceptionally(e));
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    /**
+     * 取走队列中已积压的请求；配置了 linger 时再最多等待这么久凑满一组
+     */
+    private void collect(List<PendingOrder> group) throws InterruptedException {
+        long deadline = System.nanoTime() + lingerNanos;
+        while (group.size() < maxBatch) {
+            if (queue.drainTo(group, maxBatch - group.size()) > 0) {
+                continue;
+            }
+            long wait = deadline - System.nanoTime();
+            if (wait <= 0) {
+                return;
+            }
+            PendingOrder next = queue.poll(wait, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            group.add(next);
+        }
+    }
+
+    void commit(List<PendingOrder> group) {
+        // 已被撤销（等待超时）的请求不再提交；取走之后请求线程就不能再撤销
+        group.removeIf(pending -> !pending.claim());
+        if (group.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        batchSize.record(group.size());
+        List<CreateOrderRequest> requests = group.stream().map(PendingOrder::request).toList();
+        try {
+            List<BatchOrderResult> results = orderService.createOrders(requests);
+            for (int i = 0; i < group.size(); i++) {
+                BatchOrderResult result = results.get(i);
+                if (result.getError() == null) {
+                    complete(group.get(i), result.getOrder());
+                } else {
+                    fail(group.get(i), new RuntimeException(result.getError()));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("合并下单失败，逐个重试，订单数: {}", group.size(), e);
+            for (PendingOrder pending : group) {
+                try {
+                    complete(pending, orderService.createOrder(pending.request(), pending.request().getCustomerId()));
+                } catch (RuntimeException single) {
+                    fail(pending, single);
+                }
+            }
+        }
+        commitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void complete(PendingOrder pending, Order order) {
+        waitTimer.record(System.nanoTime() - pending.enqueuedAt(), TimeUnit.NANOSECONDS);
+        pending.result().complete(order);
+    }
+
+    private void fail(PendingOrder pending, RuntimeException e) {
+        waitTimer.record(System.nanoTime() - pending.enqueuedAt(), TimeUnit.NANOSECONDS);
+        pending.result().completeExceptionally(e);
+    }
+
+    /**
+     * 排队中的下单请求；taken 由提交线程（claim）或等待超时的请求线程（cancel）之一置位，先到者生效
+     */
+    record PendingOrder(CreateOrderRequest request, CompletableFuture<Order> result, long enqueuedAt,
+                        AtomicBoolean taken) {
+
+        PendingOrder(CreateOrderRequest request) {
+            this(request, new CompletableFuture<>(), System.nanoTime(), new AtomicBoolean());
+        }
+
+        boolean claim() {
+            return taken.compareAndSet(false, true);
+        }
+
+        boolean cancel() {
+            return taken.compareAndSet(false, true);
+        }
+    }
+}
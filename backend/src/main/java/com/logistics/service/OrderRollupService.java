@@ -0,0 +1,58 @@
+package com.logistics.service;
+
+import com.logistics.dto.DailyOrderCount;
+import com.logistics.entity.Order;
+
+import java.util.List;
+
+/**
+ * 订单日汇总服务
+ * 订单创建、状态变化、删除时在同一事务中累加到 order_daily_stats
+ */
+public interface OrderRollupService {
+
+    /**
+     * 统计天数上限
+     */
+    int MAX_DAYS = 365;
+
+    /**
+     * 新订单计入其当前状态
+     */
+    void recordCreated(Order order);
+
+    /**
+     * 一组新订单计入汇总，增量合并成一条语句
+     */
+    void recordCreated(List<Order> orders);
+
+    /**
+     * 订单从 fromStatus 变为 order.getStatus()
+     */
+    void recordStatusChange(Order order, Integer fromStatus);
+
+    /**
+     * 一组订单从同一状态 fromStatus 变为各自的 getStatus()，合并为一条语句写入
+     */
+    void recordStatusChanges(List<Order> orders, Integer fromStatus);
+
+    /**
+     * 订单被删除，从汇总中扣除
+     */
+    void recordDeleted(Order order);
+
+    /**
+     * 最近 days 天（含今天）每日下单数，只读汇总表
+     *
+     * @param days        天数，超出 [1, 365] 时取边界值
+     * @param warehouseId 仓库ID，为 null 时统计全部仓库
+     */
+    List<DailyOrderCount> getDailyOrderCounts(int days, Integer warehouseId);
+
+    /**
+     * 从 orders 按天逐日重建汇总表，每天一个短事务，不会长时间阻塞下单
+     *
+     * @return 汇总行数
+     */
+    int rebuild();
+}
@@ -1,5 +1,7 @@
 package com.logistics.service;
 
+import com.logistics.common.CursorPage;
+import com.logistics.dto.BatchOrderResult;
 import com.logistics.dto.CreateOrderRequest;
 import com.logistics.entity.Order;
 
@@ -12,9 +14,24 @@ public interface OrderService {
     
     Order createOrder(CreateOrderRequest request, Integer customerId);
     
-    List<Order> getCustomerOrders(Integer customerId, Integer status, String search);
+    /**
+     * 批量下单（下单合并提交使用）：商品、商户、默认地址各查询一次，订单一条多行 INSERT，同一事务提交。
+     * 下单人取各请求的 customerId
+     * @return 与 requests 一一对应；校验失败（商品不存在、库存不足等）的请求只记录原因，不影响其他请求
+     */
+    List<BatchOrderResult> createOrders(List<CreateOrderRequest> requests);
+    
+    /**
+     * 顾客订单，按下单时间倒序游标分页
+     * @param cursor 上一页返回的 nextCursor，第一页不传
+     * @param limit 每页条数，默认 20，最多 100
+     */
+    CursorPage<Order> getCustomerOrders(Integer customerId, Integer status, String search, String cursor, Integer limit);
     
-    List<Order> getMerchantOrders(Integer merchantId, Integer status, String search);
+    /**
+     * 商户订单，按下单时间倒序游标分页
+     */
+    CursorPage<Order> getMerchantOrders(Integer merchantId, Integer status, String search, String cursor, Integer limit);
     
     void confirmReceipt(Integer orderId, Integer customerId);
     
@@ -23,10 +40,10 @@ public interface OrderService {
     void confirmPickup(Integer orderId);
     
     /**
-     * 获取配送员的待揽收订单列表（根据配送员所属仓库筛选）
+     * 获取配送员的待揽收订单列表（根据配送员所属仓库筛选），按发货时间倒序游标分页
      * @param driverId 配送员用户ID
      */
-    List<Order> getPendingPickupOrders(Long driverId, String search);
+    CursorPage<Order> getPendingPickupOrders(Long driverId, String search, String cursor, Integer limit);
     
     /**
      * 获取配送员的待送货订单列表（已揽收状态）
@@ -39,6 +56,12 @@ public interface OrderService {
      * @param driverId 配送员用户ID
      */
     com.logistics.dto.CreateBatchResponse createDeliveryBatch(Long driverId, List<Integer> orderIds);
+
+    /**
+     * 为同一仓库批量创建送货批次，全部成功或全部回滚
+     * 所有订单一次查询完成校验，路线在事务外规划，写入前在事务内复核订单；批次-订单关联一次批量写入
+     */
+    List<com.logistics.dto.CreateBatchResponse> createDeliveryBatches(com.logistics.dto.BulkCreateBatchRequest request);
     
     List<Order> getDeliveryBatchOrders(Integer warehouseId);
 
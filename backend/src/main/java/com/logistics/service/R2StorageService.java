@@ -2,6 +2,8 @@ package com.logistics.service;
 
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
+
 /**
  * Cloudflare R2存储服务接口
  */
@@ -13,4 +15,13 @@ public interface R2StorageService {
      * @return 文件的公共访问URL
      */
     String uploadFile(MultipartFile file);
+
+    /**
+     * 上传本地文件到R2，从磁盘流式读取，超过分片阈值时使用分片上传
+     * @param file 本地文件
+     * @param key 对象键
+     * @param contentType 文件类型，可为 null
+     * @return 文件的公共访问URL
+     */
+    String upload(Path file, String key, String contentType);
 }
@@ -0,0 +1,110 @@
+package com.logistics.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 配送轨迹逆地理编码流水线
+ * <p>
+ * 坐标按固定经纬度网格划分，同一网格共用一个地址：
+ * 网格地址缓存在 Caffeine 中（TTL + 容量淘汰），同一网格并发的请求只调用一次腾讯地图接口；
+ * 接口调用在有界的 geocodeExecutor 中执行。轨迹点在调用线程上按顺序写入 {@link BreadcrumbStore}，地址解析完成后再回填。
+ */
+@Slf4j
+@Service
+public class ReverseGeocodingService {
+
+    /** 地址暂时无法获取时写入的占位文字 */
+    static final String PENDING_ADDRESS = "位置获取中...";
+
+    private final TencentMapService tencentMapService;
+    private final BreadcrumbStore breadcrumbStore;
+    private final double gridDegrees;
+
+    /** 网格 → 地址；解析中的网格保存进行中的 future，实现请求合并 */
+    private final AsyncCache<Long, String> addressCache;
+
+    public ReverseGeocodingService(TencentMapService tencentMapService,
+                                   BreadcrumbStore breadcrumbStore,
+                                   @Qualifier("geocodeExecutor") Executor geocodeExecutor,
+                                   @Value("${delivery.geocode.grid-degrees:0.0005}") double gridDegrees,
+                                   @Value("${delivery.geocode.max-cells:100000}") long maxCells,
+                                   @Value("${delivery.geocode.ttl-hours:24}") long ttlHours) {
+        this.tencentMapService = tencentMapService;
+        this.breadcrumbStore = breadcrumbStore;
+        this.gridDegrees = gridDegrees;
+        this.addressCache = Caffeine.newBuilder()
+                .maximumSize(maxCells)
+                .expireAfterWrite(Duration.ofHours(ttlHours))
+                .executor(geocodeExecutor)
+                .buildAsync();
+    }
+
+    /**
+     * 解析坐标所在网格的地址
+     * 缓存命中时立即完成；接口失败或线程池已满时以 null 完成，且不会被缓存
+     */
+    public CompletableFuture<String> resolve(double latitude, double longitude) {
+        long cell = cellOf(latitude, longitude);
+        CompletableFuture<String> future;
+        try {
+            future = addressCache.get(cell, key -> tencentMapService.reverseGeocode(latitude, longitude));
+        } catch (RejectedExecutionException e) {
+            log.warn("逆地理编码线程池已满，跳过地址解析");
+            return CompletableFuture.completedFuture(null);
+        }
+        return future.handle((address, e) -> {
+            if (e != null) {
+                log.warn("逆地理编码失败: {}", e.getMessage());
+            }
+            if (address == null) {
+                // 在调用方拿到结果前移除失败的网格，下次请求会重新查询
+                addressCache.asMap().remove(cell, future);
+            }
+            return address;
+        });
+    }
+
+    /**
+     * 记录一个轨迹点：按调用顺序立即写入轨迹存储，地址已在缓存中时一并写入，
+     * 否则先写占位文字，解析完成后回填，保证轨迹点不会因地址解析快慢而乱序
+     *
+     * @param last 是否为批次的最后一个点，地址回填后通知轨迹存储合并降采样
+     * @return 地址回填（及最后一个点的结束通知）完成时完成
+     */
+    public CompletableFuture<Void> record(Integer batchId, int pathIndex, double latitude, double longitude,
+                                          LocalDateTime recordedAt, boolean last) {
+        CompletableFuture<String> address = resolve(latitude, longitude);
+        boolean resolved = address.isDone();
+        String known = resolved ? address.getNow(null) : null;
+        breadcrumbStore.append(batchId, pathIndex, latitude, longitude,
+                known != null ? known : PENDING_ADDRESS, recordedAt);
+        return address.thenAccept(backfill -> {
+            if (!resolved && backfill != null) {
+                breadcrumbStore.updateAddress(batchId, pathIndex, backfill);
+            }
+            if (last) {
+                breadcrumbStore.finish(batchId);
+            }
+        });
+    }
+
+    /**
+     * 坐标所在网格编号：高 32 位为纬度格，低 32 位为经度格
+     */
+    long cellOf(double latitude, double longitude) {
+        long latCell = (long) Math.floor((latitude + 90) / gridDegrees);
+        long lngCell = (long) Math.floor((longitude + 180) / gridDegrees);
+        return (latCell << 32) | (lngCell & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,100 @@
+package com.logistics.service;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.logistics.entity.DeliveryBatch;
+import com.logistics.mapper.DeliveryBatchMapper;
+import com.logistics.route.PolylineCodec;
+import com.logistics.route.RouteGeometry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * 配送路线几何缓存
+ * 按批次ID缓存解码后的路线，避免位置轮询接口每次读取 route_data 并重新解析
+ */
+@Slf4j
+@Service
+public class RouteGeometryCache {
+
+    private final DeliveryBatchMapper deliveryBatchMapper;
+    private final Cache<Integer, RouteGeometry> cache;
+
+    public RouteGeometryCache(DeliveryBatchMapper deliveryBatchMapper,
+                              @Value("${delivery.route-cache.max-bytes:67108864}") long maxBytes,
+                              @Value("${delivery.route-cache.expire-after-access-minutes:60}") long expireMinutes) {
+        this.deliveryBatchMapper = deliveryBatchMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Integer batchId, RouteGeometry route) -> route.estimatedBytes())
+                .expireAfterAccess(Duration.ofMinutes(expireMinutes))
+                .build();
+    }
+
+    /**
+     * 获取批次路线，未命中时读取 route_data 解码后放入缓存
+     *
+     * @return 路线几何数据，批次不存在或没有路线时返回 null
+     */
+    public RouteGeometry get(Integer batchId) {
+        return cache.get(batchId, this::load);
+    }
+
+    /**
+     * 路线被改写后使缓存失效
+     */
+    public void invalidate(Integer batchId) {
+        cache.invalidate(batchId);
+    }
+
+    private RouteGeometry load(Integer batchId) {
+        DeliveryBatch batch = deliveryBatchMapper.selectById(batchId);
+        if (batch == null || batch.getRouteData() == null || batch.getRouteData().isEmpty()) {
+            return null;
+        }
+        RouteGeometry route = decode(batch.getRouteData());
+        if (route.isEmpty()) {
+            log.warn("路线数据为空，批次ID: {}", batchId);
+            return null;
+        }
+        return route;
+    }
+
+    /**
+     * 解码 route_data，兼容两种格式：
+     * [{lng,lat,name}]（旧假数据途经点）与 [num,num,...]（腾讯地图压缩polyline）
+     */
+    private RouteGeometry decode(String routeData) {
+        JSONArray polyline = JSON.parseArray(routeData);
+
+        if (!PolylineCodec.isCompressed(routeData)) {
+            double[] lats = new double[polyline.size()];
+            double[] lngs = new double[polyline.size()];
+            JSONArray frontendPolyline = new JSONArray(polyline.size() * 2);
+            for (int i = 0; i < polyline.size(); i++) {
+                JSONObject wp = polyline.getJSONObject(i);
+                lats[i] = wp.getDoubleValue("lat");
+                lngs[i] = wp.getDoubleValue("lng");
+                frontendPolyline.add(lats[i]);
+                frontendPolyline.add(lngs[i]);
+            }
+            return new RouteGeometry(lats, lngs, frontendPolyline, polyline);
+        }
+
+        double[] coords = PolylineCodec.decode(routeData);
+        int points = coords.length / 2;
+        double[] lats = new double[points];
+        double[] lngs = new double[points];
+        for (int i = 0; i < points; i++) {
+            lats[i] = coords[i * 2];
+            lngs[i] = coords[i * 2 + 1];
+        }
+        return new RouteGeometry(lats, lngs, polyline, null);
+    }
+}
@@ -0,0 +1,113 @@
+package com.logistics.service;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.logistics.entity.Address;
+import com.logistics.entity.Warehouse;
+import com.logistics.route.RoutePlan;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * 路线规划结果缓存
+ * <p>
+ * 以“起点|途经点...|终点”的取整坐标序列为键缓存腾讯地图驾车路线，
+ * 同一批仓库到顾客的路段不会重复调用接口；相同请求并发到达时只发起一次调用，其余请求等待同一结果。
+ * 规划失败不缓存。
+ */
+@Slf4j
+@Service
+public class RoutePlanCache {
+
+    private final TencentMapService tencentMapService;
+    private final int coordinateScale;
+    private final AsyncCache<String, RoutePlan> cache;
+
+    public RoutePlanCache(TencentMapService tencentMapService,
+                          MeterRegistry meterRegistry,
+                          @Value("${delivery.route-plan-cache.coordinate-scale:5}") int coordinateScale,
+                          @Value("${delivery.route-plan-cache.max-bytes:33554432}") long maxBytes,
+                          @Value("${delivery.route-plan-cache.ttl-minutes:1440}") long ttlMinutes) {
+        this.tencentMapService = tencentMapService;
+        this.coordinateScale = coordinateScale;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, RoutePlan plan) -> key.length() * 2 + plan.estimatedBytes())
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "routePlan");
+    }
+
+    /**
+     * 规划从仓库依次经过各停靠点的路线，最后一个停靠点为终点
+     *
+     * @return 路线，规划失败时返回 null
+     */
+    public RoutePlan plan(Warehouse warehouse, List<Address> stops) {
+        if (stops.isEmpty()) {
+            return null;
+        }
+        String origin = coordinate(warehouse.getLatitude(), warehouse.getLongitude());
+        List<String> points = stops.stream()
+                .map(a -> coordinate(a.getLatitude(), a.getLongitude()))
+                .collect(Collectors.toList());
+        String key = origin + "|" + String.join("|", points);
+
+        // 先放入进行中的 future 再在当前线程请求接口，并发的相同请求拿到同一个 future 等待结果
+        CompletableFuture<RoutePlan> pending = new CompletableFuture<>();
+        CompletableFuture<RoutePlan> future = cache.get(key, (k, executor) -> pending);
+        if (future == pending) {
+            try {
+                pending.complete(request(origin, points));
+            } catch (RuntimeException e) {
+                pending.completeExceptionally(e);
+            }
+        }
+        RoutePlan plan = future.join();
+        if (plan == null) {
+            cache.asMap().remove(key, future);
+        }
+        return plan;
+    }
+
+    private RoutePlan request(String origin, List<String> points) {
+        String destination = points.get(points.size() - 1);
+        String waypoints = points.size() > 1 ? String.join(";", points.subList(0, points.size() - 1)) : null;
+
+        JSONObject response = tencentMapService.planRoute(origin, destination, waypoints);
+        if (response == null) {
+            return null;
+        }
+        JSONObject result = response.getJSONObject("result");
+        JSONArray routes = result != null ? result.getJSONArray("routes") : null;
+        if (routes == null || routes.isEmpty()) {
+            log.warn("路线规划无结果: {} -> {}", origin, destination);
+            return null;
+        }
+        JSONObject route = routes.getJSONObject(0);
+        JSONArray polyline = route.getJSONArray("polyline");
+        return new RoutePlan(route.getIntValue("distance"), route.getIntValue("duration"),
+                polyline != null ? polyline.toJSONString() : "[]");
+    }
+
+    /**
+     * 坐标取整后格式化为 "纬度,经度"，既作为缓存键也作为请求参数
+     */
+    private String coordinate(BigDecimal latitude, BigDecimal longitude) {
+        return latitude.setScale(coordinateScale, RoundingMode.HALF_UP).toPlainString() + ","
+                + longitude.setScale(coordinateScale, RoundingMode.HALF_UP).toPlainString();
+    }
+}
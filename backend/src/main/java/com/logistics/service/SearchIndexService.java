@@ -0,0 +1,182 @@
+package com.logistics.service;
+
+import com.logistics.entity.Inventory;
+import com.logistics.entity.User;
+import com.logistics.mapper.InventoryMapper;
+import com.logistics.mapper.UserMapper;
+import com.logistics.search.NgramIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 商品名称与用户名的子串搜索索引
+ * <p>
+ * 订单中的 product_name 是下单时从商品复制的冗余字段，商品名称入库后不再修改，
+ * 因此只需索引商品目录（inventory），检索词先在内存中解析为商品ID，订单再按 product_id IN (...) 过滤，
+ * 不必在数百万订单上做 LIKE '%term%' 全表扫描。用户名同理解析为用户ID。
+ * <p>
+ * 服务启动后在后台线程分页加载全部商品与用户，加载完成前 {@link #matchProductIds}/{@link #matchUserIds}
+ * 返回 null，调用方回退到原来的 LIKE 查询。写入在事务提交后同步到索引，加载期间的写入在加载完成后补放。
+ */
+@Slf4j
+@Service
+public class SearchIndexService {
+
+    private final InventoryMapper inventoryMapper;
+    private final UserMapper userMapper;
+    private final int maxMatches;
+    private final int loadPageSize;
+
+    private volatile Indexes current;
+    /**
+     * 正在重建时记录期间的写入，重建完成后补放到新索引；未在重建时为 null
+     */
+    private List<Consumer<Indexes>> pending;
+
+    public SearchIndexService(InventoryMapper inventoryMapper,
+                              UserMapper userMapper,
+                              @Value("${search.index.max-matches:1000}") int maxMatches,
+                              @Value("${search.index.load-page-size:5000}") int loadPageSize) {
+        this.inventoryMapper = inventoryMapper;
+        this.userMapper = userMapper;
+        this.maxMatches = maxMatches;
+        this.loadPageSize = loadPageSize;
+    }
+
+    /**
+     * 服务启动后在后台构建索引，不阻塞启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        Thread builder = new Thread(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                log.error("搜索索引构建失败，搜索将继续使用 LIKE 查询", e);
+            }
+        }, "search-index-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    /**
+     * 从数据库全量构建索引，完成后替换当前索引
+     */
+    public void rebuild() {
+        synchronized (this) {
+            pending = new ArrayList<>();
+        }
+        long start = System.currentTimeMillis();
+        Indexes fresh = new Indexes(new NgramIndex(), new NgramIndex());
+
+        int afterProductId = 0;
+        List<Inventory> products;
+        do {
+            products = inventoryMapper.selectProductNamesAfter(afterProductId, loadPageSize);
+            for (Inventory product : products) {
+                fresh.products.put(product.getProductId(), product.getProductName());
+                afterProductId = product.getProductId();
+            }
+        } while (products.size() == loadPageSize);
+
+        long afterUserId = 0;
+        List<User> users;
+        do {
+            users = userMapper.selectUsernamesAfter(afterUserId, loadPageSize);
+            for (User user : users) {
+                fresh.users.put(user.getId(), user.getUsername());
+                afterUserId = user.getId();
+            }
+        } while (users.size() == loadPageSize);
+
+        synchronized (this) {
+            pending.forEach(mutation -> mutation.accept(fresh));
+            pending = null;
+            current = fresh;
+        }
+        log.info("搜索索引构建完成，商品数: {}，用户数: {}，耗时: {}ms",
+                fresh.products.size(), fresh.users.size(), System.currentTimeMillis() - start);
+    }
+
+    public boolean isReady() {
+        return current != null;
+    }
+
+    /**
+     * 商品名称包含检索词的商品ID
+     *
+     * @return 商品ID（可能为空列表）；索引未就绪或命中过多时返回 null，调用方应回退到 LIKE 查询
+     */
+    public List<Integer> matchProductIds(String term) {
+        Indexes indexes = current;
+        if (indexes == null) {
+            return null;
+        }
+        long[] ids = indexes.products.search(term, maxMatches);
+        return ids == null ? null : Arrays.stream(ids).mapToObj(id -> (int) id).toList();
+    }
+
+    /**
+     * 用户名包含检索词的用户ID
+     *
+     * @return 用户ID（可能为空列表）；索引未就绪或命中过多时返回 null，调用方应回退到 LIKE 查询
+     */
+    public List<Long> matchUserIds(String term) {
+        Indexes indexes = current;
+        if (indexes == null) {
+            return null;
+        }
+        long[] ids = indexes.users.search(term, maxMatches);
+        return ids == null ? null : Arrays.stream(ids).boxed().toList();
+    }
+
+    public void onProductSaved(Integer productId, String productName) {
+        afterCommit(indexes -> indexes.products.put(productId, productName));
+    }
+
+    public void onUserSaved(Long userId, String username) {
+        afterCommit(indexes -> indexes.users.put(userId, username));
+    }
+
+    public void onUserDeleted(Long userId) {
+        afterCommit(indexes -> indexes.users.remove(userId));
+    }
+
+    /**
+     * 在事务中调用时等提交后再更新索引，避免回滚的写入出现在搜索结果里
+     */
+    private void afterCommit(Consumer<Indexes> mutation) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(mutation);
+                }
+            });
+        } else {
+            apply(mutation);
+        }
+    }
+
+    private synchronized void apply(Consumer<Indexes> mutation) {
+        if (pending != null) {
+            pending.add(mutation);
+        }
+        if (current != null) {
+            mutation.accept(current);
+        }
+    }
+
+    private record Indexes(NgramIndex products, NgramIndex users) {
+    }
+}
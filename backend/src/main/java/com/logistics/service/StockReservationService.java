@@ -0,0 +1,253 @@
+package com.logistics.service;
+
+import com.logistics.entity.Mall;
+import com.logistics.mapper.MallMapper;
+import com.logistics.stock.ShardedStockCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 下单库存预留
+ * <p>
+ * 每个商品在内存中维护一个分片计数器作为准入闸门：只有计数器扣减成功的请求才会执行
+ * {@code UPDATE mall SET available_quantity = available_quantity - ? WHERE ... AND available_quantity >= ?}，
+ * 售罄后的大量请求在内存中就被拒绝，不会排队争抢同一行的行锁。
+ * 数据库的条件更新是最终防线：计数器与数据库不一致时（例如直接改库），条件更新失败，预留作废并重新加载计数器，
+ * 因此无论计数器是否准确都不会超卖。
+ * <p>
+ * 预留在事务提交后生效，回滚时归还计数器（数据库的扣减随事务一起回滚）。
+ * 超过有效期仍未结束的预留由定时任务回收；定时对账用数据库中的库存覆盖没有进行中预留的计数器。
+ * 两个定时任务在独立的 stockScheduler 上执行；商品上架时计数器随之重置，补货立即可见。
+ */
+@Slf4j
+@Service
+public class StockReservationService {
+
+    private final MallMapper mallMapper;
+    private final MallCatalogCache mallCatalogCache;
+    private final TaskScheduler stockScheduler;
+    private final int shards;
+    private final long ttlMs;
+    private final long reconcileMs;
+
+    private final Map<Integer, ShardedStockCounter> counters = new ConcurrentHashMap<>();
+    /** 已扣减但所在事务尚未结束的预留 */
+    private final Map<Long, Reservation> pending = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+
+    private final Counter reserved;
+    private final Counter rejected;
+    private final Counter conflicts;
+    private final Counter expired;
+
+    public StockReservationService(MallMapper mallMapper,
+                                   MallCatalogCache mallCatalogCache,
+                                   @Qualifier("stockScheduler") TaskScheduler stockScheduler,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${stock.reservation.shards:8}") int shards,
+                                   @Value("${stock.reservation.ttl-seconds:30}") long ttlSeconds,
+                                   @Value("${stock.reservation.reconcile-seconds:60}") long reconcileSeconds) {
+        this.mallMapper = mallMapper;
+        this.mallCatalogCache = mallCatalogCache;
+        this.stockScheduler = stockScheduler;
+        this.shards = shards;
+        this.ttlMs = ttlSeconds * 1000;
+        this.reconcileMs = reconcileSeconds * 1000;
+        this.reserved = meterRegistry.counter("stock.reservations", "result", "reserved");
+        this.rejected = meterRegistry.counter("stock.reservations", "result", "rejected");
+        this.conflicts = meterRegistry.counter("stock.reservations", "result", "conflict");
+        this.expired = meterRegistry.counter("stock.reservations", "result", "expired");
+        meterRegistry.gauge("stock.reservations.pending", pending, Map::size);
+    }
+
+    @PostConstruct
+    public void init() {
+        stockScheduler.scheduleWithFixedDelay(this::reapExpired, Duration.ofMillis(Math.max(1000, ttlMs / 2)));
+        stockScheduler.scheduleWithFixedDelay(this::reconcile, Duration.ofMillis(reconcileMs));
+    }
+
+    /**
+     * 为下单预留库存：内存计数器扣减成功后再在数据库中条件扣减
+     *
+     * @param mall     下单时读取的商城商品，计数器尚未加载时用其可用库存初始化
+     * @param quantity 购买数量
+     * @return 预留成功返回 true；库存不足返回 false
+     */
+    public boolean reserve(Mall mall, int quantity) {
+        Integer productId = mall.getProductId();
+        ShardedStockCounter counter = counterFor(productId, mall.getAvailableQuantity());
+        if (!counter.tryAcquire(quantity)) {
+            rejected.increment();
+            return false;
+        }
+        Reservation reservation = new Reservation(nextId.incrementAndGet(), productId, quantity, counter,
+                System.currentTimeMillis() + ttlMs);
+        pending.put(reservation.id(), reservation);
+
+        boolean updated;
+        try {
+            updated = mallMapper.decreaseAvailableQuantity(productId, quantity) > 0;
+        } catch (RuntimeException e) {
+            release(reservation);
+            throw e;
+        }
+        if (!updated) {
+            // 计数器比数据库乐观：作废预留，丢弃计数器，下次从数据库重新加载
+            release(reservation);
+            counters.remove(productId, counter);
+            conflicts.increment();
+            return false;
+        }
+
+        reserved.increment();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        confirm(reservation);
+                    } else {
+                        release(reservation);
+                    }
+                }
+            });
+        } else {
+            confirm(reservation);
+        }
+        return true;
+    }
+
+    /**
+     * 商品上架（或补货）后用新的可用库存重置计数器，计数器未加载时直接以此初始化
+     * 在事务中调用时等提交后再重置，回滚不影响计数器
+     */
+    public void restock(Integer productId, int available) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyRestock(productId, available);
+                }
+            });
+        } else {
+            applyRestock(productId, available);
+        }
+    }
+
+    /**
+     * 内存中的可用库存；计数器未加载时返回 null
+     */
+    public Long available(Integer productId) {
+        ShardedStockCounter counter = counters.get(productId);
+        return counter != null ? counter.available() : null;
+    }
+
+    /**
+     * 进行中的预留数量
+     */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * 回收超过有效期仍未结束的预留，归还计数器
+     * <p>
+     * 若对应事务之后仍然提交，数据库已扣减而计数器多出这部分库存，由条件更新兜底、下一次对账修正
+     */
+    public void reapExpired() {
+        long now = System.currentTimeMillis();
+        for (Reservation reservation : pending.values()) {
+            if (reservation.expiresAt() <= now && pending.remove(reservation.id(), reservation)) {
+                reservation.counter().release(reservation.quantity());
+                expired.increment();
+                log.warn("库存预留超时未完成，已归还，商品ID: {}，数量: {}", reservation.productId(), reservation.quantity());
+            }
+        }
+    }
+
+    /**
+     * 用数据库中的库存覆盖计数器；有进行中预留的商品跳过，下一轮再对账
+     */
+    public void reconcile() {
+        if (counters.isEmpty()) {
+            return;
+        }
+        Set<Integer> busy = new HashSet<>();
+        pending.values().forEach(r -> busy.add(r.productId()));
+        List<Integer> idle = counters.keySet().stream().filter(id -> !busy.contains(id)).toList();
+        if (idle.isEmpty()) {
+            return;
+        }
+        try {
+            Set<Integer> found = new HashSet<>();
+            for (Mall mall : mallMapper.selectBatchIds(idle)) {
+                found.add(mall.getProductId());
+                ShardedStockCounter counter = counters.get(mall.getProductId());
+                if (counter == null) {
+                    continue;
+                }
+                long actual = mall.getIsPublished() != null && mall.getIsPublished() == 1 && mall.getAvailableQuantity() != null
+                        ? mall.getAvailableQuantity() : 0;
+                if (counter.available() != actual) {
+                    log.info("库存计数器与数据库不一致，已校正，商品ID: {}，计数器: {}，数据库: {}",
+                            mall.getProductId(), counter.available(), actual);
+                    counter.reset(actual);
+                }
+            }
+            // 商品已不存在时丢弃计数器
+            idle.stream().filter(id -> !found.contains(id)).forEach(counters::remove);
+        } catch (Exception e) {
+            log.error("库存对账失败", e);
+        }
+    }
+
+    private void applyRestock(Integer productId, int available) {
+        ShardedStockCounter counter = counters.get(productId);
+        if (counter != null) {
+            counter.reset(available);
+        } else {
+            counterFor(productId, available);
+        }
+    }
+
+    private ShardedStockCounter counterFor(Integer productId, Integer seed) {
+        ShardedStockCounter counter = counters.get(productId);
+        if (counter != null) {
+            return counter;
+        }
+        ShardedStockCounter created = new ShardedStockCounter(seed != null ? Math.max(0, seed) : 0, shards);
+        counter = counters.putIfAbsent(productId, created);
+        return counter != null ? counter : created;
+    }
+
+    private void confirm(Reservation reservation) {
+        pending.remove(reservation.id());
+        // 商城快照中的可用库存随之刷新
+        mallCatalogCache.invalidate();
+    }
+
+    private void release(Reservation reservation) {
+        if (pending.remove(reservation.id(), reservation)) {
+            reservation.counter().release(reservation.quantity());
+        }
+    }
+
+    private record Reservation(long id, Integer productId, int quantity, ShardedStockCounter counter, long expiresAt) {
+    }
+}
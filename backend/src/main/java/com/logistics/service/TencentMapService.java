@@ -3,6 +3,8 @@ package com.logistics.service;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -10,19 +12,30 @@ import org.springframework.web.client.RestTemplate;
 
 /**
  * 腾讯地图服务
- * 负责调用腾讯地图API
+ * 负责调用腾讯地图API，每次调用发布 tencent.map.requests 计时（api=direction|geocoder，outcome=success|error）
  */
 @Slf4j
 @Service
 public class TencentMapService {
 
-    @Value("${tencent.map.api-key:}")
-    private String apiKey;
-
-    private static final String ROUTE_API = "https://apis.map.qq.com/ws/direction/v1/driving/";
-    private static final String GEOCODER_API = "https://apis.map.qq.com/ws/geocoder/v1/";
-
-    private final RestTemplate restTemplate = new RestTemplate();
+    private static final String ROUTE_PATH = "/ws/direction/v1/driving/";
+    private static final String GEOCODER_PATH = "/ws/geocoder/v1/";
+
+    /** 使用 RestTemplateConfig 中配置了超时的实例 */
+    private final RestTemplate restTemplate;
+    private final String apiKey;
+    private final String baseUrl;
+    private final MeterRegistry meterRegistry;
+
+    public TencentMapService(RestTemplate restTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${tencent.map.api-key:}") String apiKey,
+                             @Value("${tencent.map.base-url:https://apis.map.qq.com}") String baseUrl) {
+        this.restTemplate = restTemplate;
+        this.meterRegistry = meterRegistry;
+        this.apiKey = apiKey;
+        this.baseUrl = baseUrl;
+    }
 
     /**
      * 规划驾车路线
@@ -34,7 +47,7 @@ public class TencentMapService {
      */
     public JSONObject planRoute(String from, String to, String waypoints) {
         try {
-            StringBuilder url = new StringBuilder(ROUTE_API);
+            StringBuilder url = new StringBuilder(baseUrl).append(ROUTE_PATH);
             url.append("?from=").append(from);
             url.append("&to=").append(to);
             url.append("&key=").append(apiKey);
@@ -46,7 +59,7 @@ public class TencentMapService {
 
             log.info("调用腾讯地图路线规划API: {}", url);
 
-            String response = restTemplate.getForObject(url.toString(), String.class);
+            String response = get("direction", url.toString());
             JSONObject result = JSON.parseObject(response);
 
             if (result.getInteger("status") != 0) {
@@ -68,33 +81,66 @@ public class TencentMapService {
      */
     public String getAddress(Double latitude, Double longitude) {
         try {
-            String url = GEOCODER_API + "?location=" + latitude + "," + longitude +
-                    "&key=" + apiKey + "&output=json";
+            String address = reverseGeocode(latitude, longitude);
+            return address != null ? address : "位置获取中...";
+        } catch (Exception e) {
+            log.error("逆地理编码失败", e);
+            return "位置获取失败";
+        }
+    }
 
-            log.debug("调用逆地理编码API: lat={}, lng={}", latitude, longitude);
+    /**
+     * 逆地理编码，失败时不返回占位文字
+     *
+     * @return 地址，接口返回非成功状态时为 null
+     * @throws org.springframework.web.client.RestClientException 请求失败或超时
+     */
+    public String reverseGeocode(double latitude, double longitude) {
+        String url = baseUrl + GEOCODER_PATH + "?location=" + latitude + "," + longitude +
+                "&key=" + apiKey + "&output=json";
 
-            String response = restTemplate.getForObject(url, String.class);
-            JSONObject result = JSON.parseObject(response);
+        log.debug("调用逆地理编码API: lat={}, lng={}", latitude, longitude);
 
-            if (result.getInteger("status") == 0) {
-                JSONObject resultObj = result.getJSONObject("result");
-                if (resultObj != null) {
-                    return resultObj.getString("address");
-                }
+        String response = get("geocoder", url);
+        JSONObject result = JSON.parseObject(response);
+
+        if (result.getInteger("status") == 0) {
+            JSONObject resultObj = result.getJSONObject("result");
+            if (resultObj != null) {
+                return resultObj.getString("address");
             }
+        }
 
-            log.warn("逆地理编码失败: {}", result.getString("message"));
-            return "位置获取中...";
+        log.warn("逆地理编码失败: {}", result.getString("message"));
+        return null;
+    }
 
-        } catch (Exception e) {
-            log.error("逆地理编码失败", e);
-            return "位置获取失败";
+    /**
+     * 发起 GET 请求并计时；接口返回的业务状态码不影响 outcome
+     */
+    private String get(String api, String url) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            String response = restTemplate.getForObject(url, String.class);
+            outcome = "success";
+            return response;
+        } finally {
+            sample.stop(Timer.builder("tencent.map.requests")
+                    .description("腾讯地图接口调用耗时")
+                    .tags("api", api, "outcome", outcome)
+                    .register(meterRegistry));
         }
     }
 
     /**
      * 解压polyline坐标数组
+     *
+     * @deprecated 逐点装箱成 JSONArray 且以 double 累加差值，长路线开销大；
+     * 请使用 {@link com.logistics.route.PolylineCodec#decode(CharSequence)}。
+     * 保留此方法仅作为基准测试的对照实现
      */
+    @Deprecated
     public JSONArray decompressPolyline(String polylineJson) {
         try {
             JSONArray coors = JSON.parseArray(polylineJson);
@@ -0,0 +1,123 @@
+package com.logistics.service.impl;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.logistics.dto.OrderStatusStat;
+import com.logistics.dto.RoleCount;
+import com.logistics.mapper.OrderMapper;
+import com.logistics.mapper.UserMapper;
+import com.logistics.mapper.WarehouseMapper;
+import com.logistics.service.AdminStatsService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 管理员数据统计
+ * <p>
+ * 订单按状态、用户按角色各用一条 GROUP BY 查询统计，不再逐项 COUNT 或把订单加载到内存求和。
+ * 统计结果作为快照缓存：过期前直接返回；过期后下一次请求仍返回旧快照并在后台重新统计，
+ * 看板频繁刷新不会每次都访问数据库。
+ */
+@Service
+public class AdminStatsServiceImpl implements AdminStatsService {
+
+    private static final String OVERVIEW_KEY = "overview";
+    /** 概览中单独列出的用户角色 */
+    private static final List<String> ROLES = List.of("merchant", "driver", "consumer");
+    /** 概览中列出的订单状态 0 ~ 5 */
+    private static final int MAX_STATUS = 5;
+
+    private final UserMapper userMapper;
+    private final OrderMapper orderMapper;
+    private final WarehouseMapper warehouseMapper;
+    private final LoadingCache<String, Map<String, Object>> snapshot;
+
+    public AdminStatsServiceImpl(UserMapper userMapper,
+                                 OrderMapper orderMapper,
+                                 WarehouseMapper warehouseMapper,
+                                 @Value("${admin.stats.refresh-seconds:30}") long refreshSeconds) {
+        this.userMapper = userMapper;
+        this.orderMapper = orderMapper;
+        this.warehouseMapper = warehouseMapper;
+        this.snapshot = Caffeine.newBuilder()
+                .maximumSize(1)
+                .refreshAfterWrite(Duration.ofSeconds(refreshSeconds))
+                // 长时间无人访问后不再返回过旧的快照
+                .expireAfterWrite(Duration.ofSeconds(refreshSeconds * 10))
+                .build(key -> loadOverview());
+    }
+
+    @Override
+    public Map<String, Object> getOverview() {
+        return snapshot.get(OVERVIEW_KEY);
+    }
+
+    /**
+     * 在事务中调用时等提交后再丢弃快照，避免提交前的请求把旧数据重新缓存
+     */
+    @Override
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    snapshot.invalidateAll();
+                }
+            });
+        } else {
+            snapshot.invalidateAll();
+        }
+    }
+
+    private Map<String, Object> loadOverview() {
+        Map<String, Object> stats = new HashMap<>();
+
+        Map<String, Long> roleCounts = new HashMap<>();
+        long totalUsers = 0;
+        for (RoleCount row : userMapper.selectRoleCounts()) {
+            totalUsers += row.getUserCount();
+            if (row.getRole() != null) {
+                roleCounts.merge(row.getRole(), row.getUserCount(), Long::sum);
+            }
+        }
+        stats.put("totalUsers", totalUsers);
+        for (String role : ROLES) {
+            stats.put(role + "Count", roleCounts.getOrDefault(role, 0L));
+        }
+
+        Map<String, Long> statusCounts = new HashMap<>();
+        for (int s = 0; s <= MAX_STATUS; s++) {
+            statusCounts.put(String.valueOf(s), 0L);
+        }
+        long totalOrders = 0;
+        BigDecimal totalRevenue = BigDecimal.ZERO;
+        for (OrderStatusStat row : orderMapper.selectStatusStats()) {
+            totalOrders += row.getOrderCount();
+            if (row.getStatus() == null) {
+                continue;
+            }
+            if (row.getStatus() >= 0 && row.getStatus() <= MAX_STATUS) {
+                statusCounts.put(String.valueOf(row.getStatus()), row.getOrderCount());
+            }
+            // 营收统计已付款（状态 >= 1）的订单
+            if (row.getStatus() >= 1 && row.getRevenue() != null) {
+                totalRevenue = totalRevenue.add(row.getRevenue());
+            }
+        }
+        stats.put("totalOrders", totalOrders);
+        stats.put("ordersByStatus", Collections.unmodifiableMap(statusCounts));
+        stats.put("totalRevenue", totalRevenue);
+        stats.put("totalWarehouses", warehouseMapper.selectCount(null));
+
+        return Collections.unmodifiableMap(stats);
+    }
+}
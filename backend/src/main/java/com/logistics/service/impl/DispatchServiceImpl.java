@@ -0,0 +1,298 @@
+package com.logistics.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.logistics.dto.CreateBatchResponse;
+import com.logistics.dto.DispatchResponse;
+import com.logistics.entity.Address;
+import com.logistics.entity.DeliveryBatch;
+import com.logistics.entity.DeliveryBatchOrder;
+import com.logistics.entity.Order;
+import com.logistics.entity.User;
+import com.logistics.entity.Warehouse;
+import com.logistics.mapper.DeliveryBatchMapper;
+import com.logistics.mapper.DeliveryBatchOrderMapper;
+import com.logistics.mapper.OrderMapper;
+import com.logistics.mapper.UserMapper;
+import com.logistics.mapper.WarehouseMapper;
+import com.logistics.route.StopSequencer;
+import com.logistics.route.SweepClusterer;
+import com.logistics.route.TravelModel;
+import com.logistics.service.DispatchService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 仓库自动调度
+ * <p>
+ * 1. 锁定仓库行，同一仓库的调度串行执行，不会把同一订单分进两个批次；
+ *    一次查询取出仓库所有待调度订单及默认收货地址坐标；
+ * 2. 扫描法按方位角分组，每组不超过批次订单数上限；
+ * 3. 各组在 dispatchExecutor 中并行排序停靠点并估算距离、时长（线程池队列已满时在调用线程上排序），
+ *    超出时长上限的组拆分后重新排序；
+ * 4. 按预计时长从长到短依次分给当前负载最小的配送员；
+ * 5. 批次与批次-订单关联各用多行 INSERT 批量写入。
+ * 调度不调用腾讯地图，批次的 route_data 为空，开始运输时按停靠顺序规划路线。
+ */
+@Slf4j
+@Service
+public class DispatchServiceImpl implements DispatchService {
+
+    /** 单条 INSERT 语句最多包含的行数 */
+    static final int INSERT_CHUNK_SIZE = 500;
+
+    private final OrderMapper orderMapper;
+    private final UserMapper userMapper;
+    private final WarehouseMapper warehouseMapper;
+    private final DeliveryBatchMapper deliveryBatchMapper;
+    private final DeliveryBatchOrderMapper deliveryBatchOrderMapper;
+    private final Executor dispatchExecutor;
+    private final int maxBatchOrders;
+    private final long maxBatchMinutes;
+    private final long sequencingBudgetMs;
+    private final TravelModel travelModel;
+
+    public DispatchServiceImpl(OrderMapper orderMapper,
+                               UserMapper userMapper,
+                               WarehouseMapper warehouseMapper,
+                               DeliveryBatchMapper deliveryBatchMapper,
+                               DeliveryBatchOrderMapper deliveryBatchOrderMapper,
+                               @Qualifier("dispatchExecutor") Executor dispatchExecutor,
+                               @Value("${delivery.batch.max-orders:30}") int maxBatchOrders,
+                               @Value("${delivery.dispatch.max-batch-minutes:240}") long maxBatchMinutes,
+                               @Value("${delivery.dispatch.sequencing-budget-ms:20}") long sequencingBudgetMs,
+                               @Value("${delivery.dispatch.road-factor:1.3}") double roadFactor,
+                               @Value("${delivery.dispatch.speed-kmh:30}") double speedKmh,
+                               @Value("${delivery.dispatch.service-minutes-per-stop:3}") double serviceMinutesPerStop) {
+        this.orderMapper = orderMapper;
+        this.userMapper = userMapper;
+        this.warehouseMapper = warehouseMapper;
+        this.deliveryBatchMapper = deliveryBatchMapper;
+        this.deliveryBatchOrderMapper = deliveryBatchOrderMapper;
+        this.dispatchExecutor = dispatchExecutor;
+        this.maxBatchOrders = maxBatchOrders;
+        this.maxBatchMinutes = maxBatchMinutes;
+        this.sequencingBudgetMs = sequencingBudgetMs;
+        this.travelModel = new TravelModel(roadFactor, speedKmh, serviceMinutesPerStop);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public DispatchResponse dispatch(Integer warehouseId) {
+        long startNanos = System.nanoTime();
+        if (warehouseId == null) throw new RuntimeException("仓库ID不能为空");
+        Warehouse warehouse = warehouseMapper.selectByIdForUpdate(warehouseId);
+        if (warehouse == null || warehouse.getLongitude() == null || warehouse.getLatitude() == null) {
+            throw new RuntimeException("仓库坐标信息不完整");
+        }
+        List<User> drivers = userMapper.selectList(new LambdaQueryWrapper<User>()
+            .eq(User::getRole, "driver")
+            .eq(User::getWarehouseId, warehouseId)
+            .orderByAsc(User::getId));
+        if (drivers.isEmpty()) throw new RuntimeException("该仓库没有配送员");
+
+        Map<Integer, Order> candidates = new LinkedHashMap<>();
+        for (Order order : orderMapper.selectDispatchCandidates(warehouseId)) {
+            // 顾客存在多个默认地址时只取第一个
+            candidates.putIfAbsent(order.getOrderId(), order);
+        }
+        List<Order> orders = new ArrayList<>();
+        List<Integer> skipped = new ArrayList<>();
+        for (Order order : candidates.values()) {
+            Address addr = order.getAddress();
+            if (addr == null || addr.getId() == null || addr.getLatitude() == null || addr.getLongitude() == null) {
+                skipped.add(order.getOrderId());
+            } else {
+                orders.add(order);
+            }
+        }
+
+        DispatchResponse response = new DispatchResponse();
+        response.setWarehouseId(warehouseId);
+        response.setSkippedOrderIds(skipped);
+        if (orders.isEmpty()) {
+            response.setOrderCount(0);
+            response.setBatchCount(0);
+            response.setDriverCount(0);
+            response.setBatches(List.of());
+            response.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            return response;
+        }
+
+        double originLat = warehouse.getLatitude().doubleValue();
+        double originLng = warehouse.getLongitude().doubleValue();
+        int count = orders.size();
+        double[] lats = new double[count];
+        double[] lngs = new double[count];
+        for (int i = 0; i < count; i++) {
+            lats[i] = orders.get(i).getAddress().getLatitude().doubleValue();
+            lngs[i] = orders.get(i).getAddress().getLongitude().doubleValue();
+        }
+
+        long maxSeconds = TimeUnit.MINUTES.toSeconds(maxBatchMinutes);
+        List<int[]> clusters = SweepClusterer.cluster(originLat, originLng, lats, lngs,
+            maxBatchOrders, maxSeconds, travelModel);
+        List<PlannedBatch> plans = new ArrayList<>(clusters.size());
+        while (!clusters.isEmpty()) {
+            // 排序后仍超出时长上限的批次沿停靠顺序对半拆分，重新排序
+            List<int[]> oversized = new ArrayList<>();
+            for (PlannedBatch plan : sequenceInParallel(originLat, originLng, lats, lngs, clusters)) {
+                if (plan.duration > maxSeconds && plan.stops.length > 1) {
+                    int half = plan.stops.length / 2;
+                    oversized.add(Arrays.copyOfRange(plan.stops, 0, half));
+                    oversized.add(Arrays.copyOfRange(plan.stops, half, plan.stops.length));
+                } else {
+                    plans.add(plan);
+                }
+            }
+            clusters = oversized;
+        }
+        assignDrivers(plans, drivers);
+
+        List<DeliveryBatch> batches = new ArrayList<>(plans.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (PlannedBatch plan : plans) {
+            DeliveryBatch batch = new DeliveryBatch();
+            batch.setDriverId(plan.driverId);
+            batch.setWarehouseId(warehouseId);
+            batch.setStatus(0);
+            batch.setCreatedAt(now);
+            batch.setTotalDistance(plan.distance);
+            batch.setTotalDuration(plan.duration);
+            batch.setCurrentIndex(0);
+            batches.add(batch);
+        }
+        for (int from = 0; from < batches.size(); from += INSERT_CHUNK_SIZE) {
+            deliveryBatchMapper.insertBatch(batches.subList(from, Math.min(from + INSERT_CHUNK_SIZE, batches.size())));
+        }
+
+        List<DeliveryBatchOrder> links = new ArrayList<>(count);
+        List<CreateBatchResponse> created = new ArrayList<>(plans.size());
+        for (int b = 0; b < plans.size(); b++) {
+            PlannedBatch plan = plans.get(b);
+            DeliveryBatch batch = batches.get(b);
+            List<Integer> stopOrder = new ArrayList<>(plan.stops.length);
+            for (int seq = 0; seq < plan.stops.length; seq++) {
+                Integer orderId = orders.get(plan.stops[seq]).getOrderId();
+                DeliveryBatchOrder bo = new DeliveryBatchOrder();
+                bo.setBatchId(batch.getId());
+                bo.setOrderId(orderId);
+                bo.setStopSequence(seq + 1);
+                links.add(bo);
+                stopOrder.add(orderId);
+            }
+
+            CreateBatchResponse resp = new CreateBatchResponse();
+            resp.setBatchId(batch.getId());
+            resp.setDriverId(plan.driverId);
+            resp.setTotalDistance(plan.distance);
+            resp.setTotalDuration(plan.duration);
+            resp.setOrderCount(stopOrder.size());
+            resp.setStopOrder(stopOrder);
+            created.add(resp);
+        }
+        for (int from = 0; from < links.size(); from += INSERT_CHUNK_SIZE) {
+            deliveryBatchOrderMapper.insertBatch(links.subList(from, Math.min(from + INSERT_CHUNK_SIZE, links.size())));
+        }
+
+        response.setOrderCount(count);
+        response.setBatchCount(created.size());
+        response.setDriverCount((int) plans.stream().map(p -> p.driverId).distinct().count());
+        response.setBatches(created);
+        response.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        log.info("仓库 {} 自动调度完成: 订单 {} 个, 批次 {} 个, 跳过 {} 个, 耗时 {}ms",
+            warehouseId, count, created.size(), skipped.size(), response.getElapsedMs());
+        return response;
+    }
+
+    /**
+     * 并行排序各组停靠点并估算距离与时长
+     */
+    private List<PlannedBatch> sequenceInParallel(double originLat, double originLng, double[] lats, double[] lngs,
+                                                  List<int[]> clusters) {
+        long budgetNanos = TimeUnit.MILLISECONDS.toNanos(sequencingBudgetMs);
+        List<CompletableFuture<PlannedBatch>> futures = new ArrayList<>(clusters.size());
+        for (int[] cluster : clusters) {
+            Supplier<PlannedBatch> task = () -> sequenceCluster(originLat, originLng, lats, lngs, cluster, budgetNanos);
+            try {
+                futures.add(CompletableFuture.supplyAsync(task, dispatchExecutor));
+            } catch (RejectedExecutionException e) {
+                // 队列已满（多个仓库同时调度），在调用线程上排序
+                futures.add(CompletableFuture.completedFuture(task.get()));
+            }
+        }
+        return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    private PlannedBatch sequenceCluster(double originLat, double originLng, double[] lats, double[] lngs,
+                                         int[] cluster, long budgetNanos) {
+        double[] clusterLats = new double[cluster.length];
+        double[] clusterLngs = new double[cluster.length];
+        for (int i = 0; i < cluster.length; i++) {
+            clusterLats[i] = lats[cluster[i]];
+            clusterLngs[i] = lngs[cluster[i]];
+        }
+        int[] order = StopSequencer.sequence(originLat, originLng, clusterLats, clusterLngs, budgetNanos);
+        double straightMeters = StopSequencer.pathLength(originLat, originLng, clusterLats, clusterLngs, order);
+
+        int[] stops = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            stops[i] = cluster[order[i]];
+        }
+        return new PlannedBatch(stops,
+            (int) Math.round(travelModel.roadMeters(straightMeters)),
+            (int) Math.round(travelModel.durationSeconds(straightMeters, order.length)));
+    }
+
+    /**
+     * 最长处理时间优先：按预计时长从长到短，每个批次分给当前累计时长最短的配送员
+     */
+    static void assignDrivers(List<PlannedBatch> plans, List<User> drivers) {
+        PriorityQueue<long[]> loads = new PriorityQueue<>(
+            Comparator.<long[]>comparingLong(load -> load[0]).thenComparingLong(load -> load[1]));
+        for (User driver : drivers) {
+            loads.add(new long[]{0, driver.getId()});
+        }
+        PlannedBatch[] byDuration = plans.toArray(new PlannedBatch[0]);
+        Arrays.sort(byDuration, Comparator.comparingInt((PlannedBatch p) -> p.duration).reversed());
+        for (PlannedBatch plan : byDuration) {
+            long[] load = loads.poll();
+            plan.driverId = (int) load[1];
+            load[0] += plan.duration;
+            loads.add(load);
+        }
+    }
+
+    static final class PlannedBatch {
+        /** 订单下标，按停靠顺序排列 */
+        final int[] stops;
+        /** 估算道路距离（米） */
+        final int distance;
+        /** 估算时长（秒） */
+        final int duration;
+        Integer driverId;
+
+        PlannedBatch(int[] stops, int distance, int duration) {
+            this.stops = stops;
+            this.distance = distance;
+            this.duration = duration;
+        }
+    }
+}
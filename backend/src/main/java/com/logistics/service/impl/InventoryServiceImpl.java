@@ -5,30 +5,34 @@ import com.logistics.dto.InventoryQueryRequest;
 import com.logistics.dto.StockInRequest;
 import com.logistics.entity.Inventory;
 import com.logistics.mapper.InventoryMapper;
+import com.logistics.service.ImageUploadService;
 import com.logistics.service.InventoryService;
-import com.logistics.service.R2StorageService;
+import com.logistics.service.SearchIndexService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * 库存服务实现类
+ * 入库时图片先暂存到本地，事务提交后由 ImageUploadService 异步上传，不在事务内等待对象存储
  */
 @Service
 @RequiredArgsConstructor
 public class InventoryServiceImpl implements InventoryService {
     
     private final InventoryMapper inventoryMapper;
-    private final R2StorageService r2StorageService;
+    private final ImageUploadService imageUploadService;
+    private final SearchIndexService searchIndexService;
     
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Inventory stockIn(StockInRequest request, MultipartFile imageFile) {
-        // 上传图片到Cloudflare R2并获取URL
-        String imageUrl = r2StorageService.uploadFile(imageFile);
+        // 图片暂存到本地，事务提交后异步上传到Cloudflare R2并回填URL
+        ImageUploadService.SpooledImage image = imageUploadService.spool(imageFile);
         
         // 创建库存记录
         Inventory inventory = new Inventory();
@@ -37,21 +41,38 @@ public class InventoryServiceImpl implements InventoryService {
         inventory.setProductName(request.getProductName());
         inventory.setQuantity(request.getQuantity());
         inventory.setStockInDate(request.getStockInDate());
-        inventory.setImageUrl(imageUrl);
+        inventory.setImageStatus(ImageUploadService.IMAGE_PENDING);
         inventory.setIsPublished(0); // 默认未上架
         
         // 保存到数据库
-        inventoryMapper.insert(inventory);
+        try {
+            inventoryMapper.insert(inventory);
+        } catch (RuntimeException e) {
+            imageUploadService.discard(image);
+            throw e;
+        }
+        imageUploadService.uploadAfterCommit(inventory.getProductId(), image);
+        searchIndexService.onProductSaved(inventory.getProductId(), inventory.getProductName());
         
         return inventory;
     }
     
     @Override
     public List<Inventory> queryInventory(InventoryQueryRequest request) {
+        // 商品名称先由搜索索引解析为商品ID，索引未就绪时按 LIKE 查询
+        List<Integer> productIds = null;
+        String productName = request.getProductName();
+        if (productName != null && !productName.trim().isEmpty()) {
+            productIds = searchIndexService.matchProductIds(productName);
+            if (productIds != null && productIds.isEmpty()) {
+                return new ArrayList<>();
+            }
+        }
         // 使用新的方法查询库存并关联仓库信息
         return inventoryMapper.selectWithWarehouseByConditions(
             request.getUserId(),
-            request.getProductName(),
+            productName,
+            productIds,
             request.getMinStock(),
             request.getMaxStock(),
             request.getIsPublished()
@@ -6,7 +6,9 @@ import com.logistics.entity.Inventory;
 import com.logistics.entity.Mall;
 import com.logistics.mapper.InventoryMapper;
 import com.logistics.mapper.MallMapper;
+import com.logistics.service.MallCatalogCache;
 import com.logistics.service.MallService;
+import com.logistics.service.StockReservationService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,6 +25,8 @@ public class MallServiceImpl implements MallService {
     
     private final InventoryMapper inventoryMapper;
     private final MallMapper mallMapper;
+    private final MallCatalogCache mallCatalogCache;
+    private final StockReservationService stockReservationService;
     
     @Override
     public List<Inventory> getOfflineProducts(Integer userId) {
@@ -70,6 +74,10 @@ public class MallServiceImpl implements MallService {
         inventory.setIsPublished(1);
         inventoryMapper.updateById(inventory);
         
+        // 商城商品快照在事务提交后重建，库存计数器同时重置为上架数量
+        mallCatalogCache.invalidate();
+        stockReservationService.restock(mall.getProductId(), mall.getAvailableQuantity());
+        
         return mall;
     }
     
@@ -0,0 +1,164 @@
+package com.logistics.service.impl;
+
+import com.logistics.dto.DailyOrderCount;
+import com.logistics.entity.Order;
+import com.logistics.entity.OrderDailyStat;
+import com.logistics.mapper.OrderDailyStatMapper;
+import com.logistics.service.OrderRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 订单日汇总
+ * <p>
+ * 汇总键为 下单日期 × 仓库 × 当前状态 × 商户。状态变化时从旧状态行减一、在新状态行加一，
+ * 每次调用把所有增量合并成一条 INSERT ... ON DUPLICATE KEY UPDATE。
+ * 没有下单时间或状态的订单不计入汇总（与全量重建的口径一致）。
+ * 增量须与订单的修改在同一事务中写入；重建按天进行，每天一个短事务，只锁住当天的订单，与当天的增量写入串行执行。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderRollupServiceImpl implements OrderRollupService {
+
+    private final OrderDailyStatMapper orderDailyStatMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void recordCreated(Order order) {
+        Map<List<Object>, OrderDailyStat> deltas = new LinkedHashMap<>();
+        addDelta(deltas, order, order.getStatus(), 1);
+        flush(deltas);
+    }
+
+    @Override
+    public void recordCreated(List<Order> orders) {
+        Map<List<Object>, OrderDailyStat> deltas = new LinkedHashMap<>();
+        for (Order order : orders) {
+            addDelta(deltas, order, order.getStatus(), 1);
+        }
+        flush(deltas);
+    }
+
+    @Override
+    public void recordStatusChange(Order order, Integer fromStatus) {
+        recordStatusChanges(List.of(order), fromStatus);
+    }
+
+    @Override
+    public void recordStatusChanges(List<Order> orders, Integer fromStatus) {
+        Map<List<Object>, OrderDailyStat> deltas = new LinkedHashMap<>();
+        for (Order order : orders) {
+            if (Objects.equals(fromStatus, order.getStatus())) {
+                continue;
+            }
+            addDelta(deltas, order, fromStatus, -1);
+            addDelta(deltas, order, order.getStatus(), 1);
+        }
+        flush(deltas);
+    }
+
+    @Override
+    public void recordDeleted(Order order) {
+        Map<List<Object>, OrderDailyStat> deltas = new LinkedHashMap<>();
+        addDelta(deltas, order, order.getStatus(), -1);
+        flush(deltas);
+    }
+
+    @Override
+    public List<DailyOrderCount> getDailyOrderCounts(int days, Integer warehouseId) {
+        int range = Math.max(1, Math.min(days, MAX_DAYS));
+        LocalDate today = LocalDate.now();
+        LocalDate start = today.minusDays(range - 1);
+
+        Map<LocalDate, OrderDailyStat> totals = new HashMap<>();
+        for (OrderDailyStat row : orderDailyStatMapper.selectDailyTotals(start, warehouseId)) {
+            totals.put(row.getStatDate(), row);
+        }
+
+        List<DailyOrderCount> result = new ArrayList<>(range);
+        for (LocalDate date = start; !date.isAfter(today); date = date.plusDays(1)) {
+            OrderDailyStat row = totals.get(date);
+            DailyOrderCount item = new DailyOrderCount();
+            item.setDate(date.toString());
+            item.setCount(row != null && row.getOrderCount() != null ? row.getOrderCount() : 0L);
+            item.setRevenue(row != null && row.getRevenue() != null ? row.getRevenue() : BigDecimal.ZERO);
+            result.add(item);
+        }
+        return result;
+    }
+
+    @Override
+    public int rebuild() {
+        LocalDate today = LocalDate.now();
+        LocalDate first = orderDailyStatMapper.selectFirstOrderDate();
+        LocalDate last = orderDailyStatMapper.selectLastOrderDate();
+        if (first == null || first.isAfter(today)) {
+            first = today;
+        }
+        LocalDate end = last != null && last.isAfter(today) ? last : today;
+
+        int rows = 0;
+        for (LocalDate day = first; !day.isAfter(end); day = day.plusDays(1)) {
+            rows += rebuildDay(day);
+        }
+        // 新订单的下单日期不会早于 first，这之前的汇总行没有对应订单
+        orderDailyStatMapper.deleteBefore(first);
+        log.info("订单日汇总已重建，日期: {} ~ {}，汇总行数: {}", first, end, rows);
+        return rows;
+    }
+
+    /**
+     * 在一个短事务中重建一天：先等待正在修改当天订单的事务连同增量一起提交，
+     * 当天的订单写入等这一天重建提交后再执行，其他日期的下单和状态流转不受影响
+     */
+    private int rebuildDay(LocalDate day) {
+        Integer rows = transactionTemplate.execute(status -> {
+            orderDailyStatMapper.lockOrdersOn(day);
+            orderDailyStatMapper.deleteByDate(day);
+            return orderDailyStatMapper.rebuildDay(day);
+        });
+        return rows != null ? rows : 0;
+    }
+
+    private void addDelta(Map<List<Object>, OrderDailyStat> deltas, Order order, Integer status, int sign) {
+        if (order.getOrderTime() == null || status == null) {
+            return;
+        }
+        LocalDate date = order.getOrderTime().toLocalDate();
+        int warehouseId = order.getWarehouseId() != null ? order.getWarehouseId() : 0;
+        int merchantId = order.getMerchantId() != null ? order.getMerchantId() : 0;
+        BigDecimal amount = order.getTotalAmount() != null ? order.getTotalAmount() : BigDecimal.ZERO;
+
+        OrderDailyStat delta = deltas.computeIfAbsent(List.of(date, warehouseId, status, merchantId), key -> {
+            OrderDailyStat row = new OrderDailyStat();
+            row.setStatDate(date);
+            row.setWarehouseId(warehouseId);
+            row.setStatus(status);
+            row.setMerchantId(merchantId);
+            row.setOrderCount(0L);
+            row.setRevenue(BigDecimal.ZERO);
+            return row;
+        });
+        delta.setOrderCount(delta.getOrderCount() + sign);
+        delta.setRevenue(sign > 0 ? delta.getRevenue().add(amount) : delta.getRevenue().subtract(amount));
+    }
+
+    private void flush(Map<List<Object>, OrderDailyStat> deltas) {
+        deltas.values().removeIf(d -> d.getOrderCount() == 0 && d.getRevenue().signum() == 0);
+        if (!deltas.isEmpty()) {
+            orderDailyStatMapper.upsertDeltas(new ArrayList<>(deltas.values()));
+        }
+    }
+}
@@ -1,9 +1,9 @@
 package com.logistics.service.impl;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
-import com.alibaba.fastjson.JSONArray;
-import com.alibaba.fastjson.JSONObject;
+import com.logistics.common.CursorPage;
+import com.logistics.common.PageCursor;
+import com.logistics.dto.BatchOrderResult;
 import com.logistics.dto.CreateOrderRequest;
 import com.logistics.entity.Address;
 import com.logistics.entity.DeliveryBatch;
@@ -20,21 +20,40 @@ import com.logistics.mapper.InventoryMapper;
 import com.logistics.mapper.MallMapper;
 import com.logistics.mapper.OrderMapper;
 import com.logistics.mapper.UserMapper;
-import com.logistics.mapper.WarehouseMapper;
+import com.logistics.route.RoutePlan;
+import com.logistics.route.StopSequencer;
+import com.logistics.service.DirectoryCache;
+import com.logistics.service.OrderRollupService;
 import com.logistics.service.OrderService;
-import com.logistics.service.TencentMapService;
+import com.logistics.service.RoutePlanCache;
+import com.logistics.service.SearchIndexService;
+import com.logistics.service.StockReservationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
 public class OrderServiceImpl implements OrderService {
+
+    /** 按批次批量加载订单时，每次查询的批次数上限（控制 IN 列表长度） */
+    private static final int BATCH_LOAD_PAGE_SIZE = 200;
+    /** 单条 INSERT 语句最多包含的批次-订单关联数 */
+    private static final int LINK_INSERT_CHUNK_SIZE = 500;
     
     @Autowired
     private OrderMapper orderMapper;
@@ -47,38 +66,48 @@ public class OrderServiceImpl implements OrderService {
     @Autowired
     private UserMapper userMapper;
     @Autowired
-    private WarehouseMapper warehouseMapper;
+    private OrderRollupService orderRollupService;
+    @Autowired
+    private SearchIndexService searchIndexService;
+    @Autowired
+    private StockReservationService stockReservationService;
     @Autowired
     private DeliveryBatchMapper deliveryBatchMapper;
     @Autowired
     private DeliveryBatchOrderMapper deliveryBatchOrderMapper;
     @Autowired
-    private TencentMapService tencentMapService;
+    private RoutePlanCache routePlanCache;
+    @Autowired
+    private DirectoryCache directoryCache;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /** 商品ID → 商户ID */
+    private final Map<Integer, Integer> merchantByProduct = new ConcurrentHashMap<>();
+
+    /** 每个批次的订单数上限（腾讯地图驾车路线最多支持 30 个途经点） */
+    @Value("${delivery.batch.max-orders:30}")
+    private int maxBatchOrders;
+    /** 停靠点排序的时间预算（毫秒） */
+    @Value("${delivery.batch.sequencing-budget-ms:50}")
+    private long sequencingBudgetMs;
+    /** 调度员一次批量创建的批次数上限 */
+    @Value("${delivery.batch.max-bulk-batches:50}")
+    private int maxBulkBatches;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Order createOrder(CreateOrderRequest request, Integer customerId) {
         Mall mall = mallMapper.selectById(request.getProductId());
-        if (mall == null) {
-            throw new RuntimeException("商品不存在");
-        }
-        if (mall.getIsPublished() == null || mall.getIsPublished() != 1) {
-            throw new RuntimeException("商品未上架");
-        }
-        if (mall.getAvailableQuantity() < request.getQuantity()) {
-            throw new RuntimeException("库存不足，当前可用库存：" + mall.getAvailableQuantity());
-        }
-        if (mall.getPrice().compareTo(request.getPrice()) != 0) {
-            throw new RuntimeException("商品价格已变动，请刷新页面");
+        String error = checkOrderable(mall, request);
+        if (error != null) {
+            throw new RuntimeException(error);
         }
         
-        QueryWrapper<Inventory> inventoryQuery = new QueryWrapper<>();
-        inventoryQuery.eq("product_id", request.getProductId());
-        Inventory inventory = inventoryMapper.selectOne(inventoryQuery);
-        if (inventory == null) {
+        Integer merchantId = merchantsOf(Set.of(request.getProductId())).get(request.getProductId());
+        if (merchantId == null) {
             throw new RuntimeException("商品信息异常");
         }
-        Integer merchantId = inventory.getUserId();
         
         Integer addressId = request.getAddressId();
         if (addressId == null) {
@@ -91,8 +120,125 @@ public class OrderServiceImpl implements OrderService {
             }
         }
         
-        BigDecimal totalAmount = mall.getPrice().multiply(new BigDecimal(request.getQuantity()));
+        // 预留库存：内存计数器准入 + 数据库条件扣减；条件扣减会锁住商品行直到提交，
+        // 放在插入订单之前以缩短持锁时间，事务回滚时计数器自动归还
+        if (!stockReservationService.reserve(mall, request.getQuantity())) {
+            throw new RuntimeException(insufficientStockMessage(mall));
+        }
+        
+        Order order = newOrder(request, customerId, mall, merchantId, addressId);
+        orderMapper.insert(order);
+        orderRollupService.recordCreated(order);
+        return order;
+    }
+    
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<BatchOrderResult> createOrders(List<CreateOrderRequest> requests) {
+        Set<Integer> productIds = new HashSet<>();
+        Set<Integer> customersWithoutAddress = new HashSet<>();
+        for (CreateOrderRequest request : requests) {
+            productIds.add(request.getProductId());
+            if (request.getAddressId() == null) {
+                customersWithoutAddress.add(request.getCustomerId());
+            }
+        }
+        
+        Map<Integer, Mall> malls = new HashMap<>();
+        mallMapper.selectBatchIds(productIds).forEach(mall -> malls.put(mall.getProductId(), mall));
+        Map<Integer, Integer> merchants = merchantsOf(productIds);
+        Map<Integer, Integer> defaultAddresses = new HashMap<>();
+        if (!customersWithoutAddress.isEmpty()) {
+            QueryWrapper<Address> addressQuery = new QueryWrapper<>();
+            addressQuery.in("user_id", customersWithoutAddress);
+            addressQuery.eq("is_default", 1);
+            for (Address address : addressMapper.selectList(addressQuery)) {
+                defaultAddresses.putIfAbsent(address.getUserId().intValue(), address.getId().intValue());
+            }
+        }
+        
+        List<BatchOrderResult> results = new ArrayList<>(requests.size());
+        List<Order> orders = new ArrayList<>(requests.size());
+        for (CreateOrderRequest request : requests) {
+            Mall mall = malls.get(request.getProductId());
+            String error = checkOrderable(mall, request);
+            Integer merchantId = merchants.get(request.getProductId());
+            if (error == null && merchantId == null) {
+                error = "商品信息异常";
+            }
+            if (error == null && !stockReservationService.reserve(mall, request.getQuantity())) {
+                error = insufficientStockMessage(mall);
+            }
+            if (error != null) {
+                results.add(BatchOrderResult.failure(error));
+                continue;
+            }
+            Integer addressId = request.getAddressId() != null
+                    ? request.getAddressId() : defaultAddresses.get(request.getCustomerId());
+            Order order = newOrder(request, request.getCustomerId(), mall, merchantId, addressId);
+            orders.add(order);
+            results.add(BatchOrderResult.success(order));
+        }
         
+        if (!orders.isEmpty()) {
+            orderMapper.insertBatch(orders);
+            orderRollupService.recordCreated(orders);
+        }
+        return results;
+    }
+    
+    /**
+     * 校验商品能否按请求下单
+     *
+     * @return 不能下单的原因，可以下单时返回 null
+     */
+    private static String checkOrderable(Mall mall, CreateOrderRequest request) {
+        if (mall == null) {
+            return "商品不存在";
+        }
+        if (mall.getIsPublished() == null || mall.getIsPublished() != 1) {
+            return "商品未上架";
+        }
+        if (mall.getPrice().compareTo(request.getPrice()) != 0) {
+            return "商品价格已变动，请刷新页面";
+        }
+        return null;
+    }
+    
+    private String insufficientStockMessage(Mall mall) {
+        Long available = stockReservationService.available(mall.getProductId());
+        return "库存不足，当前可用库存：" + (available != null ? available : mall.getAvailableQuantity());
+    }
+    
+    /**
+     * 商品所属商户（库存的 user_id）；商品归属不会变化，查询过的结果常驻内存
+     */
+    private Map<Integer, Integer> merchantsOf(Set<Integer> productIds) {
+        Map<Integer, Integer> result = new HashMap<>();
+        Set<Integer> missing = new HashSet<>();
+        for (Integer productId : productIds) {
+            Integer merchantId = merchantByProduct.get(productId);
+            if (merchantId != null) {
+                result.put(productId, merchantId);
+            } else {
+                missing.add(productId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            QueryWrapper<Inventory> inventoryQuery = new QueryWrapper<>();
+            inventoryQuery.in("product_id", missing);
+            for (Inventory inventory : inventoryMapper.selectList(inventoryQuery)) {
+                if (inventory.getUserId() != null) {
+                    merchantByProduct.put(inventory.getProductId(), inventory.getUserId());
+                    result.put(inventory.getProductId(), inventory.getUserId());
+                }
+            }
+        }
+        return result;
+    }
+    
+    private static Order newOrder(CreateOrderRequest request, Integer customerId, Mall mall,
+                                  Integer merchantId, Integer addressId) {
         Order order = new Order();
         order.setProductId(request.getProductId());
         order.setCustomerId(customerId);
@@ -101,33 +247,60 @@ public class OrderServiceImpl implements OrderService {
         order.setProductName(mall.getProductName());
         order.setQuantity(request.getQuantity());
         order.setUnitPrice(mall.getPrice());
-        order.setTotalAmount(totalAmount);
+        order.setTotalAmount(mall.getPrice().multiply(new BigDecimal(request.getQuantity())));
         order.setImageUrl(mall.getImageUrl());
+        order.setWarehouseId(mall.getWarehouseId());
         order.setStatus(0);
         order.setOrderTime(LocalDateTime.now());
-        
-        orderMapper.insert(order);
         return order;
     }
     
     @Override
-    public List<Order> getCustomerOrders(Integer customerId, Integer status, String search) {
+    public CursorPage<Order> getCustomerOrders(Integer customerId, Integer status, String search, String cursor, Integer limit) {
         QueryWrapper<Order> qw = new QueryWrapper<>();
         qw.eq("customer_id", customerId);
-        if (status != null) qw.eq("status", status);
-        if (search != null && !search.trim().isEmpty()) qw.like("product_name", search);
-        qw.orderByDesc("order_time");
-        return orderMapper.selectList(qw);
+        return selectOrderPage(qw, status, search, cursor, limit);
     }
     
     @Override
-    public List<Order> getMerchantOrders(Integer merchantId, Integer status, String search) {
+    public CursorPage<Order> getMerchantOrders(Integer merchantId, Integer status, String search, String cursor, Integer limit) {
         QueryWrapper<Order> qw = new QueryWrapper<>();
         qw.eq("merchant_id", merchantId);
+        return selectOrderPage(qw, status, search, cursor, limit);
+    }
+
+    /**
+     * 顾客/商户订单的公共分页查询：按 (order_time, order_id) 倒序 keyset 分页，
+     * 走 idx_orders_customer_page / idx_orders_merchant_page 索引，下单时间为空的订单排在最后；
+     * 商品名称检索先由搜索索引解析为商品ID，索引未就绪时回退到 LIKE
+     */
+    private CursorPage<Order> selectOrderPage(QueryWrapper<Order> qw, Integer status, String search, String cursor, Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        PageCursor after = PageCursor.decode(cursor);
         if (status != null) qw.eq("status", status);
-        if (search != null && !search.trim().isEmpty()) qw.like("product_name", search);
-        qw.orderByDesc("order_time");
-        return orderMapper.selectList(qw);
+        if (search != null && !search.trim().isEmpty()) {
+            List<Integer> productIds = searchIndexService.matchProductIds(search);
+            if (productIds == null) {
+                qw.like("product_name", search);
+            } else if (productIds.isEmpty()) {
+                return CursorPage.empty();
+            } else {
+                qw.in("product_id", productIds);
+            }
+        }
+        if (after != null) {
+            if (after.getTime() == null) {
+                qw.isNull("order_time").lt("order_id", after.getId());
+            } else {
+                qw.and(w -> w.lt("order_time", after.getTime())
+                        .or(o -> o.eq("order_time", after.getTime()).lt("order_id", after.getId()))
+                        .or().isNull("order_time"));
+            }
+        }
+        qw.orderByDesc("order_time", "order_id");
+        qw.last("LIMIT " + (pageSize + 1));
+        return CursorPage.of(orderMapper.selectList(qw), pageSize,
+                o -> PageCursor.of(o.getOrderTime(), o.getOrderId()));
     }
     
     @Override
@@ -141,6 +314,7 @@ public class OrderServiceImpl implements OrderService {
         order.setStatus(5);
         order.setReceiveTime(LocalDateTime.now());
         orderMapper.updateById(order);
+        orderRollupService.recordStatusChange(order, 4);
     }
     
     @Override
@@ -154,16 +328,27 @@ public class OrderServiceImpl implements OrderService {
         order.setStatus(1);
         order.setShipTime(LocalDateTime.now());
         orderMapper.updateById(order);
+        orderRollupService.recordStatusChange(order, 0);
     }
     
     @Override
-    public List<Order> getPendingPickupOrders(Long driverId, String search) {
-        // 直接从 users 表获取 warehouse_id
-        User driver = userMapper.selectById(driverId);
-        if (driver == null || driver.getWarehouseId() == null) {
+    public CursorPage<Order> getPendingPickupOrders(Long driverId, String search, String cursor, Integer limit) {
+        Integer warehouseId = directoryCache.getDriverWarehouseId(driverId);
+        if (warehouseId == null) {
             throw new RuntimeException("配送员或仓库信息不存在");
         }
-        return orderMapper.selectPendingPickupOrders(driver.getWarehouseId(), search);
+        int pageSize = CursorPage.clampLimit(limit);
+        PageCursor after = PageCursor.decode(cursor);
+        List<Integer> productIds = null;
+        if (search != null && !search.trim().isEmpty()) {
+            productIds = searchIndexService.matchProductIds(search);
+            if (productIds != null && productIds.isEmpty()) {
+                return CursorPage.empty();
+            }
+        }
+        List<Order> rows = orderMapper.selectPendingPickupOrders(
+                warehouseId, search, productIds, after, pageSize + 1);
+        return CursorPage.of(rows, pageSize, o -> PageCursor.of(o.getShipTime(), o.getOrderId()));
     }
     
     @Override
@@ -176,117 +361,205 @@ public class OrderServiceImpl implements OrderService {
         order.setStatus(2);
         order.setPickupTime(LocalDateTime.now());
         orderMapper.updateById(order);
+        orderRollupService.recordStatusChange(order, 1);
     }
     
     @Override
     public List<Order> getPendingDeliveryOrders(Long driverId) {
-        User driver = userMapper.selectById(driverId);
-        if (driver == null || driver.getWarehouseId() == null) {
+        Integer warehouseId = directoryCache.getDriverWarehouseId(driverId);
+        if (warehouseId == null) {
             throw new RuntimeException("配送员或仓库信息不存在");
         }
-        return orderMapper.selectPendingDeliveryOrders(driver.getWarehouseId());
+        return orderMapper.selectPendingDeliveryOrders(warehouseId);
     }
     
+    /**
+     * 路线规划可能调用腾讯地图，在事务外完成；事务内复核订单状态后只做写入，不在持有连接时等待外部接口
+     */
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public com.logistics.dto.CreateBatchResponse createDeliveryBatch(Long driverId, List<Integer> orderIds) {
         if (driverId == null) throw new RuntimeException("配送员ID不能为空");
         if (orderIds == null || orderIds.isEmpty()) throw new RuntimeException("订单列表不能为空");
-        if (orderIds.size() > 5) throw new RuntimeException("每个批次最多只能选择5个订单");
+        if (orderIds.size() > maxBatchOrders) throw new RuntimeException("每个批次最多只能选择" + maxBatchOrders + "个订单");
 
-        // 直接从 users 表获取配送员信息
-        User driver = userMapper.selectById(driverId);
-        if (driver == null || driver.getWarehouseId() == null) {
+        Integer warehouseId = directoryCache.getDriverWarehouseId(driverId);
+        if (warehouseId == null) {
             throw new RuntimeException("配送员或仓库信息不存在");
         }
-        Warehouse warehouse = warehouseMapper.selectById(driver.getWarehouseId());
+        Warehouse warehouse = directoryCache.getWarehouse(warehouseId);
         if (warehouse == null || warehouse.getLongitude() == null || warehouse.getLatitude() == null) {
             throw new RuntimeException("仓库坐标信息不完整");
         }
 
-        List<Order> orders = new ArrayList<>();
-        List<Address> addresses = new ArrayList<>();
+        Map<Integer, Order> candidates = loadDeliveryCandidates(orderIds, null);
+        List<Order> orders = orderIds.stream().map(candidates::get).collect(Collectors.toList());
+        PlannedDeliveryBatch planned = planDeliveryBatch(driverId, warehouse, orders);
+
+        return transactionTemplate.execute(status -> {
+            // 规划路线期间订单可能已被其他批次占用或改变状态
+            loadDeliveryCandidates(orderIds, null);
+            List<DeliveryBatchOrder> links = new ArrayList<>(orders.size());
+            com.logistics.dto.CreateBatchResponse resp = saveDeliveryBatch(planned, links);
+            deliveryBatchOrderMapper.insertBatch(links);
+            return resp;
+        });
+    }
+
+    /**
+     * 最多 max-bulk-batches 个批次的路线规划全部在事务外完成，事务内复核订单后批量写入
+     */
+    @Override
+    public List<com.logistics.dto.CreateBatchResponse> createDeliveryBatches(
+            com.logistics.dto.BulkCreateBatchRequest request) {
+        if (request == null || request.getWarehouseId() == null) throw new RuntimeException("仓库ID不能为空");
+        List<com.logistics.dto.BulkCreateBatchRequest.BatchAssignment> assignments = request.getBatches();
+        if (assignments == null || assignments.isEmpty()) throw new RuntimeException("批次列表不能为空");
+        if (assignments.size() > maxBulkBatches) {
+            throw new RuntimeException("一次最多只能创建" + maxBulkBatches + "个批次");
+        }
+
+        List<Integer> allOrderIds = new ArrayList<>();
+        Set<Integer> distinctOrderIds = new HashSet<>();
+        Set<Long> driverIds = new HashSet<>();
+        for (com.logistics.dto.BulkCreateBatchRequest.BatchAssignment assignment : assignments) {
+            if (assignment.getDriverId() == null) throw new RuntimeException("配送员ID不能为空");
+            List<Integer> orderIds = assignment.getOrderIds();
+            if (orderIds == null || orderIds.isEmpty()) throw new RuntimeException("订单列表不能为空");
+            if (orderIds.size() > maxBatchOrders) {
+                throw new RuntimeException("每个批次最多只能选择" + maxBatchOrders + "个订单");
+            }
+            driverIds.add(assignment.getDriverId());
+            for (Integer orderId : orderIds) {
+                if (orderId == null) throw new RuntimeException("订单ID不能为空");
+                if (!distinctOrderIds.add(orderId)) throw new RuntimeException("订单重复: " + orderId);
+                allOrderIds.add(orderId);
+            }
+        }
+
+        Warehouse warehouse = directoryCache.getWarehouse(request.getWarehouseId());
+        if (warehouse == null || warehouse.getLongitude() == null || warehouse.getLatitude() == null) {
+            throw new RuntimeException("仓库坐标信息不完整");
+        }
+        Map<Long, User> drivers = userMapper.selectBatchIds(driverIds).stream()
+            .collect(Collectors.toMap(User::getId, u -> u));
+        for (Long driverId : driverIds) {
+            User driver = drivers.get(driverId);
+            if (driver == null) throw new RuntimeException("配送员不存在: " + driverId);
+            if (!warehouse.getId().equals(driver.getWarehouseId())) {
+                throw new RuntimeException("配送员不属于该仓库: " + driverId);
+            }
+        }
+
+        Map<Integer, Order> candidates = loadDeliveryCandidates(allOrderIds, warehouse.getId());
+        List<PlannedDeliveryBatch> plans = new ArrayList<>(assignments.size());
+        for (com.logistics.dto.BulkCreateBatchRequest.BatchAssignment assignment : assignments) {
+            List<Order> orders = assignment.getOrderIds().stream()
+                .map(candidates::get).collect(Collectors.toList());
+            plans.add(planDeliveryBatch(assignment.getDriverId(), warehouse, orders));
+        }
+
+        return transactionTemplate.execute(status -> {
+            // 规划路线期间订单可能已被其他批次占用或改变状态
+            loadDeliveryCandidates(allOrderIds, warehouse.getId());
+            List<DeliveryBatchOrder> links = new ArrayList<>(allOrderIds.size());
+            List<com.logistics.dto.CreateBatchResponse> responses = new ArrayList<>(plans.size());
+            for (PlannedDeliveryBatch planned : plans) {
+                responses.add(saveDeliveryBatch(planned, links));
+            }
+            for (int from = 0; from < links.size(); from += LINK_INSERT_CHUNK_SIZE) {
+                deliveryBatchOrderMapper.insertBatch(links.subList(from, Math.min(from + LINK_INSERT_CHUNK_SIZE, links.size())));
+            }
+            return responses;
+        });
+    }
+
+    /**
+     * 一次查询加载并校验待配送订单（含默认收货地址与活跃批次归属）
+     *
+     * @param warehouseId 非 null 时要求订单都从该仓库发货
+     * @return orderId → 订单（address 为顾客默认收货地址）
+     */
+    private Map<Integer, Order> loadDeliveryCandidates(List<Integer> orderIds, Integer warehouseId) {
+        Set<Integer> distinctIds = new HashSet<>();
         for (Integer orderId : orderIds) {
-            Order order = orderMapper.selectById(orderId);
+            if (orderId == null) throw new RuntimeException("订单ID不能为空");
+            if (!distinctIds.add(orderId)) throw new RuntimeException("订单重复: " + orderId);
+        }
+
+        Map<Integer, Order> candidates = new HashMap<>();
+        for (Order order : orderMapper.selectDeliveryCandidates(distinctIds)) {
+            // 顾客存在多个默认地址时只取第一个
+            candidates.putIfAbsent(order.getOrderId(), order);
+        }
+
+        // 按请求顺序校验，报错的订单与逐条校验时一致
+        for (Integer orderId : orderIds) {
+            Order order = candidates.get(orderId);
             if (order == null) throw new RuntimeException("订单不存在: " + orderId);
             if (order.getStatus() != 2) throw new RuntimeException("订单状态不正确，只能配送已揽收的订单: " + orderId);
+            if (warehouseId != null && order.getWarehouseId() != null && !warehouseId.equals(order.getWarehouseId())) {
+                throw new RuntimeException("订单不属于该仓库: " + orderId);
+            }
+            if (order.getBatchId() != null) throw new RuntimeException("订单已在活跃批次中: " + orderId);
 
-            // 检查订单是否已在活跃批次中
-            Long existingCount = deliveryBatchOrderMapper.selectCount(
-                new com.baomidou.mybatisplus.core.conditions.query.QueryWrapper<DeliveryBatchOrder>()
-                    .eq("order_id", orderId)
-                    .inSql("batch_id", "SELECT id FROM delivery_batches WHERE status IN (0, 1)")
-            );
-            if (existingCount > 0) throw new RuntimeException("订单已在活跃批次中: " + orderId);
-
-            Address addr = addressMapper.selectOne(
-                new LambdaQueryWrapper<Address>()
-                    .eq(Address::getUserId, order.getCustomerId().longValue())
-                    .eq(Address::getIsDefault, 1)
-            );
-            if (addr == null) throw new RuntimeException("顾客未设置默认收货地址: " + orderId);
+            Address addr = order.getAddress();
+            if (addr == null || addr.getId() == null) throw new RuntimeException("顾客未设置默认收货地址: " + orderId);
             if (addr.getLongitude() == null || addr.getLatitude() == null) {
                 throw new RuntimeException("默认收货地址缺少坐标信息: " + orderId);
             }
-
-            orders.add(order);
-            addresses.add(addr);
-        }
-
-        // 调用腾讯地图API
-        String origin = warehouse.getLatitude().toPlainString() + "," + warehouse.getLongitude().toPlainString();
-        String destination;
-        String waypoints = null;
-        if (addresses.size() == 1) {
-            Address dest = addresses.get(0);
-            destination = dest.getLatitude().toPlainString() + "," + dest.getLongitude().toPlainString();
-        } else {
-            Address dest = addresses.get(addresses.size() - 1);
-            destination = dest.getLatitude().toPlainString() + "," + dest.getLongitude().toPlainString();
-            waypoints = addresses.subList(0, addresses.size() - 1).stream()
-                .map(a -> a.getLatitude().toPlainString() + "," + a.getLongitude().toPlainString())
-                .collect(Collectors.joining(";"));
-        }
-
-        JSONObject routeResponse = tencentMapService.planRoute(origin, destination, waypoints);
-        Integer totalDistance = null;
-        Integer totalDuration = null;
-
-        if (routeResponse != null) {
-            JSONObject result = routeResponse.getJSONObject("result");
-            if (result != null) {
-                JSONArray routes = result.getJSONArray("routes");
-                if (routes != null && !routes.isEmpty()) {
-                    JSONObject route = routes.getJSONObject(0);
-                    totalDistance = route.getInteger("distance");
-                    totalDuration = route.getInteger("duration");
-                }
-            }
         }
+        return candidates;
+    }
+
+    /**
+     * 排序停靠点并规划路线（不访问数据库）
+     */
+    private PlannedDeliveryBatch planDeliveryBatch(Long driverId, Warehouse warehouse, List<Order> orders) {
+        List<Address> addresses = orders.stream().map(Order::getAddress).collect(Collectors.toList());
+
+        // 按就近原则重排停靠顺序，再按该顺序规划路线
+        sequenceStops(warehouse, orders, addresses);
+
+        // 规划路线（命中缓存时不调用腾讯地图），路线在创建时即保存，开始运输时直接复用
+        RoutePlan plan = routePlanCache.plan(warehouse, addresses);
+        return new PlannedDeliveryBatch(driverId, warehouse.getId(), orders, plan);
+    }
+
+    /**
+     * 保存已规划的批次，批次-订单关联追加到 links 由调用方批量写入
+     */
+    private com.logistics.dto.CreateBatchResponse saveDeliveryBatch(PlannedDeliveryBatch planned,
+                                                                    List<DeliveryBatchOrder> links) {
+        List<Order> orders = planned.orders();
+        RoutePlan plan = planned.plan();
+        Integer totalDistance = plan != null ? plan.getDistance() : null;
+        Integer totalDuration = plan != null ? plan.getDuration() : null;
 
         // 保存批次 — driver_id 直接用 users.id
         DeliveryBatch batch = new DeliveryBatch();
-        batch.setDriverId(driverId.intValue());
-        batch.setWarehouseId(warehouse.getId());
+        batch.setDriverId(planned.driverId().intValue());
+        batch.setWarehouseId(planned.warehouseId());
         batch.setStatus(0);
         batch.setCreatedAt(LocalDateTime.now());
+        batch.setRouteData(plan != null ? plan.getPolyline() : null);
         batch.setTotalDistance(totalDistance);
         batch.setTotalDuration(totalDuration);
         batch.setCurrentIndex(0);
         deliveryBatchMapper.insert(batch);
 
-        // 保存批次-订单关联
+        // 批次-订单关联
         for (int seq = 0; seq < orders.size(); seq++) {
             DeliveryBatchOrder bo = new DeliveryBatchOrder();
             bo.setBatchId(batch.getId());
             bo.setOrderId(orders.get(seq).getOrderId());
             bo.setStopSequence(seq + 1);
-            deliveryBatchOrderMapper.insert(bo);
+            links.add(bo);
         }
 
         // 构建响应
         com.logistics.dto.CreateBatchResponse resp = new com.logistics.dto.CreateBatchResponse();
         resp.setBatchId(batch.getId());
+        resp.setDriverId(batch.getDriverId());
         resp.setTotalDistance(totalDistance);
         resp.setTotalDuration(totalDuration);
         resp.setOrderCount(orders.size());
@@ -296,73 +569,93 @@ public class OrderServiceImpl implements OrderService {
         return resp;
     }
     
+    /**
+     * 计算停靠点访问顺序，并按该顺序原地重排订单与地址列表
+     */
+    private void sequenceStops(Warehouse warehouse, List<Order> orders, List<Address> addresses) {
+        int count = addresses.size();
+        double[] lats = new double[count];
+        double[] lngs = new double[count];
+        for (int i = 0; i < count; i++) {
+            lats[i] = addresses.get(i).getLatitude().doubleValue();
+            lngs[i] = addresses.get(i).getLongitude().doubleValue();
+        }
+        int[] sequence = StopSequencer.sequence(warehouse.getLatitude().doubleValue(),
+                warehouse.getLongitude().doubleValue(), lats, lngs, TimeUnit.MILLISECONDS.toNanos(sequencingBudgetMs));
+
+        List<Order> sortedOrders = new ArrayList<>(count);
+        List<Address> sortedAddresses = new ArrayList<>(count);
+        for (int index : sequence) {
+            sortedOrders.add(orders.get(index));
+            sortedAddresses.add(addresses.get(index));
+        }
+        orders.clear();
+        orders.addAll(sortedOrders);
+        addresses.clear();
+        addresses.addAll(sortedAddresses);
+    }
+
     @Override
     public List<Order> getDeliveryBatchOrders(Integer warehouseId) {
         List<Order> orders = orderMapper.selectDeliveryBatchOrders(warehouseId);
-        for (Order order : orders) {
-            if (order.getAddressId() != null) {
-                order.setAddress(addressMapper.selectById(order.getAddressId()));
-            }
-        }
+        attachAddresses(orders);
         return orders;
     }
 
     @Override
     public List<Order> getDeliveryBatchOrders(LocalDateTime deliveryTime, Integer warehouseId) {
         List<Order> orders = orderMapper.selectDeliveryBatchOrdersByTimeAndWarehouse(deliveryTime, warehouseId);
-        for (Order order : orders) {
-            if (order.getAddressId() != null) {
-                order.setAddress(addressMapper.selectById(order.getAddressId()));
-            }
-        }
+        attachAddresses(orders);
         return orders;
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void updateOrdersToInTransit(List<Order> orders) {
+        List<Order> changed = new ArrayList<>();
         for (Order order : orders) {
             if (order.getStatus() == 2) {
                 order.setStatus(3);
                 order.setDeliveryTime(LocalDateTime.now());
                 orderMapper.updateById(order);
+                changed.add(order);
             }
         }
+        orderRollupService.recordStatusChanges(changed, 2);
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void completeDelivery(List<Integer> orderIds) {
         if (orderIds == null || orderIds.isEmpty()) throw new RuntimeException("订单列表不能为空");
+        List<Order> changed = new ArrayList<>(orderIds.size());
         for (Integer orderId : orderIds) {
             Order order = orderMapper.selectById(orderId);
             if (order == null) throw new RuntimeException("订单不存在: " + orderId);
             if (order.getStatus() != 3) throw new RuntimeException("订单状态不正确，无法完成送货: " + orderId);
             order.setStatus(4);
             orderMapper.updateById(order);
+            changed.add(order);
         }
+        orderRollupService.recordStatusChanges(changed, 3);
     }
 
     @Override
     public List<Order> getCompletedDeliveryBatches(Long driverId, LocalDateTime startTime, LocalDateTime endTime) {
-        User driver = userMapper.selectById(driverId);
-        if (driver == null || driver.getWarehouseId() == null) {
+        Integer warehouseId = directoryCache.getDriverWarehouseId(driverId);
+        if (warehouseId == null) {
             throw new RuntimeException("配送员或仓库信息不存在");
         }
 
         QueryWrapper<Order> qw = new QueryWrapper<>();
-        qw.eq("warehouse_id", driver.getWarehouseId());
+        qw.eq("warehouse_id", warehouseId);
         qw.eq("status", 4);
         if (startTime != null) qw.ge("delivery_time", startTime);
         if (endTime != null) qw.le("delivery_time", endTime);
         qw.orderByDesc("delivery_time");
 
         List<Order> orders = orderMapper.selectList(qw);
-        for (Order order : orders) {
-            if (order.getAddressId() != null) {
-                order.setAddress(addressMapper.selectById(order.getAddressId()));
-            }
-        }
+        attachAddresses(orders);
         return orders;
     }
 
@@ -393,26 +686,15 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     public List<Order> getOrdersByBatchId(Integer batchId) {
-        QueryWrapper<DeliveryBatchOrder> qw = new QueryWrapper<>();
-        qw.eq("batch_id", batchId).orderByAsc("stop_sequence");
-        List<DeliveryBatchOrder> batchOrders = deliveryBatchOrderMapper.selectList(qw);
-
-        List<Order> orders = new ArrayList<>();
-        for (DeliveryBatchOrder bo : batchOrders) {
-            Order order = orderMapper.selectOrderWithDetails(bo.getOrderId());
-            if (order != null) {
-                if (order.getAddressId() != null) {
-                    order.setAddress(addressMapper.selectById(order.getAddressId()));
-                }
-                orders.add(order);
-            }
-        }
-        return orders;
+        return loadOrdersByBatchIds(List.of(batchId)).getOrDefault(batchId, new ArrayList<>());
     }
 
     // ── Private helper ──
 
     private List<com.logistics.dto.DeliveryBatchResponse> buildBatchResponses(List<DeliveryBatch> batches) {
+        List<Integer> batchIds = batches.stream().map(DeliveryBatch::getId).collect(Collectors.toList());
+        Map<Integer, List<Order>> ordersByBatch = loadOrdersByBatchIds(batchIds);
+
         List<com.logistics.dto.DeliveryBatchResponse> responseList = new ArrayList<>();
         for (DeliveryBatch batch : batches) {
             com.logistics.dto.DeliveryBatchResponse response = new com.logistics.dto.DeliveryBatchResponse();
@@ -423,24 +705,48 @@ public class OrderServiceImpl implements OrderService {
             response.setCompletedAt(batch.getCompletedAt());
             response.setTotalDistance(batch.getTotalDistance());
             response.setTotalDuration(batch.getTotalDuration());
-
-            QueryWrapper<DeliveryBatchOrder> orderQuery = new QueryWrapper<>();
-            orderQuery.eq("batch_id", batch.getId()).orderByAsc("stop_sequence");
-            List<DeliveryBatchOrder> batchOrders = deliveryBatchOrderMapper.selectList(orderQuery);
-
-            List<Order> orders = new ArrayList<>();
-            for (DeliveryBatchOrder bo : batchOrders) {
-                Order order = orderMapper.selectOrderWithDetails(bo.getOrderId());
-                if (order != null) {
-                    if (order.getAddressId() != null) {
-                        order.setAddress(addressMapper.selectById(order.getAddressId()));
-                    }
-                    orders.add(order);
-                }
-            }
-            response.setOrders(orders);
+            response.setOrders(ordersByBatch.getOrDefault(batch.getId(), new ArrayList<>()));
             responseList.add(response);
         }
         return responseList;
     }
+
+    /**
+     * 批量加载多个批次的订单（含收货地址），每页批次一次联表查询，结果按 batchId 分组且保持停靠顺序
+     */
+    private Map<Integer, List<Order>> loadOrdersByBatchIds(List<Integer> batchIds) {
+        Map<Integer, List<Order>> ordersByBatch = new HashMap<>();
+        for (int from = 0; from < batchIds.size(); from += BATCH_LOAD_PAGE_SIZE) {
+            List<Integer> page = batchIds.subList(from, Math.min(from + BATCH_LOAD_PAGE_SIZE, batchIds.size()));
+            for (Order order : orderMapper.selectOrdersByBatchIds(page)) {
+                ordersByBatch.computeIfAbsent(order.getBatchId(), k -> new ArrayList<>()).add(order);
+            }
+        }
+        return ordersByBatch;
+    }
+
+    /**
+     * 一次查询为订单列表填充收货地址
+     */
+    private void attachAddresses(List<Order> orders) {
+        Set<Integer> addressIds = orders.stream()
+            .map(Order::getAddressId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        if (addressIds.isEmpty()) return;
+
+        Map<Integer, Address> addressById = addressMapper.selectBatchIds(addressIds).stream()
+            .collect(Collectors.toMap(a -> a.getId().intValue(), a -> a));
+        for (Order order : orders) {
+            if (order.getAddressId() != null) {
+                order.setAddress(addressById.get(order.getAddressId()));
+            }
+        }
+    }
+
+    /**
+     * 已排序停靠点、已规划路线、等待写入的批次
+     */
+    private record PlannedDeliveryBatch(Long driverId, Integer warehouseId, List<Order> orders, RoutePlan plan) {
+    }
 }
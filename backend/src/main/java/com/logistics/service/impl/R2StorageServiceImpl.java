@@ -5,60 +5,64 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
-import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.core.sync.RequestBody;
-import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
 
-import java.net.URI;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 /**
  * Cloudflare R2存储服务实现类
  * 注意：需要在application.yml中配置R2相关信息
+ * <p>
+ * S3Client 由 R2Config 创建，全局共用一个连接池。本地文件按 multipart-threshold-bytes 区分：
+ * 较小的文件一次 PUT，较大的文件按 part-size-bytes 分片上传，每个分片直接从磁盘读取，不整体载入内存。
  */
 @Slf4j
 @Service
 public class R2StorageServiceImpl implements R2StorageService {
-    
-    // TODO: 待配置 - 在application.yml中添加以下配置项
-    @Value("${cloudflare.r2.account-id:}")
-    private String accountId;
-    
-    @Value("${cloudflare.r2.access-key-id:}")
-    private String accessKeyId;
-    
-    @Value("${cloudflare.r2.secret-access-key:}")
-    private String secretAccessKey;
-    
-    @Value("${cloudflare.r2.bucket-name:}")
-    private String bucketName;
-    
-    @Value("${cloudflare.r2.public-url:}")
-    private String publicUrl;
-    
-    private S3Client s3Client;
-    
-    /**
-     * 初始化S3客户端（用于连接Cloudflare R2）
-     */
-    private S3Client getS3Client() {
-        if (s3Client == null) {
-            // Cloudflare R2的endpoint格式: https://{accountId}.r2.cloudflarestorage.com
-            String endpoint = String.format("https://%s.r2.cloudflarestorage.com", accountId);
-            
-            s3Client = S3Client.builder()
-                    .endpointOverride(URI.create(endpoint))
-                    .credentialsProvider(StaticCredentialsProvider.create(
-                            AwsBasicCredentials.create(accessKeyId, secretAccessKey)))
-                    .region(Region.of("auto"))
-                    .build();
+
+    /** S3 要求除最后一片外每片至少 5MB */
+    static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    private final S3Client s3Client;
+    private final String bucketName;
+    private final String publicUrl;
+    private final long multipartThreshold;
+    private final long partSize;
+
+    public R2StorageServiceImpl(S3Client r2Client,
+                                @Value("${cloudflare.r2.bucket-name:}") String bucketName,
+                                @Value("${cloudflare.r2.public-url:}") String publicUrl,
+                                @Value("${cloudflare.r2.multipart-threshold-bytes:16777216}") long multipartThreshold,
+                                @Value("${cloudflare.r2.part-size-bytes:8388608}") long partSize) {
+        if (partSize <= 0) {
+            throw new IllegalArgumentException("分片大小必须大于 0");
+        }
+        if (partSize < MIN_PART_SIZE) {
+            log.warn("分片大小 {} 小于 S3 要求的 5MB，仅适用于测试环境", partSize);
         }
-        return s3Client;
+        this.s3Client = r2Client;
+        this.bucketName = bucketName;
+        this.publicUrl = publicUrl;
+        this.multipartThreshold = multipartThreshold;
+        this.partSize = partSize;
     }
-    
+
     @Override
     public String uploadFile(MultipartFile file) {
         try {
@@ -80,14 +84,10 @@ public class R2StorageServiceImpl implements R2StorageService {
                     .contentType(file.getContentType())
                     .build();
             
-            getS3Client().putObject(putObjectRequest, 
+            s3Client.putObject(putObjectRequest,
                     RequestBody.fromInputStream(file.getInputStream(), file.getSize()));
             
-            // 返回公共访问URL
-            String fileUrl = publicUrl.endsWith("/") 
-                    ? publicUrl + fileName 
-                    : publicUrl + "/" + fileName;
-            
+            String fileUrl = publicUrlOf(fileName);
             log.info("文件上传成功: {}", fileUrl);
             return fileUrl;
             
@@ -96,4 +96,123 @@ public class R2StorageServiceImpl implements R2StorageService {
             throw new RuntimeException("文件上传失败: " + e.getMessage());
         }
     }
+
+    @Override
+    public String upload(Path file, String key, String contentType) {
+        try {
+            long size = Files.size(file);
+            if (size > multipartThreshold) {
+                uploadMultipart(file, size, key, contentType);
+            } else {
+                s3Client.putObject(PutObjectRequest.builder()
+                                .bucket(bucketName)
+                                .key(key)
+                                .contentType(contentType)
+                                .build(),
+                        RequestBody.fromFile(file));
+            }
+            String fileUrl = publicUrlOf(key);
+            log.info("文件上传成功: {}（{} 字节）", fileUrl, size);
+            return fileUrl;
+        } catch (Exception e) {
+            log.error("文件上传失败: {}", key, e);
+            throw new RuntimeException("文件上传失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 分片上传：任一分片失败时中止上传，避免 R2 上残留未完成的分片
+     */
+    private void uploadMultipart(Path file, long size, String key, String contentType) {
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(contentType)
+                .build()).uploadId();
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            int partNumber = 1;
+            for (long offset = 0; offset < size; offset += partSize, partNumber++) {
+                long length = Math.min(partSize, size - offset);
+                long start = offset;
+                // 每次重试都重新打开文件并定位到分片起点
+                RequestBody body = RequestBody.fromContentProvider(
+                        () -> openRange(file, start, length), length, "application/octet-stream");
+                String eTag = s3Client.uploadPart(UploadPartRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .contentLength(length)
+                        .build(), body).eTag();
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+            }
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+        } catch (RuntimeException e) {
+            try {
+                s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .build());
+            } catch (RuntimeException abortError) {
+                e.addSuppressed(abortError);
+            }
+            throw e;
+        }
+    }
+
+    private String publicUrlOf(String key) {
+        // 返回公共访问URL
+        return publicUrl.endsWith("/") ? publicUrl + key : publicUrl + "/" + key;
+    }
+
+    /**
+     * 打开文件中 [offset, offset + length) 区间的输入流
+     */
+    private static InputStream openRange(Path file, long offset, long length) {
+        try {
+            InputStream in = Files.newInputStream(file);
+            in.skipNBytes(offset);
+            return new FilterInputStream(in) {
+                private long remaining = length;
+
+                @Override
+                public int read() throws IOException {
+                    if (remaining <= 0) {
+                        return -1;
+                    }
+                    int b = super.read();
+                    if (b >= 0) {
+                        remaining--;
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int off, int len) throws IOException {
+                    if (remaining <= 0) {
+                        return -1;
+                    }
+                    int n = super.read(buffer, off, (int) Math.min(len, remaining));
+                    if (n > 0) {
+                        remaining -= n;
+                    }
+                    return n;
+                }
+
+                @Override
+                public boolean markSupported() {
+                    return false;
+                }
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
@@ -6,7 +6,8 @@ import com.logistics.dto.LoginResponse;
 import com.logistics.entity.User;
 import com.logistics.entity.Warehouse;
 import com.logistics.mapper.UserMapper;
-import com.logistics.mapper.WarehouseMapper;
+import com.logistics.service.DirectoryCache;
+import com.logistics.service.SearchIndexService;
 import com.logistics.service.UserService;
 import com.logistics.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
@@ -20,9 +21,10 @@ import org.springframework.stereotype.Service;
 public class UserServiceImpl implements UserService {
 
     private final UserMapper userMapper;
-    private final WarehouseMapper warehouseMapper;
+    private final DirectoryCache directoryCache;
     private final JwtUtil jwtUtil;
     private final PasswordEncoder passwordEncoder;
+    private final SearchIndexService searchIndexService;
 
     @Override
     public LoginResponse register(LoginRequest req) {
@@ -40,6 +42,7 @@ public class UserServiceImpl implements UserService {
         user.setPassword(passwordEncoder.encode(req.getPassword()));
         user.setRole(req.getRole());
         userMapper.insert(user);
+        searchIndexService.onUserSaved(user.getId(), user.getUsername());
         String token = jwtUtil.generateToken(user.getId(), user.getUsername(), user.getRole());
         LoginResponse.UserInfo userInfo = new LoginResponse.UserInfo(
             user.getId(), user.getUsername(), user.getRole(), token, null, null
@@ -68,7 +71,7 @@ public class UserServiceImpl implements UserService {
         String warehouseName = null;
         if ("driver".equals(user.getRole()) && user.getWarehouseId() != null) {
             warehouseId = user.getWarehouseId();
-            Warehouse warehouse = warehouseMapper.selectById(warehouseId);
+            Warehouse warehouse = directoryCache.getWarehouse(warehouseId);
             if (warehouse != null) {
                 warehouseName = warehouse.getName();
             }
@@ -2,6 +2,7 @@ package com.logistics.service.impl;
 
 import com.logistics.entity.Warehouse;
 import com.logistics.mapper.WarehouseMapper;
+import com.logistics.service.DirectoryCache;
 import com.logistics.service.WarehouseService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -16,6 +17,7 @@ import java.util.List;
 public class WarehouseServiceImpl implements WarehouseService {
     
     private final WarehouseMapper warehouseMapper;
+    private final DirectoryCache directoryCache;
     
     @Override
     public List<Warehouse> listAll() {
@@ -24,6 +26,6 @@ public class WarehouseServiceImpl implements WarehouseService {
 
     @Override
     public Warehouse getById(Integer id) {
-        return warehouseMapper.selectById(id);
+        return directoryCache.getWarehouse(id);
     }
 }
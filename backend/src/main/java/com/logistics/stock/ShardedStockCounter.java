@@ -0,0 +1,142 @@
+package com.logistics.stock;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 分片库存计数器
+ * <p>
+ * 单个商品的可用库存拆到多个分片上，扣减时从随机分片开始 CAS，热点商品的并发买家分散在不同缓存行上，
+ * 不会都争抢同一个计数。所有分片都不够扣时进入加锁的慢路径：把各分片收拢后整体判断，
+ * 扣减成功后把余量重新均分，因此总量足够时不会因为库存分散而误判不足。
+ * 库存始终守恒：扣减、归还、收拢都是原子操作，任何时刻各分片之和加上收拢中的数量等于真实余量。
+ * <p>
+ * 慢路径收拢期间分片之和会暂时偏小，用版本号（奇数表示收拢中）判断快照是否可信，
+ * 售罄后的请求在版本一致、总量确实不足时直接失败，不必排队加锁。
+ */
+public final class ShardedStockCounter {
+
+    /** 每个分片独占 128 字节（16 个 long），避免相邻分片伪共享 */
+    private static final int STRIDE = 16;
+    /** 每个分片至少分到的库存，库存很少时不再拆分 */
+    private static final int MIN_PER_SHARD = 16;
+
+    private final int shards;
+    private final AtomicLongArray cells;
+    private volatile int version;
+
+    /**
+     * @param available 初始可用库存
+     * @param maxShards 分片数上限
+     */
+    public ShardedStockCounter(long available, int maxShards) {
+        if (available < 0) {
+            throw new IllegalArgumentException("可用库存不能为负数");
+        }
+        this.shards = (int) Math.max(1, Math.min(Math.max(1, maxShards), available / MIN_PER_SHARD));
+        this.cells = new AtomicLongArray(shards * STRIDE);
+        spread(available);
+    }
+
+    /**
+     * 尝试扣减库存
+     *
+     * @return 扣减成功返回 true；库存不足返回 false，计数不变
+     */
+    public boolean tryAcquire(int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("扣减数量必须大于 0");
+        }
+        int start = shards == 1 ? 0 : ThreadLocalRandom.current().nextInt(shards);
+        for (int k = 0; k < shards; k++) {
+            int index = ((start + k) % shards) * STRIDE;
+            long current = cells.get(index);
+            while (current >= quantity) {
+                if (cells.compareAndSet(index, current, current - quantity)) {
+                    return true;
+                }
+                current = cells.get(index);
+            }
+        }
+        // 各分片单独都不够：版本一致且总量确实不足时直接失败
+        int before = version;
+        if ((before & 1) == 0 && sum() < quantity && version == before) {
+            return false;
+        }
+        return acquireSlow(quantity);
+    }
+
+    /**
+     * 归还库存（预留取消、事务回滚）
+     */
+    public void release(int quantity) {
+        if (quantity <= 0) {
+            return;
+        }
+        int index = shards == 1 ? 0 : ThreadLocalRandom.current().nextInt(shards) * STRIDE;
+        cells.getAndAdd(index, quantity);
+    }
+
+    /**
+     * 当前可用库存；并发扣减时只是近似值
+     */
+    public long available() {
+        return sum();
+    }
+
+    /**
+     * 用数据库中的真实库存覆盖计数（对账）
+     */
+    public synchronized void reset(long available) {
+        version++;
+        try {
+            for (int i = 0; i < shards; i++) {
+                cells.getAndSet(i * STRIDE, 0);
+            }
+            spread(Math.max(0, available));
+        } finally {
+            version++;
+        }
+    }
+
+    int shardCount() {
+        return shards;
+    }
+
+    private synchronized boolean acquireSlow(int quantity) {
+        version++;
+        try {
+            long total = 0;
+            for (int i = 0; i < shards; i++) {
+                total += cells.getAndSet(i * STRIDE, 0);
+            }
+            boolean acquired = total >= quantity;
+            spread(acquired ? total - quantity : total);
+            return acquired;
+        } finally {
+            version++;
+        }
+    }
+
+    /**
+     * 把数量均分到各分片；用加法而不是赋值，不会覆盖并发归还的库存
+     */
+    private void spread(long amount) {
+        long each = amount / shards;
+        long remainder = amount % shards;
+        for (int i = 0; i < shards; i++) {
+            long share = each + (i < remainder ? 1 : 0);
+            if (share > 0) {
+                cells.getAndAdd(i * STRIDE, share);
+            }
+        }
+    }
+
+    private long sum() {
+        long total = 0;
+        for (int i = 0; i < shards; i++) {
+            total += cells.get(i * STRIDE);
+        }
+        return total;
+    }
+}
@@ -1,54 +1,145 @@
 package com.logistics.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * JWT 生成与校验
+ * <p>
+ * 解析器在启动时构建一次，可被多线程共享。每个请求都要校验 Token，
+ * 校验通过的结果按 Token 的 SHA-256 缓存，到 exp 时刻过期，同一 Token 的后续请求不再重复验签和解析 JSON。
+ * <p>
+ * 实时推送（SSE）的 EventSource 无法设置请求头，只能把凭据放在 URL 里。为此另发短时票据：
+ * 带 purpose=stream 声明、有效期 jwt.stream-ticket-expiration 秒，只能用来建立推送连接，不能当作登录 Token 使用。
+ */
 @Component
 public class JwtUtil {
     
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    private static final String PURPOSE_CLAIM = "purpose";
+    private static final String STREAM_PURPOSE = "stream";
     
-    @Value("${jwt.expiration:86400}")
-    private long expirationSeconds;
+    private final long expirationSeconds;
+    private final long streamTicketSeconds;
+    private final Key secretKey;
+    private final JwtParser parser;
+    /** Token 的 SHA-256 → 已校验的用户信息 */
+    private final Cache<String, TokenPrincipal> verified;
     
-    private Key secretKey;
-    
-    @PostConstruct
-    public void init() {
+    public JwtUtil(@Value("${jwt.secret}") String jwtSecret,
+                   @Value("${jwt.expiration:86400}") long expirationSeconds,
+                   @Value("${jwt.stream-ticket-expiration:60}") long streamTicketSeconds,
+                   @Value("${jwt.cache.max-size:10000}") long cacheMaxSize,
+                   MeterRegistry meterRegistry) {
+        this.expirationSeconds = expirationSeconds;
+        this.streamTicketSeconds = streamTicketSeconds;
         // 确保密钥长度足够（至少256位 = 32字节）
         byte[] keyBytes = new byte[32];
         byte[] secretBytes = jwtSecret.getBytes();
         System.arraycopy(secretBytes, 0, keyBytes, 0, Math.min(secretBytes.length, keyBytes.length));
         this.secretKey = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(secretKey)
+                .build();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, TokenPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(String key, TokenPrincipal value, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, value.expiresAt() - System.currentTimeMillis()));
+                    }
+                    
+                    @Override
+                    public long expireAfterUpdate(String key, TokenPrincipal value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                    
+                    @Override
+                    public long expireAfterRead(String key, TokenPrincipal value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "jwt");
     }
     
     /**
      * 生成 Token
      */
     public String generateToken(Long userId, String username, String role) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("userId", userId);
-        claims.put("username", username);
-        claims.put("role", role);
-        
-        return Jwts.builder()
-                .setClaims(claims)
-                .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + expirationSeconds * 1000))
-                .signWith(secretKey)
-                .compact();
+        return sign(userClaims(userId, username, role), username, expirationSeconds);
+    }
+    
+    /**
+     * 生成实时推送票据，只能用于建立 SSE 连接
+     */
+    public String generateStreamTicket(Long userId, String username, String role) {
+        Map<String, Object> claims = userClaims(userId, username, role);
+        claims.put(PURPOSE_CLAIM, STREAM_PURPOSE);
+        return sign(claims, username, streamTicketSeconds);
+    }
+    
+    /**
+     * 校验 Token 并取出用户信息，一次解析得到全部字段
+     *
+     * @return Token 无效或已过期时返回 null
+     */
+    public TokenPrincipal resolve(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        String key = sha256(token);
+        TokenPrincipal principal = verified.getIfPresent(key);
+        if (principal == null) {
+            Claims claims = parseToken(token);
+            // 带 purpose 的是专用票据，不能当作登录 Token
+            if (claims == null || claims.getExpiration() == null || claims.get(PURPOSE_CLAIM) != null) {
+                return null;
+            }
+            principal = principal(claims);
+            // 无效 Token 不缓存，避免伪造的 Token 挤占缓存
+            verified.put(key, principal);
+        }
+        // 缓存过期按 exp 计算，这里再校验一次，避免清理滞后时放行刚过期的 Token
+        return principal.expiresAt() > System.currentTimeMillis() ? principal : null;
+    }
+    
+    /**
+     * 校验实时推送票据并取出用户信息
+     * <p>
+     * 票据只在建立连接时校验一次，有效期又短，不进缓存
+     *
+     * @return 票据无效、已过期或不是推送票据时返回 null
+     */
+    public TokenPrincipal resolveStreamTicket(String ticket) {
+        if (ticket == null || ticket.isEmpty()) {
+            return null;
+        }
+        Claims claims = parseToken(ticket);
+        if (claims == null || claims.getExpiration() == null
+                || !STREAM_PURPOSE.equals(claims.get(PURPOSE_CLAIM, String.class))) {
+            return null;
+        }
+        return principal(claims);
     }
     
     /**
@@ -56,11 +147,7 @@ public class JwtUtil {
      */
     public Claims parseToken(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(secretKey)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            return parser.parseClaimsJws(token).getBody();
         } catch (Exception e) {
             return null;
         }
@@ -70,35 +157,70 @@ public class JwtUtil {
      * 验证 Token 是否有效
      */
     public boolean validateToken(String token) {
-        try {
-            Claims claims = parseToken(token);
-            return claims != null && claims.getExpiration().after(new Date());
-        } catch (Exception e) {
-            return false;
-        }
+        return resolve(token) != null;
     }
     
     /**
      * 从 Token 中获取用户 ID
      */
     public Long getUserIdFromToken(String token) {
-        Claims claims = parseToken(token);
-        return claims != null ? claims.get("userId", Long.class) : null;
+        TokenPrincipal principal = resolve(token);
+        return principal != null ? principal.userId() : null;
     }
     
     /**
      * 从 Token 中获取用户名
      */
     public String getUsernameFromToken(String token) {
-        Claims claims = parseToken(token);
-        return claims != null ? claims.getSubject() : null;
+        TokenPrincipal principal = resolve(token);
+        return principal != null ? principal.username() : null;
     }
     
     /**
      * 从 Token 中获取角色
      */
     public String getRoleFromToken(String token) {
-        Claims claims = parseToken(token);
-        return claims != null ? claims.get("role", String.class) : null;
+        TokenPrincipal principal = resolve(token);
+        return principal != null ? principal.role() : null;
+    }
+    
+    private static Map<String, Object> userClaims(Long userId, String username, String role) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", userId);
+        claims.put("username", username);
+        claims.put("role", role);
+        return claims;
+    }
+    
+    private String sign(Map<String, Object> claims, String subject, long ttlSeconds) {
+        return Jwts.builder()
+                .setClaims(claims)
+                .setSubject(subject)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + ttlSeconds * 1000))
+                .signWith(secretKey)
+                .compact();
+    }
+    
+    private static TokenPrincipal principal(Claims claims) {
+        return new TokenPrincipal(claims.get("userId", Long.class), claims.getSubject(),
+                claims.get("role", String.class), claims.getExpiration().getTime());
+    }
+    
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * 校验通过的 Token 中的用户信息
+     *
+     * @param expiresAt exp 时刻（毫秒时间戳）
+     */
+    public record TokenPrincipal(Long userId, String username, String role, long expiresAt) {
     }
 }
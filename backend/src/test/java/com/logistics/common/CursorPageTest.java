@@ -0,0 +1,62 @@
+package com.logistics.common;
+
+import com.logistics.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorPageTest {
+
+    @Test
+    void of_extraRow_shouldTrimAndPointCursorAtLastItem() {
+        CursorPage<Long> page = CursorPage.of(List.of(9L, 8L, 7L), 2, PageCursor::ofId);
+
+        assertEquals(List.of(9L, 8L), page.getItems());
+        assertTrue(page.isHasMore());
+        assertEquals(8L, PageCursor.decode(page.getNextCursor()).getId());
+    }
+
+    @Test
+    void of_lastPage_shouldHaveNoCursor() {
+        CursorPage<Long> page = CursorPage.of(List.of(9L, 8L), 2, PageCursor::ofId);
+
+        assertEquals(2, page.getItems().size());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void clampLimit_shouldApplyDefaultAndCap() {
+        assertEquals(CursorPage.DEFAULT_LIMIT, CursorPage.clampLimit(null));
+        assertEquals(CursorPage.DEFAULT_LIMIT, CursorPage.clampLimit(0));
+        assertEquals(50, CursorPage.clampLimit(50));
+        assertEquals(CursorPage.MAX_LIMIT, CursorPage.clampLimit(100_000));
+    }
+
+    @Test
+    void pageCursor_shouldRoundTrip() {
+        LocalDateTime time = LocalDateTime.of(2026, 3, 1, 10, 30, 15);
+
+        PageCursor timed = PageCursor.decode(PageCursor.of(time, 123).encode());
+        assertEquals(time, timed.getTime());
+        assertEquals(123, timed.getId());
+
+        PageCursor idOnly = PageCursor.decode(PageCursor.ofId(7).encode());
+        assertNull(idOnly.getTime());
+        assertEquals(7, idOnly.getId());
+
+        assertNull(PageCursor.decode(null));
+        assertNull(PageCursor.decode(" "));
+    }
+
+    @Test
+    void pageCursor_invalid_shouldThrowBadRequest() {
+        for (String cursor : List.of("%%%", "bm9zZXA", "eHx5")) {
+            BusinessException e = assertThrows(BusinessException.class, () -> PageCursor.decode(cursor));
+            assertEquals(400, e.getCode());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.logistics.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncConfigTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<ThreadPoolTaskExecutor> started = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        started.forEach(ThreadPoolTaskExecutor::shutdown);
+    }
+
+    @Test
+    void taskExecutor_fullQueue_shouldRejectAndPublishMetrics() throws Exception {
+        ThreadPoolTaskExecutor executor = start(new AsyncConfig(registry, false).taskExecutor(1, 1));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+
+        executor.execute(() -> {
+            running.countDown();
+            await(release);
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        executor.execute(() -> { });
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+
+        assertEquals(1.0, gauge("executor.active", "async"));
+        assertEquals(1.0, gauge("executor.queued", "async"));
+        assertEquals(1.0, registry.get("executor.rejected").tag("name", "async").counter().count());
+
+        release.countDown();
+        executor.getThreadPoolExecutor().shutdown();
+        assertTrue(executor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(2.0, registry.get("executor.completed").tag("name", "async").functionCounter().count());
+        assertEquals(2, registry.get("executor.task.duration").tag("name", "async").timer().count());
+        assertEquals(2, registry.get("executor.task.wait").tag("name", "async").timer().count());
+    }
+
+    @Test
+    void simulationScheduler_shouldTimeEachRun() throws Exception {
+        ThreadPoolTaskScheduler scheduler = new AsyncConfig(registry, false).simulationScheduler(1);
+        scheduler.initialize();
+        try {
+            CountDownLatch runs = new CountDownLatch(3);
+            scheduler.scheduleAtFixedRate(runs::countDown, Duration.ofMillis(5));
+            assertTrue(runs.await(5, TimeUnit.SECONDS));
+        } finally {
+            scheduler.getScheduledThreadPoolExecutor().shutdown();
+            assertTrue(scheduler.getScheduledThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS));
+        }
+
+        assertTrue(registry.get("executor.task.duration").tag("name", "simulation").timer().count() >= 3);
+    }
+
+    @Test
+    void executors_shouldPublishMetricsPerName() {
+        AsyncConfig config = new AsyncConfig(registry, false);
+        config.simulationScheduler(1);
+        config.geocodeExecutor(2, 10);
+        config.uploadExecutor(2, 10);
+        config.uploadScheduler();
+        config.stockScheduler();
+        config.dispatchExecutor(2, 100);
+
+        for (String name : List.of("simulation", "stock", "geocode", "upload", "upload-retry", "dispatch")) {
+            // 线程池尚未初始化时读取指标不应报错
+            assertEquals(0.0, gauge("executor.active", name));
+            assertEquals(0.0, gauge("executor.queued", name));
+            assertNotNull(registry.get("executor.rejected").tag("name", name).counter());
+        }
+    }
+
+    @Test
+    void ioExecutor_virtualThreadsUnsupported_shouldFallBackToBoundedPool() {
+        Executor executor = new AsyncConfig(registry, true).uploadExecutor(3, 7);
+
+        if (VirtualThreadExecutor.virtualThreadFactory("probe-") == null) {
+            ThreadPoolTaskExecutor pool = assertInstanceOf(ThreadPoolTaskExecutor.class, executor);
+            assertEquals(3, pool.getMaxPoolSize());
+            assertEquals(7, pool.getQueueCapacity());
+        } else {
+            assertInstanceOf(VirtualThreadExecutor.class, executor);
+        }
+    }
+
+    private ThreadPoolTaskExecutor start(ThreadPoolTaskExecutor executor) {
+        executor.initialize();
+        started.add(executor);
+        return executor;
+    }
+
+    private double gauge(String meter, String name) {
+        return registry.get(meter).tag("name", name).gauge().value();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
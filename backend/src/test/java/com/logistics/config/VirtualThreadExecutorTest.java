@@ -0,0 +1,74 @@
+package com.logistics.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadExecutorTest {
+
+    @Test
+    void execute_shouldLimitConcurrencyAndRejectBeyondCapacity() throws Exception {
+        // 用平台线程工厂验证边界逻辑，与 JDK 版本无关
+        VirtualThreadExecutor executor = new VirtualThreadExecutor(Thread::new, 2, 3);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ExecutorMetrics.bind(registry, "test", executor);
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(5);
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            executor.execute(() -> {
+                peak.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                concurrent.decrementAndGet();
+                done.countDown();
+            });
+        }
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getActiveCount() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(2, executor.getActiveCount());
+        assertEquals(3, executor.getQueueSize());
+        assertEquals(5, executor.getPoolSize());
+        assertEquals(1.0, registry.get("executor.rejected").tag("name", "test").counter().count());
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getCompletedCount() < 5 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(2, peak.get());
+        assertEquals(5, executor.getCompletedCount());
+        assertEquals(0, executor.getPoolSize());
+        assertEquals(5, registry.get("executor.task.duration").tag("name", "test").timer().count());
+    }
+
+    @Test
+    void create_shouldMatchRuntimeSupport() {
+        boolean supported = Runtime.version().feature() >= 21;
+        VirtualThreadExecutor executor = VirtualThreadExecutor.create("vt-", 1, 0);
+
+        assertEquals(supported, executor != null);
+    }
+
+    @Test
+    void constructor_invalidBounds_shouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new VirtualThreadExecutor(Thread::new, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new VirtualThreadExecutor(Thread::new, 1, -1));
+    }
+}
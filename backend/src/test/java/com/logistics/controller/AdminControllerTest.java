@@ -1,11 +1,19 @@
 package com.logistics.controller;
 
+import com.logistics.common.CursorPage;
+import com.logistics.common.PageCursor;
 import com.logistics.common.Result;
+import com.logistics.dto.DailyOrderCount;
+import com.logistics.entity.Order;
 import com.logistics.entity.User;
 import com.logistics.exception.BusinessException;
 import com.logistics.mapper.OrderMapper;
 import com.logistics.mapper.UserMapper;
 import com.logistics.mapper.WarehouseMapper;
+import com.logistics.service.AdminStatsService;
+import com.logistics.service.DirectoryCache;
+import com.logistics.service.OrderRollupService;
+import com.logistics.service.SearchIndexService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,9 +22,13 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +46,18 @@ class AdminControllerTest {
     @Mock
     private WarehouseMapper warehouseMapper;
 
+    @Mock
+    private AdminStatsService adminStatsService;
+
+    @Mock
+    private OrderRollupService orderRollupService;
+
+    @Mock
+    private SearchIndexService searchIndexService;
+
+    @Mock
+    private DirectoryCache directoryCache;
+
     private User testUser;
 
     @BeforeEach
@@ -49,14 +73,93 @@ class AdminControllerTest {
     void listUsers_shouldReturnUsersWithoutPasswords() {
         when(userMapper.selectList(any())).thenReturn(List.of(testUser));
 
-        Result<?> result = adminController.listUsers(null, null);
+        Result<?> result = adminController.listUsers(null, null, null, null);
 
         assertTrue(result.isSuccess());
         @SuppressWarnings("unchecked")
-        List<User> users = (List<User>) result.getData();
+        CursorPage<User> page = (CursorPage<User>) result.getData();
+        List<User> users = page.getItems();
         assertNotNull(users);
         assertEquals(1, users.size());
         assertNull(users.get(0).getPassword());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void listUsers_moreRowsThanLimit_shouldReturnCursorOfLastItem() {
+        List<User> rows = new java.util.ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            User user = new User();
+            user.setId(id);
+            rows.add(user);
+        }
+        when(userMapper.selectList(any())).thenReturn(rows);
+
+        Result<?> result = adminController.listUsers(null, null, null, 2);
+
+        @SuppressWarnings("unchecked")
+        CursorPage<User> page = (CursorPage<User>) result.getData();
+        assertEquals(2, page.getItems().size());
+        assertTrue(page.isHasMore());
+        assertEquals(2L, PageCursor.decode(page.getNextCursor()).getId());
+    }
+
+    @Test
+    void listAllOrders_shouldFetchOneExtraRowAfterCursor() {
+        PageCursor cursor = PageCursor.of(java.time.LocalDateTime.of(2026, 3, 1, 10, 0), 50);
+        when(orderMapper.selectAllOrdersForAdmin(eq(1), isNull(), isNull(), isNull(), isNull(), any(), eq(21)))
+                .thenReturn(List.of());
+
+        Result<?> result = adminController.listAllOrders(1, null, cursor.encode(), null);
+
+        assertTrue(((CursorPage<?>) result.getData()).getItems().isEmpty());
+        verify(orderMapper).selectAllOrdersForAdmin(eq(1), isNull(), isNull(), isNull(), isNull(),
+                argThat(c -> c.getId() == 50 && c.getTime().equals(cursor.getTime())), eq(21));
+        verifyNoInteractions(searchIndexService);
+    }
+
+    @Test
+    void listAllOrders_indexReady_shouldMatchByIdsInsteadOfLike() {
+        when(searchIndexService.matchProductIds("10001")).thenReturn(List.of());
+        when(searchIndexService.matchUserIds("10001")).thenReturn(List.of(9L));
+        when(orderMapper.selectAllOrdersForAdmin(isNull(), eq("10001"), eq(List.of()), eq(List.of(9L)), eq(10001),
+                isNull(), eq(21))).thenReturn(List.of());
+
+        adminController.listAllOrders(null, "10001", null, null);
+
+        verify(orderMapper).selectAllOrdersForAdmin(isNull(), eq("10001"), eq(List.of()), eq(List.of(9L)), eq(10001),
+                isNull(), eq(21));
+    }
+
+    @Test
+    void listAllOrders_noIndexMatch_shouldNotQuery() {
+        when(searchIndexService.matchProductIds("耳机")).thenReturn(List.of());
+        when(searchIndexService.matchUserIds("耳机")).thenReturn(List.of());
+
+        Result<?> result = adminController.listAllOrders(null, "耳机", null, null);
+
+        assertTrue(((CursorPage<?>) result.getData()).getItems().isEmpty());
+        verifyNoInteractions(orderMapper);
+    }
+
+    @Test
+    void listAllOrders_indexNotReady_shouldFallBackToLike() {
+        when(searchIndexService.matchProductIds("手柄")).thenReturn(null);
+        when(orderMapper.selectAllOrdersForAdmin(isNull(), eq("手柄"), isNull(), isNull(), isNull(), isNull(), eq(21)))
+                .thenReturn(List.of());
+
+        adminController.listAllOrders(null, "手柄", null, null);
+
+        verify(searchIndexService, never()).matchUserIds(any());
+    }
+
+    @Test
+    void listAllOrders_invalidCursor_shouldThrow() {
+        BusinessException e = assertThrows(BusinessException.class,
+                () -> adminController.listAllOrders(null, null, "not a cursor", null));
+        assertEquals(400, e.getCode());
+        verifyNoInteractions(orderMapper);
     }
 
     @Test
@@ -98,17 +201,64 @@ class AdminControllerTest {
         Result<?> result = adminController.deleteUser(1L);
         assertTrue(result.isSuccess());
         verify(userMapper).deleteById(1L);
+        verify(searchIndexService).onUserDeleted(1L);
+        verify(directoryCache).invalidateUser(1L);
+    }
+
+    @Test
+    void updateUser_success_shouldInvalidateDirectoryCache() {
+        when(userMapper.selectById(1L)).thenReturn(testUser);
+
+        User update = new User();
+        update.setUsername("renamed");
+        update.setRole("driver");
+        adminController.updateUser(1L, update);
+
+        verify(userMapper).updateById(testUser);
+        verify(directoryCache).invalidateUser(1L);
+    }
+
+    @Test
+    void deleteUser_success_shouldInvalidateStats() {
+        when(userMapper.selectById(1L)).thenReturn(testUser);
+
+        adminController.deleteUser(1L);
+
+        verify(adminStatsService).invalidate();
     }
 
     @Test
-    void getOverview_shouldReturnStats() {
-        when(userMapper.selectCount(any())).thenReturn(10L);
-        when(orderMapper.selectCount(any())).thenReturn(20L);
-        when(orderMapper.selectList(any())).thenReturn(List.of());
-        when(warehouseMapper.selectCount(any())).thenReturn(5L);
+    void getOverview_shouldReturnCachedSnapshotWithoutQueryingMappers() {
+        Map<String, Object> snapshot = Map.of("totalUsers", 10L, "totalOrders", 20L);
+        when(adminStatsService.getOverview()).thenReturn(snapshot);
 
         Result<?> result = adminController.getOverview();
         assertTrue(result.isSuccess());
-        assertNotNull(result.getData());
+        assertSame(snapshot, result.getData());
+        verifyNoInteractions(userMapper, orderMapper, warehouseMapper);
+    }
+
+    @Test
+    void updateOrderStatus_shouldMoveOrderInRollup() {
+        Order order = new Order();
+        order.setOrderId(5);
+        order.setStatus(2);
+        when(orderMapper.selectById(5)).thenReturn(order);
+
+        adminController.updateOrderStatus(5, 4);
+
+        verify(orderRollupService).recordStatusChange(order, 2);
+        verify(adminStatsService).invalidate();
+    }
+
+    @Test
+    void listDailyOrders_shouldReadRollupOnly() {
+        List<DailyOrderCount> counts = List.of(new DailyOrderCount());
+        when(orderRollupService.getDailyOrderCounts(365, 2)).thenReturn(counts);
+
+        Result<?> result = adminController.listDailyOrders(365, 2);
+
+        assertSame(counts, result.getData());
+        verifyNoInteractions(orderMapper);
     }
 }
@@ -4,16 +4,28 @@ import com.logistics.common.Result;
 import com.logistics.exception.BusinessException;
 import com.logistics.mapper.DeliveryBatchMapper;
 import com.logistics.mapper.DeliveryBatchOrderMapper;
-import com.logistics.mapper.DeliveryLocationMapper;
+import com.logistics.dto.CurrentLocationResponse;
+import com.logistics.entity.Address;
 import com.logistics.entity.DeliveryBatch;
+import com.logistics.entity.Order;
+import com.logistics.entity.Warehouse;
+import com.logistics.route.RouteGeometry;
+import com.logistics.route.RoutePlan;
 import com.logistics.service.*;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -23,12 +35,15 @@ class DeliveryBatchControllerTest {
     private DeliveryBatchController controller;
 
     @Mock private DeliverySimulationService deliverySimulationService;
-    @Mock private TencentMapService tencentMapService;
     @Mock private OrderService orderService;
     @Mock private WarehouseService warehouseService;
-    @Mock private DeliveryLocationMapper deliveryLocationMapper;
     @Mock private DeliveryBatchMapper deliveryBatchMapper;
     @Mock private DeliveryBatchOrderMapper deliveryBatchOrderMapper;
+    @Mock private RouteGeometryCache routeGeometryCache;
+    @Mock private RoutePlanCache routePlanCache;
+    @Mock private DeliveryProgressBuffer deliveryProgressBuffer;
+    @Mock private DeliveryTrackingHub deliveryTrackingHub;
+    @Mock private BreadcrumbStore breadcrumbStore;
 
     @Test
     void startBatch_notFound_shouldThrow() {
@@ -44,6 +59,57 @@ class DeliveryBatchControllerTest {
         assertThrows(BusinessException.class, () -> controller.startBatch(1));
     }
 
+    @Test
+    void startBatch_routePlannedAtCreation_shouldReuseIt() {
+        DeliveryBatch batch = new DeliveryBatch();
+        batch.setId(1);
+        batch.setStatus(0);
+        batch.setWarehouseId(3);
+        batch.setRouteData("[39.9,116.4,100,100]");
+        when(deliveryBatchMapper.selectById(1)).thenReturn(batch);
+        when(warehouseService.getById(3)).thenReturn(new Warehouse());
+        when(orderService.getOrdersByBatchId(1)).thenReturn(List.of(new Order()));
+
+        Result<Void> result = controller.startBatch(1);
+
+        assertTrue(result.isSuccess());
+        verifyNoInteractions(routePlanCache);
+        verify(routeGeometryCache, never()).invalidate(any());
+        verify(deliverySimulationService).startSimulation(1);
+    }
+
+    @Test
+    void startBatch_legacyBatchWithoutRoute_shouldPlanOnce() {
+        DeliveryBatch batch = new DeliveryBatch();
+        batch.setId(1);
+        batch.setStatus(0);
+        batch.setWarehouseId(3);
+        Order order = new Order();
+        order.setAddress(new Address());
+        when(deliveryBatchMapper.selectById(1)).thenReturn(batch);
+        when(warehouseService.getById(3)).thenReturn(new Warehouse());
+        when(orderService.getOrdersByBatchId(1)).thenReturn(List.of(order));
+        when(routePlanCache.plan(any(), anyList())).thenReturn(new RoutePlan(1200, 300, "[39.9,116.4,100,100]"));
+
+        controller.startBatch(1);
+
+        assertEquals("[39.9,116.4,100,100]", batch.getRouteData());
+        assertEquals(1200, batch.getTotalDistance());
+        verify(routeGeometryCache).invalidate(1);
+        verify(deliverySimulationService).startSimulation(1);
+    }
+
+    @Test
+    void getLocationByBatch_notStarted_shouldThrow() {
+        DeliveryBatch batch = new DeliveryBatch();
+        batch.setId(1);
+        batch.setStatus(0);
+        when(deliveryBatchMapper.selectSummaryById(1)).thenReturn(batch);
+
+        assertThrows(BusinessException.class, () -> controller.getLocationByBatch(1));
+        verifyNoInteractions(routeGeometryCache);
+    }
+
     @Test
     void completeBatch_notFound_shouldThrow() {
         when(deliveryBatchMapper.selectById(999)).thenReturn(null);
@@ -66,10 +132,103 @@ class DeliveryBatchControllerTest {
 
     @Test
     void getLocationByBatch_noData_shouldThrow() {
-        when(deliveryBatchMapper.selectById(999)).thenReturn(null);
+        when(deliveryBatchMapper.selectSummaryById(999)).thenReturn(null);
         assertThrows(BusinessException.class, () -> controller.getLocationByBatch(999));
     }
 
+    @Test
+    void getLocationByBatch_shouldReadCachedRouteWithoutRouteData() {
+        DeliveryBatch batch = new DeliveryBatch();
+        batch.setId(1);
+        batch.setStatus(1);
+        batch.setCurrentIndex(1);
+        batch.setTotalDistance(2000);
+        batch.setTotalDuration(600);
+        when(deliveryBatchMapper.selectSummaryById(1)).thenReturn(batch);
+        RouteGeometry route = new RouteGeometry(
+                new double[]{39.90, 39.91, 39.92}, new double[]{116.40, 116.40, 116.40}, null, null);
+        when(routeGeometryCache.get(1)).thenReturn(route);
+        // 没有未写回的进度时使用数据库中的 current_index
+        when(deliveryProgressBuffer.getCurrentIndex(1)).thenReturn(null);
+
+        Result<CurrentLocationResponse> result = controller.getLocationByBatch(1);
+
+        assertTrue(result.isSuccess());
+        assertEquals(39.91, result.getData().getLatitude().doubleValue(), 1e-9);
+        assertEquals("DELIVERING", result.getData().getStatus());
+        assertEquals(1.0, result.getData().getRemainingDistance().doubleValue(), 0.01);
+        verify(deliveryBatchMapper, never()).selectById(any());
+    }
+
+    @Test
+    void getLocationByBatch_shouldPreferBufferedProgress() {
+        DeliveryBatch batch = new DeliveryBatch();
+        batch.setId(1);
+        batch.setStatus(1);
+        batch.setCurrentIndex(0);
+        batch.setTotalDistance(2000);
+        batch.setTotalDuration(600);
+        when(deliveryBatchMapper.selectSummaryById(1)).thenReturn(batch);
+        when(deliveryProgressBuffer.getCurrentIndex(1)).thenReturn(2);
+        RouteGeometry route = new RouteGeometry(
+                new double[]{39.90, 39.91, 39.92}, new double[]{116.40, 116.40, 116.40}, null, null);
+        when(routeGeometryCache.get(1)).thenReturn(route);
+
+        Result<CurrentLocationResponse> result = controller.getLocationByBatch(1);
+
+        assertEquals(39.92, result.getData().getLatitude().doubleValue(), 1e-9);
+        assertEquals(0.0, result.getData().getRemainingDistance().doubleValue(), 0.01);
+    }
+
+    @Test
+    void streamBatch_delivering_shouldSubscribeWithBufferedPosition() {
+        DeliveryBatch batch = new DeliveryBatch();
+        batch.setId(1);
+        batch.setStatus(1);
+        batch.setCurrentIndex(0);
+        when(deliveryBatchMapper.selectSummaryById(1)).thenReturn(batch);
+        when(deliveryProgressBuffer.getCurrentIndex(1)).thenReturn(1);
+        when(routeGeometryCache.get(1)).thenReturn(new RouteGeometry(
+                new double[]{39.90, 39.91, 39.92}, new double[]{116.40, 116.40, 116.40}, null, null));
+
+        controller.streamBatch(1, 0L);
+
+        ArgumentCaptor<DeliveryTrackingHub.TrackingEvent> snapshot =
+                ArgumentCaptor.forClass(DeliveryTrackingHub.TrackingEvent.class);
+        verify(deliveryTrackingHub).subscribe(eq(1), eq(0L), snapshot.capture());
+        assertEquals(1, snapshot.getValue().id());
+        assertEquals("location", snapshot.getValue().name());
+        assertFalse(snapshot.getValue().terminal());
+        assertTrue(snapshot.getValue().data().contains("\"latitude\":39.91"));
+    }
+
+    @Test
+    void streamBatch_completed_shouldSubscribeWithTerminalSnapshot() {
+        DeliveryBatch batch = new DeliveryBatch();
+        batch.setId(1);
+        batch.setStatus(2);
+        batch.setCurrentIndex(2);
+        when(deliveryBatchMapper.selectSummaryById(1)).thenReturn(batch);
+        when(routeGeometryCache.get(1)).thenReturn(new RouteGeometry(
+                new double[]{39.90, 39.91, 39.92}, new double[]{116.40, 116.40, 116.40}, null, null));
+
+        controller.streamBatch(1, null);
+
+        ArgumentCaptor<DeliveryTrackingHub.TrackingEvent> snapshot =
+                ArgumentCaptor.forClass(DeliveryTrackingHub.TrackingEvent.class);
+        verify(deliveryTrackingHub).subscribe(eq(1), isNull(), snapshot.capture());
+        assertTrue(snapshot.getValue().terminal());
+        assertTrue(snapshot.getValue().data().contains("\"status\":\"COMPLETED\""));
+    }
+
+    @Test
+    void streamOrder_withoutBatch_shouldThrow() {
+        when(deliveryBatchOrderMapper.selectOne(any())).thenReturn(null);
+
+        assertThrows(BusinessException.class, () -> controller.streamOrder(5, null));
+        verifyNoInteractions(deliveryTrackingHub);
+    }
+
     @Test
     void stopDelivery_shouldCallService() {
         Result<Void> result = controller.stopDelivery(1);
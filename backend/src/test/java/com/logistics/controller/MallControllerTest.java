@@ -0,0 +1,118 @@
+package com.logistics.controller;
+
+import com.logistics.common.Result;
+import com.logistics.dto.MallCatalogPage;
+import com.logistics.service.MallCatalogCache;
+import com.logistics.service.MallService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MallControllerTest {
+
+    private static final MallCatalogCache.Snapshot SNAPSHOT = new MallCatalogCache.Snapshot(
+            List.of(), List.of(), List.of(), "{\"json\":1}".getBytes(), new byte[]{31, -117}, "\"abc\"", 0L);
+
+    @InjectMocks
+    private MallController mallController;
+
+    @Mock
+    private MallService mallService;
+
+    @Mock
+    private MallCatalogCache mallCatalogCache;
+
+    @Test
+    void getMallProducts_acceptsGzip_shouldReturnCompressedBodyWithEtag() {
+        when(mallCatalogCache.current()).thenReturn(SNAPSHOT);
+
+        ResponseEntity<byte[]> response = mallController.getMallProducts(null, "gzip, deflate, br");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(SNAPSHOT.gzip(), response.getBody());
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        // 压缩版本与未压缩版本的字节不同，使用不同的强 ETag
+        assertEquals("\"abc-gz\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    void getMallProducts_noGzip_shouldReturnPlainJson() {
+        when(mallCatalogCache.current()).thenReturn(SNAPSHOT);
+
+        ResponseEntity<byte[]> response = mallController.getMallProducts(null, null);
+
+        assertSame(SNAPSHOT.json(), response.getBody());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"abc\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    void getMallProducts_gzipRefused_shouldReturnPlainJson() {
+        when(mallCatalogCache.current()).thenReturn(SNAPSHOT);
+
+        ResponseEntity<byte[]> response = mallController.getMallProducts(null, "gzip;q=0, identity");
+
+        assertSame(SNAPSHOT.json(), response.getBody());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void acceptsGzip_shouldHonourQValues() {
+        assertTrue(MallController.acceptsGzip("gzip"));
+        assertTrue(MallController.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(MallController.acceptsGzip("*"));
+        assertFalse(MallController.acceptsGzip("gzip;q=0"));
+        assertFalse(MallController.acceptsGzip("gzip; q=0.000, *"));
+        assertFalse(MallController.acceptsGzip("*;q=0"));
+        assertFalse(MallController.acceptsGzip("deflate, br"));
+    }
+
+    @Test
+    void getMallProducts_matchingEtag_shouldReturn304() {
+        when(mallCatalogCache.current()).thenReturn(SNAPSHOT);
+
+        ResponseEntity<byte[]> response = mallController.getMallProducts("\"old\", W/\"abc\"", "gzip");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals("\"abc-gz\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    void getMallProducts_matchingGzipEtag_shouldReturn304() {
+        when(mallCatalogCache.current()).thenReturn(SNAPSHOT);
+
+        ResponseEntity<byte[]> response = mallController.getMallProducts("\"abc-gz\"", "gzip");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals("\"abc-gz\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    void getMallProductPage_sameParamsAndSnapshot_shouldReturn304() {
+        when(mallCatalogCache.current()).thenReturn(SNAPSHOT);
+        when(mallCatalogCache.page(null, null, "newest", 1, 20)).thenReturn(new MallCatalogPage());
+
+        ResponseEntity<Result<MallCatalogPage>> first = mallController.getMallProductPage(null, null, "newest", 1, 20, null);
+        String etag = first.getHeaders().getETag();
+        ResponseEntity<Result<MallCatalogPage>> second = mallController.getMallProductPage(null, null, "newest", 1, 20, etag);
+        ResponseEntity<Result<MallCatalogPage>> otherPage = mallController.getMallProductPage(null, null, "newest", 2, 20, etag);
+
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertNotEquals(SNAPSHOT.etag(), etag);
+        assertEquals(HttpStatus.NOT_MODIFIED, second.getStatusCode());
+        assertNotEquals(etag, otherPage.getHeaders().getETag());
+        verify(mallCatalogCache, times(1)).page(null, null, "newest", 1, 20);
+    }
+}
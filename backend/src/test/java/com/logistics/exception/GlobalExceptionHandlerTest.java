@@ -2,6 +2,7 @@ package com.logistics.exception;
 
 import com.logistics.common.Result;
 import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.validation.BindException;
 import org.springframework.validation.FieldError;
 
@@ -31,6 +32,16 @@ class GlobalExceptionHandlerTest {
         assertEquals("未登录", result.getMessage());
     }
 
+    @Test
+    void handleTooManyRequestsException_shouldReturn429WithRetryAfter() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Result<Void> result = handler.handleTooManyRequestsException(new TooManyRequestsException("下单人数过多"), response);
+        assertFalse(result.isSuccess());
+        assertEquals(429, result.getCode());
+        assertEquals("下单人数过多", result.getMessage());
+        assertEquals("1", response.getHeader("Retry-After"));
+    }
+
     @Test
     void handleRuntimeException_shouldReturnServerError() {
         RuntimeException ex = new RuntimeException("NPE");
@@ -0,0 +1,90 @@
+package com.logistics.interceptor;
+
+import com.logistics.util.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtInterceptorTest {
+
+    private final JwtUtil jwtUtil = new JwtUtil("unit-test-secret-key-0123456789abcdef", 3600, 60, 100,
+            new SimpleMeterRegistry());
+    private final JwtInterceptor interceptor = new JwtInterceptor(jwtUtil);
+
+    @Test
+    void preHandle_validToken_shouldExposeUserAttributes() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders/customer");
+        request.addHeader("Authorization", "Bearer " + jwtUtil.generateToken(9L, "刘天赐", "consumer"));
+
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), new Object()));
+        assertEquals(9L, request.getAttribute("userId"));
+        assertEquals("刘天赐", request.getAttribute("username"));
+        assertEquals("consumer", request.getAttribute("role"));
+    }
+
+    @Test
+    void preHandle_missingOrInvalidToken_shouldReturn401() throws Exception {
+        for (String header : new String[]{null, "Bearer bad.token.value", "Basic abc"}) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders/customer");
+            if (header != null) {
+                request.addHeader("Authorization", header);
+            }
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            assertFalse(interceptor.preHandle(request, response, new Object()));
+            assertEquals(401, response.getStatus());
+            assertNull(request.getAttribute("userId"));
+        }
+    }
+
+    @Test
+    void preHandle_eventStreamWithTicket_shouldAuthenticate() throws Exception {
+        MockHttpServletRequest request = eventStream(jwtUtil.generateStreamTicket(9L, "刘天赐", "consumer"));
+
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), new Object()));
+        assertEquals(9L, request.getAttribute("userId"));
+        assertEquals("consumer", request.getAttribute("role"));
+    }
+
+    @Test
+    void preHandle_eventStreamWithLoginTokenInUrl_shouldReturn401() throws Exception {
+        MockHttpServletRequest request = eventStream(jwtUtil.generateToken(9L, "刘天赐", "consumer"));
+        request.addParameter("access_token", jwtUtil.generateToken(9L, "刘天赐", "consumer"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(interceptor.preHandle(request, response, new Object()));
+        assertEquals(401, response.getStatus());
+        assertNull(request.getAttribute("userId"));
+    }
+
+    @Test
+    void preHandle_ticketAsBearerOrOnOrdinaryRequest_shouldReturn401() throws Exception {
+        String ticket = jwtUtil.generateStreamTicket(9L, "刘天赐", "consumer");
+        MockHttpServletRequest bearer = new MockHttpServletRequest("GET", "/orders/customer");
+        bearer.addHeader("Authorization", "Bearer " + ticket);
+        MockHttpServletRequest query = new MockHttpServletRequest("GET", "/orders/customer");
+        query.addParameter("ticket", ticket);
+
+        for (MockHttpServletRequest request : new MockHttpServletRequest[]{bearer, query}) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            assertFalse(interceptor.preHandle(request, response, new Object()));
+            assertEquals(401, response.getStatus());
+        }
+    }
+
+    @Test
+    void preHandle_options_shouldPassWithoutToken() throws Exception {
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("OPTIONS", "/orders/create"),
+                new MockHttpServletResponse(), new Object()));
+    }
+
+    private static MockHttpServletRequest eventStream(String ticket) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/delivery-batch/stream/order");
+        request.addHeader("Accept", "text/event-stream");
+        request.addParameter("ticket", ticket);
+        return request;
+    }
+}
@@ -0,0 +1,122 @@
+package com.logistics.interceptor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SqlMetricsInterceptorTest {
+
+    private static final Configuration CONFIGURATION = new Configuration();
+
+    @Mock private Executor executor;
+
+    private SimpleMeterRegistry meterRegistry;
+    /** 按插件注解包装后的执行器，与 MyBatis 实际装配方式一致 */
+    private Executor plugged;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        plugged = (Executor) new SqlMetricsInterceptor(meterRegistry).plugin(executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SqlMetricsInterceptor.endRequest();
+    }
+
+    @Test
+    void intercept_query_shouldTimeStatementAndCountRows() throws SQLException {
+        MappedStatement select = statement("com.logistics.mapper.OrderMapper.selectList", SqlCommandType.SELECT);
+        when(executor.query(eq(select), any(), any(), any())).thenReturn(List.of(1, 2, 3));
+
+        List<Object> result = query(select);
+
+        assertEquals(List.of(1, 2, 3), result);
+        assertEquals(1, meterRegistry.get("sql.statements").tag("statement", "OrderMapper.selectList")
+                .tag("type", "select").tag("outcome", "success").timer().count());
+        assertEquals(3.0, meterRegistry.get("sql.rows").tag("statement", "OrderMapper.selectList")
+                .summary().totalAmount());
+    }
+
+    @Test
+    void intercept_failure_shouldRecordErrorAndRethrow() throws SQLException {
+        MappedStatement update = statement("com.logistics.mapper.OrderMapper.updateById", SqlCommandType.UPDATE);
+        when(executor.update(eq(update), any())).thenThrow(new SQLException("死锁"));
+
+        assertThrows(SQLException.class, () -> plugged.update(update, null));
+
+        assertEquals(1, meterRegistry.get("sql.statements").tag("statement", "OrderMapper.updateById")
+                .tag("outcome", "error").timer().count());
+        assertEquals(0, meterRegistry.find("sql.statements").tag("outcome", "success").timers().size());
+        assertNull(meterRegistry.find("sql.rows").summary());
+    }
+
+    @Test
+    void requestScope_shouldPublishPerRequestTotals() throws SQLException {
+        MappedStatement select = statement("com.logistics.mapper.UserMapper.selectById", SqlCommandType.SELECT);
+        MappedStatement update = statement("com.logistics.mapper.UserMapper.updateById", SqlCommandType.UPDATE);
+        when(executor.query(eq(select), any(), any(), any())).thenReturn(List.of(1));
+        when(executor.update(eq(update), any())).thenReturn(1);
+        RequestMetricsInterceptor requestMetrics = new RequestMetricsInterceptor(meterRegistry);
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/admin/users/7");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/admin/users/{id}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        requestMetrics.preHandle(request, response, null);
+        query(select);
+        plugged.update(update, null);
+        requestMetrics.afterCompletion(request, response, null, null);
+        // 请求之外的语句不计入
+        query(select);
+
+        assertEquals(2.0, meterRegistry.get("http.server.requests.sql.statements")
+                .tag("method", "PUT").tag("uri", "/admin/users/{id}").summary().totalAmount());
+        assertEquals(2.0, meterRegistry.get("http.server.requests.sql.rows").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("http.server.requests.sql.time").timer().count());
+        assertNull(SqlMetricsInterceptor.endRequest());
+    }
+
+    @Test
+    void asyncRequest_shouldClearThreadWithoutPublishing() {
+        RequestMetricsInterceptor requestMetrics = new RequestMetricsInterceptor(meterRegistry);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/delivery-batch/stream/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        requestMetrics.preHandle(request, response, null);
+        requestMetrics.afterConcurrentHandlingStarted(request, response, null);
+
+        assertNull(SqlMetricsInterceptor.endRequest());
+        assertNull(meterRegistry.find("http.server.requests.sql.statements").summary());
+    }
+
+    private List<Object> query(MappedStatement statement) throws SQLException {
+        return plugged.query(statement, null, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+    }
+
+    private static MappedStatement statement(String id, SqlCommandType type) {
+        return new MappedStatement.Builder(CONFIGURATION, id, new StaticSqlSource(CONFIGURATION, "select 1"), type)
+                .build();
+    }
+}
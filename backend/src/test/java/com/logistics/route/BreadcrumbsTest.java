@@ -0,0 +1,99 @@
+package com.logistics.route;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BreadcrumbsTest {
+
+    @Test
+    void encode_thenDecode_shouldRoundTripInMicroDegrees() {
+        Breadcrumbs points = new Breadcrumbs(2);
+        points.add(0, 39.984154, 116.307490, 1_760_000_000L);
+        points.add(10, 39.984274, 116.307455, 1_760_000_005L);
+        points.add(20, -33.868820, 151.209296, 1_760_000_004L);
+
+        Breadcrumbs decoded = Breadcrumbs.decode(points.encode());
+
+        assertEquals(3, decoded.size());
+        assertEquals(20, decoded.pathIndexAt(2));
+        assertEquals(39.984274, decoded.latitudeAt(1), 1e-9);
+        assertEquals(151.209296, decoded.longitudeAt(2), 1e-9);
+        // 时间可以回退
+        assertEquals(1_760_000_004L, decoded.epochSecondAt(2));
+    }
+
+    @Test
+    void encode_nearbyPoints_shouldTakeFewBytesPerPoint() {
+        Random random = new Random(7);
+        Breadcrumbs points = new Breadcrumbs(64);
+        double lat = 39.984154, lng = 116.307490;
+        for (int i = 0; i < 1000; i++) {
+            lat += (random.nextInt(801) - 400) / 1_000_000.0;
+            lng += (random.nextInt(801) - 400) / 1_000_000.0;
+            points.add(i * 10, lat, lng, 1_760_000_000L + i * 5);
+        }
+
+        byte[] data = points.encode();
+
+        assertTrue(data.length < 8 * 1000, "每点字节数过多: " + data.length / 1000.0);
+        assertEquals(1000, Breadcrumbs.decode(data).size());
+    }
+
+    @Test
+    void decode_truncated_shouldThrow() {
+        Breadcrumbs points = new Breadcrumbs(2);
+        points.add(0, 39.9, 116.4, 1_760_000_000L);
+        byte[] data = points.encode();
+
+        assertThrows(IllegalArgumentException.class, () -> Breadcrumbs.decode(Arrays.copyOf(data, data.length - 1)));
+    }
+
+    @Test
+    void removeFirst_shouldKeepRemainingInOrder() {
+        Breadcrumbs points = new Breadcrumbs(2);
+        for (int i = 0; i < 5; i++) {
+            points.add(i, 39.9 + i * 0.001, 116.4, 1_760_000_000L + i);
+        }
+
+        points.removeFirst(3);
+
+        assertEquals(2, points.size());
+        assertEquals(3, points.pathIndexAt(0));
+        assertEquals(4, points.pathIndexAt(1));
+    }
+
+    @Test
+    void downsample_straightLine_shouldKeepEndpointsOnly() {
+        Breadcrumbs points = new Breadcrumbs(16);
+        for (int i = 0; i <= 10; i++) {
+            points.add(i, 39.9 + i * 0.001, 116.4 + i * 0.001, 1_760_000_000L + i);
+        }
+
+        Breadcrumbs kept = points.downsample(5);
+
+        assertEquals(2, kept.size());
+        assertEquals(0, kept.pathIndexAt(0));
+        assertEquals(10, kept.pathIndexAt(1));
+    }
+
+    @Test
+    void downsample_corner_shouldBeKept() {
+        Breadcrumbs points = new Breadcrumbs(16);
+        // 向北约 550 米后转向东
+        for (int i = 0; i <= 5; i++) {
+            points.add(i, 39.9 + i * 0.001, 116.4, 1_760_000_000L + i);
+        }
+        for (int i = 1; i <= 5; i++) {
+            points.add(5 + i, 39.905, 116.4 + i * 0.001, 1_760_000_005L + i);
+        }
+
+        Breadcrumbs kept = points.downsample(5);
+
+        assertEquals(3, kept.size());
+        assertEquals(5, kept.pathIndexAt(1));
+    }
+}
@@ -0,0 +1,59 @@
+package com.logistics.route;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolylineCodecTest {
+
+    @Test
+    void decode_shouldApplyDeltasInMicroDegrees() {
+        double[] coords = PolylineCodec.decode("[39.984154,116.307490,120,-35, 0, 7]");
+
+        assertArrayEquals(new double[]{39.984154, 116.30749, 39.984274, 116.307455, 39.984274, 116.307462}, coords, 1e-9);
+    }
+
+    @Test
+    void decode_oddTrailingValue_shouldBeIgnored() {
+        assertEquals(2, PolylineCodec.decodeFixed("[39.9,116.4,5]").length);
+    }
+
+    @Test
+    void decode_emptyArray_shouldReturnEmpty() {
+        assertEquals(0, PolylineCodec.decode("[ ]").length);
+    }
+
+    @Test
+    void decode_waypointFormat_shouldThrow() {
+        assertFalse(PolylineCodec.isCompressed("[{\"lat\":39.9,\"lng\":116.4}]"));
+        assertThrows(IllegalArgumentException.class, () -> PolylineCodec.decode("[{\"lat\":39.9,\"lng\":116.4}]"));
+    }
+
+    @Test
+    void decode_malformed_shouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> PolylineCodec.decode("[39.9,,116.4]"));
+        assertThrows(IllegalArgumentException.class, () -> PolylineCodec.decode("[39.9,116.4"));
+        assertThrows(IllegalArgumentException.class, () -> PolylineCodec.decode("null"));
+    }
+
+    @Test
+    void encode_thenDecode_shouldRoundTripExactly() {
+        Random random = new Random(42);
+        for (int round = 0; round < 1000; round++) {
+            int[] coords = new int[random.nextInt(50) * 2];
+            for (int i = 0; i < coords.length; i++) {
+                coords[i] = random.nextInt(360_000_000) - 180_000_000;
+            }
+            assertArrayEquals(coords, PolylineCodec.decodeFixed(PolylineCodec.encode(coords)));
+        }
+    }
+
+    @Test
+    void encode_shouldProduceTencentFormat() {
+        assertEquals("[39.984154,116.30749,120,-35]",
+                PolylineCodec.encode(new int[]{39_984_154, 116_307_490, 39_984_274, 116_307_455}));
+        assertEquals("[-0.5,0.000001]", PolylineCodec.encode(new int[]{-500_000, 1}));
+    }
+}
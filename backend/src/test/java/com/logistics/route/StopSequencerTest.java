@@ -0,0 +1,118 @@
+package com.logistics.route;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StopSequencerTest {
+
+    private static final double ORIGIN_LAT = 39.95;
+    private static final double ORIGIN_LNG = 116.35;
+    private static final long BUDGET = 50_000_000L;
+
+    @Test
+    void sequence_collinearStops_shouldVisitByDistance() {
+        double[] lats = {39.94, 39.91, 39.93, 39.92};
+        double[] lngs = {116.4, 116.4, 116.4, 116.4};
+
+        assertArrayEquals(new int[]{1, 3, 2, 0}, StopSequencer.sequence(39.90, 116.4, lats, lngs, BUDGET));
+    }
+
+    @Test
+    void sequence_trivialInputs() {
+        assertArrayEquals(new int[0], StopSequencer.sequence(ORIGIN_LAT, ORIGIN_LNG, new double[0], new double[0], BUDGET));
+        assertArrayEquals(new int[]{0}, StopSequencer.sequence(ORIGIN_LAT, ORIGIN_LNG, new double[]{39.9}, new double[]{116.4}, BUDGET));
+    }
+
+    @Test
+    void sequence_smallInstances_shouldMatchBruteForceMostOfTheTime() {
+        Random random = new Random(1);
+        int optimal = 0;
+        int rounds = 200;
+        for (int round = 0; round < rounds; round++) {
+            int n = 2 + random.nextInt(6);
+            double[] lats = new double[n];
+            double[] lngs = new double[n];
+            for (int i = 0; i < n; i++) {
+                lats[i] = 39.9 + random.nextDouble() * 0.1;
+                lngs[i] = 116.3 + random.nextDouble() * 0.1;
+            }
+
+            int[] order = StopSequencer.sequence(ORIGIN_LAT, ORIGIN_LNG, lats, lngs, BUDGET);
+            assertPermutation(order, n);
+
+            double length = StopSequencer.pathLength(ORIGIN_LAT, ORIGIN_LNG, lats, lngs, order);
+            double greedy = StopSequencer.pathLength(ORIGIN_LAT, ORIGIN_LNG, lats, lngs,
+                    StopSequencer.sequence(ORIGIN_LAT, ORIGIN_LNG, lats, lngs, 0));
+            double best = bruteForce(lats, lngs, identity(n), 0);
+            assertTrue(length <= greedy + 1e-6, "局部改进不应比最近邻更差");
+            assertTrue(length <= best * 1.15, "与最优解差距过大");
+            if (length <= best + 1e-6) {
+                optimal++;
+            }
+        }
+        assertTrue(optimal >= rounds * 9 / 10, "最优解比例过低: " + optimal);
+    }
+
+    @Test
+    void sequence_fiftyStops_shouldFinishWithinBudget() {
+        Random random = new Random(7);
+        double[] lats = new double[50];
+        double[] lngs = new double[50];
+        for (int i = 0; i < 50; i++) {
+            lats[i] = 39.8 + random.nextDouble() * 0.3;
+            lngs[i] = 116.2 + random.nextDouble() * 0.3;
+        }
+
+        long start = System.nanoTime();
+        int[] order = StopSequencer.sequence(ORIGIN_LAT, ORIGIN_LNG, lats, lngs, 20_000_000L);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertPermutation(order, 50);
+        assertTrue(elapsedMs < 200, "耗时 " + elapsedMs + "ms");
+    }
+
+    @Test
+    void sequence_mismatchedArrays_shouldThrow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> StopSequencer.sequence(ORIGIN_LAT, ORIGIN_LNG, new double[2], new double[1], BUDGET));
+    }
+
+    private static void assertPermutation(int[] order, int n) {
+        assertEquals(n, order.length);
+        boolean[] seen = new boolean[n];
+        for (int stop : order) {
+            assertFalse(seen[stop], "重复的停靠点: " + stop);
+            seen[stop] = true;
+        }
+    }
+
+    private static int[] identity(int n) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        return order;
+    }
+
+    private static double bruteForce(double[] lats, double[] lngs, int[] order, int k) {
+        if (k == order.length) {
+            return StopSequencer.pathLength(ORIGIN_LAT, ORIGIN_LNG, lats, lngs, order);
+        }
+        double best = Double.MAX_VALUE;
+        for (int i = k; i < order.length; i++) {
+            swap(order, k, i);
+            best = Math.min(best, bruteForce(lats, lngs, order, k + 1));
+            swap(order, k, i);
+        }
+        return best;
+    }
+
+    private static void swap(int[] a, int i, int j) {
+        int tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+    }
+}
@@ -0,0 +1,107 @@
+package com.logistics.route;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SweepClustererTest {
+
+    private static final double ORIGIN_LAT = 39.90;
+    private static final double ORIGIN_LNG = 116.40;
+    private static final TravelModel MODEL = new TravelModel(1.3, 30, 3);
+    private static final double NO_LIMIT = Double.MAX_VALUE;
+
+    @Test
+    void cluster_randomStops_shouldCoverEachStopOnceWithinCapacity() {
+        Random random = new Random(7);
+        int n = 5000;
+        double[] lats = new double[n];
+        double[] lngs = new double[n];
+        for (int i = 0; i < n; i++) {
+            lats[i] = ORIGIN_LAT + (random.nextDouble() - 0.5) * 0.4;
+            lngs[i] = ORIGIN_LNG + (random.nextDouble() - 0.5) * 0.5;
+        }
+
+        List<int[]> clusters = SweepClusterer.cluster(ORIGIN_LAT, ORIGIN_LNG, lats, lngs, 30, NO_LIMIT, MODEL);
+
+        boolean[] seen = new boolean[n];
+        for (int[] cluster : clusters) {
+            assertTrue(cluster.length >= 1 && cluster.length <= 30);
+            for (int stop : cluster) {
+                assertFalse(seen[stop], "停靠点重复: " + stop);
+                seen[stop] = true;
+            }
+        }
+        for (boolean s : seen) {
+            assertTrue(s);
+        }
+        assertEquals((n + 29) / 30, clusters.size());
+    }
+
+    @Test
+    void cluster_oppositeDirections_shouldNotBeMixed() {
+        // 0、1、2 在仓库北侧，3、4、5 在南侧
+        double[] lats = {39.95, 39.96, 39.97, 39.85, 39.84, 39.83};
+        double[] lngs = {116.40, 116.401, 116.399, 116.40, 116.401, 116.399};
+
+        List<int[]> clusters = SweepClusterer.cluster(ORIGIN_LAT, ORIGIN_LNG, lats, lngs, 3, NO_LIMIT, MODEL);
+
+        assertEquals(2, clusters.size());
+        for (int[] cluster : clusters) {
+            boolean north = cluster[0] < 3;
+            for (int stop : cluster) {
+                assertEquals(north, stop < 3);
+            }
+        }
+    }
+
+    @Test
+    void cluster_stopsAroundSweepStartAngle_shouldStayTogether() {
+        // 仓库正西方向两侧的停靠点（方位角接近 ±180°），不应被拆到首尾两组
+        double[] lats = {39.901, 39.899, 39.902, 39.898};
+        double[] lngs = {116.30, 116.30, 116.31, 116.31};
+
+        List<int[]> clusters = SweepClusterer.cluster(ORIGIN_LAT, ORIGIN_LNG, lats, lngs, 4, NO_LIMIT, MODEL);
+
+        assertEquals(1, clusters.size());
+        assertEquals(4, clusters.get(0).length);
+    }
+
+    @Test
+    void cluster_durationLimit_shouldStartNewGroup() {
+        // 每站停留 3 分钟，上限 10 分钟时最多 3 站；距离很近可忽略行驶时间
+        double[] lats = new double[7];
+        double[] lngs = new double[7];
+        for (int i = 0; i < 7; i++) {
+            lats[i] = ORIGIN_LAT + 0.0001;
+            lngs[i] = ORIGIN_LNG + 0.0001 * (i + 1);
+        }
+
+        List<int[]> clusters = SweepClusterer.cluster(ORIGIN_LAT, ORIGIN_LNG, lats, lngs, 30, 600, MODEL);
+
+        assertEquals(List.of(3, 3, 1), clusters.stream().map(c -> c.length).toList());
+    }
+
+    @Test
+    void cluster_stopBeyondDurationLimit_shouldFormItsOwnGroup() {
+        double[] lats = {39.91, 41.50, 39.92};
+        double[] lngs = {116.40, 116.40, 116.40};
+
+        List<int[]> clusters = SweepClusterer.cluster(ORIGIN_LAT, ORIGIN_LNG, lats, lngs, 30, 3600, MODEL);
+
+        assertTrue(clusters.stream().anyMatch(c -> c.length == 1 && c[0] == 1));
+        assertEquals(3, clusters.stream().mapToInt(c -> c.length).sum());
+    }
+
+    @Test
+    void cluster_invalidInputs() {
+        assertTrue(SweepClusterer.cluster(ORIGIN_LAT, ORIGIN_LNG, new double[0], new double[0], 30, NO_LIMIT, MODEL).isEmpty());
+        assertThrows(IllegalArgumentException.class, () ->
+                SweepClusterer.cluster(ORIGIN_LAT, ORIGIN_LNG, new double[1], new double[2], 30, NO_LIMIT, MODEL));
+        assertThrows(IllegalArgumentException.class, () ->
+                SweepClusterer.cluster(ORIGIN_LAT, ORIGIN_LNG, new double[1], new double[1], 0, NO_LIMIT, MODEL));
+    }
+}
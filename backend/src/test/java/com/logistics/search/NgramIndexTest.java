@@ -0,0 +1,94 @@
+package com.logistics.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NgramIndexTest {
+
+    @Test
+    void search_chineseAndMixedText_shouldMatchSubstrings() {
+        NgramIndex index = new NgramIndex();
+        index.put(1001, "PS5游戏手柄");
+        index.put(1002, "Switch游戏机");
+        index.put(1003, "AirPods Pro");
+
+        assertArrayEquals(new long[]{1001, 1002}, index.search("游戏", 10));
+        assertArrayEquals(new long[]{1001}, index.search("戏手柄", 10));
+        assertArrayEquals(new long[]{1003}, index.search("pods p", 10));
+        assertArrayEquals(new long[]{1002}, index.search("机", 10));
+    }
+
+    @Test
+    void search_shouldIgnoreCaseAndFullWidth() {
+        NgramIndex index = new NgramIndex();
+        index.put(1, "PS5游戏手柄");
+
+        assertArrayEquals(new long[]{1}, index.search("ps５", 10));
+        assertArrayEquals(new long[]{1}, index.search(" Ps5 ", 10));
+    }
+
+    @Test
+    void search_bigramsPresentButNotAdjacent_shouldNotMatch() {
+        NgramIndex index = new NgramIndex();
+        index.put(1, "游戏 手柄");
+        index.put(2, "aa");
+
+        assertEquals(0, index.search("游手", 10).length);
+        assertEquals(0, index.search("aaa", 10).length);
+        assertArrayEquals(new long[]{2}, index.search("aa", 10));
+    }
+
+    @Test
+    void putAndRemove_shouldUpdatePostings() {
+        NgramIndex index = new NgramIndex();
+        index.put(3, "张三");
+        index.put(1, "张三丰");
+        assertArrayEquals(new long[]{1, 3}, index.search("张三", 10));
+
+        index.put(3, "李四");
+        assertArrayEquals(new long[]{1}, index.search("张三", 10));
+        assertArrayEquals(new long[]{3}, index.search("李四", 10));
+
+        index.remove(1);
+        assertEquals(0, index.search("张三", 10).length);
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void search_moreMatchesThanLimit_shouldReturnNull() {
+        NgramIndex index = new NgramIndex();
+        for (int id = 1; id <= 5; id++) {
+            index.put(id, "手机壳" + id);
+        }
+
+        assertNull(index.search("手机", 4));
+        assertEquals(5, index.search("手机", 5).length);
+        assertEquals(0, index.search("   ", 5).length);
+    }
+
+    @Test
+    void search_largeCatalog_shouldAnswerWithinMilliseconds() {
+        String alphabet = "手机游戏耳机充电器苹果华为小米键盘鼠标显示器电脑背包水杯衣服鞋子帽子abcdefghijklmnopqrstuvwxyz0123456789";
+        Random random = new Random(1);
+        NgramIndex index = new NgramIndex();
+        for (int id = 0; id < 100_000; id++) {
+            StringBuilder name = new StringBuilder();
+            int length = 6 + random.nextInt(14);
+            for (int k = 0; k < length; k++) {
+                name.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            index.put(id, name.toString());
+        }
+
+        index.search("鼠标", 1000);
+        long start = System.nanoTime();
+        for (String term : new String[]{"鼠标", "苹果手机", "xyz", "充电器"}) {
+            index.search(term, 1000);
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(elapsedMs < 40, "检索耗时过长: " + elapsedMs + "ms");
+    }
+}
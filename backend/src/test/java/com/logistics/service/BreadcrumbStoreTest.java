@@ -0,0 +1,249 @@
+package com.logistics.service;
+
+import com.logistics.entity.DeliveryTrackChunk;
+import com.logistics.mapper.DeliveryTrackChunkMapper;
+import com.logistics.route.Breadcrumbs;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BreadcrumbStoreTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 10, 1, 9, 0);
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    @Mock private DeliveryTrackChunkMapper deliveryTrackChunkMapper;
+    @Mock private TaskScheduler simulationScheduler;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<DeliveryTrackChunk> written = new ArrayList<>();
+    private BreadcrumbStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new BreadcrumbStore(deliveryTrackChunkMapper, simulationScheduler, meterRegistry, 4, 2000, 15, 7, 30);
+    }
+
+    @Test
+    void flush_shouldWriteOpenChunkAndSealWhenFull() {
+        captureWrites();
+        when(deliveryTrackChunkMapper.selectMaxSeq(1)).thenReturn(null);
+
+        append(1, 0, 4);
+        store.flush();
+        append(1, 4, 2);
+        store.flush();
+        append(1, 6, 1);
+        store.flush();
+
+        assertEquals(3, written.size());
+        assertChunk(written.get(0), 0, 4, 0, 30);
+        // 封块后的点进入下一块，未满的分块每次刷新整块覆盖
+        assertChunk(written.get(1), 1, 2, 40, 50);
+        assertChunk(written.get(2), 1, 3, 40, 60);
+        assertEquals(BreadcrumbStore.LEVEL_RAW, written.get(2).getLevel());
+        assertEquals("地址60", written.get(2).getLastAddress());
+        assertEquals(START.plusSeconds(60), written.get(2).getEndTime());
+        verify(deliveryTrackChunkMapper, times(1)).selectMaxSeq(1);
+        assertTrue(meterRegistry.get("tracking.breadcrumb.bytes").counter().count() > 0);
+    }
+
+    @Test
+    void flush_afterRestart_shouldContinueExistingSeq() {
+        captureWrites();
+        when(deliveryTrackChunkMapper.selectMaxSeq(1)).thenReturn(6);
+
+        append(1, 0, 1);
+        store.flush();
+
+        assertEquals(7, written.get(0).getSeq());
+    }
+
+    @Test
+    void flush_writeFailure_shouldRetryNextTime() {
+        when(deliveryTrackChunkMapper.selectMaxSeq(1)).thenReturn(null);
+        when(deliveryTrackChunkMapper.upsertBatch(any()))
+                .thenThrow(new RuntimeException("数据库不可用"))
+                .thenAnswer(inv -> {
+                    written.addAll(inv.getArgument(0));
+                    return 1;
+                });
+
+        append(1, 0, 4);
+        store.flush();
+        store.flush();
+        store.flush();
+
+        assertEquals(1, written.size());
+        assertChunk(written.get(0), 0, 4, 0, 30);
+        verify(deliveryTrackChunkMapper, times(2)).upsertBatch(any());
+    }
+
+    @Test
+    void flush_nothingPending_shouldNotTouchDatabase() {
+        store.flush();
+        verifyNoInteractions(deliveryTrackChunkMapper);
+    }
+
+    @Test
+    void latest_activeBatch_shouldBeServedFromMemory() {
+        append(1, 0, 3);
+
+        BreadcrumbStore.Breadcrumb latest = store.latest(1);
+
+        assertEquals(20, latest.pathIndex());
+        assertEquals("地址20", latest.address());
+        assertEquals(START.plusSeconds(20), latest.recordedAt());
+        verifyNoInteractions(deliveryTrackChunkMapper);
+    }
+
+    @Test
+    void latest_notInMemory_shouldDecodeLastChunk() {
+        Breadcrumbs points = new Breadcrumbs(2);
+        points.add(0, 39.9, 116.4, START.atZone(ZONE).toEpochSecond());
+        points.add(90, 39.95, 116.45, START.plusMinutes(5).atZone(ZONE).toEpochSecond());
+        DeliveryTrackChunk chunk = new DeliveryTrackChunk();
+        chunk.setData(points.encode());
+        chunk.setLastAddress("终点地址");
+        when(deliveryTrackChunkMapper.selectLatest(1)).thenReturn(chunk);
+
+        BreadcrumbStore.Breadcrumb latest = store.latest(1);
+
+        assertEquals(90, latest.pathIndex());
+        assertEquals(39.95, latest.latitude(), 1e-9);
+        assertEquals("终点地址", latest.address());
+        assertEquals(START.plusMinutes(5), latest.recordedAt());
+        assertNull(store.latest(2));
+    }
+
+    @Test
+    void finish_shouldWriteRemainingThenDownsampleIntoOneChunk() {
+        captureWrites();
+        when(deliveryTrackChunkMapper.selectMaxSeq(1)).thenReturn(null);
+        when(deliveryTrackChunkMapper.selectByBatchId(1)).thenAnswer(inv -> new ArrayList<>(written));
+
+        // 沿经线直行的 6 个点，降采样后只剩首尾
+        append(1, 0, 6);
+        store.finish(1);
+        store.flush();
+
+        assertEquals(2, written.size());
+        assertChunk(written.get(0), 0, 6, 0, 50);
+        DeliveryTrackChunk downsampled = written.get(1);
+        assertEquals(BreadcrumbStore.LEVEL_DOWNSAMPLED, downsampled.getLevel());
+        assertEquals(1, downsampled.getSeq());
+        assertEquals(2, downsampled.getPointCount());
+        assertEquals(0, downsampled.getFirstIndex());
+        assertEquals(50, downsampled.getLastIndex());
+        assertEquals("地址50", downsampled.getLastAddress());
+        verify(deliveryTrackChunkMapper).deleteBefore(1, 1);
+        assertEquals(0, store.getTrackCount());
+    }
+
+    @Test
+    void updateAddress_shouldBackfillLatestAndRewriteOpenChunk() {
+        captureWrites();
+        when(deliveryTrackChunkMapper.selectMaxSeq(1)).thenReturn(null);
+        append(1, 0, 2);
+        store.flush();
+
+        // 已不是最新点的回填被忽略
+        store.updateAddress(1, 0, "旧地址");
+        store.updateAddress(1, 10, "北京市海淀区中关村大街1号");
+        store.flush();
+
+        assertEquals("北京市海淀区中关村大街1号", store.latest(1).address());
+        assertEquals(2, written.size());
+        assertEquals("北京市海淀区中关村大街1号", written.get(1).getLastAddress());
+    }
+
+    @Test
+    void updateAddress_afterCompaction_shouldNotRecreateTrack() {
+        captureWrites();
+        when(deliveryTrackChunkMapper.selectMaxSeq(1)).thenReturn(null);
+        when(deliveryTrackChunkMapper.selectByBatchId(1)).thenAnswer(inv -> new ArrayList<>(written));
+        append(1, 0, 2);
+        store.finish(1);
+        store.flush();
+
+        store.updateAddress(1, 10, "北京市海淀区中关村大街1号");
+        store.flush();
+
+        assertEquals(0, store.getTrackCount());
+        assertEquals(2, written.size());
+    }
+
+    @Test
+    void finish_alreadyDownsampled_shouldDoNothing() {
+        DeliveryTrackChunk chunk = new DeliveryTrackChunk();
+        chunk.setLevel(BreadcrumbStore.LEVEL_DOWNSAMPLED);
+        when(deliveryTrackChunkMapper.selectByBatchId(1)).thenReturn(List.of(chunk));
+
+        store.finish(1);
+        store.flush();
+        store.flush();
+
+        verify(deliveryTrackChunkMapper, times(1)).selectByBatchId(1);
+        verify(deliveryTrackChunkMapper, never()).upsertBatch(any());
+        verify(deliveryTrackChunkMapper, never()).deleteBefore(any(), any());
+    }
+
+    @Test
+    void append_bufferFull_shouldDropNewPoints() {
+        append(1, 0, 4 * 16 + 3);
+
+        assertEquals(3.0, meterRegistry.get("tracking.breadcrumb.points").tag("result", "dropped").counter().count());
+        assertEquals(64.0, meterRegistry.get("tracking.breadcrumb.points").tag("result", "appended").counter().count());
+    }
+
+    @Test
+    void purgeExpired_shouldDeleteInBoundedRounds() {
+        when(deliveryTrackChunkMapper.deleteRawBefore(any(), anyInt()))
+                .thenReturn(BreadcrumbStore.PURGE_LIMIT, BreadcrumbStore.PURGE_LIMIT, 12);
+
+        store.purgeExpired();
+
+        verify(deliveryTrackChunkMapper, times(3)).deleteRawBefore(any(), eq(BreadcrumbStore.PURGE_LIMIT));
+    }
+
+    private void captureWrites() {
+        when(deliveryTrackChunkMapper.upsertBatch(any())).thenAnswer(inv -> {
+            written.addAll(inv.getArgument(0));
+            return 1;
+        });
+    }
+
+    /**
+     * 追加 count 个点：路径点索引从 firstIndex * 10 起按 10 递增，记录时间为 START 加索引秒数，沿经线向北
+     */
+    private void append(int batchId, int firstIndex, int count) {
+        for (int i = 0; i < count; i++) {
+            int index = firstIndex * 10 + i * 10;
+            store.append(batchId, index, 39.9 + index * 0.0001, 116.4, "地址" + index, START.plusSeconds(index));
+        }
+    }
+
+    private static void assertChunk(DeliveryTrackChunk chunk, int seq, int points, int firstIndex, int lastIndex) {
+        assertEquals(seq, chunk.getSeq());
+        assertEquals(points, chunk.getPointCount());
+        assertEquals(firstIndex, chunk.getFirstIndex());
+        assertEquals(lastIndex, chunk.getLastIndex());
+        assertEquals(points, Breadcrumbs.decode(chunk.getData()).size());
+    }
+}
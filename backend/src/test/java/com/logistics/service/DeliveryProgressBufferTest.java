@@ -0,0 +1,116 @@
+package com.logistics.service;
+
+import com.logistics.entity.DeliveryBatch;
+import com.logistics.mapper.DeliveryBatchMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeliveryProgressBufferTest {
+
+    @Mock private DeliveryBatchMapper deliveryBatchMapper;
+    @Mock private TaskScheduler simulationScheduler;
+
+    private DeliveryProgressBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        buffer = new DeliveryProgressBuffer(deliveryBatchMapper, simulationScheduler, 5000);
+    }
+
+    @Test
+    void flush_shouldCoalesceUpdatesIntoOneStatement() {
+        List<List<DeliveryBatch>> flushed = captureFlushes();
+
+        buffer.record(1, 3);
+        buffer.record(1, 4);
+        buffer.record(1, 5);
+        buffer.record(2, 9);
+        buffer.flush();
+
+        assertEquals(1, flushed.size());
+        List<DeliveryBatch> rows = flushed.get(0);
+        assertEquals(2, rows.size());
+        assertEquals(5, rows.stream().filter(b -> b.getId() == 1).findFirst().orElseThrow().getCurrentIndex());
+        assertEquals(0, buffer.getPendingCount());
+        assertEquals(5, buffer.getCurrentIndex(1));
+    }
+
+    @Test
+    void flush_nothingPending_shouldNotTouchDatabase() {
+        buffer.flush();
+        verifyNoInteractions(deliveryBatchMapper);
+    }
+
+    @Test
+    void flush_failure_shouldKeepProgressForRetry() {
+        when(deliveryBatchMapper.updateCurrentIndexes(any())).thenThrow(new RuntimeException("db down"));
+
+        buffer.record(1, 3);
+        buffer.flush();
+
+        assertEquals(1, buffer.getPendingCount());
+        assertEquals(3, buffer.getCurrentIndex(1));
+    }
+
+    @Test
+    void flush_progressChangedDuringWrite_shouldStayPending() {
+        when(deliveryBatchMapper.updateCurrentIndexes(any())).thenAnswer(inv -> {
+            buffer.record(1, 4);
+            return 1;
+        });
+
+        buffer.record(1, 3);
+        buffer.flush();
+
+        assertEquals(1, buffer.getPendingCount());
+        assertEquals(4, buffer.getCurrentIndex(1));
+    }
+
+    @Test
+    void flush_manyBatches_shouldSplitIntoChunks() {
+        List<List<DeliveryBatch>> flushed = captureFlushes();
+        int total = DeliveryProgressBuffer.FLUSH_CHUNK_SIZE * 2 + 1;
+        for (int id = 1; id <= total; id++) {
+            buffer.record(id, id);
+        }
+
+        buffer.flush();
+
+        assertEquals(3, flushed.size());
+        assertEquals(total, flushed.stream().mapToInt(List::size).sum());
+        assertEquals(0, buffer.getPendingCount());
+    }
+
+    @Test
+    void remove_shouldDropPendingProgress() {
+        buffer.record(1, 3);
+
+        assertEquals(3, buffer.remove(1));
+        assertNull(buffer.getCurrentIndex(1));
+        buffer.flush();
+        verifyNoInteractions(deliveryBatchMapper);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<DeliveryBatch>> captureFlushes() {
+        List<List<DeliveryBatch>> flushed = new ArrayList<>();
+        when(deliveryBatchMapper.updateCurrentIndexes(any())).thenAnswer(inv -> {
+            flushed.add(new ArrayList<>((Collection<DeliveryBatch>) inv.getArgument(0)));
+            return 1;
+        });
+        return flushed;
+    }
+}
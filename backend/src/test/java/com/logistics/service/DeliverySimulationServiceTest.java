@@ -0,0 +1,279 @@
+package com.logistics.service;
+
+import com.alibaba.fastjson.JSONArray;
+import com.logistics.entity.DeliveryBatch;
+import com.logistics.mapper.DeliveryBatchMapper;
+import com.logistics.route.RouteGeometry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeliverySimulationServiceTest {
+
+    @Mock private DeliveryBatchMapper deliveryBatchMapper;
+    @Mock private RouteGeometryCache routeGeometryCache;
+    @Mock private DeliveryProgressBuffer progressBuffer;
+    @Mock private ReverseGeocodingService reverseGeocodingService;
+    @Mock private DeliveryTrackingHub trackingHub;
+    @Mock private BreadcrumbStore breadcrumbStore;
+    @Mock private TaskScheduler simulationScheduler;
+
+    private DeliverySimulationService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new DeliverySimulationService(deliveryBatchMapper, routeGeometryCache, progressBuffer,
+                reverseGeocodingService, trackingHub, breadcrumbStore, simulationScheduler, 1000);
+    }
+
+    @Test
+    void tick_shouldAdvanceByElapsedTimeAndCompleteAtLastPoint() {
+        // 21 个点、21 秒 → 每秒前进一个点
+        stubBatch(1, 0, 21, 21);
+        when(deliveryBatchMapper.completeDelivering(eq(1), eq(20), any())).thenReturn(1);
+
+        service.startSimulation(1, 0);
+        service.tick(0);
+        service.tick(5_500);
+        service.tick(5_900);
+        service.tick(60_000);
+
+        // 中间进度只进入写缓冲，终点直接落库
+        verify(progressBuffer).record(1, 0);
+        verify(progressBuffer).record(1, 5);
+        verify(progressBuffer, times(2)).record(eq(1), anyInt());
+        verify(progressBuffer).remove(1);
+        verify(deliveryBatchMapper).completeDelivering(eq(1), eq(20), any());
+        verify(deliveryBatchMapper, never()).updateById(any(DeliveryBatch.class));
+        // 起点与终点各记录一次轨迹，终点为最后一个点
+        verify(reverseGeocodingService).record(eq(1), eq(0), anyDouble(), anyDouble(), any(), eq(false));
+        verify(reverseGeocodingService).record(eq(1), eq(20), anyDouble(), anyDouble(), any(), eq(true));
+        verifyNoMoreInteractions(reverseGeocodingService);
+        // 每次推进都推送给追踪订阅者，终点为结束事件
+        verify(trackingHub).publish(eq(1), any(), eq(0), eq(false));
+        verify(trackingHub).publish(eq(1), any(), eq(5), eq(false));
+        verify(trackingHub).publish(eq(1), any(), eq(20), eq(true));
+        assertEquals(0, service.getActiveCount());
+        verify(simulationScheduler, times(1)).scheduleAtFixedRate(any(Runnable.class), any(Duration.class));
+    }
+
+    @Test
+    void startSimulation_shouldResumeFromCurrentIndex() {
+        stubBatch(1, 10, 21, 21);
+
+        service.startSimulation(1, 0);
+        service.tick(500);
+        service.tick(1_000);
+
+        verify(progressBuffer, times(1)).record(anyInt(), anyInt());
+        verify(progressBuffer).record(1, 11);
+        verifyNoInteractions(reverseGeocodingService);
+    }
+
+    @Test
+    void tick_batchNoLongerDelivering_shouldNotRecordArrival() {
+        stubBatch(1, 5, 21, 21);
+        when(deliveryBatchMapper.completeDelivering(eq(1), eq(20), any())).thenReturn(0);
+
+        service.startSimulation(1, 0);
+        service.tick(60_000);
+
+        assertEquals(0, service.getActiveCount());
+        verifyNoInteractions(reverseGeocodingService);
+    }
+
+    @Test
+    void stopSimulation_shouldRemoveStateAndResetStatus() {
+        stubBatch(1, 0, 21, 21);
+        DeliveryBatch batch = new DeliveryBatch();
+        batch.setId(1);
+        batch.setStatus(1);
+        when(deliveryBatchMapper.selectById(1)).thenReturn(batch);
+        when(progressBuffer.remove(1)).thenReturn(4);
+
+        service.startSimulation(1, 0);
+        service.stopSimulation(1);
+        service.tick(5_000);
+
+        assertEquals(0, service.getActiveCount());
+        assertEquals(0, batch.getStatus());
+        // 停止时把缓冲中的进度一并写回，重新开始后从这里继续
+        assertEquals(4, batch.getCurrentIndex());
+        verify(deliveryBatchMapper).updateById(batch);
+        verify(progressBuffer, never()).record(anyInt(), anyInt());
+        verify(trackingHub).close(1, "STOPPED");
+        // 停止后还可以重新出发，轨迹不合并
+        verifyNoInteractions(breadcrumbStore);
+    }
+
+    @Test
+    void removeSimulation_shouldCloseStreamAndFinishTrack() {
+        stubBatch(1, 0, 21, 21);
+
+        service.startSimulation(1, 0);
+        service.removeSimulation(1);
+        service.tick(5_000);
+
+        assertEquals(0, service.getActiveCount());
+        verify(progressBuffer).remove(1);
+        verify(trackingHub).close(1, "COMPLETED");
+        verify(breadcrumbStore).finish(1);
+        verifyNoInteractions(reverseGeocodingService);
+    }
+
+    @Test
+    void stopSimulation_duringTick_shouldDropProgressRecordedByThatTick() throws Exception {
+        stubBatch(1, 0, 21, 21);
+        when(deliveryBatchMapper.selectById(1)).thenReturn(null);
+        CountDownLatch recording = new CountDownLatch(1);
+        AtomicBoolean inRecord = new AtomicBoolean();
+        AtomicBoolean removedWhileRecording = new AtomicBoolean();
+        doAnswer(inv -> {
+            inRecord.set(true);
+            recording.countDown();
+            Thread.sleep(200);
+            inRecord.set(false);
+            return null;
+        }).when(progressBuffer).record(1, 5);
+        when(progressBuffer.remove(1)).thenAnswer(inv -> {
+            removedWhileRecording.set(inRecord.get());
+            return 5;
+        });
+
+        service.startSimulation(1, 0);
+        Thread ticker = new Thread(() -> service.tick(5_000));
+        ticker.start();
+        assertTrue(recording.await(5, TimeUnit.SECONDS));
+        service.stopSimulation(1);
+        ticker.join(5_000);
+
+        // 停止等这次推进写完再丢弃缓冲，不会留下过期的进度
+        assertFalse(removedWhileRecording.get());
+        InOrder order = inOrder(progressBuffer);
+        order.verify(progressBuffer).record(1, 5);
+        order.verify(progressBuffer).remove(1);
+        service.tick(6_000);
+        verify(progressBuffer, times(1)).record(anyInt(), anyInt());
+    }
+
+    @Test
+    void startSimulation_notDelivering_shouldIgnore() {
+        DeliveryBatch batch = new DeliveryBatch();
+        batch.setId(1);
+        batch.setStatus(0);
+        when(deliveryBatchMapper.selectSummaryById(1)).thenReturn(batch);
+
+        service.startSimulation(1, 0);
+
+        assertEquals(0, service.getActiveCount());
+        verifyNoInteractions(routeGeometryCache, simulationScheduler);
+    }
+
+    /**
+     * 负载测试：5000 个批次同时配送，线程数不随批次数增长
+     * 最长运行 30 秒，默认构建不运行（见 pom.xml 的 excludedGroups）
+     */
+    @Test
+    @Tag("load")
+    void load_5000ActiveBatches_shouldRunOnSchedulerThreadOnly() throws Exception {
+        int batchCount = 5_000;
+        RouteGeometry route = route(20);
+        DeliveryBatchMapper batchMapper = mock(DeliveryBatchMapper.class, withSettings().stubOnly());
+        RouteGeometryCache cache = mock(RouteGeometryCache.class, withSettings().stubOnly());
+        when(batchMapper.selectSummaryById(anyInt())).thenAnswer(inv -> batch(inv.getArgument(0), 0, 2));
+        when(batchMapper.updateCurrentIndexes(any())).thenReturn(1);
+        when(batchMapper.completeDelivering(anyInt(), anyInt(), any())).thenReturn(1);
+        when(cache.get(anyInt())).thenReturn(route);
+
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.initialize();
+        try {
+            DeliveryProgressBuffer buffer = new DeliveryProgressBuffer(batchMapper, scheduler, 200);
+            buffer.init();
+            DeliverySimulationService loadService = new DeliverySimulationService(batchMapper, cache, buffer,
+                    mock(ReverseGeocodingService.class, withSettings().stubOnly()),
+                    mock(DeliveryTrackingHub.class, withSettings().stubOnly()),
+                    mock(BreadcrumbStore.class, withSettings().stubOnly()), scheduler, 50);
+
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            int baselineThreads = threads.getThreadCount();
+            long cpuStart = processCpuNanos();
+            long wallStart = System.nanoTime();
+
+            for (int id = 1; id <= batchCount; id++) {
+                loadService.startSimulation(id);
+            }
+            assertTrue(loadService.getActiveCount() > 0);
+
+            int peakThreads = baselineThreads;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (loadService.getActiveCount() > 0 && System.nanoTime() < deadline) {
+                peakThreads = Math.max(peakThreads, threads.getThreadCount());
+                Thread.sleep(20);
+            }
+
+            long wallMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - wallStart);
+            long cpuMs = TimeUnit.NANOSECONDS.toMillis(processCpuNanos() - cpuStart);
+            String summary = String.format("批次=%d, 基线线程=%d, 峰值线程=%d, 墙钟=%dms, 进程CPU=%dms",
+                    batchCount, baselineThreads, peakThreads, wallMs, cpuMs);
+
+            assertEquals(0, loadService.getActiveCount(), "所有批次应在超时前完成: " + summary);
+            assertTrue(peakThreads - baselineThreads <= 2, "线程数不应随批次数增长: " + summary);
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    private void stubBatch(int id, int currentIndex, int points, int durationSeconds) {
+        when(deliveryBatchMapper.selectSummaryById(id)).thenReturn(batch(id, currentIndex, durationSeconds));
+        when(routeGeometryCache.get(id)).thenReturn(route(points));
+    }
+
+    private static DeliveryBatch batch(int id, int currentIndex, int durationSeconds) {
+        DeliveryBatch batch = new DeliveryBatch();
+        batch.setId(id);
+        batch.setStatus(1);
+        batch.setCurrentIndex(currentIndex);
+        batch.setTotalDuration(durationSeconds);
+        return batch;
+    }
+
+    private static RouteGeometry route(int points) {
+        double[] lats = new double[points];
+        double[] lngs = new double[points];
+        for (int i = 0; i < points; i++) {
+            lats[i] = 39.9 + i * 0.001;
+            lngs[i] = 116.4 + i * 0.001;
+        }
+        return new RouteGeometry(lats, lngs, new JSONArray(), null);
+    }
+
+    private static long processCpuNanos() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return os.getProcessCpuTime();
+        }
+        return 0;
+    }
+}
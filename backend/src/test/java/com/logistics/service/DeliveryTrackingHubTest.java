@@ -0,0 +1,293 @@
+package com.logistics.service;
+
+import com.logistics.exception.TooManyRequestsException;
+import com.logistics.route.RouteGeometry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class DeliveryTrackingHubTest {
+
+    private static final RouteGeometry ROUTE = route(21);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+    private ExecutorService pool;
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void publish_shouldFanOutOneEventToAllSubscribersOfBatch() {
+        DeliveryTrackingHub hub = hub(Runnable::run, 100, 5);
+        for (int i = 0; i < 3; i++) {
+            hub.subscribe(1, null, null);
+        }
+        hub.subscribe(2, null, null);
+
+        hub.publish(1, ROUTE, 10, false);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(List.of(10L), emitters.get(i).ids());
+            assertTrue(emitters.get(i).frames.get(0).contains("event:location"));
+            assertTrue(emitters.get(i).frames.get(0).contains("\"progress\":50.0"));
+        }
+        assertTrue(emitters.get(3).frames.isEmpty());
+        assertEquals(3.0, meterRegistry.get("tracking.events").tag("result", "sent").counter().count());
+    }
+
+    @Test
+    void subscribe_withLastEventId_shouldOnlyResumeNewerPosition() {
+        DeliveryTrackingHub hub = hub(Runnable::run, 100, 5);
+        hub.subscribe(1, null, null);
+        hub.publish(1, ROUTE, 5, false);
+
+        hub.subscribe(1, 5L, null);
+        hub.subscribe(1, 3L, null);
+        // 数据库快照比最近一次推送旧，以推送为准
+        hub.subscribe(1, null, DeliveryTrackingHub.locationEvent(1, ROUTE, 4, false));
+
+        assertEquals(List.of(), emitters.get(1).ids());
+        assertEquals(List.of(5L), emitters.get(2).ids());
+        assertEquals(List.of(5L), emitters.get(3).ids());
+    }
+
+    @Test
+    void subscribe_completedBatch_shouldSendEndEventAndClose() {
+        DeliveryTrackingHub hub = hub(Runnable::run, 100, 5);
+
+        hub.subscribe(1, null, DeliveryTrackingHub.locationEvent(1, ROUTE, 20, true));
+
+        RecordingEmitter emitter = emitters.get(0);
+        assertTrue(emitter.frames.get(0).contains("event:end"));
+        assertTrue(emitter.frames.get(0).contains("\"status\":\"COMPLETED\""));
+        assertTrue(emitter.completed);
+    }
+
+    @Test
+    void publish_finished_shouldCloseAllSubscribers() {
+        DeliveryTrackingHub hub = hub(Runnable::run, 100, 5);
+        hub.subscribe(1, null, null);
+        hub.subscribe(1, null, null);
+
+        hub.publish(1, ROUTE, 20, true);
+        hub.publish(1, ROUTE, 20, true);
+
+        for (RecordingEmitter emitter : emitters) {
+            assertEquals(List.of(20L), emitter.ids());
+            assertTrue(emitter.completed);
+        }
+    }
+
+    @Test
+    void close_shouldNotifyStopAndRelease() {
+        DeliveryTrackingHub hub = hub(Runnable::run, 100, 5);
+        hub.subscribe(1, null, null);
+        hub.publish(1, ROUTE, 7, false);
+
+        hub.close(1, "STOPPED");
+
+        RecordingEmitter emitter = emitters.get(0);
+        assertEquals(List.of(7L, 7L), emitter.ids());
+        assertTrue(emitter.frames.get(1).contains("\"status\":\"STOPPED\""));
+        assertTrue(emitter.completed);
+    }
+
+    @Test
+    void subscribe_overLimit_shouldReject() {
+        DeliveryTrackingHub hub = hub(Runnable::run, 2, 5);
+        hub.subscribe(1, null, null);
+        hub.subscribe(1, null, null);
+
+        assertThrows(TooManyRequestsException.class, () -> hub.subscribe(1, null, null));
+        assertEquals(2, hub.subscriberCount());
+    }
+
+    @Test
+    void heartbeat_idleSubscriber_shouldReceiveComment() {
+        DeliveryTrackingHub hub = hub(Runnable::run, 100, 5);
+        hub.subscribe(1, null, null);
+
+        hub.heartbeat();
+
+        assertEquals(List.of(":ping\n\n"), emitters.get(0).frames);
+    }
+
+    @Test
+    void slowConsumer_shouldBeShedWithoutDelayingOthers() throws Exception {
+        pool = Executors.newFixedThreadPool(4);
+        CountDownLatch unblock = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(unblock);
+        emitters.add(slow);
+        DeliveryTrackingHub slowAware = new DeliveryTrackingHub(pool, mock(TaskScheduler.class), meterRegistry,
+                100, 2, 15, 30) {
+            private int created;
+
+            @Override
+            SseEmitter createEmitter(long timeoutMs) {
+                if (created++ == 0) {
+                    return slow;
+                }
+                RecordingEmitter emitter = new RecordingEmitter(null);
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+        slowAware.subscribe(1, null, null);
+        for (int i = 0; i < 3; i++) {
+            slowAware.subscribe(1, null, null);
+        }
+
+        try {
+            for (int index = 1; index <= 6; index++) {
+                slowAware.publish(1, ROUTE, index, false);
+                int expected = index;
+                // 正常的客户端每个位置都及时收到
+                await(() -> emitters.subList(1, 4).stream().allMatch(e -> e.lastId() == expected));
+            }
+
+            await(() -> slow.completed);
+            assertEquals(3, slowAware.subscriberCount());
+            assertEquals(1.0, meterRegistry.get("tracking.events").tag("result", "shed").counter().count());
+        } finally {
+            unblock.countDown();
+        }
+        // 慢连接只写出了阻塞时正在写的那一个位置，其余都被合并或丢弃
+        await(() -> slow.frames.size() == 1);
+        Thread.sleep(50);
+        assertEquals(1, slow.ids().size());
+    }
+
+    @Test
+    void publish_fiftyThousandSubscribers_shouldDeliverQuickly() throws Exception {
+        pool = Executors.newFixedThreadPool(8);
+        AtomicInteger delivered = new AtomicInteger();
+        DeliveryTrackingHub hub = new DeliveryTrackingHub(pool, mock(TaskScheduler.class), meterRegistry,
+                60_000, 5, 15, 30) {
+            @Override
+            SseEmitter createEmitter(long timeoutMs) {
+                return new SseEmitter(timeoutMs) {
+                    @Override
+                    public void send(SseEventBuilder builder) {
+                        delivered.incrementAndGet();
+                    }
+                };
+            }
+        };
+        int subscribers = 50_000;
+        for (int i = 0; i < subscribers; i++) {
+            hub.subscribe(i % 500, null, null);
+        }
+
+        long start = System.nanoTime();
+        for (int batchId = 0; batchId < 500; batchId++) {
+            hub.publish(batchId, ROUTE, 3, false);
+        }
+        long publishMs = (System.nanoTime() - start) / 1_000_000;
+        await(() -> delivered.get() == subscribers);
+        long totalMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(subscribers, hub.subscriberCount());
+        assertTrue(publishMs < 1_000, "发布耗时过长: " + publishMs + "ms");
+        assertTrue(totalMs < 5_000, "推送耗时过长: " + totalMs + "ms");
+    }
+
+    private DeliveryTrackingHub hub(Executor executor, int maxSubscribers, int maxLag) {
+        return new DeliveryTrackingHub(executor, mock(TaskScheduler.class), meterRegistry,
+                maxSubscribers, maxLag, 15, 30) {
+            @Override
+            SseEmitter createEmitter(long timeoutMs) {
+                RecordingEmitter emitter = new RecordingEmitter(null);
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "等待超时");
+            Thread.sleep(1);
+        }
+    }
+
+    private static RouteGeometry route(int points) {
+        double[] lats = new double[points];
+        double[] lngs = new double[points];
+        for (int i = 0; i < points; i++) {
+            lats[i] = 39.90 + i * 0.001;
+            lngs[i] = 116.40;
+        }
+        return new RouteGeometry(lats, lngs, null, null);
+    }
+
+    /**
+     * 记录写出的 SSE 帧；传入 latch 时每次写出都阻塞到 latch 释放，模拟不读数据的客户端
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        final List<String> frames = new CopyOnWriteArrayList<>();
+        private final CountDownLatch block;
+        volatile boolean completed;
+
+        RecordingEmitter(CountDownLatch block) {
+            this.block = block;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (block != null) {
+                try {
+                    block.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            StringBuilder frame = new StringBuilder();
+            builder.build().forEach(part -> frame.append(part.getData()));
+            frames.add(frame.toString());
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        List<Long> ids() {
+            List<Long> ids = new ArrayList<>();
+            for (String frame : frames) {
+                if (frame.startsWith("id:")) {
+                    ids.add(Long.parseLong(frame.substring(3, frame.indexOf('\n'))));
+                }
+            }
+            return ids;
+        }
+
+        long lastId() {
+            List<Long> ids = ids();
+            return ids.isEmpty() ? -1 : ids.get(ids.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.logistics.service;
+
+import com.logistics.entity.User;
+import com.logistics.entity.Warehouse;
+import com.logistics.mapper.UserMapper;
+import com.logistics.mapper.WarehouseMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DirectoryCacheTest {
+
+    @Mock private UserMapper userMapper;
+    @Mock private WarehouseMapper warehouseMapper;
+
+    private SimpleMeterRegistry meterRegistry;
+    private DirectoryCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new DirectoryCache(userMapper, warehouseMapper, meterRegistry, 100, 10, 10);
+    }
+
+    @Test
+    void getDriverWarehouseId_repeated_shouldQueryOnceAndDropPassword() {
+        when(userMapper.selectById(9L)).thenReturn(driver(9L, 1));
+
+        assertEquals(1, cache.getDriverWarehouseId(9L));
+        assertEquals(1, cache.getDriverWarehouseId(9L));
+
+        assertNull(cache.getUser(9L).getPassword());
+        verify(userMapper, times(1)).selectById(9L);
+        assertEquals(2.0 / 3, meterRegistry.get("cache.hit.ratio").tag("cache", "users").gauge().value(), 1e-9);
+    }
+
+    @Test
+    void invalidateUser_shouldReloadOnNextLookup() {
+        when(userMapper.selectById(9L)).thenReturn(driver(9L, 1), driver(9L, 2));
+
+        assertEquals(1, cache.getDriverWarehouseId(9L));
+        cache.invalidateUser(9L);
+
+        assertEquals(2, cache.getDriverWarehouseId(9L));
+        verify(userMapper, times(2)).selectById(9L);
+    }
+
+    @Test
+    void getUser_missing_shouldNotCacheNull() {
+        when(userMapper.selectById(9L)).thenReturn(null, driver(9L, 1));
+
+        assertNull(cache.getDriverWarehouseId(9L));
+        assertEquals(1, cache.getDriverWarehouseId(9L));
+        assertNull(cache.getUser(null));
+    }
+
+    @Test
+    void getWarehouse_repeated_shouldQueryOnce() {
+        Warehouse warehouse = new Warehouse();
+        warehouse.setId(1);
+        when(warehouseMapper.selectById(1)).thenReturn(warehouse);
+
+        assertSame(warehouse, cache.getWarehouse(1));
+        assertSame(warehouse, cache.getWarehouse(1));
+
+        verify(warehouseMapper, times(1)).selectById(1);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "warehouses").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    private static User driver(Long id, Integer warehouseId) {
+        User user = new User();
+        user.setId(id);
+        user.setRole("driver");
+        user.setPassword("$2a$10$hash");
+        user.setWarehouseId(warehouseId);
+        return user;
+    }
+}
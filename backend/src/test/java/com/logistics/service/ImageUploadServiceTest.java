@@ -0,0 +1,279 @@
+package com.logistics.service;
+
+import com.logistics.entity.Inventory;
+import com.logistics.mapper.InventoryMapper;
+import com.logistics.mapper.MallMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImageUploadServiceTest {
+
+    private static final Integer PRODUCT_ID = 7;
+    private static final String URL = "https://img.example.com/goods_image/x.png";
+    private static final int ATTEMPTS = 3;
+    private static final long BACKOFF_MS = 100;
+
+    @Mock private R2StorageService r2StorageService;
+    @Mock private InventoryMapper inventoryMapper;
+    @Mock private MallMapper mallMapper;
+    @Mock private MallCatalogCache mallCatalogCache;
+    @Mock private TaskScheduler uploadScheduler;
+
+    @TempDir
+    Path spoolDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        TransactionSynchronizationManager.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+    }
+
+    @Test
+    void spool_shouldSaveUploadWithUniqueKey() throws Exception {
+        ImageUploadService.SpooledImage image = service(Runnable::run).spool(png());
+
+        assertTrue(image.key().startsWith("goods_image/"));
+        assertTrue(image.key().endsWith(".png"));
+        assertEquals("image/png", image.contentType());
+        assertEquals(spoolDir, image.path().getParent());
+        assertEquals("png-bytes", Files.readString(image.path(), StandardCharsets.UTF_8));
+        verifyNoInteractions(r2StorageService);
+    }
+
+    @Test
+    void spool_emptyFile_shouldThrow() {
+        MockMultipartFile empty = new MockMultipartFile("image", "a.png", "image/png", new byte[0]);
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> service(Runnable::run).spool(empty));
+        assertEquals("上传文件不能为空", e.getMessage());
+    }
+
+    @Test
+    void uploadAfterCommit_committed_shouldUploadAndPatchUrl() throws Exception {
+        ImageUploadService service = service(Runnable::run);
+        ImageUploadService.SpooledImage image = service.spool(png());
+        Path bound = spoolDir.resolve(PRODUCT_ID + "_" + image.path().getFileName());
+        when(r2StorageService.upload(bound, image.key(), "image/png")).thenReturn(URL);
+        when(mallMapper.fillImageUrl(PRODUCT_ID, URL)).thenReturn(1);
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.uploadAfterCommit(PRODUCT_ID, image);
+        verifyNoInteractions(r2StorageService);
+        assertTrue(Files.exists(bound));
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+        verify(inventoryMapper).updateImage(PRODUCT_ID, URL, ImageUploadService.IMAGE_READY);
+        verify(mallCatalogCache).invalidate();
+        assertSpoolEmpty();
+        assertEquals(1.0, meterRegistry.get("inventory.image.uploads").tag("result", "uploaded").counter().count());
+    }
+
+    @Test
+    void uploadAfterCommit_rolledBack_shouldDiscardSpoolFile() throws Exception {
+        ImageUploadService service = service(Runnable::run);
+        ImageUploadService.SpooledImage image = service.spool(png());
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.uploadAfterCommit(PRODUCT_ID, image);
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertSpoolEmpty();
+        verifyNoInteractions(r2StorageService, inventoryMapper, mallMapper);
+    }
+
+    @Test
+    void upload_storageFails_shouldRetryWithBackoffThenMarkFailedAndKeepFile() throws Exception {
+        ImageUploadService service = service(Runnable::run);
+        ImageUploadService.SpooledImage image = service.spool(png());
+        when(r2StorageService.upload(any(), any(), any())).thenThrow(new RuntimeException("文件上传失败: timeout"));
+
+        service.uploadAfterCommit(PRODUCT_ID, image);
+        Instant first = runScheduledRetry();
+        Instant second = runScheduledRetry();
+
+        verify(r2StorageService, times(ATTEMPTS)).upload(any(), any(), any());
+        assertTrue(Duration.between(first, second).toMillis() >= BACKOFF_MS / 2);
+        verify(inventoryMapper).updateImage(PRODUCT_ID, null, ImageUploadService.IMAGE_FAILED);
+        verifyNoInteractions(mallMapper, mallCatalogCache);
+        assertEquals(1, spoolFiles().size());
+        assertEquals(1.0, meterRegistry.get("inventory.image.uploads").tag("result", "failed").counter().count());
+    }
+
+    @Test
+    void upload_retrySucceeds_shouldPatchUrlAndDeleteFile() throws Exception {
+        ImageUploadService service = service(Runnable::run);
+        ImageUploadService.SpooledImage image = service.spool(png());
+        when(r2StorageService.upload(any(), any(), any()))
+                .thenThrow(new RuntimeException("文件上传失败: timeout"))
+                .thenReturn(URL);
+
+        service.uploadAfterCommit(PRODUCT_ID, image);
+        verify(inventoryMapper, never()).updateImage(any(), any(), anyInt());
+        runScheduledRetry();
+
+        verify(inventoryMapper).updateImage(PRODUCT_ID, URL, ImageUploadService.IMAGE_READY);
+        assertSpoolEmpty();
+        assertEquals(0.0, meterRegistry.get("inventory.image.uploads").tag("result", "failed").counter().count());
+    }
+
+    @Test
+    void upload_executorFull_shouldUploadOnCallerThread() throws Exception {
+        ImageUploadService service = service(task -> {
+            throw new RejectedExecutionException("full");
+        });
+        ImageUploadService.SpooledImage image = service.spool(png());
+        when(r2StorageService.upload(any(), any(), any())).thenReturn(URL);
+
+        service.uploadAfterCommit(PRODUCT_ID, image);
+
+        verify(inventoryMapper).updateImage(eq(PRODUCT_ID), eq(URL), eq(ImageUploadService.IMAGE_READY));
+        verify(mallMapper).fillImageUrl(PRODUCT_ID, URL);
+        verifyNoInteractions(mallCatalogCache);
+    }
+
+    @Test
+    void sweep_pendingRowWithSpoolFile_shouldResubmitUpload() throws Exception {
+        Path file = oldSpoolFile(PRODUCT_ID + "_abc.png");
+        when(inventoryMapper.selectImageUnfinished()).thenReturn(List.of(row(PRODUCT_ID, ImageUploadService.IMAGE_PENDING)));
+        when(r2StorageService.upload(file, "goods_image/abc.png", "image/png")).thenReturn(URL);
+
+        service(Runnable::run).sweep();
+
+        verify(inventoryMapper).updateImage(PRODUCT_ID, URL, ImageUploadService.IMAGE_READY);
+        assertSpoolEmpty();
+    }
+
+    @Test
+    void sweep_failedRowWithSpoolFile_shouldTryOnceAndKeepFile() throws Exception {
+        oldSpoolFile(PRODUCT_ID + "_abc.png");
+        when(inventoryMapper.selectImageUnfinished()).thenReturn(List.of(row(PRODUCT_ID, ImageUploadService.IMAGE_FAILED)));
+        when(r2StorageService.upload(any(), any(), any())).thenThrow(new RuntimeException("文件上传失败: timeout"));
+
+        service(Runnable::run).sweep();
+
+        verify(r2StorageService).upload(any(), any(), any());
+        verify(uploadScheduler, never()).schedule(any(Runnable.class), any(Instant.class));
+        verify(inventoryMapper).updateImage(PRODUCT_ID, null, ImageUploadService.IMAGE_FAILED);
+        assertEquals(1, spoolFiles().size());
+    }
+
+    @Test
+    void sweep_pendingRowWithoutSpoolFile_shouldMarkFailed() {
+        when(inventoryMapper.selectImageUnfinished()).thenReturn(List.of(row(PRODUCT_ID, ImageUploadService.IMAGE_PENDING)));
+
+        service(Runnable::run).sweep();
+
+        verify(inventoryMapper).updateImage(PRODUCT_ID, null, ImageUploadService.IMAGE_FAILED);
+        verifyNoInteractions(r2StorageService);
+    }
+
+    @Test
+    void sweep_recentSpoolFile_shouldLeaveItToTheRunningRequest() throws Exception {
+        Files.writeString(spoolDir.resolve(PRODUCT_ID + "_abc.png"), "png-bytes");
+        Files.writeString(spoolDir.resolve("unbound.png"), "png-bytes");
+        when(inventoryMapper.selectImageUnfinished()).thenReturn(List.of(row(PRODUCT_ID, ImageUploadService.IMAGE_PENDING)));
+
+        service(Runnable::run).sweep();
+
+        verify(inventoryMapper, never()).updateImage(any(), any(), anyInt());
+        verifyNoInteractions(r2StorageService);
+        assertEquals(2, spoolFiles().size());
+    }
+
+    @Test
+    void sweep_leftoverFiles_shouldBeDeleted() throws Exception {
+        oldSpoolFile("unbound.png");
+        oldSpoolFile("8_uploaded.png");
+        when(inventoryMapper.selectImageUnfinished()).thenReturn(List.of());
+
+        service(Runnable::run).sweep();
+
+        assertSpoolEmpty();
+        verifyNoInteractions(r2StorageService);
+    }
+
+    private ImageUploadService service(Executor executor) {
+        return new ImageUploadService(r2StorageService, inventoryMapper, mallMapper, mallCatalogCache,
+                executor, uploadScheduler, meterRegistry, spoolDir.toString(), ATTEMPTS, BACKOFF_MS, 5);
+    }
+
+    /**
+     * 执行最近一次安排的重试，返回安排的执行时间
+     */
+    private Instant runScheduledRetry() {
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        ArgumentCaptor<Instant> at = ArgumentCaptor.forClass(Instant.class);
+        verify(uploadScheduler, atLeastOnce()).schedule(task.capture(), at.capture());
+        task.getValue().run();
+        return at.getValue();
+    }
+
+    private Path oldSpoolFile(String name) throws Exception {
+        Path file = spoolDir.resolve(name);
+        Files.writeString(file, "png-bytes");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS)));
+        return file;
+    }
+
+    private List<Path> spoolFiles() throws Exception {
+        try (var files = Files.list(spoolDir)) {
+            return files.toList();
+        }
+    }
+
+    private void assertSpoolEmpty() throws Exception {
+        assertEquals(List.of(), spoolFiles());
+    }
+
+    private static Inventory row(Integer productId, int imageStatus) {
+        Inventory inventory = new Inventory();
+        inventory.setProductId(productId);
+        inventory.setImageStatus(imageStatus);
+        return inventory;
+    }
+
+    private static MockMultipartFile png() {
+        return new MockMultipartFile("image", "photo.png", "image/png", "png-bytes".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void completeTransaction(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(s -> s.afterCompletion(status));
+    }
+}
@@ -0,0 +1,169 @@
+package com.logistics.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.logistics.dto.MallCatalogPage;
+import com.logistics.entity.Mall;
+import com.logistics.mapper.MallMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MallCatalogCacheTest {
+
+    @Mock private MallMapper mallMapper;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private MallCatalogCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new MallCatalogCache(mallMapper, objectMapper, 0, 60);
+    }
+
+    @Test
+    void current_repeatedReads_shouldQueryOnceAndKeepEtag() throws IOException {
+        when(mallMapper.selectList(any())).thenReturn(List.of(mall(1, "12.50", 3), mall(2, "8.00", 2)));
+
+        MallCatalogCache.Snapshot first = cache.current();
+        MallCatalogCache.Snapshot second = cache.current();
+
+        assertSame(first, second);
+        verify(mallMapper, times(1)).selectList(any());
+        assertTrue(first.etag().matches("\"[0-9a-f]{32}\""));
+
+        // 预序列化内容与 Result 外层一致，gzip 解压后与原文相同
+        JsonNode body = objectMapper.readTree(first.json());
+        assertEquals(200, body.get("code").asInt());
+        assertEquals(2, body.get("data").size());
+        assertEquals(1, body.get("data").get(0).get("productId").asInt());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(first.gzip()))) {
+            assertArrayEquals(first.json(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void invalidate_shouldRebuildOnNextReadAndChangeEtag() {
+        when(mallMapper.selectList(any()))
+                .thenReturn(List.of(mall(1, "12.50", 3)))
+                .thenReturn(List.of(mall(2, "8.00", 2), mall(1, "12.50", 3)));
+
+        String before = cache.current().etag();
+        cache.invalidate();
+        cache.invalidate();
+        MallCatalogCache.Snapshot after = cache.current();
+
+        assertNotEquals(before, after.etag());
+        assertEquals(2, after.products().size());
+        // 多次标记只触发一次重建
+        verify(mallMapper, times(2)).selectList(any());
+    }
+
+    @Test
+    void invalidate_sameContent_shouldKeepEtag() {
+        when(mallMapper.selectList(any()))
+                .thenReturn(List.of(mall(1, "12.50", 3)))
+                .thenReturn(List.of(mall(1, "12.50", 3)));
+
+        String before = cache.current().etag();
+        cache.invalidate();
+
+        assertEquals(before, cache.current().etag());
+    }
+
+    @Test
+    void current_snapshotOlderThanMaxAge_shouldRebuild() {
+        cache = new MallCatalogCache(mallMapper, objectMapper, 0, 0);
+        when(mallMapper.selectList(any())).thenReturn(List.of(mall(1, "12.50", 3)));
+
+        cache.current();
+        cache.current();
+
+        verify(mallMapper, times(2)).selectList(any());
+    }
+
+    @Test
+    void invalidate_withinMinRebuildInterval_shouldServeCurrentSnapshot() {
+        cache = new MallCatalogCache(mallMapper, objectMapper, 60_000, 60);
+        when(mallMapper.selectList(any())).thenReturn(List.of(mall(1, "12.50", 3)));
+
+        MallCatalogCache.Snapshot first = cache.current();
+        cache.invalidate();
+
+        assertSame(first, cache.current());
+        verify(mallMapper, times(1)).selectList(any());
+    }
+
+    @Test
+    void page_shouldFilterByPriceAndSortWithoutQuerying() {
+        when(mallMapper.selectList(any())).thenReturn(List.of(
+                mall(5, "30.00", 5), mall(4, "5.00", 4), mall(3, "18.00", 3), mall(2, "12.00", 2), mall(1, "50.00", 1)));
+
+        MallCatalogPage newest = cache.page(new BigDecimal("10"), new BigDecimal("40"), "newest", 1, 2);
+        MallCatalogPage cheapest = cache.page(null, null, "price_asc", 1, 3);
+        MallCatalogPage priciest = cache.page(null, null, "price_desc", 2, 2);
+
+        assertEquals(3, newest.getTotal());
+        assertEquals(List.of(5, 3), newest.getItems().stream().map(Mall::getProductId).toList());
+        assertEquals(List.of(4, 2, 3), cheapest.getItems().stream().map(Mall::getProductId).toList());
+        assertEquals(List.of(3, 2), priciest.getItems().stream().map(Mall::getProductId).toList());
+        verify(mallMapper, times(1)).selectList(any());
+    }
+
+    @Test
+    void page_unpricedProducts_shouldSortLastInBothDirections() {
+        Mall unpriced = mall(3, "1.00", 2);
+        unpriced.setPrice(null);
+        when(mallMapper.selectList(any())).thenReturn(List.of(mall(4, "20.00", 1), unpriced, mall(2, "20.00", 3),
+                mall(1, "5.00", 4)));
+
+        MallCatalogPage ascending = cache.page(null, null, "price_asc", 1, 10);
+        MallCatalogPage descending = cache.page(null, null, "price_desc", 1, 10);
+
+        assertEquals(List.of(1, 4, 2, 3), ascending.getItems().stream().map(Mall::getProductId).toList());
+        assertEquals(List.of(4, 2, 1, 3), descending.getItems().stream().map(Mall::getProductId).toList());
+    }
+
+    @Test
+    void page_outOfRangeArguments_shouldBeClamped() {
+        when(mallMapper.selectList(any())).thenReturn(List.of(mall(1, "12.50", 1)));
+
+        MallCatalogPage beyond = cache.page(null, null, "newest", 9, 500);
+        MallCatalogPage first = cache.page(null, null, "unknown", 0, 0);
+
+        assertEquals(MallCatalogCache.MAX_PAGE_SIZE, beyond.getSize());
+        assertTrue(beyond.getItems().isEmpty());
+        assertEquals(1, beyond.getTotal());
+        assertEquals(1, first.getPage());
+        assertEquals(1, first.getSize());
+        assertEquals(List.of(1), first.getItems().stream().map(Mall::getProductId).toList());
+    }
+
+    private static Mall mall(int productId, String price, int minutesAgo) {
+        Mall mall = new Mall();
+        mall.setProductId(productId);
+        mall.setMerchantId(10);
+        mall.setWarehouseId(1);
+        mall.setProductName("商品" + productId);
+        mall.setAvailableQuantity(100);
+        mall.setPrice(new BigDecimal(price));
+        mall.setIsPublished(1);
+        mall.setPublishTime(LocalDateTime.of(2024, 5, 1, 12, 0).minusMinutes(minutesAgo));
+        return mall;
+    }
+}
@@ -0,0 +1,204 @@
+package com.logistics.service;
+
+import com.logistics.dto.BatchOrderResult;
+import com.logistics.dto.CreateOrderRequest;
+import com.logistics.entity.Order;
+import com.logistics.exception.BusinessException;
+import com.logistics.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderIngestionServiceTest {
+
+    @Mock private OrderService orderService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger nextOrderId = new AtomicInteger();
+    private final ExecutorService callers = Executors.newFixedThreadPool(16);
+    private OrderIngestionService service;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        callers.shutdownNow();
+        if (service != null) {
+            service.stop();
+        }
+    }
+
+    @Test
+    void submit_concurrentCallers_shouldBeGroupedAndGetTheirOwnOrders() throws Exception {
+        service = start(1000, 50);
+        // 第一组提交时阻塞，后续请求在队列中积压，解除后应合并成少数几组
+        CountDownLatch firstGroup = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        when(orderService.createOrders(anyList())).thenAnswer(inv -> {
+            if (calls.incrementAndGet() == 1) {
+                firstGroup.await(5, TimeUnit.SECONDS);
+            }
+            List<CreateOrderRequest> requests = inv.getArgument(0);
+            return requests.stream().map(r -> BatchOrderResult.success(order(r))).toList();
+        });
+
+        List<Future<Order>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            CreateOrderRequest request = request(i);
+            futures.add(callers.submit(() -> service.submit(request)));
+        }
+        Thread.sleep(200);
+        firstGroup.countDown();
+
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i, futures.get(i).get(5, TimeUnit.SECONDS).getCustomerId());
+        }
+        assertTrue(calls.get() < 100 / 2, "未合并提交，组数: " + calls.get());
+        assertEquals(100, (long) meterRegistry.get("order.ingestion.batch.size").summary().totalAmount());
+        verify(orderService, never()).createOrder(any(), any());
+    }
+
+    @Test
+    void submit_validationFailure_shouldOnlyFailThatCaller() {
+        service = start(10, 50);
+        when(orderService.createOrders(anyList())).thenReturn(List.of(BatchOrderResult.failure("商品未上架")));
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> service.submit(request(1)));
+        assertEquals("商品未上架", e.getMessage());
+    }
+
+    @Test
+    void submit_groupCommitFails_shouldRetryEachOrderIndividually() {
+        service = start(10, 50);
+        when(orderService.createOrders(anyList())).thenThrow(new RuntimeException("Deadlock found"));
+        CreateOrderRequest request = request(3);
+        when(orderService.createOrder(request, 3)).thenReturn(order(request));
+
+        assertEquals(3, service.submit(request).getCustomerId());
+    }
+
+    @Test
+    void submit_queueFull_shouldRejectWith429() throws Exception {
+        service = start(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> committing = new CompletableFuture<>();
+        when(orderService.createOrders(anyList())).thenAnswer(inv -> {
+            committing.complete(null);
+            release.await(5, TimeUnit.SECONDS);
+            List<CreateOrderRequest> requests = inv.getArgument(0);
+            return requests.stream().map(r -> BatchOrderResult.success(order(r))).toList();
+        });
+
+        // 第一单占住提交线程，第二单占满容量为 1 的队列
+        Future<Order> first = callers.submit(() -> service.submit(request(1)));
+        committing.get(5, TimeUnit.SECONDS);
+        Future<Order> second = callers.submit(() -> service.submit(request(2)));
+        while (meterRegistry.get("order.ingestion.queue.depth").gauge().value() < 1) {
+            Thread.sleep(5);
+        }
+
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class, () -> service.submit(request(3)));
+        assertEquals(429, e.getCode());
+        assertEquals(1.0, meterRegistry.get("order.ingestion.rejected").counter().count());
+
+        release.countDown();
+        assertEquals(1, first.get(5, TimeUnit.SECONDS).getCustomerId());
+        assertEquals(2, second.get(5, TimeUnit.SECONDS).getCustomerId());
+    }
+
+    @Test
+    void submit_timeoutWhileQueued_shouldCancelAndNeverCommit() throws Exception {
+        service = start(10, 1, 200);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> committing = new CompletableFuture<>();
+        when(orderService.createOrders(anyList())).thenAnswer(inv -> {
+            committing.complete(null);
+            release.await(5, TimeUnit.SECONDS);
+            List<CreateOrderRequest> requests = inv.getArgument(0);
+            return requests.stream().map(r -> BatchOrderResult.success(order(r))).toList();
+        });
+
+        // 第一单占住提交线程超过超时时间，第二单一直在队列中
+        Future<Order> first = callers.submit(() -> service.submit(request(1)));
+        committing.get(5, TimeUnit.SECONDS);
+        BusinessException e = assertThrows(BusinessException.class, () -> service.submit(request(2)));
+        release.countDown();
+
+        assertEquals(503, e.getCode());
+        assertEquals(1, first.get(5, TimeUnit.SECONDS).getCustomerId());
+        assertEquals(0.0, meterRegistry.get("order.ingestion.queue.depth").gauge().value());
+        assertEquals(1.0, meterRegistry.get("order.ingestion.cancelled").counter().count());
+        // 撤销的请求不会再被提交
+        Thread.sleep(200);
+        verify(orderService, times(1)).createOrders(anyList());
+        verify(orderService, never()).createOrder(any(), any());
+    }
+
+    @Test
+    void submit_timeoutWhileCommitting_shouldWaitForTheCommittedOrder() {
+        service = start(10, 1, 100);
+        when(orderService.createOrders(anyList())).thenAnswer(inv -> {
+            Thread.sleep(300);
+            List<CreateOrderRequest> requests = inv.getArgument(0);
+            return requests.stream().map(r -> BatchOrderResult.success(order(r))).toList();
+        });
+
+        // 已开始提交的订单超时后不返回 503，否则客户端重试会重复下单
+        assertEquals(7, service.submit(request(7)).getCustomerId());
+        assertEquals(0.0, meterRegistry.get("order.ingestion.cancelled").counter().count());
+    }
+
+    @Test
+    void submit_disabled_shouldReject() {
+        service = new OrderIngestionService(orderService, meterRegistry, false, 10, 50, 0, 5000);
+        service.start();
+
+        assertFalse(service.isEnabled());
+        assertThrows(TooManyRequestsException.class, () -> service.submit(request(1)));
+        verifyNoInteractions(orderService);
+    }
+
+    private OrderIngestionService start(int queueCapacity, int maxBatch) {
+        return start(queueCapacity, maxBatch, 5000);
+    }
+
+    private OrderIngestionService start(int queueCapacity, int maxBatch, long timeoutMs) {
+        OrderIngestionService ingestion = new OrderIngestionService(orderService, meterRegistry, true,
+                queueCapacity, maxBatch, 0, timeoutMs);
+        ingestion.start();
+        return ingestion;
+    }
+
+    private Order order(CreateOrderRequest request) {
+        Order order = new Order();
+        order.setOrderId(nextOrderId.incrementAndGet());
+        order.setCustomerId(request.getCustomerId());
+        order.setProductId(request.getProductId());
+        return order;
+    }
+
+    private static CreateOrderRequest request(int customerId) {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setCustomerId(customerId);
+        request.setProductId(1);
+        request.setQuantity(1);
+        return request;
+    }
+}
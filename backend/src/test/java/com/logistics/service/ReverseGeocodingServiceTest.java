@@ -0,0 +1,179 @@
+package com.logistics.service;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+/**
+ * 使用本地 HTTP 桩服务模拟腾讯地图逆地理编码接口
+ */
+@ExtendWith(MockitoExtension.class)
+class ReverseGeocodingServiceTest {
+
+    @Mock private BreadcrumbStore breadcrumbStore;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private ReverseGeocodingService service;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AtomicInteger apiCalls = new AtomicInteger();
+    private volatile int apiStatus = 0;
+    private volatile long apiDelayMs = 0;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ws/geocoder/v1/", exchange -> {
+            apiCalls.incrementAndGet();
+            try {
+                Thread.sleep(apiDelayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            String body = apiStatus == 0
+                    ? "{\"status\":0,\"result\":{\"address\":\"北京市海淀区中关村大街" + apiCalls.get() + "号\"}}"
+                    : "{\"status\":" + apiStatus + ",\"message\":\"请求超过配额\"}";
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.start();
+
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        TencentMapService tencentMapService =
+                new TencentMapService(new RestTemplate(), meterRegistry, "test-key", baseUrl);
+        executor = Executors.newFixedThreadPool(4);
+        service = new ReverseGeocodingService(tencentMapService, breadcrumbStore, executor, 0.0005, 1000, 24);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void resolve_concurrentRequestsInSameCell_shouldCallApiOnce() throws Exception {
+        apiDelayMs = 200;
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            // 相距不到 10 米的点落在同一网格
+            futures.add(service.resolve(39.98412 + i * 0.000001, 116.30741));
+        }
+
+        for (CompletableFuture<String> future : futures) {
+            assertEquals("北京市海淀区中关村大街1号", future.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, apiCalls.get());
+    }
+
+    @Test
+    void resolve_repeatedCell_shouldBeServedFromCache() throws Exception {
+        service.resolve(39.98412, 116.30741).get(5, TimeUnit.SECONDS);
+        String cached = service.resolve(39.98413, 116.30742).get(5, TimeUnit.SECONDS);
+
+        assertEquals("北京市海淀区中关村大街1号", cached);
+        assertEquals(1, apiCalls.get());
+
+        // 另一个网格需要重新查询
+        service.resolve(39.99412, 116.30741).get(5, TimeUnit.SECONDS);
+        assertEquals(2, apiCalls.get());
+        assertEquals(2, meterRegistry.get("tencent.map.requests").tag("api", "geocoder").tag("outcome", "success")
+                .timer().count());
+    }
+
+    @Test
+    void resolve_apiFailure_shouldNotBeCached() throws Exception {
+        apiStatus = 120;
+        assertNull(service.resolve(39.98412, 116.30741).get(5, TimeUnit.SECONDS));
+
+        apiStatus = 0;
+        assertNotNull(service.resolve(39.98412, 116.30741).get(5, TimeUnit.SECONDS));
+        assertEquals(2, apiCalls.get());
+    }
+
+    @Test
+    void record_shouldAppendInCallOrderBeforeAddressResolves() throws Exception {
+        apiDelayMs = 200;
+        LocalDateTime now = LocalDateTime.now();
+
+        CompletableFuture<Void> first = service.record(1, 0, 39.98412, 116.30741, now, false);
+        CompletableFuture<Void> second = service.record(1, 10, 39.99412, 116.30741, now, false);
+
+        // 地址尚未解析，轨迹点已按调用顺序写入
+        InOrder inOrder = inOrder(breadcrumbStore);
+        inOrder.verify(breadcrumbStore).append(1, 0, 39.98412, 116.30741, ReverseGeocodingService.PENDING_ADDRESS, now);
+        inOrder.verify(breadcrumbStore).append(1, 10, 39.99412, 116.30741, ReverseGeocodingService.PENDING_ADDRESS, now);
+
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+        verify(breadcrumbStore).updateAddress(eq(1), eq(0), startsWith("北京市"));
+        verify(breadcrumbStore).updateAddress(eq(1), eq(10), startsWith("北京市"));
+        verify(breadcrumbStore, never()).finish(any());
+    }
+
+    @Test
+    void record_cachedCell_shouldAppendAddressDirectly() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        service.record(1, 0, 39.98412, 116.30741, now, false).get(5, TimeUnit.SECONDS);
+
+        service.record(1, 10, 39.98413, 116.30742, now, false).get(5, TimeUnit.SECONDS);
+
+        verify(breadcrumbStore).append(1, 10, 39.98413, 116.30742, "北京市海淀区中关村大街1号", now);
+        verify(breadcrumbStore, never()).updateAddress(eq(1), eq(10), any());
+        assertEquals(1, apiCalls.get());
+    }
+
+    @Test
+    void record_apiFailure_shouldStillWritePlaceholder() throws Exception {
+        apiStatus = 120;
+        LocalDateTime now = LocalDateTime.now();
+
+        service.record(1, 0, 39.98412, 116.30741, now, false).get(5, TimeUnit.SECONDS);
+
+        verify(breadcrumbStore).append(1, 0, 39.98412, 116.30741, ReverseGeocodingService.PENDING_ADDRESS, now);
+        verifyNoMoreInteractions(breadcrumbStore);
+    }
+
+    @Test
+    void record_lastPoint_shouldFinishTrackAfterBackfill() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+
+        service.record(1, 20, 39.98412, 116.30741, now, true).get(5, TimeUnit.SECONDS);
+
+        InOrder inOrder = inOrder(breadcrumbStore);
+        inOrder.verify(breadcrumbStore).append(eq(1), eq(20), anyDouble(), anyDouble(), any(), eq(now));
+        inOrder.verify(breadcrumbStore).updateAddress(eq(1), eq(20), startsWith("北京市"));
+        inOrder.verify(breadcrumbStore).finish(1);
+    }
+}
@@ -0,0 +1,128 @@
+package com.logistics.service;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.logistics.entity.Address;
+import com.logistics.entity.Warehouse;
+import com.logistics.route.RoutePlan;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoutePlanCacheTest {
+
+    @Mock private TencentMapService tencentMapService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RoutePlanCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new RoutePlanCache(tencentMapService, meterRegistry, 5, 1 << 20, 60);
+    }
+
+    @Test
+    void plan_sameStops_shouldCallApiOnce() {
+        when(tencentMapService.planRoute("39.90000,116.40000", "39.95000,116.45000", null)).thenReturn(response());
+
+        RoutePlan first = cache.plan(warehouse("39.9", "116.4"), List.of(address("39.95", "116.45")));
+        // 小于取整精度的坐标差异命中同一缓存项
+        RoutePlan second = cache.plan(warehouse("39.9000001", "116.4000002"), List.of(address("39.95", "116.45")));
+
+        assertSame(first, second);
+        assertEquals(1200, first.getDistance());
+        assertEquals(300, first.getDuration());
+        assertEquals("[39.9,116.4,100,100]", first.getPolyline());
+        verify(tencentMapService, times(1)).planRoute(any(), any(), any());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "routePlan").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void plan_waypoints_shouldKeepStopOrderInKeyAndRequest() {
+        when(tencentMapService.planRoute(eq("39.90000,116.40000"), eq("39.97000,116.47000"),
+                eq("39.95000,116.45000"))).thenReturn(response());
+        when(tencentMapService.planRoute(eq("39.90000,116.40000"), eq("39.95000,116.45000"),
+                eq("39.97000,116.47000"))).thenReturn(response());
+
+        cache.plan(warehouse("39.9", "116.4"), List.of(address("39.95", "116.45"), address("39.97", "116.47")));
+        cache.plan(warehouse("39.9", "116.4"), List.of(address("39.97", "116.47"), address("39.95", "116.45")));
+
+        verify(tencentMapService, times(2)).planRoute(any(), any(), any());
+    }
+
+    @Test
+    void plan_failure_shouldNotBeCached() {
+        when(tencentMapService.planRoute(any(), any(), isNull())).thenReturn(null, response());
+
+        assertNull(cache.plan(warehouse("39.9", "116.4"), List.of(address("39.95", "116.45"))));
+        assertNotNull(cache.plan(warehouse("39.9", "116.4"), List.of(address("39.95", "116.45"))));
+        verify(tencentMapService, times(2)).planRoute(any(), any(), any());
+    }
+
+    @Test
+    void plan_concurrentIdenticalRequests_shouldShareOneCall() throws Exception {
+        when(tencentMapService.planRoute(any(), any(), any())).thenAnswer(inv -> {
+            Thread.sleep(200);
+            return response();
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<RoutePlan>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(pool.submit(() -> cache.plan(warehouse("39.9", "116.4"), List.of(address("39.95", "116.45")))));
+            }
+            RoutePlan expected = futures.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<RoutePlan> future : futures) {
+                assertSame(expected, future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        verify(tencentMapService, times(1)).planRoute(any(), any(), any());
+    }
+
+    @Test
+    void plan_noStops_shouldReturnNull() {
+        assertNull(cache.plan(warehouse("39.9", "116.4"), List.of()));
+        verifyNoInteractions(tencentMapService);
+    }
+
+    private static JSONObject response() {
+        return JSON.parseObject("{\"status\":0,\"result\":{\"routes\":[{\"distance\":1200,\"duration\":300," +
+                "\"polyline\":[39.9,116.4,100,100]}]}}");
+    }
+
+    private static Warehouse warehouse(String lat, String lng) {
+        Warehouse warehouse = new Warehouse();
+        warehouse.setLatitude(new BigDecimal(lat));
+        warehouse.setLongitude(new BigDecimal(lng));
+        return warehouse;
+    }
+
+    private static Address address(String lat, String lng) {
+        Address address = new Address();
+        address.setLatitude(new BigDecimal(lat));
+        address.setLongitude(new BigDecimal(lng));
+        return address;
+    }
+}
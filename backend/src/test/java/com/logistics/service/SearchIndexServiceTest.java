@@ -0,0 +1,92 @@
+package com.logistics.service;
+
+import com.logistics.entity.Inventory;
+import com.logistics.entity.User;
+import com.logistics.mapper.InventoryMapper;
+import com.logistics.mapper.UserMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SearchIndexServiceTest {
+
+    @Mock
+    private InventoryMapper inventoryMapper;
+
+    @Mock
+    private UserMapper userMapper;
+
+    @Test
+    void match_beforeBuild_shouldReturnNullSoCallersUseLike() {
+        SearchIndexService service = new SearchIndexService(inventoryMapper, userMapper, 1000, 2);
+
+        assertFalse(service.isReady());
+        assertNull(service.matchProductIds("手柄"));
+        assertNull(service.matchUserIds("张"));
+    }
+
+    @Test
+    void rebuild_shouldLoadAllPagesByKeyset() {
+        when(inventoryMapper.selectProductNamesAfter(0, 2)).thenReturn(List.of(product(1001, "PS5游戏手柄"), product(1002, "Switch游戏机")));
+        when(inventoryMapper.selectProductNamesAfter(1002, 2)).thenReturn(List.of(product(1003, "AirPods Pro")));
+        when(userMapper.selectUsernamesAfter(0L, 2)).thenReturn(List.of(user(9L, "张三")));
+        SearchIndexService service = new SearchIndexService(inventoryMapper, userMapper, 1000, 2);
+
+        service.rebuild();
+
+        assertTrue(service.isReady());
+        assertEquals(List.of(1001, 1002), service.matchProductIds("游戏"));
+        assertEquals(List.of(), service.matchProductIds("耳机"));
+        assertEquals(List.of(9L), service.matchUserIds("张"));
+    }
+
+    @Test
+    void writesAfterBuild_shouldBeSearchable() {
+        when(inventoryMapper.selectProductNamesAfter(0, 2)).thenReturn(List.of());
+        when(userMapper.selectUsernamesAfter(0L, 2)).thenReturn(List.of(user(9L, "张三")));
+        SearchIndexService service = new SearchIndexService(inventoryMapper, userMapper, 1000, 2);
+        service.rebuild();
+
+        service.onProductSaved(1004, "机械键盘");
+        service.onUserSaved(9L, "李四");
+        service.onUserSaved(10L, "张三丰");
+
+        assertEquals(List.of(1004), service.matchProductIds("键盘"));
+        assertEquals(List.of(10L), service.matchUserIds("张三"));
+        service.onUserDeleted(10L);
+        assertEquals(List.of(), service.matchUserIds("张三"));
+    }
+
+    @Test
+    void match_tooManyHits_shouldReturnNull() {
+        when(inventoryMapper.selectProductNamesAfter(0, 10))
+                .thenReturn(List.of(product(1, "手机壳"), product(2, "手机膜"), product(3, "手机支架")));
+        when(userMapper.selectUsernamesAfter(0L, 10)).thenReturn(List.of());
+        SearchIndexService service = new SearchIndexService(inventoryMapper, userMapper, 2, 10);
+        service.rebuild();
+
+        assertNull(service.matchProductIds("手机"));
+        assertEquals(List.of(2), service.matchProductIds("手机膜"));
+    }
+
+    private static Inventory product(int id, String name) {
+        Inventory inventory = new Inventory();
+        inventory.setProductId(id);
+        inventory.setProductName(name);
+        return inventory;
+    }
+
+    private static User user(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        return user;
+    }
+}
@@ -0,0 +1,232 @@
+package com.logistics.service;
+
+import com.logistics.entity.Mall;
+import com.logistics.mapper.MallMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockReservationServiceTest {
+
+    private static final int PRODUCT_ID = 7;
+
+    @Mock private MallMapper mallMapper;
+    @Mock private MallCatalogCache mallCatalogCache;
+    @Mock private TaskScheduler taskScheduler;
+
+    private SimpleMeterRegistry meterRegistry;
+    private StockReservationService service;
+    /** 模拟数据库中的 available_quantity */
+    private final AtomicInteger dbStock = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        service = new StockReservationService(mallMapper, mallCatalogCache, taskScheduler, meterRegistry, 8, 30, 60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reserve_flashSaleOnSingleSku_shouldNeverOversell() throws Exception {
+        int stock = 1000;
+        int attempts = 40_000;
+        int threads = 32;
+        dbStock.set(stock);
+        stubConditionalUpdate();
+        Mall mall = mall(stock);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    int succeeded = 0;
+                    for (int i = 0; i < attempts / threads; i++) {
+                        if (service.reserve(mall, 1)) {
+                            succeeded++;
+                        }
+                    }
+                    return succeeded;
+                }));
+            }
+            start.countDown();
+            int succeeded = 0;
+            for (Future<Integer> future : futures) {
+                succeeded += future.get();
+            }
+
+            assertEquals(stock, succeeded);
+            assertEquals(0, dbStock.get());
+            assertEquals(0L, service.available(PRODUCT_ID));
+            assertEquals(0, service.pendingCount());
+            // 售罄后的请求在内存中被拒绝，只有成功的预留访问数据库
+            verify(mallMapper, times(stock)).decreaseAvailableQuantity(eq(PRODUCT_ID), eq(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void restock_soldOut_shouldAdmitOrdersAgainAfterCommit() {
+        dbStock.set(1);
+        stubConditionalUpdate();
+        assertTrue(service.reserve(mall(1), 1));
+        assertFalse(service.reserve(mall(0), 1));
+
+        TransactionSynchronizationManager.initSynchronization();
+        service.restock(PRODUCT_ID, 5);
+        assertEquals(0L, service.available(PRODUCT_ID));
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        dbStock.set(5);
+
+        assertEquals(5L, service.available(PRODUCT_ID));
+        assertTrue(service.reserve(mall(5), 2));
+        assertEquals(3L, service.available(PRODUCT_ID));
+    }
+
+    @Test
+    void restock_counterNotLoaded_shouldSeedIt() {
+        service.restock(PRODUCT_ID, 12);
+
+        assertEquals(12L, service.available(PRODUCT_ID));
+    }
+
+    @Test
+    void reserve_transactionRolledBack_shouldReturnStockToCounter() {
+        dbStock.set(10);
+        stubConditionalUpdate();
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertTrue(service.reserve(mall(10), 3));
+        assertEquals(7L, service.available(PRODUCT_ID));
+        assertEquals(1, service.pendingCount());
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(10L, service.available(PRODUCT_ID));
+        assertEquals(0, service.pendingCount());
+        verifyNoInteractions(mallCatalogCache);
+    }
+
+    @Test
+    void reserve_transactionCommitted_shouldInvalidateCatalog() {
+        dbStock.set(10);
+        stubConditionalUpdate();
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertTrue(service.reserve(mall(10), 3));
+        verifyNoInteractions(mallCatalogCache);
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(7L, service.available(PRODUCT_ID));
+        assertEquals(0, service.pendingCount());
+        verify(mallCatalogCache).invalidate();
+    }
+
+    @Test
+    void reserve_counterAheadOfDatabase_shouldRejectAndReload() {
+        // 库存被直接改库清零，计数器仍按下单时读到的 5 初始化
+        dbStock.set(0);
+        stubConditionalUpdate();
+
+        assertFalse(service.reserve(mall(5), 1));
+        assertNull(service.available(PRODUCT_ID));
+        assertEquals(1.0, meterRegistry.get("stock.reservations").tag("result", "conflict").counter().count());
+
+        dbStock.set(2);
+        assertTrue(service.reserve(mall(2), 2));
+        assertFalse(service.reserve(mall(2), 1));
+        verify(mallMapper, times(2)).decreaseAvailableQuantity(eq(PRODUCT_ID), anyInt());
+    }
+
+    @Test
+    void reapExpired_shouldReleaseStuckReservation() throws Exception {
+        service = new StockReservationService(mallMapper, mallCatalogCache, taskScheduler, meterRegistry, 8, 0, 60);
+        dbStock.set(10);
+        stubConditionalUpdate();
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertTrue(service.reserve(mall(10), 4));
+        Thread.sleep(5);
+        service.reapExpired();
+
+        assertEquals(10L, service.available(PRODUCT_ID));
+        assertEquals(0, service.pendingCount());
+        // 事务之后再回滚不会重复归还
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertEquals(10L, service.available(PRODUCT_ID));
+    }
+
+    @Test
+    void reconcile_shouldOverwriteIdleCounterWithDatabaseStock() {
+        dbStock.set(10);
+        stubConditionalUpdate();
+        assertTrue(service.reserve(mall(10), 1));
+        when(mallMapper.selectBatchIds(any())).thenReturn(List.of(mall(25)));
+
+        service.reconcile();
+
+        assertEquals(25L, service.available(PRODUCT_ID));
+    }
+
+    private void stubConditionalUpdate() {
+        lenient().when(mallMapper.decreaseAvailableQuantity(eq(PRODUCT_ID), anyInt())).thenAnswer(inv -> {
+            int quantity = inv.getArgument(1);
+            while (true) {
+                int current = dbStock.get();
+                if (current < quantity) {
+                    return 0;
+                }
+                if (dbStock.compareAndSet(current, current - quantity)) {
+                    return 1;
+                }
+            }
+        });
+    }
+
+    private static void completeTransaction(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(s -> s.afterCompletion(status));
+    }
+
+    private static Mall mall(int availableQuantity) {
+        Mall mall = new Mall();
+        mall.setProductId(PRODUCT_ID);
+        mall.setIsPublished(1);
+        mall.setAvailableQuantity(availableQuantity);
+        return mall;
+    }
+}
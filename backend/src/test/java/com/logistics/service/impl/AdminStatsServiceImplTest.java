@@ -0,0 +1,112 @@
+package com.logistics.service.impl;
+
+import com.logistics.dto.OrderStatusStat;
+import com.logistics.dto.RoleCount;
+import com.logistics.mapper.OrderMapper;
+import com.logistics.mapper.UserMapper;
+import com.logistics.mapper.WarehouseMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AdminStatsServiceImplTest {
+
+    @Mock private UserMapper userMapper;
+    @Mock private OrderMapper orderMapper;
+    @Mock private WarehouseMapper warehouseMapper;
+
+    private AdminStatsServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new AdminStatsServiceImpl(userMapper, orderMapper, warehouseMapper, 30);
+        when(userMapper.selectRoleCounts()).thenReturn(List.of(
+                roleCount("consumer", 7), roleCount("merchant", 2), roleCount("driver", 3), roleCount("admin", 1)));
+        when(orderMapper.selectStatusStats()).thenReturn(List.of(
+                statusStat(0, 4, "40.00"), statusStat(1, 3, "30.50"), statusStat(3, 2, "19.50"), statusStat(5, 1, "10.00")));
+        when(warehouseMapper.selectCount(any())).thenReturn(2L);
+    }
+
+    @Test
+    void getOverview_shouldAggregateGroupedRows() {
+        Map<String, Object> stats = service.getOverview();
+
+        assertEquals(13L, stats.get("totalUsers"));
+        assertEquals(2L, stats.get("merchantCount"));
+        assertEquals(3L, stats.get("driverCount"));
+        assertEquals(7L, stats.get("consumerCount"));
+        assertEquals(10L, stats.get("totalOrders"));
+        assertEquals(Map.of("0", 4L, "1", 3L, "2", 0L, "3", 2L, "4", 0L, "5", 1L), stats.get("ordersByStatus"));
+        // 未付款（状态 0）的订单不计入营收
+        assertEquals(0, new BigDecimal("60.00").compareTo((BigDecimal) stats.get("totalRevenue")));
+        assertEquals(2L, stats.get("totalWarehouses"));
+    }
+
+    @Test
+    void getOverview_repeatedCalls_shouldQueryDatabaseOnce() {
+        Map<String, Object> first = service.getOverview();
+        Map<String, Object> second = service.getOverview();
+
+        assertSame(first, second);
+        verify(userMapper, times(1)).selectRoleCounts();
+        verify(orderMapper, times(1)).selectStatusStats();
+        verify(orderMapper, never()).selectList(any());
+        verify(orderMapper, never()).selectCount(any());
+    }
+
+    @Test
+    void invalidate_shouldRecomputeOnNextCall() {
+        service.getOverview();
+        service.invalidate();
+        service.getOverview();
+
+        verify(orderMapper, times(2)).selectStatusStats();
+    }
+
+    @Test
+    void invalidate_inTransaction_shouldWaitForCommit() {
+        service.getOverview();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.invalidate();
+            // 提交前的请求仍返回旧快照，不会把未提交前的数据重新缓存
+            service.getOverview();
+            verify(orderMapper, times(1)).selectStatusStats();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        service.getOverview();
+
+        verify(orderMapper, times(2)).selectStatusStats();
+    }
+
+    private static RoleCount roleCount(String role, long count) {
+        RoleCount row = new RoleCount();
+        row.setRole(role);
+        row.setUserCount(count);
+        return row;
+    }
+
+    private static OrderStatusStat statusStat(int status, long count, String revenue) {
+        OrderStatusStat row = new OrderStatusStat();
+        row.setStatus(status);
+        row.setOrderCount(count);
+        row.setRevenue(new BigDecimal(revenue));
+        return row;
+    }
+}
@@ -0,0 +1,280 @@
+package com.logistics.service.impl;
+
+import com.logistics.dto.CreateBatchResponse;
+import com.logistics.dto.DispatchResponse;
+import com.logistics.entity.Address;
+import com.logistics.entity.DeliveryBatch;
+import com.logistics.entity.DeliveryBatchOrder;
+import com.logistics.entity.Order;
+import com.logistics.entity.User;
+import com.logistics.entity.Warehouse;
+import com.logistics.mapper.DeliveryBatchMapper;
+import com.logistics.mapper.DeliveryBatchOrderMapper;
+import com.logistics.mapper.OrderMapper;
+import com.logistics.mapper.UserMapper;
+import com.logistics.mapper.WarehouseMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DispatchServiceImplTest {
+
+    private static final int WAREHOUSE_ID = 1;
+
+    @Mock private OrderMapper orderMapper;
+    @Mock private UserMapper userMapper;
+    @Mock private WarehouseMapper warehouseMapper;
+    @Mock private DeliveryBatchMapper deliveryBatchMapper;
+    @Mock private DeliveryBatchOrderMapper deliveryBatchOrderMapper;
+
+    private ExecutorService executor;
+    private final List<DeliveryBatch> insertedBatches = new ArrayList<>();
+    private final List<DeliveryBatchOrder> insertedLinks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void dispatch_shouldCoverAllOrdersWithinCapacityAndBalanceDrivers() {
+        stubWarehouseAndDrivers(3);
+        stubCandidates(randomOrders(200, new Random(3)));
+        stubInserts();
+
+        DispatchResponse response = service(240).dispatch(WAREHOUSE_ID);
+
+        assertEquals(200, response.getOrderCount());
+        assertEquals(3, response.getDriverCount());
+        assertEquals(response.getBatchCount(), insertedBatches.size());
+        Set<Integer> dispatched = new HashSet<>();
+        for (CreateBatchResponse batch : response.getBatches()) {
+            assertTrue(batch.getOrderCount() <= 30);
+            assertTrue(batch.getTotalDuration() <= 240 * 60);
+            batch.getStopOrder().forEach(id -> assertTrue(dispatched.add(id), "订单重复分配: " + id));
+        }
+        assertEquals(200, dispatched.size());
+
+        // 每个批次的停靠顺序从 1 开始连续编号
+        Map<Integer, List<Integer>> sequences = new HashMap<>();
+        insertedLinks.forEach(l -> sequences.computeIfAbsent(l.getBatchId(), k -> new ArrayList<>()).add(l.getStopSequence()));
+        sequences.values().forEach(seq -> {
+            for (int i = 0; i < seq.size(); i++) {
+                assertEquals(i + 1, seq.get(i));
+            }
+        });
+        assertTrue(insertedBatches.stream().allMatch(b -> b.getStatus() == 0 && b.getRouteData() == null));
+        verify(deliveryBatchMapper, times(1)).insertBatch(any());
+        verify(deliveryBatchOrderMapper, times(1)).insertBatch(any());
+    }
+
+    @Test
+    void dispatch_batchOverDurationLimit_shouldBeSplit() {
+        stubWarehouseAndDrivers(2);
+        stubCandidates(randomOrders(60, new Random(5)));
+        stubInserts();
+
+        // 上限 30 分钟：每站停留 3 分钟，再加往返行驶，批次只能包含少量停靠点
+        DispatchResponse response = service(30).dispatch(WAREHOUSE_ID);
+
+        assertEquals(60, response.getOrderCount());
+        for (CreateBatchResponse batch : response.getBatches()) {
+            assertTrue(batch.getOrderCount() == 1 || batch.getTotalDuration() <= 30 * 60,
+                    "批次超出时长上限: " + batch.getTotalDuration());
+        }
+    }
+
+    @Test
+    void dispatch_ordersWithoutDefaultAddress_shouldBeSkipped() {
+        stubWarehouseAndDrivers(1);
+        List<Order> orders = randomOrders(3, new Random(1));
+        orders.get(1).setAddress(new Address());
+        stubCandidates(orders);
+        stubInserts();
+
+        DispatchResponse response = service(240).dispatch(WAREHOUSE_ID);
+
+        assertEquals(List.of(orders.get(1).getOrderId()), response.getSkippedOrderIds());
+        assertEquals(2, response.getOrderCount());
+    }
+
+    @Test
+    void dispatch_customerWithSeveralDefaultAddresses_shouldDispatchOrderOnce() {
+        stubWarehouseAndDrivers(1);
+        List<Order> orders = randomOrders(3, new Random(2));
+        // LEFT JOIN 默认地址时，多个默认地址的顾客的订单会返回多行
+        Order duplicate = new Order();
+        duplicate.setOrderId(orders.get(0).getOrderId());
+        duplicate.setWarehouseId(WAREHOUSE_ID);
+        duplicate.setStatus(2);
+        duplicate.setAddress(orders.get(2).getAddress());
+        orders.add(1, duplicate);
+        stubCandidates(orders);
+        stubInserts();
+
+        DispatchResponse response = service(240).dispatch(WAREHOUSE_ID);
+
+        assertEquals(3, response.getOrderCount());
+        assertEquals(3, insertedLinks.size());
+        assertEquals(3, insertedLinks.stream().map(DeliveryBatchOrder::getOrderId).distinct().count());
+    }
+
+    @Test
+    void dispatch_executorSaturated_shouldSequenceOnCallerThread() {
+        stubWarehouseAndDrivers(2);
+        stubCandidates(randomOrders(90, new Random(4)));
+        stubInserts();
+
+        DispatchResponse response = new DispatchServiceImpl(orderMapper, userMapper, warehouseMapper,
+                deliveryBatchMapper, deliveryBatchOrderMapper,
+                task -> {
+                    throw new RejectedExecutionException("队列已满");
+                },
+                30, 240, 20, 1.3, 30, 3).dispatch(WAREHOUSE_ID);
+
+        assertEquals(90, response.getOrderCount());
+        assertEquals(90, insertedLinks.size());
+    }
+
+    @Test
+    void dispatch_nothingToDispatch_shouldNotWrite() {
+        stubWarehouseAndDrivers(1);
+        stubCandidates(List.of());
+
+        DispatchResponse response = service(240).dispatch(WAREHOUSE_ID);
+
+        assertEquals(0, response.getBatchCount());
+        verifyNoInteractions(deliveryBatchMapper, deliveryBatchOrderMapper);
+    }
+
+    @Test
+    void dispatch_noDrivers_shouldThrow() {
+        when(warehouseMapper.selectByIdForUpdate(WAREHOUSE_ID)).thenReturn(warehouse());
+        when(userMapper.selectList(any())).thenReturn(List.of());
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> service(240).dispatch(WAREHOUSE_ID));
+        assertEquals("该仓库没有配送员", e.getMessage());
+        verifyNoInteractions(orderMapper, deliveryBatchMapper, deliveryBatchOrderMapper);
+    }
+
+    @Test
+    void assignDrivers_shouldGiveLongestBatchesToLeastLoadedDriver() {
+        List<DispatchServiceImpl.PlannedBatch> plans = List.of(
+                new DispatchServiceImpl.PlannedBatch(new int[]{0}, 0, 100),
+                new DispatchServiceImpl.PlannedBatch(new int[]{1}, 0, 300),
+                new DispatchServiceImpl.PlannedBatch(new int[]{2}, 0, 200),
+                new DispatchServiceImpl.PlannedBatch(new int[]{3}, 0, 150));
+
+        DispatchServiceImpl.assignDrivers(plans, List.of(driver(7L), driver(8L)));
+
+        // 300 → 7，200 → 8，150 → 8（200 < 300），100 → 7
+        assertEquals(List.of(7, 7, 8, 8), plans.stream().map(p -> p.driverId).toList());
+    }
+
+    @Test
+    void dispatch_twentyThousandOrders_shouldFinishInSeconds() {
+        stubWarehouseAndDrivers(50);
+        stubCandidates(randomOrders(20_000, new Random(11)));
+        stubInserts();
+
+        long start = System.nanoTime();
+        DispatchResponse response = service(240).dispatch(WAREHOUSE_ID);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(20_000, response.getOrderCount());
+        assertEquals(20_000, insertedLinks.size());
+        assertTrue(elapsedMs < 10_000, "调度耗时过长: " + elapsedMs + "ms");
+        // 多行 INSERT 按 500 行分块
+        verify(deliveryBatchOrderMapper, times(40)).insertBatch(any());
+    }
+
+    private DispatchServiceImpl service(long maxBatchMinutes) {
+        return new DispatchServiceImpl(orderMapper, userMapper, warehouseMapper, deliveryBatchMapper,
+                deliveryBatchOrderMapper, executor, 30, maxBatchMinutes, 20, 1.3, 30, 3);
+    }
+
+    private void stubWarehouseAndDrivers(int driverCount) {
+        when(warehouseMapper.selectByIdForUpdate(WAREHOUSE_ID)).thenReturn(warehouse());
+        List<User> drivers = new ArrayList<>();
+        for (long id = 1; id <= driverCount; id++) {
+            drivers.add(driver(100 + id));
+        }
+        when(userMapper.selectList(any())).thenReturn(drivers);
+    }
+
+    private void stubCandidates(List<Order> orders) {
+        when(orderMapper.selectDispatchCandidates(WAREHOUSE_ID)).thenReturn(orders);
+    }
+
+    private void stubInserts() {
+        int[] nextId = {1};
+        lenient().when(deliveryBatchMapper.insertBatch(any())).thenAnswer(inv -> {
+            List<DeliveryBatch> batches = inv.getArgument(0);
+            batches.forEach(b -> b.setId(nextId[0]++));
+            insertedBatches.addAll(batches);
+            return batches.size();
+        });
+        lenient().when(deliveryBatchOrderMapper.insertBatch(any())).thenAnswer(inv -> {
+            List<DeliveryBatchOrder> links = inv.getArgument(0);
+            insertedLinks.addAll(links);
+            return links.size();
+        });
+    }
+
+    private static List<Order> randomOrders(int count, Random random) {
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Order order = new Order();
+            order.setOrderId(i);
+            order.setWarehouseId(WAREHOUSE_ID);
+            order.setStatus(2);
+            Address address = new Address();
+            address.setId((long) i);
+            address.setLatitude(BigDecimal.valueOf(39.90 + (random.nextDouble() - 0.5) * 0.2));
+            address.setLongitude(BigDecimal.valueOf(116.40 + (random.nextDouble() - 0.5) * 0.25));
+            order.setAddress(address);
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    private static Warehouse warehouse() {
+        Warehouse warehouse = new Warehouse();
+        warehouse.setId(WAREHOUSE_ID);
+        warehouse.setLatitude(new BigDecimal("39.90"));
+        warehouse.setLongitude(new BigDecimal("116.40"));
+        return warehouse;
+    }
+
+    private static User driver(Long id) {
+        User driver = new User();
+        driver.setId(id);
+        driver.setWarehouseId(WAREHOUSE_ID);
+        return driver;
+    }
+}
@@ -0,0 +1,195 @@
+package com.logistics.service.impl;
+
+import com.logistics.dto.DailyOrderCount;
+import com.logistics.entity.Order;
+import com.logistics.entity.OrderDailyStat;
+import com.logistics.mapper.OrderDailyStatMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderRollupServiceImplTest {
+
+    @InjectMocks
+    private OrderRollupServiceImpl rollupService;
+
+    @Mock
+    private OrderDailyStatMapper orderDailyStatMapper;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void recordStatusChanges_shouldMergeDeltasIntoOneStatement() {
+        LocalDateTime orderTime = LocalDateTime.of(2026, 3, 1, 10, 0);
+        List<Order> orders = List.of(order(1, orderTime, 3, "10.00"), order(2, orderTime, 3, "20.00"),
+                order(3, orderTime.plusDays(1), 3, "5.00"));
+
+        rollupService.recordStatusChanges(orders, 2);
+
+        List<OrderDailyStat> deltas = captureSingleUpsert();
+        assertEquals(4, deltas.size());
+        OrderDailyStat fromRow = find(deltas, LocalDate.of(2026, 3, 1), 2);
+        assertEquals(-2L, fromRow.getOrderCount());
+        assertEquals(0, new BigDecimal("-30.00").compareTo(fromRow.getRevenue()));
+        OrderDailyStat toRow = find(deltas, LocalDate.of(2026, 3, 1), 3);
+        assertEquals(2L, toRow.getOrderCount());
+        assertEquals(0, new BigDecimal("30.00").compareTo(toRow.getRevenue()));
+        assertEquals(1L, find(deltas, LocalDate.of(2026, 3, 2), 3).getOrderCount());
+    }
+
+    @Test
+    void recordCreated_shouldAddOneToCurrentStatus() {
+        Order order = order(1, LocalDateTime.of(2026, 3, 1, 10, 0), 0, "99.90");
+        order.setWarehouseId(null);
+
+        rollupService.recordCreated(order);
+
+        OrderDailyStat delta = captureSingleUpsert().get(0);
+        assertEquals(0, delta.getStatus());
+        assertEquals(0, delta.getWarehouseId());
+        assertEquals(1L, delta.getOrderCount());
+        assertEquals(0, new BigDecimal("99.90").compareTo(delta.getRevenue()));
+    }
+
+    @Test
+    void recordCreated_group_shouldMergeDeltasIntoOneStatement() {
+        LocalDateTime orderTime = LocalDateTime.of(2026, 3, 1, 10, 0);
+
+        rollupService.recordCreated(List.of(order(1, orderTime, 0, "10.00"), order(2, orderTime, 0, "2.50"),
+                order(3, null, 0, "1.00")));
+
+        List<OrderDailyStat> deltas = captureSingleUpsert();
+        assertEquals(1, deltas.size());
+        assertEquals(2L, deltas.get(0).getOrderCount());
+        assertEquals(0, new BigDecimal("12.50").compareTo(deltas.get(0).getRevenue()));
+    }
+
+    @Test
+    void recordStatusChange_unchangedStatusOrMissingOrderTime_shouldNotWrite() {
+        rollupService.recordStatusChange(order(1, LocalDateTime.now(), 2, "1.00"), 2);
+        rollupService.recordCreated(order(2, null, 0, "1.00"));
+        rollupService.recordStatusChanges(List.of(), 3);
+
+        verifyNoInteractions(orderDailyStatMapper);
+    }
+
+    @Test
+    void recordDeleted_shouldSubtractFromCurrentStatus() {
+        rollupService.recordDeleted(order(1, LocalDateTime.of(2026, 3, 1, 10, 0), 5, "8.00"));
+
+        OrderDailyStat delta = captureSingleUpsert().get(0);
+        assertEquals(5, delta.getStatus());
+        assertEquals(-1L, delta.getOrderCount());
+    }
+
+    @Test
+    void getDailyOrderCounts_shouldFillMissingDaysFromRollupOnly() {
+        LocalDate today = LocalDate.now();
+        OrderDailyStat row = new OrderDailyStat();
+        row.setStatDate(today.minusDays(1));
+        row.setOrderCount(4L);
+        row.setRevenue(new BigDecimal("12.50"));
+        when(orderDailyStatMapper.selectDailyTotals(today.minusDays(6), 3)).thenReturn(List.of(row));
+
+        List<DailyOrderCount> counts = rollupService.getDailyOrderCounts(7, 3);
+
+        assertEquals(7, counts.size());
+        assertEquals(today.minusDays(6).toString(), counts.get(0).getDate());
+        assertEquals(today.toString(), counts.get(6).getDate());
+        assertEquals(4L, counts.get(5).getCount());
+        assertEquals(0L, counts.get(6).getCount());
+    }
+
+    @Test
+    void getDailyOrderCounts_shouldCapRangeAt365Days() {
+        when(orderDailyStatMapper.selectDailyTotals(any(), isNull())).thenReturn(List.of());
+
+        assertEquals(365, rollupService.getDailyOrderCounts(100_000, null).size());
+        verify(orderDailyStatMapper).selectDailyTotals(eq(LocalDate.now().minusDays(364)), isNull());
+        assertEquals(1, rollupService.getDailyOrderCounts(0, null).size());
+    }
+
+    @Test
+    void rebuild_shouldReplaceOneDayPerTransaction() {
+        stubTransactions();
+        LocalDate today = LocalDate.now();
+        LocalDate first = today.minusDays(2);
+        when(orderDailyStatMapper.selectFirstOrderDate()).thenReturn(first);
+        when(orderDailyStatMapper.selectLastOrderDate()).thenReturn(today.minusDays(1));
+        when(orderDailyStatMapper.rebuildDay(any())).thenReturn(4);
+
+        assertEquals(12, rollupService.rebuild());
+
+        // 每天：锁当天的订单 → 删除当天汇总 → 重新汇总，各在自己的事务中
+        InOrder inOrder = inOrder(transactionTemplate, orderDailyStatMapper);
+        for (LocalDate day = first; !day.isAfter(today); day = day.plusDays(1)) {
+            inOrder.verify(transactionTemplate).execute(any());
+            inOrder.verify(orderDailyStatMapper).lockOrdersOn(day);
+            inOrder.verify(orderDailyStatMapper).deleteByDate(day);
+            inOrder.verify(orderDailyStatMapper).rebuildDay(day);
+        }
+        inOrder.verify(orderDailyStatMapper).deleteBefore(first);
+        verify(transactionTemplate, times(3)).execute(any());
+    }
+
+    @Test
+    void rebuild_noOrders_shouldOnlyRebuildToday() {
+        stubTransactions();
+        LocalDate today = LocalDate.now();
+
+        assertEquals(0, rollupService.rebuild());
+
+        verify(orderDailyStatMapper).lockOrdersOn(today);
+        verify(orderDailyStatMapper).rebuildDay(today);
+        verify(orderDailyStatMapper).deleteBefore(today);
+        verify(transactionTemplate, times(1)).execute(any());
+    }
+
+    private void stubTransactions() {
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    private List<OrderDailyStat> captureSingleUpsert() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<OrderDailyStat>> captor = ArgumentCaptor.forClass(List.class);
+        verify(orderDailyStatMapper, times(1)).upsertDeltas(captor.capture());
+        return captor.getValue();
+    }
+
+    private static OrderDailyStat find(List<OrderDailyStat> deltas, LocalDate date, int status) {
+        return deltas.stream()
+                .filter(d -> d.getStatDate().equals(date) && d.getStatus() == status)
+                .findFirst().orElseThrow();
+    }
+
+    private static Order order(int orderId, LocalDateTime orderTime, int status, String amount) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setOrderTime(orderTime);
+        order.setStatus(status);
+        order.setWarehouseId(1);
+        order.setMerchantId(2);
+        order.setTotalAmount(new BigDecimal(amount));
+        return order;
+    }
+}
@@ -0,0 +1,570 @@
+package com.logistics.service.impl;
+
+import com.logistics.common.CursorPage;
+import com.logistics.common.PageCursor;
+import com.logistics.dto.BatchOrderResult;
+import com.logistics.dto.BulkCreateBatchRequest;
+import com.logistics.dto.CreateOrderRequest;
+import com.logistics.dto.CreateBatchResponse;
+import com.logistics.dto.DeliveryBatchResponse;
+import com.logistics.entity.Address;
+import com.logistics.entity.DeliveryBatch;
+import com.logistics.entity.DeliveryBatchOrder;
+import com.logistics.entity.Inventory;
+import com.logistics.entity.Mall;
+import com.logistics.entity.Order;
+import com.logistics.entity.User;
+import com.logistics.entity.Warehouse;
+import com.logistics.mapper.AddressMapper;
+import com.logistics.mapper.DeliveryBatchMapper;
+import com.logistics.mapper.DeliveryBatchOrderMapper;
+import com.logistics.mapper.InventoryMapper;
+import com.logistics.mapper.MallMapper;
+import com.logistics.mapper.OrderMapper;
+import com.logistics.mapper.UserMapper;
+import com.logistics.service.DirectoryCache;
+import com.logistics.service.OrderRollupService;
+import com.logistics.service.RoutePlanCache;
+import com.logistics.service.SearchIndexService;
+import com.logistics.service.StockReservationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderServiceImplTest {
+
+    @InjectMocks
+    private OrderServiceImpl orderService;
+
+    @Mock private OrderMapper orderMapper;
+    @Mock private AddressMapper addressMapper;
+    @Mock private UserMapper userMapper;
+    @Mock private DeliveryBatchMapper deliveryBatchMapper;
+    @Mock private DeliveryBatchOrderMapper deliveryBatchOrderMapper;
+    @Mock private DirectoryCache directoryCache;
+    @Mock private RoutePlanCache routePlanCache;
+    @Mock private OrderRollupService orderRollupService;
+    @Mock private SearchIndexService searchIndexService;
+    @Mock private MallMapper mallMapper;
+    @Mock private InventoryMapper inventoryMapper;
+    @Mock private StockReservationService stockReservationService;
+    @Mock private TransactionTemplate transactionTemplate;
+
+    /** selectDeliveryCandidates 返回的待配送订单 */
+    private final List<Order> candidates = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // 直接在当前线程执行事务回调
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void getDeliveryBatchesWithStatus_statementCountIndependentOfBatchCount() {
+        assertEquals(countStatementsForBatches(1), countStatementsForBatches(20));
+        assertEquals(countStatementsForBatches(1), countStatementsForBatches(150));
+    }
+
+    @Test
+    void getDeliveryBatchesWithStatus_groupsOrdersByBatchInStopOrder() {
+        stubBatches(2, 3);
+
+        List<DeliveryBatchResponse> responses = orderService.getDeliveryBatchesWithStatus(1L, null);
+
+        assertEquals(2, responses.size());
+        for (DeliveryBatchResponse response : responses) {
+            assertEquals(3, response.getOrders().size());
+            response.getOrders().forEach(o -> {
+                assertEquals(response.getBatchId(), o.getBatchId());
+                assertNotNull(o.getAddress());
+            });
+        }
+        verify(addressMapper, never()).selectById(any());
+        verify(orderMapper, never()).selectOrderWithDetails(any());
+    }
+
+    @Test
+    void getDeliveryBatchesWithStatus_noBatches_shouldNotQueryOrders() {
+        when(deliveryBatchMapper.selectList(any())).thenReturn(List.of());
+
+        assertTrue(orderService.getDeliveryBatchesWithStatus(1L, null).isEmpty());
+        verifyNoInteractions(orderMapper);
+    }
+
+    @Test
+    void getOrdersByBatchId_shouldUseSingleJoinedQuery() {
+        when(orderMapper.selectOrdersByBatchIds(anyCollection())).thenReturn(List.of(order(7, 1), order(7, 2)));
+
+        List<Order> orders = orderService.getOrdersByBatchId(7);
+
+        assertEquals(2, orders.size());
+        verify(orderMapper, times(1)).selectOrdersByBatchIds(anyCollection());
+        verifyNoInteractions(deliveryBatchOrderMapper, addressMapper);
+    }
+
+    @Test
+    void createDeliveryBatch_shouldStoreStopsInSequencedOrder() {
+        stubDriverAndWarehouse(9L);
+        // 订单 1/2/3 分别距仓库 3/1/2 个单位，应按 2、3、1 的顺序配送
+        stubPickedUpOrder(1, "39.93");
+        stubPickedUpOrder(2, "39.91");
+        stubPickedUpOrder(3, "39.92");
+
+        CreateBatchResponse response = orderService.createDeliveryBatch(9L, List.of(1, 2, 3));
+
+        assertEquals(List.of(2, 3, 1), response.getStopOrder());
+        List<DeliveryBatchOrder> links = captureInsertedLinks().get(0);
+        assertEquals(List.of(2, 3, 1), links.stream().map(DeliveryBatchOrder::getOrderId).toList());
+        assertEquals(List.of(1, 2, 3), links.stream().map(DeliveryBatchOrder::getStopSequence).toList());
+    }
+
+    @Test
+    void createDeliveryBatch_statementCountIndependentOfOrderCount() {
+        // 逐订单校验与写入时为 4N + 3 条语句，批量路径固定为 4 条：
+        // 规划前读取订单、事务内复核订单、写入批次、写入关联（配送员与仓库来自目录缓存）
+        assertEquals(4, countStatementsForCreateBatch(1));
+        assertEquals(4, countStatementsForCreateBatch(30));
+    }
+
+    @Test
+    void createDeliveryBatch_shouldPlanRouteBeforeOpeningTransaction() {
+        stubDriverAndWarehouse(9L);
+        stubPickedUpOrder(1, "39.91");
+        stubPickedUpOrder(2, "39.92");
+
+        orderService.createDeliveryBatch(9L, List.of(1, 2));
+
+        InOrder inOrder = inOrder(routePlanCache, transactionTemplate, deliveryBatchMapper);
+        inOrder.verify(routePlanCache).plan(any(), anyList());
+        inOrder.verify(transactionTemplate).execute(any());
+        inOrder.verify(deliveryBatchMapper).insert(any(DeliveryBatch.class));
+    }
+
+    @Test
+    void createDeliveryBatch_orderTakenWhilePlanning_shouldThrowWithoutInsert() {
+        stubDriverAndWarehouse(9L);
+        Order first = stubPickedUpOrder(1, "39.91");
+        stubPickedUpOrder(2, "39.92");
+        when(routePlanCache.plan(any(), anyList())).thenAnswer(inv -> {
+            // 规划路线期间订单被另一个批次占用
+            first.setBatchId(5);
+            return null;
+        });
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> orderService.createDeliveryBatch(9L, List.of(1, 2)));
+        assertEquals("订单已在活跃批次中: 1", e.getMessage());
+        verify(deliveryBatchMapper, never()).insert(any(DeliveryBatch.class));
+        verify(deliveryBatchOrderMapper, never()).insertBatch(any());
+    }
+
+    @Test
+    void createDeliveryBatch_orderInActiveBatch_shouldThrow() {
+        stubDriverAndWarehouse(9L);
+        stubPickedUpOrder(1, "39.91");
+        stubPickedUpOrder(2, "39.92").setBatchId(5);
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> orderService.createDeliveryBatch(9L, List.of(1, 2)));
+        assertEquals("订单已在活跃批次中: 2", e.getMessage());
+        verify(deliveryBatchMapper, never()).insert(any(DeliveryBatch.class));
+        verify(deliveryBatchOrderMapper, never()).insertBatch(any());
+    }
+
+    @Test
+    void createDeliveryBatch_missingOrderOrAddress_shouldReportOrderId() {
+        stubDriverAndWarehouse(9L);
+        stubPickedUpOrder(1, "39.91");
+        stubPickedUpOrder(3, "39.92").setAddress(new Address());
+
+        RuntimeException missing = assertThrows(RuntimeException.class,
+                () -> orderService.createDeliveryBatch(9L, List.of(1, 2)));
+        assertEquals("订单不存在: 2", missing.getMessage());
+        RuntimeException noAddress = assertThrows(RuntimeException.class,
+                () -> orderService.createDeliveryBatch(9L, List.of(1, 3)));
+        assertEquals("顾客未设置默认收货地址: 3", noAddress.getMessage());
+    }
+
+    @Test
+    void createDeliveryBatch_overLimit_shouldThrow() {
+        ReflectionTestUtils.setField(orderService, "maxBatchOrders", 2);
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> orderService.createDeliveryBatch(9L, List.of(1, 2, 3)));
+        assertTrue(e.getMessage().contains("2"));
+        verifyNoInteractions(orderMapper, routePlanCache);
+    }
+
+    @Test
+    void createDeliveryBatches_shouldValidateOnceAndInsertLinksOnce() {
+        configureLimits();
+        when(directoryCache.getWarehouse(1)).thenReturn(warehouse());
+        when(userMapper.selectBatchIds(anyCollection())).thenReturn(List.of(driver(9L), driver(10L)));
+        stubBatchIds();
+        for (int orderId = 1; orderId <= 4; orderId++) {
+            stubPickedUpOrder(orderId, "39.9" + orderId);
+        }
+
+        List<CreateBatchResponse> responses = orderService.createDeliveryBatches(
+                bulkRequest(assignment(9L, 1, 2), assignment(10L, 4, 3)));
+
+        assertEquals(2, responses.size());
+        assertEquals(List.of(1, 2), responses.get(0).getStopOrder());
+        assertEquals(List.of(3, 4), responses.get(1).getStopOrder());
+        // 规划前读取一次，事务内复核一次，与批次数无关
+        verify(orderMapper, times(2)).selectDeliveryCandidates(anyCollection());
+        verify(routePlanCache, times(2)).plan(any(), anyList());
+        verify(transactionTemplate, times(1)).execute(any());
+        verify(deliveryBatchMapper, times(2)).insert(any(DeliveryBatch.class));
+        List<List<DeliveryBatchOrder>> inserted = captureInsertedLinks();
+        assertEquals(1, inserted.size());
+        assertEquals(List.of(1, 1, 2, 2), inserted.get(0).stream().map(DeliveryBatchOrder::getBatchId).toList());
+    }
+
+    @Test
+    void createDeliveryBatches_driverFromOtherWarehouse_shouldThrow() {
+        configureLimits();
+        when(directoryCache.getWarehouse(1)).thenReturn(warehouse());
+        User other = driver(10L);
+        other.setWarehouseId(2);
+        when(userMapper.selectBatchIds(anyCollection())).thenReturn(List.of(driver(9L), other));
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> orderService.createDeliveryBatches(
+                bulkRequest(assignment(9L, 1), assignment(10L, 2))));
+        assertEquals("配送员不属于该仓库: 10", e.getMessage());
+        verifyNoInteractions(orderMapper, deliveryBatchMapper, deliveryBatchOrderMapper);
+    }
+
+    @Test
+    void createDeliveryBatches_sameOrderInTwoBatches_shouldThrow() {
+        configureLimits();
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> orderService.createDeliveryBatches(
+                bulkRequest(assignment(9L, 1, 2), assignment(10L, 2))));
+        assertEquals("订单重复: 2", e.getMessage());
+        verifyNoInteractions(orderMapper, deliveryBatchMapper, deliveryBatchOrderMapper);
+    }
+
+    @Test
+    void createOrder_reserved_shouldInsertOrder() {
+        Mall mall = stubPublishedProduct(10);
+        when(stockReservationService.reserve(mall, 2)).thenReturn(true);
+
+        Order order = orderService.createOrder(orderRequest(2), 5);
+
+        assertEquals(new BigDecimal("25.00"), order.getTotalAmount());
+        assertEquals(3, order.getMerchantId());
+        verify(orderMapper).insert(order);
+        verify(orderRollupService).recordCreated(order);
+    }
+
+    @Test
+    void createOrder_reservationRejected_shouldThrowWithoutInsert() {
+        Mall mall = stubPublishedProduct(10);
+        when(stockReservationService.reserve(mall, 2)).thenReturn(false);
+        when(stockReservationService.available(1)).thenReturn(1L);
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> orderService.createOrder(orderRequest(2), 5));
+
+        assertEquals("库存不足，当前可用库存：1", e.getMessage());
+        verifyNoInteractions(orderMapper, orderRollupService);
+    }
+
+    @Test
+    void createOrders_shouldShareLookupsAndInsertValidOrdersInOneStatement() {
+        Mall first = mall(1, "12.50");
+        Mall second = mall(2, "3.00");
+        when(mallMapper.selectBatchIds(anyCollection())).thenReturn(List.of(first, second));
+        when(inventoryMapper.selectList(any())).thenReturn(List.of(inventory(1, 3), inventory(2, 4)));
+        Address defaultAddress = new Address();
+        defaultAddress.setId(40L);
+        defaultAddress.setUserId(6L);
+        when(addressMapper.selectList(any())).thenReturn(List.of(defaultAddress));
+        when(stockReservationService.reserve(any(), anyInt())).thenReturn(true);
+        when(stockReservationService.reserve(second, 9)).thenReturn(false);
+
+        CreateOrderRequest withAddress = orderRequest(2);
+        CreateOrderRequest usesDefault = orderRequest(1);
+        usesDefault.setCustomerId(6);
+        usesDefault.setAddressId(null);
+        CreateOrderRequest priceChanged = orderRequest(1);
+        priceChanged.setPrice(new BigDecimal("11.00"));
+        CreateOrderRequest soldOut = orderRequest(9);
+        soldOut.setProductId(2);
+        soldOut.setPrice(new BigDecimal("3.00"));
+        CreateOrderRequest unknown = orderRequest(1);
+        unknown.setProductId(99);
+
+        List<BatchOrderResult> results = orderService.createOrders(
+                List.of(withAddress, usesDefault, priceChanged, soldOut, unknown));
+
+        assertEquals(5, results.size());
+        assertEquals(4, results.get(0).getOrder().getAddressId());
+        assertEquals(40, results.get(1).getOrder().getAddressId());
+        assertEquals(6, results.get(1).getOrder().getCustomerId());
+        assertEquals("商品价格已变动，请刷新页面", results.get(2).getError());
+        assertTrue(results.get(3).getError().startsWith("库存不足"));
+        assertEquals("商品不存在", results.get(4).getError());
+        verify(orderMapper).insertBatch(List.of(results.get(0).getOrder(), results.get(1).getOrder()));
+        verify(orderRollupService).recordCreated(List.of(results.get(0).getOrder(), results.get(1).getOrder()));
+        verify(orderMapper, never()).insert(any(Order.class));
+        verify(mallMapper, never()).selectById(any());
+    }
+
+    @Test
+    void createOrder_merchantLookup_shouldBeCachedAcrossOrders() {
+        Mall mall = stubPublishedProduct(10);
+        when(stockReservationService.reserve(mall, 1)).thenReturn(true);
+
+        orderService.createOrder(orderRequest(1), 5);
+        orderService.createOrder(orderRequest(1), 5);
+
+        verify(inventoryMapper, times(1)).selectList(any());
+    }
+
+    @Test
+    void getPendingPickupOrders_shouldFetchOneExtraRowAndReturnCursorOfLastItem() {
+        when(directoryCache.getDriverWarehouseId(9L)).thenReturn(1);
+        LocalDateTime shipTime = LocalDateTime.of(2026, 3, 1, 10, 0);
+        List<Order> rows = new ArrayList<>();
+        for (int id = 30; id > 27; id--) {
+            Order order = new Order();
+            order.setOrderId(id);
+            order.setShipTime(shipTime);
+            rows.add(order);
+        }
+        when(orderMapper.selectPendingPickupOrders(eq(1), isNull(), isNull(), isNull(), eq(3))).thenReturn(rows);
+
+        CursorPage<Order> page = orderService.getPendingPickupOrders(9L, null, null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertTrue(page.isHasMore());
+        PageCursor next = PageCursor.decode(page.getNextCursor());
+        assertEquals(shipTime, next.getTime());
+        assertEquals(29, next.getId());
+    }
+
+    @Test
+    void shipOrder_shouldMoveOrderInRollup() {
+        Order order = new Order();
+        order.setOrderId(1);
+        order.setMerchantId(2);
+        order.setStatus(0);
+        when(orderMapper.selectById(1)).thenReturn(order);
+
+        orderService.shipOrder(1, 2);
+
+        verify(orderRollupService).recordStatusChange(order, 0);
+        assertEquals(1, order.getStatus());
+    }
+
+    @Test
+    void updateOrdersToInTransit_shouldRecordOnlyChangedOrdersInOneCall() {
+        Order pickedUp = new Order();
+        pickedUp.setStatus(2);
+        Order delivered = new Order();
+        delivered.setStatus(4);
+
+        orderService.updateOrdersToInTransit(List.of(pickedUp, delivered));
+
+        verify(orderRollupService, times(1)).recordStatusChanges(List.of(pickedUp), 2);
+        verify(orderMapper, times(1)).updateById(pickedUp);
+    }
+
+    private int countStatementsForCreateBatch(int orderCount) {
+        candidates.clear();
+        stubDriverAndWarehouse(9L);
+        List<Integer> orderIds = new ArrayList<>();
+        for (int orderId = 1; orderId <= orderCount; orderId++) {
+            stubPickedUpOrder(orderId, "39." + (9100 + orderId));
+            orderIds.add(orderId);
+        }
+        clearInvocations(orderMapper, addressMapper, userMapper, deliveryBatchMapper, deliveryBatchOrderMapper);
+
+        orderService.createDeliveryBatch(9L, orderIds);
+
+        return mockingDetails(orderMapper).getInvocations().size()
+            + mockingDetails(addressMapper).getInvocations().size()
+            + mockingDetails(userMapper).getInvocations().size()
+            + mockingDetails(deliveryBatchMapper).getInvocations().size()
+            + mockingDetails(deliveryBatchOrderMapper).getInvocations().size();
+    }
+
+    private Mall stubPublishedProduct(int availableQuantity) {
+        Mall mall = new Mall();
+        mall.setProductId(1);
+        mall.setIsPublished(1);
+        mall.setAvailableQuantity(availableQuantity);
+        mall.setPrice(new BigDecimal("12.50"));
+        when(mallMapper.selectById(1)).thenReturn(mall);
+        when(inventoryMapper.selectList(any())).thenReturn(List.of(inventory(1, 3)));
+        return mall;
+    }
+
+    private static Inventory inventory(int productId, int merchantId) {
+        Inventory inventory = new Inventory();
+        inventory.setProductId(productId);
+        inventory.setUserId(merchantId);
+        return inventory;
+    }
+
+    private static Mall mall(int productId, String price) {
+        Mall mall = new Mall();
+        mall.setProductId(productId);
+        mall.setIsPublished(1);
+        mall.setAvailableQuantity(10);
+        mall.setPrice(new BigDecimal(price));
+        return mall;
+    }
+
+    private static CreateOrderRequest orderRequest(int quantity) {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setCustomerId(5);
+        request.setProductId(1);
+        request.setQuantity(quantity);
+        request.setPrice(new BigDecimal("12.50"));
+        request.setAddressId(4);
+        return request;
+    }
+
+    private void configureLimits() {
+        ReflectionTestUtils.setField(orderService, "maxBatchOrders", 30);
+        ReflectionTestUtils.setField(orderService, "maxBulkBatches", 50);
+        ReflectionTestUtils.setField(orderService, "sequencingBudgetMs", 50L);
+    }
+
+    private void stubDriverAndWarehouse(Long driverId) {
+        configureLimits();
+        when(directoryCache.getDriverWarehouseId(driverId)).thenReturn(1);
+        when(directoryCache.getWarehouse(1)).thenReturn(warehouse());
+    }
+
+    private void stubBatchIds() {
+        int[] nextId = {1};
+        when(deliveryBatchMapper.insert(any(DeliveryBatch.class))).thenAnswer(inv -> {
+            inv.<DeliveryBatch>getArgument(0).setId(nextId[0]++);
+            return 1;
+        });
+    }
+
+    private List<List<DeliveryBatchOrder>> captureInsertedLinks() {
+        List<List<DeliveryBatchOrder>> inserted = new ArrayList<>();
+        mockingDetails(deliveryBatchOrderMapper).getInvocations().stream()
+            .filter(inv -> inv.getMethod().getName().equals("insertBatch"))
+            .forEach(inv -> inserted.add(new ArrayList<>(inv.<List<DeliveryBatchOrder>>getArgument(0))));
+        return inserted;
+    }
+
+    private Order stubPickedUpOrder(int orderId, String latitude) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setCustomerId(100 + orderId);
+        order.setWarehouseId(1);
+        order.setStatus(2);
+        Address address = new Address();
+        address.setId((long) orderId);
+        address.setLatitude(new BigDecimal(latitude));
+        address.setLongitude(new BigDecimal("116.40"));
+        order.setAddress(address);
+        candidates.add(order);
+        lenient().when(orderMapper.selectDeliveryCandidates(anyCollection())).thenReturn(candidates);
+        return order;
+    }
+
+    private static User driver(Long id) {
+        User driver = new User();
+        driver.setId(id);
+        driver.setWarehouseId(1);
+        return driver;
+    }
+
+    private static Warehouse warehouse() {
+        Warehouse warehouse = new Warehouse();
+        warehouse.setId(1);
+        warehouse.setLatitude(new BigDecimal("39.90"));
+        warehouse.setLongitude(new BigDecimal("116.40"));
+        return warehouse;
+    }
+
+    private static BulkCreateBatchRequest bulkRequest(BulkCreateBatchRequest.BatchAssignment... assignments) {
+        BulkCreateBatchRequest request = new BulkCreateBatchRequest();
+        request.setWarehouseId(1);
+        request.setBatches(List.of(assignments));
+        return request;
+    }
+
+    private static BulkCreateBatchRequest.BatchAssignment assignment(Long driverId, Integer... orderIds) {
+        BulkCreateBatchRequest.BatchAssignment assignment = new BulkCreateBatchRequest.BatchAssignment();
+        assignment.setDriverId(driverId);
+        assignment.setOrderIds(List.of(orderIds));
+        return assignment;
+    }
+
+    private int countStatementsForBatches(int batchCount) {
+        stubBatches(batchCount, 5);
+        clearInvocations(orderMapper, addressMapper, deliveryBatchMapper, deliveryBatchOrderMapper);
+
+        List<DeliveryBatchResponse> responses = orderService.getDeliveryBatchesWithStatus(1L, null);
+        assertEquals(batchCount, responses.size());
+
+        return mockingDetails(orderMapper).getInvocations().size()
+            + mockingDetails(addressMapper).getInvocations().size()
+            + mockingDetails(deliveryBatchMapper).getInvocations().size()
+            + mockingDetails(deliveryBatchOrderMapper).getInvocations().size();
+    }
+
+    private void stubBatches(int batchCount, int ordersPerBatch) {
+        List<DeliveryBatch> batches = new ArrayList<>();
+        List<Order> rows = new ArrayList<>();
+        for (int b = 1; b <= batchCount; b++) {
+            DeliveryBatch batch = new DeliveryBatch();
+            batch.setId(b);
+            batch.setStatus(0);
+            batches.add(batch);
+            for (int i = 0; i < ordersPerBatch; i++) {
+                rows.add(order(b, b * 100 + i));
+            }
+        }
+        when(deliveryBatchMapper.selectList(any())).thenReturn(batches);
+        when(orderMapper.selectOrdersByBatchIds(anyCollection())).thenAnswer(inv -> {
+            Collection<Integer> ids = inv.getArgument(0);
+            return rows.stream().filter(o -> ids.contains(o.getBatchId())).toList();
+        });
+    }
+
+    private Order order(int batchId, int orderId) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setBatchId(batchId);
+        order.setStatus(2);
+        Address address = new Address();
+        address.setId((long) orderId);
+        order.setAddressId(orderId);
+        order.setAddress(address);
+        return order;
+    }
+}
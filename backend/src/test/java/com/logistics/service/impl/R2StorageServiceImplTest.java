@@ -0,0 +1,258 @@
+package com.logistics.service.impl;
+
+import com.logistics.config.R2Config;
+import com.logistics.config.R2Metrics;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 使用进程内的 S3 兼容桩服务（路径风格，与本地 MinIO 相同）验证真实的 SDK 请求
+ */
+class R2StorageServiceImplTest {
+
+    private static final String BUCKET = "goods";
+    private static final String PUBLIC_URL = "https://img.example.com";
+
+    @TempDir
+    Path tempDir;
+
+    private S3Stub stub;
+    private S3Client client;
+    private R2StorageServiceImpl service;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stub = new S3Stub();
+        client = R2Config.buildClient(URI.create("http://127.0.0.1:" + stub.port()), "test-key", "test-secret",
+                true, 4, Duration.ofSeconds(2), Duration.ofSeconds(5), new R2Metrics(meterRegistry));
+        // 测试中把分片阈值调小，超过 10000 字节即分片，每片 4096 字节
+        service = new R2StorageServiceImpl(client, BUCKET, PUBLIC_URL, 10_000, 4096);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        stub.stop();
+    }
+
+    @Test
+    void upload_smallFile_shouldPutObjectAndReturnPublicUrl() throws IOException {
+        byte[] content = randomBytes(3000);
+        Path file = write(content);
+
+        String url = service.upload(file, "goods_image/a.png", "image/png");
+
+        assertEquals(PUBLIC_URL + "/goods_image/a.png", url);
+        assertArrayEquals(content, stub.objects.get("goods_image/a.png"));
+        assertEquals(0, stub.parts.get());
+    }
+
+    @Test
+    void upload_largeFile_shouldUploadInParts() throws IOException {
+        byte[] content = randomBytes(10_500);
+        Path file = write(content);
+
+        String url = service.upload(file, "goods_image/b.jpg", "image/jpeg");
+
+        assertEquals(PUBLIC_URL + "/goods_image/b.jpg", url);
+        assertArrayEquals(content, stub.objects.get("goods_image/b.jpg"));
+        assertEquals(3, stub.parts.get());
+        assertTrue(stub.uploads.isEmpty());
+        assertEquals(3, meterRegistry.get("r2.requests").tag("operation", "UploadPart").tag("outcome", "success")
+                .timer().count());
+    }
+
+    @Test
+    void upload_partFails_shouldAbortMultipartUpload() throws IOException {
+        Path file = write(randomBytes(10_500));
+        stub.failPuts = true;
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> service.upload(file, "goods_image/c.jpg", "image/jpeg"));
+
+        assertTrue(e.getMessage().startsWith("文件上传失败"));
+        assertEquals(1, stub.aborted.get());
+        assertFalse(stub.objects.containsKey("goods_image/c.jpg"));
+    }
+
+    private Path write(byte[] content) throws IOException {
+        Path file = tempDir.resolve(UUID.randomUUID().toString());
+        Files.write(file, content);
+        return file;
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * 最小的 S3 兼容服务：支持 PutObject 与分片上传（创建、上传分片、完成、中止）
+     */
+    private static class S3Stub {
+
+        final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+        final Map<String, SortedMap<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+        final AtomicInteger parts = new AtomicInteger();
+        final AtomicInteger aborted = new AtomicInteger();
+        volatile boolean failPuts;
+
+        private final HttpServer server;
+
+        S3Stub() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", this::handle);
+            server.start();
+        }
+
+        int port() {
+            return server.getAddress().getPort();
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            try {
+                String method = exchange.getRequestMethod();
+                String key = exchange.getRequestURI().getPath().substring(("/" + BUCKET + "/").length());
+                Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+                byte[] body = readBody(exchange);
+                String uploadId = query.get("uploadId");
+
+                if ("PUT".equals(method) && failPuts) {
+                    send(exchange, 500, "<Error><Code>InternalError</Code><Message>stub</Message></Error>");
+                } else if ("PUT".equals(method) && uploadId != null) {
+                    uploads.get(uploadId).put(Integer.parseInt(query.get("partNumber")), body);
+                    parts.incrementAndGet();
+                    sendETag(exchange, body);
+                } else if ("PUT".equals(method)) {
+                    objects.put(key, body);
+                    sendETag(exchange, body);
+                } else if ("POST".equals(method) && query.containsKey("uploads")) {
+                    String id = UUID.randomUUID().toString();
+                    uploads.put(id, new ConcurrentSkipListMap<>());
+                    send(exchange, 200, "<InitiateMultipartUploadResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">"
+                            + "<Bucket>" + BUCKET + "</Bucket><Key>" + key + "</Key><UploadId>" + id + "</UploadId>"
+                            + "</InitiateMultipartUploadResult>");
+                } else if ("POST".equals(method) && uploadId != null) {
+                    ByteArrayOutputStream merged = new ByteArrayOutputStream();
+                    for (byte[] part : uploads.remove(uploadId).values()) {
+                        merged.write(part);
+                    }
+                    objects.put(key, merged.toByteArray());
+                    send(exchange, 200, "<CompleteMultipartUploadResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">"
+                            + "<Bucket>" + BUCKET + "</Bucket><Key>" + key + "</Key><ETag>\"merged\"</ETag>"
+                            + "</CompleteMultipartUploadResult>");
+                } else if ("DELETE".equals(method) && uploadId != null) {
+                    uploads.remove(uploadId);
+                    aborted.incrementAndGet();
+                    exchange.sendResponseHeaders(204, -1);
+                } else {
+                    send(exchange, 400, "<Error><Code>NotImplemented</Code><Message>stub</Message></Error>");
+                }
+            } finally {
+                exchange.close();
+            }
+        }
+
+        private static Map<String, String> query(String rawQuery) {
+            Map<String, String> params = new HashMap<>();
+            if (rawQuery != null) {
+                for (String pair : rawQuery.split("&")) {
+                    int eq = pair.indexOf('=');
+                    params.put(eq < 0 ? pair : pair.substring(0, eq), eq < 0 ? "" : pair.substring(eq + 1));
+                }
+            }
+            return params;
+        }
+
+        /**
+         * 读取请求体；SDK 在 HTTP 上传时使用 aws-chunked 分块签名编码，这里还原出原始内容
+         */
+        private static byte[] readBody(HttpExchange exchange) throws IOException {
+            byte[] raw = exchange.getRequestBody().readAllBytes();
+            String sha256 = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+            if (sha256 == null || !sha256.startsWith("STREAMING-")) {
+                return raw;
+            }
+            ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+            int pos = 0;
+            while (pos < raw.length) {
+                int lineEnd = indexOfCrlf(raw, pos);
+                String header = new String(raw, pos, lineEnd - pos, StandardCharsets.US_ASCII);
+                int semicolon = header.indexOf(';');
+                int size = Integer.parseInt(semicolon < 0 ? header : header.substring(0, semicolon), 16);
+                if (size == 0) {
+                    break;
+                }
+                decoded.write(raw, lineEnd + 2, size);
+                pos = lineEnd + 2 + size + 2;
+            }
+            return decoded.toByteArray();
+        }
+
+        private static int indexOfCrlf(byte[] data, int from) {
+            for (int i = from; i + 1 < data.length; i++) {
+                if (data[i] == '\r' && data[i + 1] == '\n') {
+                    return i;
+                }
+            }
+            throw new IllegalStateException("aws-chunked 编码格式错误");
+        }
+
+        private static void sendETag(HttpExchange exchange, byte[] body) throws IOException {
+            exchange.getResponseHeaders().add("ETag", "\"" + md5(body) + "\"");
+            exchange.sendResponseHeaders(200, -1);
+        }
+
+        private static void send(HttpExchange exchange, int status, String xml) throws IOException {
+            byte[] bytes = xml.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/xml");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+
+        private static String md5(byte[] body) {
+            try {
+                return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(body));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
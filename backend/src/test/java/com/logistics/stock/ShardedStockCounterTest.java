@@ -0,0 +1,106 @@
+package com.logistics.stock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedStockCounterTest {
+
+    @Test
+    void tryAcquire_untilSoldOut_shouldNeverGoNegative() {
+        ShardedStockCounter counter = new ShardedStockCounter(100, 8);
+
+        int acquired = 0;
+        while (counter.tryAcquire(3)) {
+            acquired++;
+        }
+
+        // 余量分散在各分片时由慢路径收拢，100 / 3 = 33 次，剩 1
+        assertEquals(33, acquired);
+        assertEquals(1, counter.available());
+        assertFalse(counter.tryAcquire(2));
+        assertTrue(counter.tryAcquire(1));
+        assertEquals(0, counter.available());
+    }
+
+    @Test
+    void tryAcquire_quantityLargerThanAnyShard_shouldUseWholeStock() {
+        ShardedStockCounter counter = new ShardedStockCounter(1000, 8);
+        assertEquals(8, counter.shardCount());
+
+        assertTrue(counter.tryAcquire(900));
+        assertEquals(100, counter.available());
+        assertFalse(counter.tryAcquire(101));
+        assertEquals(100, counter.available());
+    }
+
+    @Test
+    void constructor_smallStock_shouldNotSplit() {
+        assertEquals(1, new ShardedStockCounter(20, 8).shardCount());
+        assertEquals(1, new ShardedStockCounter(0, 8).shardCount());
+        assertThrows(IllegalArgumentException.class, () -> new ShardedStockCounter(-1, 8));
+    }
+
+    @Test
+    void releaseAndReset_shouldAdjustAvailable() {
+        ShardedStockCounter counter = new ShardedStockCounter(500, 4);
+
+        assertTrue(counter.tryAcquire(200));
+        counter.release(50);
+        assertEquals(350, counter.available());
+
+        counter.reset(42);
+        assertEquals(42, counter.available());
+        assertFalse(counter.tryAcquire(43));
+        assertTrue(counter.tryAcquire(42));
+    }
+
+    @Test
+    void concurrentAcquireAndRelease_shouldConserveStock() throws Exception {
+        int stock = 5000;
+        ShardedStockCounter counter = new ShardedStockCounter(stock, 8);
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long held = 0;
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 50_000; i++) {
+                        int quantity = 1 + random.nextInt(5);
+                        if (counter.tryAcquire(quantity)) {
+                            held += quantity;
+                            // 约三成的预留被取消归还
+                            if (random.nextInt(10) < 3) {
+                                counter.release(quantity);
+                                held -= quantity;
+                            }
+                        }
+                    }
+                    return held;
+                }));
+            }
+            start.countDown();
+            long held = 0;
+            for (Future<Long> future : futures) {
+                held += future.get();
+            }
+
+            assertEquals(stock, held + counter.available());
+            assertTrue(counter.available() >= 0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
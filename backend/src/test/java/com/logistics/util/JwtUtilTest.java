@@ -0,0 +1,108 @@
+package com.logistics.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "unit-test-secret-key-0123456789abcdef";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 3600, 60, 100, meterRegistry);
+
+    @Test
+    void resolve_validToken_shouldReturnAllClaimsAndCacheResult() {
+        String token = jwtUtil.generateToken(42L, "刘天赐", "consumer");
+
+        JwtUtil.TokenPrincipal first = jwtUtil.resolve(token);
+        JwtUtil.TokenPrincipal second = jwtUtil.resolve(token);
+
+        assertEquals(42L, first.userId());
+        assertEquals("刘天赐", first.username());
+        assertEquals("consumer", first.role());
+        assertTrue(first.expiresAt() > System.currentTimeMillis());
+        assertSame(first, second);
+        assertEquals(1.0, hits());
+    }
+
+    @Test
+    void resolve_tamperedOrForeignToken_shouldReturnNullWithoutCaching() {
+        String[] consumer = jwtUtil.generateToken(42L, "刘天赐", "consumer").split("\\.");
+        String[] admin = jwtUtil.generateToken(1L, "系统管理员", "admin").split("\\.");
+        // 把管理员的载荷配上普通用户的签名
+        String tampered = consumer[0] + "." + admin[1] + "." + consumer[2];
+        String foreign = new JwtUtil("another-secret-key-0123456789abcdef", 3600, 60, 100, new SimpleMeterRegistry())
+                .generateToken(42L, "刘天赐", "admin");
+
+        assertNull(jwtUtil.resolve(tampered));
+        assertNull(jwtUtil.resolve(foreign));
+        assertNull(jwtUtil.resolve(tampered));
+        assertNull(jwtUtil.resolve("not-a-jwt"));
+        assertNull(jwtUtil.resolve(null));
+        assertEquals(0.0, hits());
+    }
+
+    @Test
+    void resolve_expiredToken_shouldReturnNull() {
+        JwtUtil expired = new JwtUtil(SECRET, -1, 60, 100, new SimpleMeterRegistry());
+
+        assertNull(jwtUtil.resolve(expired.generateToken(1L, "admin", "admin")));
+    }
+
+    @Test
+    void resolve_cachedTokenPastExp_shouldReturnNull() throws InterruptedException {
+        JwtUtil shortLived = new JwtUtil(SECRET, 1, 60, 100, new SimpleMeterRegistry());
+        String token = shortLived.generateToken(1L, "admin", "admin");
+        assertNotNull(shortLived.resolve(token));
+
+        Thread.sleep(1100);
+
+        assertNull(shortLived.resolve(token));
+    }
+
+    @Test
+    void resolveStreamTicket_shouldOnlyAcceptStreamTickets() {
+        String ticket = jwtUtil.generateStreamTicket(42L, "刘天赐", "consumer");
+
+        JwtUtil.TokenPrincipal principal = jwtUtil.resolveStreamTicket(ticket);
+
+        assertEquals(42L, principal.userId());
+        assertEquals("刘天赐", principal.username());
+        assertEquals("consumer", principal.role());
+        assertTrue(principal.expiresAt() <= System.currentTimeMillis() + 60_000);
+        assertNull(jwtUtil.resolveStreamTicket(jwtUtil.generateToken(42L, "刘天赐", "consumer")));
+        assertNull(jwtUtil.resolveStreamTicket("not-a-jwt"));
+        assertNull(jwtUtil.resolveStreamTicket(null));
+    }
+
+    @Test
+    void resolve_streamTicket_shouldNotWorkAsLoginToken() {
+        assertNull(jwtUtil.resolve(jwtUtil.generateStreamTicket(42L, "刘天赐", "consumer")));
+        assertEquals(0.0, hits());
+    }
+
+    @Test
+    void resolveStreamTicket_expired_shouldReturnNull() {
+        JwtUtil expired = new JwtUtil(SECRET, 3600, -1, 100, new SimpleMeterRegistry());
+
+        assertNull(jwtUtil.resolveStreamTicket(expired.generateStreamTicket(1L, "admin", "admin")));
+    }
+
+    @Test
+    void legacyAccessors_shouldUseResolvedClaims() {
+        String token = jwtUtil.generateToken(7L, "京东自营", "merchant");
+
+        assertTrue(jwtUtil.validateToken(token));
+        assertEquals(7L, jwtUtil.getUserIdFromToken(token));
+        assertEquals("京东自营", jwtUtil.getUsernameFromToken(token));
+        assertEquals("merchant", jwtUtil.getRoleFromToken(token));
+        assertEquals(7L, jwtUtil.parseToken(token).get("userId", Long.class));
+        assertFalse(jwtUtil.validateToken("not-a-jwt"));
+    }
+
+    private double hits() {
+        return meterRegistry.get("cache.gets").tag("cache", "jwt").tag("result", "hit").functionCounter().count();
+    }
+}
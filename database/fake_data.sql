@@ -10,9 +10,11 @@ SET NAMES utf8mb4;
 SET FOREIGN_KEY_CHECKS = 0;
 
 -- 清空所有表（按依赖顺序）
+DELETE FROM delivery_track_chunk;
 DELETE FROM delivery_location;
 DELETE FROM delivery_batch_orders;
 DELETE FROM delivery_batches;
+DELETE FROM order_daily_stats;
 DELETE FROM orders;
 DELETE FROM mall;
 DELETE FROM inventory;
@@ -221,6 +223,16 @@ INSERT INTO delivery_location (id, batch_id, latitude, longitude, address, path_
 (25, 10, 30.200000, 116.500000, '安庆附近',             3, '2026-02-15 10:00:00'),
 (26, 10, 31.800000, 117.000000, '合肥中转站',           4, '2026-02-15 12:00:00');
 
+-- ============================================================
+-- 10. 订单日汇总 — 按上面的订单重新汇总
+-- ============================================================
+INSERT INTO order_daily_stats (stat_date, warehouse_id, status, merchant_id, order_count, revenue)
+SELECT DATE(order_time), COALESCE(warehouse_id, 0), status, COALESCE(merchant_id, 0),
+       COUNT(*), COALESCE(SUM(total_amount), 0)
+FROM orders
+WHERE order_time IS NOT NULL AND status IS NOT NULL
+GROUP BY DATE(order_time), COALESCE(warehouse_id, 0), status, COALESCE(merchant_id, 0);
+
 SET FOREIGN_KEY_CHECKS = 1;
 
 -- ============================================================
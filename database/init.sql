@@ -83,7 +83,9 @@ CREATE TABLE IF NOT EXISTS `inventory` (
   `quantity` INT NOT NULL DEFAULT 0,
   `stock_in_date` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
   `image_url` VARCHAR(255),
+  `image_status` TINYINT NOT NULL DEFAULT 1 COMMENT '图片状态：0-上传中，1-已上传，2-上传失败',
   `is_published` TINYINT(1) NOT NULL DEFAULT 0,
+  KEY `idx_inventory_image_status` (`image_status`),
   FOREIGN KEY (`user_id`) REFERENCES `users`(`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
@@ -151,6 +153,24 @@ INSERT INTO `orders` (`warehouse_id`,`user_id`,`product_id`,`product_name`,`quan
 (1,7,1,'小米14 Ultra手机',1,5999.00,3,0,'2026-02-18 16:00:00'),
 (1,4,7,'AirPods Pro 3',1,1899.00,1,0,'2026-02-19 08:00:00');
 
+-- 订单日汇总表（由订单创建、状态流转、删除增量维护，管理员每日趋势只读该表）
+CREATE TABLE IF NOT EXISTS `order_daily_stats` (
+  `stat_date` DATE NOT NULL COMMENT '下单日期',
+  `warehouse_id` INT NOT NULL DEFAULT 0 COMMENT '发货仓库，未知为 0',
+  `status` INT NOT NULL COMMENT '订单当前状态',
+  `merchant_id` INT NOT NULL DEFAULT 0 COMMENT '商户，未知为 0',
+  `order_count` BIGINT NOT NULL DEFAULT 0 COMMENT '订单数',
+  `revenue` DECIMAL(16,2) NOT NULL DEFAULT 0 COMMENT '订单金额合计',
+  PRIMARY KEY (`stat_date`, `warehouse_id`, `status`, `merchant_id`),
+  KEY `idx_order_daily_stats_warehouse` (`warehouse_id`, `stat_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='订单日汇总';
+
+-- 回填上面的示例订单
+INSERT INTO `order_daily_stats` (`stat_date`,`warehouse_id`,`status`,`merchant_id`,`order_count`,`revenue`)
+SELECT DATE(`create_time`), `warehouse_id`, `status`, 0, COUNT(*), COALESCE(SUM(`total_price`), 0)
+FROM `orders`
+GROUP BY DATE(`create_time`), `warehouse_id`, `status`;
+
 -- 配送批次表
 CREATE TABLE IF NOT EXISTS `delivery_batches` (
   `id` INT PRIMARY KEY AUTO_INCREMENT,
@@ -183,6 +203,24 @@ CREATE TABLE IF NOT EXISTS `delivery_location` (
   FOREIGN KEY (`batch_id`) REFERENCES `delivery_batches`(`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
+-- 配送轨迹分块表（差值编码的轨迹点，每行一个分块）
+CREATE TABLE IF NOT EXISTS `delivery_track_chunk` (
+  `batch_id` INT NOT NULL COMMENT '批次ID',
+  `seq` INT NOT NULL COMMENT '分块序号，批次内递增',
+  `level` TINYINT NOT NULL DEFAULT 0 COMMENT '0-原始，1-降采样',
+  `point_count` SMALLINT UNSIGNED NOT NULL COMMENT '轨迹点数',
+  `first_index` INT NOT NULL COMMENT '第一个点的路径点索引',
+  `last_index` INT NOT NULL COMMENT '最后一个点的路径点索引',
+  `start_time` DATETIME NOT NULL,
+  `end_time` DATETIME NOT NULL,
+  `last_address` VARCHAR(500) NULL COMMENT '最后一个点的地址',
+  `data` BLOB NOT NULL COMMENT '差值编码的轨迹点',
+  `updated_at` DATETIME NOT NULL,
+  PRIMARY KEY (`batch_id`, `seq`),
+  KEY `idx_level_updated` (`level`, `updated_at`),
+  FOREIGN KEY (`batch_id`) REFERENCES `delivery_batches`(`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
 -- 配送路线表
 CREATE TABLE IF NOT EXISTS `delivery_route` (
   `id` BIGINT PRIMARY KEY AUTO_INCREMENT,
@@ -0,0 +1,9 @@
+-- ============================================================
+-- 管理员数据概览索引
+-- orders(status, total_amount)：按状态分组统计订单数与金额时只扫描索引，不回表
+-- users(role)：按角色分组统计用户数
+-- 用于升级已有数据库：按编号顺序执行 database/migrations 下尚未执行过的脚本
+-- ============================================================
+
+ALTER TABLE `orders` ADD INDEX `idx_orders_status_amount` (`status`, `total_amount`);
+ALTER TABLE `users` ADD INDEX `idx_users_role` (`role`);
@@ -0,0 +1,35 @@
+-- ============================================================
+-- 订单日汇总表
+-- 按 下单日期 × 仓库 × 当前状态 × 商户 汇总订单数与金额，
+-- 由订单创建、状态流转、删除增量维护，管理员每日趋势只读该表。
+-- 建表后从 orders 一次性回填；之后可调用 POST /api/admin/stats/rollup/rebuild 按天重建。
+-- 新部署由 init.sql 建表，本脚本用于升级已有数据库。
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS `order_daily_stats` (
+  `stat_date` DATE NOT NULL COMMENT '下单日期',
+  `warehouse_id` INT NOT NULL DEFAULT 0 COMMENT '发货仓库，未知为 0',
+  `status` INT NOT NULL COMMENT '订单当前状态',
+  `merchant_id` INT NOT NULL DEFAULT 0 COMMENT '商户，未知为 0',
+  `order_count` BIGINT NOT NULL DEFAULT 0 COMMENT '订单数',
+  `revenue` DECIMAL(16,2) NOT NULL DEFAULT 0 COMMENT '订单金额合计',
+  PRIMARY KEY (`stat_date`, `warehouse_id`, `status`, `merchant_id`),
+  KEY `idx_order_daily_stats_warehouse` (`warehouse_id`, `stat_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='订单日汇总';
+
+-- 按天重建时只锁住当天的订单（二级索引隐含主键，也满足 ORDER BY order_time, order_id）
+ALTER TABLE `orders` ADD INDEX `idx_orders_order_time` (`order_time`);
+
+-- 早期订单未记录发货仓库，按商品所属仓库补齐
+UPDATE `orders` o JOIN `mall` m ON m.product_id = o.product_id
+SET o.warehouse_id = m.warehouse_id
+WHERE o.warehouse_id IS NULL;
+
+-- 回填历史订单
+DELETE FROM `order_daily_stats`;
+INSERT INTO `order_daily_stats` (stat_date, warehouse_id, status, merchant_id, order_count, revenue)
+SELECT DATE(order_time), COALESCE(warehouse_id, 0), status, COALESCE(merchant_id, 0),
+       COUNT(*), COALESCE(SUM(total_amount), 0)
+FROM `orders`
+WHERE order_time IS NOT NULL AND status IS NOT NULL
+GROUP BY DATE(order_time), COALESCE(warehouse_id, 0), status, COALESCE(merchant_id, 0);
@@ -0,0 +1,21 @@
+-- ============================================================
+-- 列表接口游标（keyset）分页索引
+-- 每个列表按 (排序时间, order_id) 倒序分页，索引前缀为列表的等值筛选条件，
+-- 翻到任意一页都只需在索引上定位游标位置后顺序读取 limit + 1 行，无需 OFFSET 扫描
+-- 用于升级已有数据库，按编号顺序执行
+-- ============================================================
+
+-- /orders/my：customer_id = ? ORDER BY order_time DESC, order_id DESC
+ALTER TABLE `orders` ADD INDEX `idx_orders_customer_page` (`customer_id`, `order_time`, `order_id`);
+
+-- /orders/merchant：merchant_id = ? ORDER BY order_time DESC, order_id DESC
+ALTER TABLE `orders` ADD INDEX `idx_orders_merchant_page` (`merchant_id`, `order_time`, `order_id`);
+
+-- /orders/pending-pickup：warehouse_id = ? AND status = 1 ORDER BY ship_time DESC, order_id DESC
+ALTER TABLE `orders` ADD INDEX `idx_orders_pickup_page` (`warehouse_id`, `status`, `ship_time`, `order_id`);
+
+-- /admin/orders：全部订单或按状态筛选，ORDER BY order_time DESC, order_id DESC
+-- 全部订单复用 002 的 idx_orders_order_time（二级索引隐含主键 order_id）
+ALTER TABLE `orders` ADD INDEX `idx_orders_status_time_page` (`status`, `order_time`, `order_id`);
+
+-- /admin/users 按主键分页，无需额外索引
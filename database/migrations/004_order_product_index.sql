@@ -0,0 +1,8 @@
+-- ============================================================
+-- 订单商品检索索引
+-- 商品名称检索由应用内搜索索引解析为商品ID后按 product_id IN (...) 过滤，
+-- 不再对 product_name 做 LIKE '%term%' 全表扫描
+-- 用于升级已有数据库，按编号顺序执行
+-- ============================================================
+
+ALTER TABLE `orders` ADD INDEX `idx_orders_product_time` (`product_id`, `order_time`, `order_id`);
@@ -0,0 +1,11 @@
+-- ============================================================
+-- 商品图片上传状态
+-- 入库时图片在事务提交后异步上传到 R2，上传完成前 image_url 为空。
+-- 已有记录视为已上传。image_status 索引供暂存目录巡检查询上传中或上传失败的记录。
+-- 新部署由 init.sql 建表，本脚本用于升级已有数据库。
+-- ============================================================
+
+ALTER TABLE `inventory`
+  ADD COLUMN `image_status` TINYINT NOT NULL DEFAULT 1 COMMENT '图片状态：0-上传中，1-已上传，2-上传失败' AFTER `image_url`;
+
+ALTER TABLE `inventory` ADD INDEX `idx_inventory_image_status` (`image_status`);
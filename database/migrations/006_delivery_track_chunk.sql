@@ -0,0 +1,25 @@
+-- ============================================================
+-- 配送轨迹分块存储
+-- 轨迹点按批次缓冲，差值编码后每 N 个点写成一行（data 为 Breadcrumbs 编码），
+-- 替代 delivery_location 每个点一行的写法。配送结束后合并为一行降采样轨迹（level = 1），
+-- 过期的原始分块（level = 0）由定时任务删除。
+-- delivery_location 不再写入，保留历史数据，确认无需后可删除。
+-- 新部署由 init.sql 建表，本脚本用于升级已有数据库。
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS `delivery_track_chunk` (
+  `batch_id` INT NOT NULL COMMENT '批次ID',
+  `seq` INT NOT NULL COMMENT '分块序号，批次内递增',
+  `level` TINYINT NOT NULL DEFAULT 0 COMMENT '0-原始，1-降采样',
+  `point_count` SMALLINT UNSIGNED NOT NULL COMMENT '轨迹点数',
+  `first_index` INT NOT NULL COMMENT '第一个点的路径点索引',
+  `last_index` INT NOT NULL COMMENT '最后一个点的路径点索引',
+  `start_time` DATETIME NOT NULL,
+  `end_time` DATETIME NOT NULL,
+  `last_address` VARCHAR(500) NULL COMMENT '最后一个点的地址',
+  `data` BLOB NOT NULL COMMENT '差值编码的轨迹点',
+  `updated_at` DATETIME NOT NULL,
+  PRIMARY KEY (`batch_id`, `seq`),
+  KEY `idx_level_updated` (`level`, `updated_at`),
+  FOREIGN KEY (`batch_id`) REFERENCES `delivery_batches`(`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -0,0 +1,49 @@
+import request from '@/utils/request'
+
+// 票据过期后重连被拒绝时，隔一会儿换新票据再连
+const REOPEN_DELAY = 3000
+
+// 订阅配送实时位置推送（SSE）
+// EventSource 无法设置请求头，先用登录 Token 换取短时票据，通过 ticket 查询参数传递；
+// 断线后浏览器会带 Last-Event-ID 自动重连，票据过期导致重连失败时换新票据重新订阅
+export function openTrackingStream(path, params, { onLocation, onEnd } = {}) {
+  let source = null
+  let closed = false
+  let timer = null
+
+  const open = async () => {
+    let ticket
+    try {
+      const res = await request.post('/auth/stream-ticket')
+      if (res.code !== 200) return
+      ticket = res.data
+    } catch (e) {
+      return
+    }
+    if (closed) return
+    const query = new URLSearchParams(params)
+    query.set('ticket', ticket)
+    source = new EventSource(`/api/delivery-batch/stream/${path}?${query}`)
+    source.addEventListener('location', e => onLocation && onLocation(JSON.parse(e.data)))
+    source.addEventListener('end', e => {
+      handle.close()
+      onEnd && onEnd(JSON.parse(e.data))
+    })
+    source.onerror = () => {
+      // CONNECTING 表示浏览器正在自动重连；CLOSED 表示重连被拒绝（如票据已过期）
+      if (source.readyState === EventSource.CLOSED && !closed) {
+        timer = setTimeout(open, REOPEN_DELAY)
+      }
+    }
+  }
+
+  const handle = {
+    close() {
+      closed = true
+      clearTimeout(timer)
+      if (source) source.close()
+    }
+  }
+  open()
+  return handle
+}
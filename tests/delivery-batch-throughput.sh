@@ -0,0 +1,127 @@
+#!/bin/bash
+# ============================================================
+# 送货批次创建吞吐对比
+# 逐批次调用 POST /orders/delivery-batch 与一次调用
+# POST /orders/delivery-batches/bulk 创建同样数量的批次，比较耗时
+#
+# 用法: ./delivery-batch-throughput.sh [批次数] [每批订单数]
+# ============================================================
+
+BASE_URL="http://localhost:8080/api"
+BATCHES=${1:-20}
+ORDERS_PER_BATCH=${2:-10}
+DRIVER_ID=5      # 张伟，华北一号仓
+WAREHOUSE_ID=1
+CUSTOMER_ID=9    # 刘天赐，已设置默认收货地址
+TAG="吞吐测试-批次创建"
+
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+YELLOW='\033[1;33m'
+CYAN='\033[0;36m'
+NC='\033[0m'
+
+run_sql() {
+    docker exec grad-logistics-db mysql -uroot -p'GradProject2026!Secure' ecommerce_logistics --default-character-set=utf8mb4 -N -e "$1" 2>/dev/null
+}
+run_sql_exec() {
+    docker exec grad-logistics-db mysql -uroot -p'GradProject2026!Secure' ecommerce_logistics --default-character-set=utf8mb4 -e "$1" 2>/dev/null
+}
+
+login() {
+    local username="$1"
+    local role="$2"
+    local resp=$(curl -s -X POST "$BASE_URL/auth/login" \
+        -H "Content-Type: application/json" \
+        -d "{\"username\":\"$username\",\"password\":\"123\",\"role\":\"$role\"}")
+    echo "$resp" | python3 -c "import sys,json; d=json.load(sys.stdin); print(d.get('data',{}).get('token',''))" 2>/dev/null
+}
+
+now_ms() {
+    python3 -c "import time; print(int(time.time() * 1000))"
+}
+
+# 插入 BATCHES * ORDERS_PER_BATCH 个已揽收订单，输出按批次分组的 JSON 数组 [[id,...],...]
+seed_orders() {
+    local product=$(run_sql "SELECT product_id, merchant_id FROM mall WHERE warehouse_id=$WAREHOUSE_ID LIMIT 1;")
+    local product_id=$(echo "$product" | awk '{print $1}')
+    local merchant_id=$(echo "$product" | awk '{print $2}')
+    local total=$((BATCHES * ORDERS_PER_BATCH))
+    local values=""
+    for ((i = 0; i < total; i++)); do
+        values+="($product_id, $CUSTOMER_ID, $merchant_id, 1, '$TAG', 1, 1.00, 1.00, 2, $WAREHOUSE_ID, NOW(), NOW(), NOW()),"
+    done
+    run_sql_exec "INSERT INTO orders (product_id, customer_id, merchant_id, address_id, product_name, quantity, unit_price, total_amount, status, warehouse_id, order_time, ship_time, pickup_time) VALUES ${values%,};"
+    run_sql "SELECT order_id FROM orders WHERE product_name='$TAG' AND order_id NOT IN (SELECT order_id FROM delivery_batch_orders) ORDER BY order_id;" \
+        | python3 -c "
+import sys, json
+ids = [int(line) for line in sys.stdin if line.strip()]
+n = $ORDERS_PER_BATCH
+print(json.dumps([ids[i:i + n] for i in range(0, len(ids), n)]))
+"
+}
+
+cleanup() {
+    local batch_ids=$(run_sql "SELECT DISTINCT dbo.batch_id FROM delivery_batch_orders dbo JOIN orders o ON o.order_id = dbo.order_id WHERE o.product_name='$TAG';" | paste -sd, -)
+    if [ -n "$batch_ids" ]; then
+        run_sql_exec "DELETE FROM delivery_batch_orders WHERE batch_id IN ($batch_ids);
+DELETE FROM delivery_batches WHERE id IN ($batch_ids);"
+    fi
+    run_sql_exec "DELETE FROM orders WHERE product_name='$TAG';"
+}
+
+HEALTH=$(curl -s "$BASE_URL/auth/test")
+if [ "$HEALTH" != "Backend is running!" ]; then
+    echo -e "${RED}❌ Backend is not running at $BASE_URL${NC}"
+    exit 1
+fi
+
+DRIVER_TOKEN=$(login "张伟" "driver")
+if [ -z "$DRIVER_TOKEN" ]; then
+    echo -e "${RED}❌ Login failed${NC}"
+    exit 1
+fi
+
+echo -e "${CYAN}批次数: $BATCHES, 每批订单数: $ORDERS_PER_BATCH${NC}"
+cleanup
+
+# ── 逐批次创建 ──
+ORDER_GROUPS=$(seed_orders)
+START=$(now_ms)
+FAILED=0
+for group in $(echo "$ORDER_GROUPS" | python3 -c "import sys,json; [print(json.dumps(g).replace(' ', '')) for g in json.load(sys.stdin)]"); do
+    RESP=$(curl -s -X POST "$BASE_URL/orders/delivery-batch?driverId=$DRIVER_ID" \
+        -H "Authorization: Bearer $DRIVER_TOKEN" \
+        -H "Content-Type: application/json" \
+        -d "$group")
+    CODE=$(echo "$RESP" | python3 -c "import sys,json; print(json.load(sys.stdin).get('code',''))" 2>/dev/null)
+    [ "$CODE" != "200" ] && FAILED=$((FAILED + 1))
+done
+SINGLE_MS=$(( $(now_ms) - START ))
+echo -e "  逐批次创建: ${YELLOW}${SINGLE_MS} ms${NC}（失败 $FAILED 次）"
+cleanup
+
+# ── 批量创建 ──
+ORDER_GROUPS=$(seed_orders)
+BODY=$(echo "$ORDER_GROUPS" | python3 -c "
+import sys, json
+groups = json.load(sys.stdin)
+print(json.dumps({'warehouseId': $WAREHOUSE_ID,
+                  'batches': [{'driverId': $DRIVER_ID, 'orderIds': g} for g in groups]}))
+")
+START=$(now_ms)
+RESP=$(curl -s -X POST "$BASE_URL/orders/delivery-batches/bulk" \
+    -H "Authorization: Bearer $DRIVER_TOKEN" \
+    -H "Content-Type: application/json" \
+    -d "$BODY")
+BULK_MS=$(( $(now_ms) - START ))
+CODE=$(echo "$RESP" | python3 -c "import sys,json; print(json.load(sys.stdin).get('code',''))" 2>/dev/null)
+echo -e "  批量创建:   ${YELLOW}${BULK_MS} ms${NC}（code=$CODE）"
+cleanup
+
+if [ "$FAILED" -eq 0 ] && [ "$CODE" = "200" ]; then
+    echo -e "${GREEN}✅ 完成${NC}"
+    exit 0
+fi
+echo -e "${RED}⚠️  存在失败请求${NC}"
+exit 1
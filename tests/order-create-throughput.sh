@@ -0,0 +1,114 @@
+#!/bin/bash
+# ============================================================
+# 下单吞吐测试
+# 以固定并发调用 POST /orders/create 下 N 单，统计吞吐、429 拒绝数，
+# 并核对订单数与商城剩余库存（不超卖）
+#
+# 对比普通下单与合并提交：分别以两种模式启动后端各跑一次
+#   普通下单:   ORDER_INGESTION_ENABLED=false（默认）
+#   合并提交:   ORDER_INGESTION_ENABLED=true
+#
+# 用法: ./order-create-throughput.sh [下单数] [并发数]
+# ============================================================
+
+BASE_URL="http://localhost:8080/api"
+ORDERS=${1:-2000}
+CONCURRENCY=${2:-32}
+CUSTOMER_ID=9    # 刘天赐，已设置默认收货地址
+MERCHANT_ID=2    # 京东自营
+WAREHOUSE_ID=1
+TAG="吞吐测试-下单"
+PRICE="1.00"
+
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+YELLOW='\033[1;33m'
+CYAN='\033[0;36m'
+NC='\033[0m'
+
+run_sql() {
+    docker exec grad-logistics-db mysql -uroot -p'GradProject2026!Secure' ecommerce_logistics --default-character-set=utf8mb4 -N -e "$1" 2>/dev/null
+}
+run_sql_exec() {
+    docker exec grad-logistics-db mysql -uroot -p'GradProject2026!Secure' ecommerce_logistics --default-character-set=utf8mb4 -e "$1" 2>/dev/null
+}
+
+login() {
+    local username="$1"
+    local role="$2"
+    local resp=$(curl -s -X POST "$BASE_URL/auth/login" \
+        -H "Content-Type: application/json" \
+        -d "{\"username\":\"$username\",\"password\":\"123\",\"role\":\"$role\"}")
+    echo "$resp" | python3 -c "import sys,json; d=json.load(sys.stdin); print(d.get('data',{}).get('token',''))" 2>/dev/null
+}
+
+now_ms() {
+    python3 -c "import time; print(int(time.time() * 1000))"
+}
+
+cleanup() {
+    run_sql_exec "DELETE FROM orders WHERE product_name='$TAG';
+DELETE FROM mall WHERE product_name='$TAG';
+DELETE FROM inventory WHERE product_name='$TAG';"
+    # 测试订单已计入日汇总，删除后重建
+    if [ -n "$ADMIN_TOKEN" ]; then
+        curl -s -X POST "$BASE_URL/admin/stats/rollup/rebuild" -H "Authorization: Bearer $ADMIN_TOKEN" > /dev/null
+    fi
+}
+
+HEALTH=$(curl -s "$BASE_URL/auth/test")
+if [ "$HEALTH" != "Backend is running!" ]; then
+    echo -e "${RED}❌ Backend is not running at $BASE_URL${NC}"
+    exit 1
+fi
+
+CONSUMER_TOKEN=$(login "刘天赐" "consumer")
+ADMIN_TOKEN=$(login "系统管理员" "admin")
+if [ -z "$CONSUMER_TOKEN" ]; then
+    echo -e "${RED}❌ Login failed${NC}"
+    exit 1
+fi
+
+cleanup
+
+# 库存只够一半订单，同时验证售罄后不超卖
+STOCK=$((ORDERS / 2))
+run_sql_exec "INSERT INTO inventory (user_id, product_name, description, quantity, stock_in_date, is_published, warehouse_id) VALUES ($MERCHANT_ID, '$TAG', '吞吐测试用商品', $STOCK, NOW(), 1, $WAREHOUSE_ID);"
+PRODUCT_ID=$(run_sql "SELECT product_id FROM inventory WHERE product_name='$TAG' ORDER BY product_id DESC LIMIT 1;" | tr -d '[:space:]')
+run_sql_exec "INSERT INTO mall (product_id, merchant_id, product_name, description, available_quantity, price, is_published, warehouse_id, publish_time) VALUES ($PRODUCT_ID, $MERCHANT_ID, '$TAG', '吞吐测试用商品', $STOCK, $PRICE, 1, $WAREHOUSE_ID, NOW());"
+
+echo -e "${CYAN}下单数: $ORDERS, 并发数: $CONCURRENCY, 库存: $STOCK (product_id=$PRODUCT_ID)${NC}"
+
+RESULTS=$(mktemp)
+BODY="{\"customerId\":$CUSTOMER_ID,\"productId\":$PRODUCT_ID,\"quantity\":1,\"price\":$PRICE}"
+START=$(now_ms)
+seq "$ORDERS" | xargs -P "$CONCURRENCY" -I{} curl -s -o /dev/null -w "%{http_code}\n" \
+    -X POST "$BASE_URL/orders/create" \
+    -H "Authorization: Bearer $CONSUMER_TOKEN" \
+    -H "Content-Type: application/json" \
+    -d "$BODY" >> "$RESULTS"
+ELAPSED_MS=$(( $(now_ms) - START ))
+
+OK=$(grep -c '^200$' "$RESULTS")
+REJECTED=$(grep -c '^429$' "$RESULTS")
+FAILED=$(( ORDERS - OK - REJECTED ))
+rm -f "$RESULTS"
+
+CREATED=$(run_sql "SELECT COUNT(*) FROM orders WHERE product_name='$TAG';" | tr -d '[:space:]')
+REMAINING=$(run_sql "SELECT available_quantity FROM mall WHERE product_id=$PRODUCT_ID;" | tr -d '[:space:]')
+RATE=$(python3 -c "print(round($ORDERS * 1000 / max($ELAPSED_MS, 1)))")
+
+echo -e "  耗时:       ${YELLOW}${ELAPSED_MS} ms${NC}（${RATE} 请求/秒）"
+echo -e "  HTTP 200:   $OK（数据库中新订单 $CREATED 单）"
+echo -e "  HTTP 429:   $REJECTED"
+echo -e "  其他:       $FAILED（含库存不足）"
+echo -e "  剩余库存:   $REMAINING"
+
+cleanup
+
+if [ "$CREATED" -eq "$OK" ] && [ $((CREATED + REMAINING)) -eq "$STOCK" ]; then
+    echo -e "${GREEN}✅ 售出 $CREATED 单 + 剩余 $REMAINING = 库存 $STOCK，没有超卖${NC}"
+    exit 0
+fi
+echo -e "${RED}⚠️  订单数 $CREATED、成功响应 $OK、剩余库存 $REMAINING 与库存 $STOCK 不一致${NC}"
+exit 1